@@ -0,0 +1,57 @@
+package org.nd4j;
+
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.CustomOp;
+import org.nd4j.linalg.api.ops.DynamicCustomOp;
+import org.nd4j.linalg.cpu.nativecpu.ops.CpuOpContext;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-op overhead of custom op execution on small tensors, where op context setup dominates.
+ * Compare the pooled path (default) against running with -Dorg.nd4j.linalg.cpu.opcontext.poolsize=0,
+ * and against creating a new context for every execution.
+ */
+public class CustomOpContext {
+
+    @State(Scope.Thread)
+    public static class SetupState {
+        public INDArray x = Nd4j.rand(DataType.FLOAT, 4, 4);
+        public INDArray y = Nd4j.rand(DataType.FLOAT, 4, 4);
+        public INDArray out = Nd4j.create(DataType.FLOAT, 4, 4);
+        public CustomOp add = DynamicCustomOp.builder("add")
+                .addInputs(x, y)
+                .addOutputs(out)
+                .build();
+        public CustomOp clip = DynamicCustomOp.builder("clipbyvalue")
+                .addInputs(x)
+                .addOutputs(out)
+                .addFloatingPointArguments(0.25, 0.75)
+                .build();
+    }
+
+
+    @Benchmark @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void addPooledContext(SetupState state) {
+        Nd4j.getExecutioner().exec(state.add);
+    }
+
+    @Benchmark @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void clipPooledContext(SetupState state) {
+        Nd4j.getExecutioner().exec(state.clip);
+    }
+
+    @Benchmark @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void addNewContext(SetupState state) {
+        //Close the context so that the native side is released immediately, as it would be without pooling
+        try (CpuOpContext ctx = new CpuOpContext()) {
+            ctx.setInputArrays(state.x, state.y);
+            ctx.setOutputArrays(state.out);
+            Nd4j.getExecutioner().exec(state.add, ctx);
+        }
+    }
+
+}
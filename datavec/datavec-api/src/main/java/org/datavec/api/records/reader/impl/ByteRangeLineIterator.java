@@ -0,0 +1,137 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.records.reader.impl;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the lines in a byte range of a stream, tracking the byte offset at which each line starts.
+ * Lines are terminated by '\n' (with any trailing '\r' removed) or by the end of the range.
+ * Used by {@link LineRecordReader} for {@link org.datavec.api.split.ByteRangeSplit}s.
+ */
+public class ByteRangeLineIterator implements Iterator<String>, Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final Charset charset;
+    private final long end;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPos;
+    private int bufferLen;
+    private long position;          //Offset of buffer[bufferPos]
+    private byte[] line = new byte[256];
+    private String next;
+    private long nextOffset;
+    /** Byte offset of the first character of the line most recently returned by {@link #next()} */
+    @Getter
+    private long lastLineOffset = -1;
+
+    /**
+     * @param in     Stream, positioned at the start offset
+     * @param start  Start offset of the range (used to report line offsets)
+     * @param length Length of the range, in bytes
+     * @param charset Charset for decoding lines
+     */
+    public ByteRangeLineIterator(InputStream in, long start, long length, Charset charset) {
+        this.in = in;
+        this.charset = charset;
+        this.position = start;
+        this.end = (length == Long.MAX_VALUE ? Long.MAX_VALUE : start + length);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null)
+            return true;
+        try {
+            return readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        String ret = next;
+        lastLineOffset = nextOffset;
+        next = null;
+        return ret;
+    }
+
+    private boolean readLine() throws IOException {
+        if (position >= end)
+            return false;
+        long lineStart = position;
+        int lineLen = 0;
+        boolean any = false;
+        while (position < end) {
+            if (bufferPos >= bufferLen) {
+                int toRead = (int) Math.min(buffer.length, end - position);
+                bufferLen = in.read(buffer, 0, toRead);
+                bufferPos = 0;
+                if (bufferLen <= 0) {
+                    bufferLen = 0;
+                    break;
+                }
+            }
+            any = true;
+            int i = bufferPos;
+            while (i < bufferLen && buffer[i] != '\n')
+                i++;
+            int n = i - bufferPos;
+            if (lineLen + n > line.length)
+                line = Arrays.copyOf(line, Math.max(2 * line.length, lineLen + n));
+            System.arraycopy(buffer, bufferPos, line, lineLen, n);
+            lineLen += n;
+            position += n;
+            bufferPos = i;
+            if (i < bufferLen) {
+                //Found newline
+                bufferPos++;
+                position++;
+                break;
+            }
+        }
+        if (!any)
+            return false;
+        if (lineLen > 0 && line[lineLen - 1] == '\r')
+            lineLen--;
+        next = new String(line, 0, lineLen, charset);
+        nextOffset = lineStart;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -25,12 +25,13 @@ import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.LineIterator;
 import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.metadata.RecordMetaData;
+import org.datavec.api.records.metadata.RecordMetaDataByteOffset;
 import org.datavec.api.records.metadata.RecordMetaDataLine;
 import org.datavec.api.records.reader.BaseRecordReader;
+import org.datavec.api.split.ByteRangeSplit;
 import org.datavec.api.split.InputSplit;
 import org.datavec.api.split.InputStreamInputSplit;
 import org.datavec.api.split.StringSplit;
@@ -41,7 +42,12 @@ import org.nd4j.common.primitives.Triple;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -59,6 +65,7 @@ public class LineRecordReader extends BaseRecordReader {
     protected int lineIndex = 0; //Line index within the current split
     protected Configuration conf;
     protected boolean initialized;
+    protected ByteRangeSplit.ByteRange[] byteRanges;    //Non-null only when reading a ByteRangeSplit
     @Getter @Setter
     protected String charset = StandardCharsets.UTF_8.name(); //Using String as StandardCharsets.UTF_8 is not serializable
 
@@ -72,6 +79,11 @@ public class LineRecordReader extends BaseRecordReader {
 
             this.locations = uris.toArray(new URI[0]);
         }
+        if (inputSplit instanceof ByteRangeSplit) {
+            this.byteRanges = ((ByteRangeSplit) inputSplit).getRanges().toArray(new ByteRangeSplit.ByteRange[0]);
+        } else {
+            this.byteRanges = null;
+        }
         this.iter = getIterator(0);
         this.initialized = true;
     }
@@ -149,14 +161,19 @@ public class LineRecordReader extends BaseRecordReader {
 
     @Override
     public void close() throws IOException {
-        if (iter != null) {
-            if (iter instanceof LineIterator) {
-                LineIterator iter2 = (LineIterator) iter;
-                iter2.close();
-            }
+        if (iter instanceof Closeable) {
+            ((Closeable) iter).close();
         }
     }
 
+    /**
+     * @return False if the current location is a byte range that starts part way through a file (so any header
+     * lines to be skipped are not part of the current location); true otherwise
+     */
+    protected boolean isAtStartOfFile() {
+        return byteRanges == null || byteRanges.length == 0 || byteRanges[splitIndex].getStart() == 0;
+    }
+
     @Override
     public void setConf(Configuration conf) {
         this.conf = conf;
@@ -218,6 +235,16 @@ public class LineRecordReader extends BaseRecordReader {
                     throw new RuntimeException("Unsupported encoding: " + charset, e);
                 }
             }
+        } else if (byteRanges != null) {
+            if (byteRanges.length > 0) {
+                ByteRangeSplit.ByteRange range = byteRanges[location];
+                try {
+                    iterator = new ByteRangeLineIterator(ByteRangeSplit.openAt(range.getUri(), range.getStart()),
+                            range.getStart(), range.length(), Charset.forName(charset));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error opening byte range " + range, e);
+                }
+            }
         } else {
             if (locations.length > 0) {
                 InputStream inputStream = streamCreatorFn.apply(locations[location]);
@@ -235,18 +262,29 @@ public class LineRecordReader extends BaseRecordReader {
 
     @SneakyThrows
     protected void closeIfRequired(Iterator<String> iterator) {
-        if (iterator instanceof LineIterator) {
-            LineIterator iter = (LineIterator) iterator;
-            iter.close();
+        if (iterator instanceof Closeable) {
+            ((Closeable) iterator).close();
         }
     }
 
     @Override
     public Record nextRecord() {
         List<Writable> next = next();
+        return new org.datavec.api.records.impl.Record(next, lineMetaData(LineRecordReader.class));
+    }
+
+    /**
+     * Create the metadata for the line most recently returned by {@link #next()}: a {@link RecordMetaDataByteOffset}
+     * when reading a {@link ByteRangeSplit}, or a {@link RecordMetaDataLine} otherwise
+     *
+     * @param readerClass Record reader class for the metadata
+     */
+    protected RecordMetaData lineMetaData(Class<?> readerClass) {
         URI uri = (locations == null || locations.length < 1 ? null : locations[splitIndex]);
-        RecordMetaData meta = new RecordMetaDataLine(this.lineIndex - 1, uri, LineRecordReader.class); //-1 as line number has been incremented already...
-        return new org.datavec.api.records.impl.Record(next, meta);
+        if (iter instanceof ByteRangeLineIterator) {
+            return new RecordMetaDataByteOffset(((ByteRangeLineIterator) iter).getLastLineOffset(), uri, readerClass);
+        }
+        return new RecordMetaDataLine(this.lineIndex - 1, uri, readerClass); //-1 as line number has been incremented already...
     }
 
     @Override
@@ -256,6 +294,9 @@ public class LineRecordReader extends BaseRecordReader {
 
     @Override
     public List<Record> loadFromMetaData(List<RecordMetaData> recordMetaDatas) throws IOException {
+        if (!recordMetaDatas.isEmpty() && recordMetaDatas.get(0) instanceof RecordMetaDataByteOffset) {
+            return loadFromByteOffsetMetaData(recordMetaDatas);
+        }
         //First: create a sorted list of the RecordMetaData
         List<Triple<Integer, RecordMetaDataLine, List<Writable>>> list = new ArrayList<>();
         Set<URI> uris = new HashSet<>();
@@ -371,4 +412,42 @@ public class LineRecordReader extends BaseRecordReader {
         }
         return out;
     }
+
+    private List<Record> loadFromByteOffsetMetaData(List<RecordMetaData> recordMetaDatas) throws IOException {
+        Charset cs = Charset.forName(charset);
+        Map<URI, FileChannel> channels = new HashMap<>();
+        List<Record> out = new ArrayList<>(recordMetaDatas.size());
+        try {
+            for (RecordMetaData rmd : recordMetaDatas) {
+                if (!(rmd instanceof RecordMetaDataByteOffset)) {
+                    throw new IllegalArgumentException(
+                                    "Invalid metadata; expected RecordMetaDataByteOffset instance; got: " + rmd);
+                }
+                RecordMetaDataByteOffset m = (RecordMetaDataByteOffset) rmd;
+                URI uri = m.getURI();
+                String line;
+                if ("file".equalsIgnoreCase(uri.getScheme())) {
+                    //Reuse one channel per file; the stream is not closed, as that would close the channel
+                    FileChannel ch = channels.get(uri);
+                    if (ch == null) {
+                        ch = FileChannel.open(Paths.get(uri), StandardOpenOption.READ);
+                        channels.put(uri, ch);
+                    }
+                    ch.position(m.getByteOffset());
+                    line = new ByteRangeLineIterator(Channels.newInputStream(ch), m.getByteOffset(), Long.MAX_VALUE, cs).next();
+                } else {
+                    try (ByteRangeLineIterator iter = new ByteRangeLineIterator(
+                                    ByteRangeSplit.openAt(uri, m.getByteOffset()), m.getByteOffset(), Long.MAX_VALUE, cs)) {
+                        line = iter.next();
+                    }
+                }
+                out.add(new org.datavec.api.records.impl.Record(Collections.<Writable>singletonList(new Text(line)), m));
+            }
+        } finally {
+            for (FileChannel ch : channels.values()) {
+                ch.close();
+            }
+        }
+        return out;
+    }
 }
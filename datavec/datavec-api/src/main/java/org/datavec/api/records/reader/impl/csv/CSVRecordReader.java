@@ -24,7 +24,6 @@ package org.datavec.api.records.reader.impl.csv;
 import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.metadata.RecordMetaData;
-import org.datavec.api.records.metadata.RecordMetaDataLine;
 import org.datavec.api.records.reader.impl.LineRecordReader;
 import org.datavec.api.split.InputSplit;
 import org.datavec.api.writable.Text;
@@ -134,6 +133,11 @@ public class CSVRecordReader extends LineRecordReader {
 
     private boolean skipLines() {
         if (!skippedLines && skipNumLines > 0) {
+            if (!isAtStartOfFile()) {
+                //Byte range starting part way through a file: header lines are not in this range
+                skippedLines = true;
+                return true;
+            }
             for (int i = 0; i < skipNumLines; i++) {
                 if (!super.hasNext()) {
                     return false;
@@ -197,9 +201,7 @@ public class CSVRecordReader extends LineRecordReader {
     @Override
     public Record nextRecord() {
         List<Writable> next = next();
-        URI uri = (locations == null || locations.length < 1 ? null : locations[splitIndex]);
-        RecordMetaData meta = new RecordMetaDataLine(this.lineIndex - 1, uri, CSVRecordReader.class); //-1 as line number has been incremented already...
-        return new org.datavec.api.records.impl.Record(next, meta);
+        return new org.datavec.api.records.impl.Record(next, lineMetaData(CSVRecordReader.class));
     }
 
     @Override
@@ -23,7 +23,6 @@ package org.datavec.api.records.reader.impl.regex;
 import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.metadata.RecordMetaData;
-import org.datavec.api.records.metadata.RecordMetaDataLine;
 import org.datavec.api.records.reader.impl.LineRecordReader;
 import org.datavec.api.split.InputSplit;
 import org.datavec.api.writable.Text;
@@ -61,7 +60,7 @@ public class RegexLineRecordReader extends LineRecordReader {
 
     @Override
     public List<Writable> next() {
-        if (numLinesSkipped < skipNumLines) {
+        if (numLinesSkipped < skipNumLines && isAtStartOfFile()) {
             for (int i = numLinesSkipped; i < skipNumLines; i++, numLinesSkipped++) {
                 if (!hasNext()) {
                     return new ArrayList<>();
@@ -107,9 +106,7 @@ public class RegexLineRecordReader extends LineRecordReader {
     @Override
     public Record nextRecord() {
         List<Writable> next = next();
-        URI uri = (locations == null || locations.length < 1 ? null : locations[splitIndex]);
-        RecordMetaData meta = new RecordMetaDataLine(this.lineIndex - 1, uri, RegexLineRecordReader.class); //-1 as line number has been incremented already...
-        return new org.datavec.api.records.impl.Record(next, meta);
+        return new org.datavec.api.records.impl.Record(next, lineMetaData(RegexLineRecordReader.class));
     }
 
     @Override
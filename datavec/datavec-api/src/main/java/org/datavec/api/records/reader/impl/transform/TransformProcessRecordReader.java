@@ -27,6 +27,7 @@ import org.datavec.api.records.metadata.RecordMetaData;
 import org.datavec.api.records.reader.RecordReader;
 import org.datavec.api.split.InputSplit;
 import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.columnar.ColumnarTransformExecutor;
 import org.datavec.api.writable.Writable;
 
 import java.io.DataInputStream;
@@ -40,13 +41,25 @@ import java.util.NoSuchElementException;
 public class TransformProcessRecordReader implements RecordReader {
     protected RecordReader recordReader;
     protected TransformProcess transformProcess;
+    protected ColumnarTransformExecutor columnarExecutor;
 
     //Cached/prefetched values, in case of filtering
     protected Record next;
 
     public TransformProcessRecordReader(RecordReader recordReader, TransformProcess transformProcess){
+        this(recordReader, transformProcess, false);
+    }
+
+    /**
+     * @param recordReader     Underlying record reader
+     * @param transformProcess Transform process to apply to each record
+     * @param columnarBatches  If true: {@link #next(int)} executes the transform process on whole batches of records
+     *                         in columnar form, using {@link ColumnarTransformExecutor}. Output is unchanged.
+     */
+    public TransformProcessRecordReader(RecordReader recordReader, TransformProcess transformProcess, boolean columnarBatches){
         this.recordReader = recordReader;
         this.transformProcess = transformProcess;
+        this.columnarExecutor = columnarBatches ? new ColumnarTransformExecutor(transformProcess) : null;
     }
 
     /**
@@ -81,6 +94,8 @@ public class TransformProcessRecordReader implements RecordReader {
 
     @Override
     public List<List<Writable>> next(int num) {
+        if(columnarExecutor != null)
+            return nextColumnar(num);
         if(!hasNext())
             throw new NoSuchElementException("No next element");
 
@@ -91,6 +106,32 @@ public class TransformProcessRecordReader implements RecordReader {
         return out;
     }
 
+    protected List<List<Writable>> nextColumnar(int num) {
+        if(next == null && !recordReader.hasNext())
+            throw new NoSuchElementException("No next element");
+
+        List<List<Writable>> out = new ArrayList<>(num);
+        if(next != null){
+            out.add(next.getRecord());
+            next = null;
+        }
+        //Filtered records are removed from the batch, so we may need to read more than once
+        while(out.size() < num && recordReader.hasNext()){
+            int toRead = num - out.size();
+            List<List<Writable>> raw;
+            if(recordReader.batchesSupported()){
+                raw = recordReader.next(toRead);
+            } else {
+                raw = new ArrayList<>(toRead);
+                for( int i=0; i<toRead && recordReader.hasNext(); i++ ){
+                    raw.add(recordReader.next());
+                }
+            }
+            out.addAll(columnarExecutor.execute(raw));
+        }
+        return out;
+    }
+
     /**
      * Get the next record
      *
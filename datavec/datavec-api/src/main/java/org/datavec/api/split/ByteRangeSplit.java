@@ -0,0 +1,277 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.split;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * An InputSplit over byte ranges of one or more files, for reading a single large file (or set of files) in
+ * parallel with line-based record readers such as {@link org.datavec.api.records.reader.impl.LineRecordReader} and
+ * {@link org.datavec.api.records.reader.impl.csv.CSVRecordReader}.<br>
+ * Use {@link #split(URI[], int)} (or one of its overloads) to partition files into splits of roughly equal size.
+ * Range boundaries are aligned to line starts when the splits are created, so every line belongs to exactly one
+ * range. Each split can then be given to a separate reader - on separate threads, or as the elements of a Spark RDD
+ * (this class is Serializable).<br>
+ * Note: {@link #locations()} returns one URI per range, in range order, so a file may appear more than once.<br>
+ * Line alignment assumes a charset in which '\n' is a single byte that does not occur inside other characters
+ * (true for UTF-8, ASCII and ISO-8859-x, but not for UTF-16).
+ */
+public class ByteRangeSplit implements InputSplit, Serializable {
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ByteRange implements Serializable {
+        private URI uri;
+        /** First byte of the range (inclusive) */
+        private long start;
+        /** End of the range (exclusive) */
+        private long end;
+
+        public long length() {
+            return end - start;
+        }
+    }
+
+    private final List<ByteRange> ranges;
+
+    public ByteRangeSplit(ByteRange... ranges) {
+        this(Arrays.asList(ranges));
+    }
+
+    public ByteRangeSplit(List<ByteRange> ranges) {
+        this.ranges = new ArrayList<>(ranges);
+    }
+
+    public List<ByteRange> getRanges() {
+        return Collections.unmodifiableList(ranges);
+    }
+
+    /**
+     * Split a single file into approximately equal sized, line-aligned splits
+     *
+     * @param file      File to split
+     * @param numSplits Maximum number of splits. Fewer splits may be returned for small files
+     */
+    public static List<ByteRangeSplit> split(File file, int numSplits) throws IOException {
+        return split(new URI[]{file.toURI()}, numSplits);
+    }
+
+    /**
+     * Split all locations of the specified InputSplit (for example, a {@link FileSplit}) into approximately equal
+     * sized, line-aligned splits
+     */
+    public static List<ByteRangeSplit> split(InputSplit split, int numSplits) throws IOException {
+        return split(split.locations(), numSplits);
+    }
+
+    /**
+     * Split the specified files into approximately equal sized, line-aligned splits. A split may contain ranges from
+     * more than one file (the end of one file and the start of the next).
+     *
+     * @param uris      Files to split
+     * @param numSplits Maximum number of splits. Fewer splits may be returned for small files, or files with
+     *                  very long lines
+     */
+    public static List<ByteRangeSplit> split(URI[] uris, int numSplits) throws IOException {
+        if (numSplits <= 0)
+            throw new IllegalArgumentException("Number of splits must be positive, got " + numSplits);
+        long[] lengths = new long[uris.length];
+        long total = 0;
+        for (int i = 0; i < uris.length; i++) {
+            lengths[i] = length(uris[i]);
+            total += lengths[i];
+        }
+        long target = Math.max(1, (total + numSplits - 1) / numSplits);
+
+        List<ByteRangeSplit> out = new ArrayList<>();
+        List<ByteRange> current = new ArrayList<>();
+        long remaining = target;
+        for (int i = 0; i < uris.length; i++) {
+            long pos = 0;
+            while (pos < lengths[i]) {
+                long end = Math.min(lengths[i], pos + remaining);
+                if (end < lengths[i])
+                    end = alignToLineStart(uris[i], end, lengths[i]);
+                current.add(new ByteRange(uris[i], pos, end));
+                remaining -= (end - pos);
+                pos = end;
+                if (remaining <= 0) {
+                    out.add(new ByteRangeSplit(current));
+                    current = new ArrayList<>();
+                    remaining = target;
+                }
+            }
+        }
+        if (!current.isEmpty())
+            out.add(new ByteRangeSplit(current));
+        return out;
+    }
+
+    /**
+     * @return The offset of the first line that starts at or after the specified offset, or the file length if no
+     * line starts after the offset
+     */
+    public static long alignToLineStart(URI uri, long offset, long fileLength) throws IOException {
+        if (offset <= 0)
+            return 0;
+        if (offset >= fileLength)
+            return fileLength;
+        //Start at offset-1: if that byte is a newline, offset is itself the start of a line
+        try (InputStream is = new BufferedInputStream(openAt(uri, offset - 1))) {
+            long pos = offset - 1;
+            int b;
+            while ((b = is.read()) != -1) {
+                pos++;
+                if (b == '\n')
+                    return pos;
+            }
+            return fileLength;
+        }
+    }
+
+    /**
+     * Open an input stream for the specified URI, positioned at the specified byte offset. Local files are opened
+     * with a seekable channel; other URIs are opened as a stream and skipped to the offset
+     */
+    public static InputStream openAt(URI uri, long offset) throws IOException {
+        if ("file".equalsIgnoreCase(uri.getScheme())) {
+            FileChannel ch = FileChannel.open(Paths.get(uri), StandardOpenOption.READ);
+            ch.position(offset);
+            return Channels.newInputStream(ch);
+        }
+        InputStream is = uri.toURL().openStream();
+        long toSkip = offset;
+        while (toSkip > 0) {
+            long skipped = is.skip(toSkip);
+            if (skipped <= 0) {
+                if (is.read() == -1)
+                    break;
+                skipped = 1;
+            }
+            toSkip -= skipped;
+        }
+        return is;
+    }
+
+    private static long length(URI uri) throws IOException {
+        if ("file".equalsIgnoreCase(uri.getScheme()))
+            return new File(uri).length();
+        long length = uri.toURL().openConnection().getContentLengthLong();
+        if (length < 0)
+            throw new IOException("Could not determine length of " + uri);
+        return length;
+    }
+
+    @Override
+    public boolean canWriteToLocation(URI location) {
+        return false;
+    }
+
+    @Override
+    public String addNewLocation() {
+        throw new UnsupportedOperationException("Unable to add new location.");
+    }
+
+    @Override
+    public String addNewLocation(String location) {
+        throw new UnsupportedOperationException("Unable to add new location.");
+    }
+
+    @Override
+    public void updateSplitLocations(boolean reset) {
+        //No-op
+    }
+
+    @Override
+    public boolean needsBootstrapForWrite() {
+        return false;
+    }
+
+    @Override
+    public void bootStrapForWrite() {
+        //No-op
+    }
+
+    @Override
+    public OutputStream openOutputStreamFor(String location) throws Exception {
+        throw new UnsupportedOperationException("ByteRangeSplit does not support writing");
+    }
+
+    @Override
+    public InputStream openInputStreamFor(String location) throws Exception {
+        return openAt(new URI(location), 0);
+    }
+
+    @Override
+    public long length() {
+        long sum = 0;
+        for (ByteRange r : ranges)
+            sum += r.length();
+        return sum;
+    }
+
+    @Override
+    public URI[] locations() {
+        URI[] out = new URI[ranges.size()];
+        for (int i = 0; i < out.length; i++)
+            out[i] = ranges.get(i).getUri();
+        return out;
+    }
+
+    @Override
+    public Iterator<URI> locationsIterator() {
+        return Arrays.asList(locations()).iterator();
+    }
+
+    @Override
+    public Iterator<String> locationsPathIterator() {
+        List<String> out = new ArrayList<>(ranges.size());
+        for (ByteRange r : ranges)
+            out.add(r.getUri().toString());
+        return out.iterator();
+    }
+
+    @Override
+    public void reset() {
+        //No-op
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ByteRangeSplit(ranges=" + ranges + ")";
+    }
+}
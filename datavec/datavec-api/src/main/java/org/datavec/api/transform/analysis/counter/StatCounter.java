@@ -82,7 +82,7 @@ public class StatCounter implements Serializable {
         if(this.count == 0){
             count = o.count;
             runningMean = o.runningMean;
-            runningMean = o.runningM2;
+            runningM2 = o.runningM2;
             max = o.max;
             min = o.min;
         } else {
@@ -0,0 +1,174 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.analysis.sketch;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Count-min sketch for approximate frequencies of string values, plus a bounded set of heavy hitter candidates
+ * used to report the most frequent values.<br>
+ * Estimates never under-count: with width w and depth d, the over-count is at most 2N/w with probability
+ * 1 - 2^-d, where N is the total count. The candidate set holds at most {@code maxTracked} values; a new value
+ * replaces the current smallest candidate only when its estimated count is larger.<br>
+ * Sketches with the same width, depth and maxTracked can be merged.
+ */
+public class CountMinSketch implements Serializable {
+
+    public static final int DEFAULT_DEPTH = 5;
+    public static final int DEFAULT_WIDTH = 2048;
+    public static final int DEFAULT_MAX_TRACKED = 100;
+
+    @Getter
+    private final int depth;
+    @Getter
+    private final int width;
+    @Getter
+    private final int maxTracked;
+    private final long[][] table;
+    @Getter
+    private long countTotal;
+    private final Map<String, Long> candidates = new HashMap<>();
+    //Lower bound on the smallest candidate count: candidate counts only ever increase
+    private long minCandidateLowerBound;
+
+    public CountMinSketch() {
+        this(DEFAULT_DEPTH, DEFAULT_WIDTH, DEFAULT_MAX_TRACKED);
+    }
+
+    public CountMinSketch(int depth, int width, int maxTracked) {
+        if (depth <= 0 || width <= 0 || maxTracked < 0)
+            throw new IllegalArgumentException("Depth and width must be positive and maxTracked must be non-negative:"
+                            + " got depth=" + depth + ", width=" + width + ", maxTracked=" + maxTracked);
+        this.depth = depth;
+        this.width = width;
+        this.maxTracked = maxTracked;
+        this.table = new long[depth][width];
+    }
+
+    public void add(String value) {
+        add(value, 1);
+    }
+
+    public void add(String value, long count) {
+        long hash = SketchHash.hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long est = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int idx = bucket(h1, h2, i);
+            table[i][idx] += count;
+            est = Math.min(est, table[i][idx]);
+        }
+        countTotal += count;
+        offerCandidate(value, est);
+    }
+
+    /**
+     * @return Estimated count for the specified value. Never less than the true count.
+     */
+    public long estimate(String value) {
+        long hash = SketchHash.hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long est = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            est = Math.min(est, table[i][bucket(h1, h2, i)]);
+        }
+        return est;
+    }
+
+    /**
+     * @param n Maximum number of values to return
+     * @return Up to n of the most frequent values with their estimated counts, ordered from highest to lowest count
+     */
+    public LinkedHashMap<String, Long> topK(int n) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(candidates.entrySet());
+        entries.sort((a, b) -> {
+            int c = -Long.compare(a.getValue(), b.getValue());
+            return c != 0 ? c : a.getKey().compareTo(b.getKey());
+        });
+        LinkedHashMap<String, Long> out = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(n, entries.size()); i++) {
+            out.put(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+        return out;
+    }
+
+    public CountMinSketch merge(CountMinSketch other) {
+        if (other == null)
+            return this;
+        if (other.depth != depth || other.width != width || other.maxTracked != maxTracked)
+            throw new IllegalStateException("Cannot merge count-min sketches with different configuration: (depth="
+                            + depth + ",width=" + width + ",maxTracked=" + maxTracked + ") vs. (depth=" + other.depth
+                            + ",width=" + other.width + ",maxTracked=" + other.maxTracked + ")");
+        for (int i = 0; i < depth; i++) {
+            for (int j = 0; j < width; j++) {
+                table[i][j] += other.table[i][j];
+            }
+        }
+        countTotal += other.countTotal;
+
+        //Re-estimate all candidates against the merged table, and keep the largest
+        Set<String> all = new HashSet<>(candidates.keySet());
+        all.addAll(other.candidates.keySet());
+        candidates.clear();
+        minCandidateLowerBound = 0;
+        for (String s : all) {
+            offerCandidate(s, estimate(s));
+        }
+        return this;
+    }
+
+    private int bucket(int h1, int h2, int row) {
+        //Kirsch-Mitzenmacher: derive the row hashes from two halves of one 64-bit hash
+        int combined = h1 + row * h2;
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+
+    private void offerCandidate(String value, long estimate) {
+        if (maxTracked == 0)
+            return;
+        if (candidates.containsKey(value) || candidates.size() < maxTracked) {
+            candidates.put(value, estimate);
+            return;
+        }
+        if (estimate <= minCandidateLowerBound)
+            return;
+
+        String minKey = null;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> e : candidates.entrySet()) {
+            if (e.getValue() < minCount) {
+                minCount = e.getValue();
+                minKey = e.getKey();
+            }
+        }
+        if (estimate > minCount) {
+            candidates.remove(minKey);
+            candidates.put(value, estimate);
+        } else {
+            minCandidateLowerBound = minCount;
+        }
+    }
+}
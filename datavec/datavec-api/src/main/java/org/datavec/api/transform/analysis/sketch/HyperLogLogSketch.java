@@ -0,0 +1,116 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.analysis.sketch;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * HyperLogLog sketch for approximate distinct counts, using a fixed 2^precision registers (one byte each).
+ * Relative standard error is approximately 1.04 / sqrt(2^precision) - i.e., about 1.6% for the default
+ * precision of 12 (4KB of state). Sketches with the same precision can be merged losslessly.
+ */
+public class HyperLogLogSketch implements Serializable {
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    @Getter
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLogSketch() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLogSketch(int precision) {
+        if (precision < 4 || precision > 18)
+            throw new IllegalArgumentException("Precision must be between 4 and 18 inclusive, got " + precision);
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(String value) {
+        addHash(SketchHash.hash(value));
+    }
+
+    public void add(double value) {
+        addHash(SketchHash.hash(value));
+    }
+
+    /**
+     * Add a pre-hashed value. The hash should be well mixed, such as those returned by {@link SketchHash}
+     */
+    public void addHash(long hash) {
+        int idx = (int) (hash >>> (64 - precision));
+        long w = hash << precision;
+        int rank = (w == 0 ? 64 - precision : Long.numberOfLeadingZeros(w)) + 1;
+        if (rank > registers[idx])
+            registers[idx] = (byte) rank;
+    }
+
+    public HyperLogLogSketch merge(HyperLogLogSketch other) {
+        if (other == null)
+            return this;
+        if (other.precision != precision)
+            throw new IllegalStateException("Cannot merge HyperLogLog sketches with different precision: "
+                            + precision + " vs. " + other.precision);
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i])
+                registers[i] = other.registers[i];
+        }
+        return this;
+    }
+
+    /**
+     * @return Estimated number of distinct values added to this sketch
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0.0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0)
+                zeros++;
+        }
+        double alpha;
+        switch (m) {
+            case 16:
+                alpha = 0.673;
+                break;
+            case 32:
+                alpha = 0.697;
+                break;
+            case 64:
+                alpha = 0.709;
+                break;
+            default:
+                alpha = 0.7213 / (1.0 + 1.079 / m);
+        }
+        double e = alpha * m * (double) m / sum;
+        if (e <= 2.5 * m && zeros > 0) {
+            //Small range correction: linear counting
+            e = m * Math.log(m / (double) zeros);
+        }
+        return Math.round(e);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.analysis.sketch;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * KLL quantile sketch (Karnin, Lang and Liberty, 2016) over double values.<br>
+ * Values are held in a hierarchy of compactors: level h holds items of weight 2^h, and when a level exceeds its
+ * capacity it is sorted and every second item (with a random offset) is promoted to the next level. Capacities
+ * decay geometrically (by a factor of 2/3) towards the lower levels, so memory is O(k) regardless of the number of
+ * values added. Rank error is approximately 1.7 / k with high probability.<br>
+ * Sketches with the same k can be merged; the result has the same error guarantees as a sketch built over the
+ * concatenated data. The total weight of retained items always equals {@link #getN()}, so histograms derived
+ * from the sketch sum to the exact number of values added.
+ */
+public class KllSketch implements Serializable {
+
+    public static final int DEFAULT_K = 200;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    @Getter
+    private final int k;
+    @Getter
+    private long n;
+    @Getter
+    private double min = Double.MAX_VALUE;
+    @Getter
+    private double max = -Double.MAX_VALUE;
+    private double[][] levels;
+    private int[] sizes;
+    private final Random rng;
+
+    public KllSketch() {
+        this(DEFAULT_K, 12345);
+    }
+
+    public KllSketch(int k, long seed) {
+        if (k < 8)
+            throw new IllegalArgumentException("k must be at least 8, got " + k);
+        this.k = k;
+        this.levels = new double[][] {new double[Math.min(k, 16)]};
+        this.sizes = new int[1];
+        this.rng = new Random(seed);
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value))
+            return;
+        append(0, value);
+        n++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (retained() > totalCapacity())
+            compress();
+    }
+
+    public KllSketch merge(KllSketch other) {
+        if (other == null || other.n == 0)
+            return this;
+        if (other.k != k)
+            throw new IllegalStateException("Cannot merge KLL sketches with different k: " + k + " vs. " + other.k);
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        n += other.n;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        while (retained() > totalCapacity())
+            compress();
+        return this;
+    }
+
+    /**
+     * @param q Quantile, 0.0 to 1.0 inclusive
+     * @return Approximate value at the specified quantile, or NaN if no values have been added
+     */
+    public double quantile(double q) {
+        if (n == 0)
+            return Double.NaN;
+        if (q <= 0.0)
+            return min;
+        if (q >= 1.0)
+            return max;
+        int total = retained();
+        double[] values = new double[total];
+        long[] weights = new long[total];
+        sortedItems(values, weights);
+        double target = q * n;
+        long cumulative = 0;
+        for (int i = 0; i < total; i++) {
+            cumulative += weights[i];
+            if (cumulative >= target)
+                return values[i];
+        }
+        return max;
+    }
+
+    /**
+     * @return Approximate fraction of values less than or equal to the specified value
+     */
+    public double rank(double value) {
+        if (n == 0)
+            return Double.NaN;
+        long weight = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                if (levels[h][i] <= value)
+                    weight += 1L << h;
+            }
+        }
+        return weight / (double) n;
+    }
+
+    /**
+     * Approximate histogram over the specified bin edges. Bin i covers [edges[i], edges[i+1]), except for the
+     * last bin which also includes edges[edges.length-1]. Values outside of the edges are counted in the first/last
+     * bin, consistent with {@link org.datavec.api.transform.analysis.histogram.DoubleHistogramCounter}
+     *
+     * @param edges Bin edges, length nBins+1, sorted ascending
+     * @return Counts for each bin; these sum to {@link #getN()}
+     */
+    public long[] histogram(double[] edges) {
+        int nBins = edges.length - 1;
+        long[] counts = new long[nBins];
+        for (int h = 0; h < levels.length; h++) {
+            long w = 1L << h;
+            for (int i = 0; i < sizes[h]; i++) {
+                int idx = Arrays.binarySearch(edges, levels[h][i]);
+                if (idx < 0)
+                    idx = -idx - 2;     //Insertion point - 1: index of the largest edge less than the value
+                idx = Math.max(0, Math.min(nBins - 1, idx));
+                counts[idx] += w;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return Number of values currently retained in the sketch
+     */
+    public int retained() {
+        int sum = 0;
+        for (int s : sizes)
+            sum += s;
+        return sum;
+    }
+
+    private void sortedItems(double[] values, long[] weights) {
+        //Sort (value, weight) pairs by value via an index sort over the packed values
+        int total = values.length;
+        double[] v = new double[total];
+        long[] w = new long[total];
+        int pos = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                v[pos] = levels[h][i];
+                w[pos++] = 1L << h;
+            }
+        }
+        Integer[] order = new Integer[total];
+        for (int i = 0; i < total; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(v[a], v[b]));
+        for (int i = 0; i < total; i++) {
+            values[i] = v[order[i]];
+            weights[i] = w[order[i]];
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private int totalCapacity() {
+        int sum = 0;
+        for (int h = 0; h < levels.length; h++)
+            sum += capacity(h);
+        return sum;
+    }
+
+    private void append(int level, double value) {
+        while (level >= levels.length) {
+            levels = Arrays.copyOf(levels, levels.length + 1);
+            levels[levels.length - 1] = new double[16];
+            sizes = Arrays.copyOf(sizes, sizes.length + 1);
+        }
+        if (sizes[level] == levels[level].length)
+            levels[level] = Arrays.copyOf(levels[level], Math.max(16, 2 * levels[level].length));
+        levels[level][sizes[level]++] = value;
+    }
+
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            if (sizes[h] < capacity(h))
+                continue;
+
+            double[] items = levels[h];
+            int size = sizes[h];
+            Arrays.sort(items, 0, size);
+            //With an odd number of items, the largest stays at this level so the promoted items pair up exactly
+            int even = size - (size & 1);
+            int offset = rng.nextBoolean() ? 1 : 0;
+            for (int i = offset; i < even; i += 2) {
+                append(h + 1, items[i]);
+            }
+            //Note append() may have reallocated levels, but not level h itself
+            if ((size & 1) == 1) {
+                levels[h][0] = items[size - 1];
+                sizes[h] = 1;
+            } else {
+                sizes[h] = 0;
+            }
+            return;
+        }
+    }
+}
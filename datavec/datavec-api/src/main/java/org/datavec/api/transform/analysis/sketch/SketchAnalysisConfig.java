@@ -0,0 +1,116 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.analysis.sketch;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Sizing for the sketches used by {@link SketchAnalysisState}. States can only be merged if they were created
+ * with equal configurations.
+ */
+@Data
+public class SketchAnalysisConfig implements Serializable {
+
+    private final int hllPrecision;
+    private final int kllK;
+    private final int countMinDepth;
+    private final int countMinWidth;
+    private final int maxTrackedCategories;
+    private final long seed;
+
+    private SketchAnalysisConfig(Builder builder) {
+        this.hllPrecision = builder.hllPrecision;
+        this.kllK = builder.kllK;
+        this.countMinDepth = builder.countMinDepth;
+        this.countMinWidth = builder.countMinWidth;
+        this.maxTrackedCategories = builder.maxTrackedCategories;
+        this.seed = builder.seed;
+    }
+
+    public static SketchAnalysisConfig defaultConfig() {
+        return new Builder().build();
+    }
+
+    public static class Builder {
+        private int hllPrecision = HyperLogLogSketch.DEFAULT_PRECISION;
+        private int kllK = KllSketch.DEFAULT_K;
+        private int countMinDepth = CountMinSketch.DEFAULT_DEPTH;
+        private int countMinWidth = CountMinSketch.DEFAULT_WIDTH;
+        private int maxTrackedCategories = CountMinSketch.DEFAULT_MAX_TRACKED;
+        private long seed = 12345;
+
+        /**
+         * @param hllPrecision HyperLogLog precision for distinct counts: 2^precision registers are used, for a
+         *                     relative error of about 1.04/sqrt(2^precision). Default: 12
+         */
+        public Builder hllPrecision(int hllPrecision) {
+            this.hllPrecision = hllPrecision;
+            return this;
+        }
+
+        /**
+         * @param kllK KLL sketch size parameter for quantiles and histograms. Rank error is about 1.7/k. Default: 200
+         */
+        public Builder kllK(int kllK) {
+            this.kllK = kllK;
+            return this;
+        }
+
+        /**
+         * @param countMinDepth Number of rows (hash functions) in the count-min sketch. Default: 5
+         */
+        public Builder countMinDepth(int countMinDepth) {
+            this.countMinDepth = countMinDepth;
+            return this;
+        }
+
+        /**
+         * @param countMinWidth Number of counters per row in the count-min sketch. Default: 2048
+         */
+        public Builder countMinWidth(int countMinWidth) {
+            this.countMinWidth = countMinWidth;
+            return this;
+        }
+
+        /**
+         * @param maxTrackedCategories Maximum number of most frequent values to track for categorical and string
+         *                             columns. Default: 100
+         */
+        public Builder maxTrackedCategories(int maxTrackedCategories) {
+            this.maxTrackedCategories = maxTrackedCategories;
+            return this;
+        }
+
+        /**
+         * @param seed Seed for the randomized compaction in KLL sketches
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public SketchAnalysisConfig build() {
+            return new SketchAnalysisConfig(this);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.analysis.sketch;
+
+import lombok.Getter;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.analysis.DataAnalysis;
+import org.datavec.api.transform.analysis.columns.ColumnAnalysis;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.Writable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass, mergeable analysis state for a data set, built on fixed-size sketches (see {@link SketchColumnState}).
+ * Unlike {@link org.datavec.api.transform.analysis.AnalysisCounter}-based analysis, memory does not grow with the
+ * number of distinct values, and no second pass is required for histograms.<br>
+ * States can be updated incrementally as new data arrives via {@link #add(List)}, and states computed over separate
+ * chunks or partitions (with the same schema and configuration) can be combined via {@link #merge(SketchAnalysisState)}.
+ * Use {@link #toDataAnalysis(int)} to get the standard {@link DataAnalysis} at any point.
+ */
+public class SketchAnalysisState implements Serializable {
+
+    @Getter
+    private final Schema schema;
+    @Getter
+    private final SketchAnalysisConfig config;
+    private final List<SketchColumnState> columns;
+
+    public SketchAnalysisState(Schema schema) {
+        this(schema, SketchAnalysisConfig.defaultConfig());
+    }
+
+    public SketchAnalysisState(Schema schema, SketchAnalysisConfig config) {
+        this.schema = schema;
+        this.config = config;
+        List<ColumnType> columnTypes = schema.getColumnTypes();
+        this.columns = new ArrayList<>(columnTypes.size());
+        for (ColumnType ct : columnTypes) {
+            columns.add(new SketchColumnState(ct, config));
+        }
+    }
+
+    public SketchAnalysisState add(List<Writable> writables) {
+        int size = columns.size();
+        if (size != writables.size())
+            throw new IllegalStateException("Writables list and number of columns does not match (" + writables.size()
+                            + " vs " + size + ")");
+        for (int i = 0; i < size; i++) {
+            columns.get(i).add(writables.get(i));
+        }
+        return this;
+    }
+
+    public SketchAnalysisState merge(SketchAnalysisState other) {
+        if (other == null)
+            return this;
+        if (!config.equals(other.config))
+            throw new IllegalStateException("Cannot merge sketch analysis states with different configurations: "
+                            + config + " vs. " + other.config);
+        if (columns.size() != other.columns.size())
+            throw new IllegalStateException("Number of columns differs: " + columns.size() + " vs. "
+                            + other.columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            columns.get(i).merge(other.columns.get(i));
+        }
+        return this;
+    }
+
+    public SketchColumnState getColumnState(String columnName) {
+        return columns.get(schema.getIndexOfColumn(columnName));
+    }
+
+    /**
+     * @return Estimated number of distinct values in the specified column
+     * @see SketchColumnState#getDistinctCount()
+     */
+    public long getDistinctCount(String columnName) {
+        return getColumnState(columnName).getDistinctCount();
+    }
+
+    /**
+     * @return Approximate value at the specified quantile for the column
+     * @see SketchColumnState#getQuantile(double)
+     */
+    public double getQuantile(String columnName, double quantile) {
+        return getColumnState(columnName).getQuantile(quantile);
+    }
+
+    /**
+     * @return Up to n of the most frequent values of a string or categorical column, with estimated counts
+     * @see SketchColumnState#getTopValues(int)
+     */
+    public Map<String, Long> getTopValues(String columnName, int n) {
+        return getColumnState(columnName).getTopValues(n);
+    }
+
+    /**
+     * Convert the current state to a standard DataAnalysis object. The state itself is not modified, and can
+     * continue to be updated or merged.
+     *
+     * @param maxHistogramBuckets Number of histogram buckets for numerical and string columns
+     */
+    public DataAnalysis toDataAnalysis(int maxHistogramBuckets) {
+        List<ColumnAnalysis> list = new ArrayList<>(columns.size());
+        for (SketchColumnState s : columns) {
+            list.add(s.toColumnAnalysis(maxHistogramBuckets));
+        }
+        return new DataAnalysis(schema, list);
+    }
+}
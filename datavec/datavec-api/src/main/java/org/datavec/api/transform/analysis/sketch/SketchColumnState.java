@@ -0,0 +1,300 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.analysis.sketch;
+
+import lombok.Getter;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.analysis.columns.*;
+import org.datavec.api.transform.analysis.counter.BytesAnalysisCounter;
+import org.datavec.api.transform.analysis.counter.NDArrayAnalysisCounter;
+import org.datavec.api.transform.analysis.counter.StatCounter;
+import org.datavec.api.writable.NullWritable;
+import org.datavec.api.writable.Writable;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Mergeable, fixed-size analysis state for a single column.<br>
+ * Numerical columns (including time and boolean) keep exact moments and counts, a {@link KllSketch} for
+ * quantiles and histograms, and a {@link HyperLogLogSketch} for distinct counts. String and categorical columns
+ * keep a {@link HyperLogLogSketch} and a {@link CountMinSketch} for their most frequent values; string columns
+ * also sketch their lengths. Bytes and NDArray columns use the exact (already fixed-size) analysis counters.<br>
+ * Null values, and values that can't be parsed for numerical columns, are counted as missing rather than failing
+ * the analysis.
+ */
+public class SketchColumnState implements Serializable {
+
+    @Getter
+    private final ColumnType columnType;
+    @Getter
+    private long countTotal;
+    @Getter
+    private long countMissing;
+    @Getter
+    private long countNaN;
+    @Getter
+    private long countZero;
+    @Getter
+    private long countPositive;
+    @Getter
+    private long countNegative;
+    @Getter
+    private long countMinValue;
+    @Getter
+    private long countMaxValue;
+
+    private StatCounter stats;
+    @Getter
+    private KllSketch quantiles;
+    private HyperLogLogSketch distinct;
+    private CountMinSketch frequencies;
+    private BytesAnalysisCounter bytesCounter;
+    private NDArrayAnalysisCounter ndArrayCounter;
+
+    public SketchColumnState(ColumnType columnType, SketchAnalysisConfig config) {
+        this.columnType = columnType;
+        switch (columnType) {
+            case String:
+                frequencies = new CountMinSketch(config.getCountMinDepth(), config.getCountMinWidth(),
+                                config.getMaxTrackedCategories());
+                //Fall through: string lengths are sketched like a numerical column
+            case Integer:
+            case Long:
+            case Double:
+            case Float:
+            case Time:
+            case Boolean:
+                stats = new StatCounter();
+                quantiles = new KllSketch(config.getKllK(), config.getSeed());
+                distinct = new HyperLogLogSketch(config.getHllPrecision());
+                break;
+            case Categorical:
+                frequencies = new CountMinSketch(config.getCountMinDepth(), config.getCountMinWidth(),
+                                config.getMaxTrackedCategories());
+                distinct = new HyperLogLogSketch(config.getHllPrecision());
+                break;
+            case Bytes:
+                bytesCounter = new BytesAnalysisCounter();
+                break;
+            case NDArray:
+                ndArrayCounter = new NDArrayAnalysisCounter();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown column type: " + columnType);
+        }
+    }
+
+    public SketchColumnState add(Writable writable) {
+        if (writable == null || writable instanceof NullWritable) {
+            countMissing++;
+            return this;
+        }
+
+        switch (columnType) {
+            case String:
+                String str = writable.toString();
+                distinct.add(str);
+                frequencies.add(str);
+                addNumerical(str.length());
+                break;
+            case Categorical:
+                String cat = writable.toString();
+                distinct.add(cat);
+                frequencies.add(cat);
+                break;
+            case Bytes:
+                bytesCounter.add(writable);
+                break;
+            case NDArray:
+                ndArrayCounter.add(writable);
+                break;
+            default:
+                double d;
+                try {
+                    d = writable.toDouble();
+                } catch (NumberFormatException | UnsupportedOperationException e) {
+                    countMissing++;
+                    return this;
+                }
+                if (Double.isNaN(d)) {
+                    countNaN++;
+                    countTotal++;
+                    return this;
+                }
+                distinct.add(d);
+                addNumerical(d);
+                return this;
+        }
+        countTotal++;
+        return this;
+    }
+
+    private void addNumerical(double value) {
+        if (stats.getCount() == 0 || value < stats.getMin()) {
+            countMinValue = 1;
+        } else if (value == stats.getMin()) {
+            countMinValue++;
+        }
+        if (stats.getCount() == 0 || value > stats.getMax()) {
+            countMaxValue = 1;
+        } else if (value == stats.getMax()) {
+            countMaxValue++;
+        }
+
+        if (value == 0)
+            countZero++;
+        if (value >= 0)
+            countPositive++;
+        else
+            countNegative++;
+
+        stats.add(value);
+        quantiles.add(value);
+        if (columnType != ColumnType.String)
+            countTotal++;
+    }
+
+    public SketchColumnState merge(SketchColumnState other) {
+        if (other == null)
+            return this;
+        if (other.columnType != columnType)
+            throw new IllegalStateException("Cannot merge states for different column types: " + columnType
+                            + " vs. " + other.columnType);
+
+        if (stats != null && other.stats.getCount() > 0) {
+            if (stats.getCount() == 0 || other.stats.getMin() < stats.getMin()) {
+                countMinValue = other.countMinValue;
+            } else if (other.stats.getMin() == stats.getMin()) {
+                countMinValue += other.countMinValue;
+            }
+            if (stats.getCount() == 0 || other.stats.getMax() > stats.getMax()) {
+                countMaxValue = other.countMaxValue;
+            } else if (other.stats.getMax() == stats.getMax()) {
+                countMaxValue += other.countMaxValue;
+            }
+            stats.merge(other.stats);
+            quantiles.merge(other.quantiles);
+        }
+        if (distinct != null)
+            distinct.merge(other.distinct);
+        if (frequencies != null)
+            frequencies.merge(other.frequencies);
+        if (bytesCounter != null)
+            bytesCounter = bytesCounter.merge(other.bytesCounter);
+        if (ndArrayCounter != null)
+            ndArrayCounter = ndArrayCounter.merge(other.ndArrayCounter);
+
+        countTotal += other.countTotal;
+        countMissing += other.countMissing;
+        countNaN += other.countNaN;
+        countZero += other.countZero;
+        countPositive += other.countPositive;
+        countNegative += other.countNegative;
+        return this;
+    }
+
+    /**
+     * @return Estimated number of distinct (non-missing) values, or -1 for bytes and NDArray columns
+     */
+    public long getDistinctCount() {
+        return distinct == null ? -1 : distinct.estimate();
+    }
+
+    /**
+     * @return Approximate value at the given quantile (of string length, for string columns), or NaN for
+     * categorical, bytes and NDArray columns
+     */
+    public double getQuantile(double quantile) {
+        return quantiles == null ? Double.NaN : quantiles.quantile(quantile);
+    }
+
+    /**
+     * @param n Maximum number of values to return
+     * @return Most frequent values with their estimated counts, highest first, or null for columns other than
+     * string and categorical
+     */
+    public Map<String, Long> getTopValues(int n) {
+        return frequencies == null ? null : frequencies.topK(n);
+    }
+
+    /**
+     * Convert this state to the standard column analysis. Histograms are derived from the quantile sketch, over
+     * equal width bins between the minimum and maximum values. Categorical analysis contains only the tracked
+     * most frequent categories, with estimated counts.
+     *
+     * @param maxHistogramBuckets Number of histogram buckets for numerical and string columns
+     */
+    public ColumnAnalysis toColumnAnalysis(int maxHistogramBuckets) {
+        switch (columnType) {
+            case Categorical:
+                return new CategoricalAnalysis(frequencies.topK(frequencies.getMaxTracked()));
+            case Bytes:
+                return new BytesAnalysis.Builder().countTotal(bytesCounter.getCountTotal()).build();
+            case NDArray:
+                return ndArrayCounter.toAnalysisObject();
+            default:
+        }
+
+        double[] bins = histogramBins(maxHistogramBuckets);
+        long[] binCounts = quantiles.histogram(bins);
+        double min = stats.getMin();
+        double max = stats.getMax();
+        switch (columnType) {
+            case String:
+                return new StringAnalysis.Builder().countTotal(countTotal).minLength((int) min).maxLength((int) max)
+                                .meanLength(stats.getMean()).sampleStdevLength(stats.getStddev(false))
+                                .sampleVarianceLength(stats.getVariance(false)).histogramBuckets(bins)
+                                .histogramBucketCounts(binCounts).build();
+            case Integer:
+            case Boolean:
+                return numerical(new IntegerAnalysis.Builder().min((int) min).max((int) max), bins, binCounts).build();
+            case Long:
+                return numerical(new LongAnalysis.Builder().min((long) min).max((long) max), bins, binCounts).build();
+            case Time:
+                return numerical(new TimeAnalysis.Builder().min((long) min).max((long) max), bins, binCounts).build();
+            case Float:
+            case Double:
+                return numerical(new DoubleAnalysis.Builder().min(min).max(max).countNaN(countNaN), bins, binCounts)
+                                .build();
+            default:
+                throw new IllegalStateException("Unknown column type: " + columnType);
+        }
+    }
+
+    private <T extends NumericalColumnAnalysis.Builder<T>> T numerical(T builder, double[] bins, long[] binCounts) {
+        return builder.mean(stats.getMean()).sampleStdev(stats.getStddev(false))
+                        .sampleVariance(stats.getVariance(false)).countZero(countZero).countNegative(countNegative)
+                        .countPositive(countPositive).countMinValue(countMinValue).countMaxValue(countMaxValue)
+                        .countTotal(countTotal).histogramBuckets(bins).histogramBucketCounts(binCounts);
+    }
+
+    private double[] histogramBins(int nBins) {
+        double min = stats.getMin();
+        double max = stats.getMax();
+        double[] bins = new double[nBins + 1];
+        double step = (max - min) / nBins;
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] = (i == bins.length - 1 ? max : min + i * step);
+        }
+        return bins;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.analysis.sketch;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 64-bit hashing shared by the sketches in this package. Strings are hashed over their UTF-8 bytes
+ * with FNV-1a followed by the murmur3 finalizer, which gives well-mixed bits in every position
+ * (required by {@link HyperLogLogSketch}, which uses the top bits as a register index).
+ */
+public class SketchHash {
+
+    private SketchHash() { }
+
+    public static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    public static long hash(double d) {
+        //Normalize -0.0 to 0.0 so both hash to the same value
+        return mix(Double.doubleToLongBits(d == 0.0 ? 0.0 : d));
+    }
+
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.columnar;
+
+import org.datavec.api.writable.*;
+
+/**
+ * A single column of a {@link ColumnarBatch}.<br>
+ * Values are stored either as Writables (as read from a record reader, or for non-numerical columns) or as a
+ * primitive array (double, float, int or long). Conversion between the two representations is lazy and cached, so
+ * columns that are not modified by any transform are passed through without conversion.
+ */
+public class ColumnVector {
+
+    private enum Storage {WRITABLE, DOUBLE, FLOAT, INT, LONG}
+
+    private final int length;
+    private final Storage storage;
+    private Writable[] writables;
+    private double[] doubles;
+    private float[] floats;
+    private int[] ints;
+    private long[] longs;
+
+    private ColumnVector(int length, Storage storage) {
+        this.length = length;
+        this.storage = storage;
+    }
+
+    public static ColumnVector ofWritables(Writable[] values) {
+        ColumnVector c = new ColumnVector(values.length, Storage.WRITABLE);
+        c.writables = values;
+        return c;
+    }
+
+    public static ColumnVector ofDoubles(double[] values) {
+        ColumnVector c = new ColumnVector(values.length, Storage.DOUBLE);
+        c.doubles = values;
+        return c;
+    }
+
+    public static ColumnVector ofFloats(float[] values) {
+        ColumnVector c = new ColumnVector(values.length, Storage.FLOAT);
+        c.floats = values;
+        return c;
+    }
+
+    public static ColumnVector ofInts(int[] values) {
+        ColumnVector c = new ColumnVector(values.length, Storage.INT);
+        c.ints = values;
+        return c;
+    }
+
+    public static ColumnVector ofLongs(long[] values) {
+        ColumnVector c = new ColumnVector(values.length, Storage.LONG);
+        c.longs = values;
+        return c;
+    }
+
+    /**
+     * @return Number of values in the column
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return The column values as doubles. The returned array must not be modified.
+     */
+    public double[] doubles() {
+        if (doubles == null) {
+            double[] d = new double[length];
+            if (storage == Storage.FLOAT) {
+                for (int i = 0; i < length; i++)
+                    d[i] = floats[i];
+            } else if (storage == Storage.INT) {
+                for (int i = 0; i < length; i++)
+                    d[i] = ints[i];
+            } else if (storage == Storage.LONG) {
+                for (int i = 0; i < length; i++)
+                    d[i] = longs[i];
+            } else {
+                for (int i = 0; i < length; i++)
+                    d[i] = writables[i].toDouble();
+            }
+            doubles = d;
+        }
+        return doubles;
+    }
+
+    /**
+     * @return The column values as floats. The returned array must not be modified.
+     */
+    public float[] floats() {
+        if (floats == null) {
+            float[] f = new float[length];
+            if (storage == Storage.DOUBLE) {
+                for (int i = 0; i < length; i++)
+                    f[i] = (float) doubles[i];
+            } else if (storage == Storage.INT) {
+                for (int i = 0; i < length; i++)
+                    f[i] = ints[i];
+            } else if (storage == Storage.LONG) {
+                for (int i = 0; i < length; i++)
+                    f[i] = longs[i];
+            } else {
+                for (int i = 0; i < length; i++)
+                    f[i] = writables[i].toFloat();
+            }
+            floats = f;
+        }
+        return floats;
+    }
+
+    /**
+     * @return The column values as ints. The returned array must not be modified.
+     */
+    public int[] ints() {
+        if (ints == null) {
+            int[] out = new int[length];
+            if (storage == Storage.DOUBLE) {
+                for (int i = 0; i < length; i++)
+                    out[i] = (int) doubles[i];
+            } else if (storage == Storage.FLOAT) {
+                for (int i = 0; i < length; i++)
+                    out[i] = (int) floats[i];
+            } else if (storage == Storage.LONG) {
+                for (int i = 0; i < length; i++)
+                    out[i] = (int) longs[i];
+            } else {
+                for (int i = 0; i < length; i++)
+                    out[i] = writables[i].toInt();
+            }
+            ints = out;
+        }
+        return ints;
+    }
+
+    /**
+     * @return The column values as longs. The returned array must not be modified.
+     */
+    public long[] longs() {
+        if (longs == null) {
+            long[] out = new long[length];
+            if (storage == Storage.DOUBLE) {
+                for (int i = 0; i < length; i++)
+                    out[i] = (long) doubles[i];
+            } else if (storage == Storage.FLOAT) {
+                for (int i = 0; i < length; i++)
+                    out[i] = (long) floats[i];
+            } else if (storage == Storage.INT) {
+                for (int i = 0; i < length; i++)
+                    out[i] = ints[i];
+            } else {
+                for (int i = 0; i < length; i++)
+                    out[i] = writables[i].toLong();
+            }
+            longs = out;
+        }
+        return longs;
+    }
+
+    /**
+     * @return The column values as Writables. The returned array must not be modified.
+     */
+    public Writable[] writables() {
+        if (writables == null) {
+            Writable[] w = new Writable[length];
+            for (int i = 0; i < length; i++)
+                w[i] = get(i);
+            writables = w;
+        }
+        return writables;
+    }
+
+    /**
+     * Get a single value, as a Writable
+     */
+    public Writable get(int i) {
+        switch (storage) {
+            case WRITABLE:
+                return writables[i];
+            case DOUBLE:
+                return new DoubleWritable(doubles[i]);
+            case FLOAT:
+                return new FloatWritable(floats[i]);
+            case INT:
+                return new IntWritable(ints[i]);
+            default:
+                return new LongWritable(longs[i]);
+        }
+    }
+
+    /**
+     * Select a subset of the values of this column
+     *
+     * @param keep      Values to keep
+     * @param newLength Number of true values in keep
+     */
+    public ColumnVector filter(boolean[] keep, int newLength) {
+        if (storage == Storage.WRITABLE) {
+            Writable[] out = new Writable[newLength];
+            for (int i = 0, j = 0; i < length; i++) {
+                if (keep[i])
+                    out[j++] = writables[i];
+            }
+            return ofWritables(out);
+        } else if (storage == Storage.DOUBLE) {
+            double[] out = new double[newLength];
+            for (int i = 0, j = 0; i < length; i++) {
+                if (keep[i])
+                    out[j++] = doubles[i];
+            }
+            return ofDoubles(out);
+        } else if (storage == Storage.FLOAT) {
+            float[] out = new float[newLength];
+            for (int i = 0, j = 0; i < length; i++) {
+                if (keep[i])
+                    out[j++] = floats[i];
+            }
+            return ofFloats(out);
+        } else if (storage == Storage.INT) {
+            int[] out = new int[newLength];
+            for (int i = 0, j = 0; i < length; i++) {
+                if (keep[i])
+                    out[j++] = ints[i];
+            }
+            return ofInts(out);
+        } else {
+            long[] out = new long[newLength];
+            for (int i = 0, j = 0; i < length; i++) {
+                if (keep[i])
+                    out[j++] = longs[i];
+            }
+            return ofLongs(out);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.columnar;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.Writable;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A batch of records stored in columnar form: one {@link ColumnVector} per column of the {@link Schema}.
+ * Used by {@link ColumnarTransformExecutor}.
+ */
+public class ColumnarBatch {
+
+    @Getter
+    private final Schema schema;
+    @Getter
+    private final int numRows;
+    private final List<ColumnVector> columns;
+
+    public ColumnarBatch(@NonNull Schema schema, int numRows, @NonNull List<ColumnVector> columns) {
+        if (schema.numColumns() != columns.size()) {
+            throw new IllegalArgumentException("Number of columns (" + columns.size() + ") does not match schema ("
+                    + schema.numColumns() + " columns)");
+        }
+        for (ColumnVector c : columns) {
+            if (c.length() != numRows)
+                throw new IllegalArgumentException("Column length " + c.length() + " does not match number of rows " + numRows);
+        }
+        this.schema = schema;
+        this.numRows = numRows;
+        this.columns = columns;
+    }
+
+    /**
+     * Create a columnar batch from a list of records
+     *
+     * @param schema  Schema of the records
+     * @param records Records to convert
+     */
+    public static ColumnarBatch fromRecords(@NonNull Schema schema, @NonNull List<List<Writable>> records) {
+        int nCols = schema.numColumns();
+        int nRows = records.size();
+        Writable[][] cols = new Writable[nCols][nRows];
+        for (int i = 0; i < nRows; i++) {
+            List<Writable> r = records.get(i);
+            if (r.size() != nCols) {
+                throw new IllegalStateException("Record " + i + " has " + r.size() + " values, but schema has " + nCols
+                        + " columns");
+            }
+            for (int j = 0; j < nCols; j++) {
+                cols[j][i] = r.get(j);
+            }
+        }
+        List<ColumnVector> columns = new ArrayList<>(nCols);
+        for (Writable[] c : cols) {
+            columns.add(ColumnVector.ofWritables(c));
+        }
+        return new ColumnarBatch(schema, nRows, columns);
+    }
+
+    public int numColumns() {
+        return columns.size();
+    }
+
+    public ColumnVector getColumn(int idx) {
+        return columns.get(idx);
+    }
+
+    public ColumnVector getColumn(String name) {
+        return columns.get(schema.getIndexOfColumn(name));
+    }
+
+    /**
+     * @return All columns. The returned list must not be modified.
+     */
+    public List<ColumnVector> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Get a single row of the batch
+     */
+    public List<Writable> getRow(int row) {
+        List<Writable> out = new ArrayList<>(columns.size());
+        for (ColumnVector c : columns) {
+            out.add(c.get(row));
+        }
+        return out;
+    }
+
+    /**
+     * @return The batch, as a list of records
+     */
+    public List<List<Writable>> toRecords() {
+        Writable[][] cols = new Writable[columns.size()][];
+        for (int j = 0; j < cols.length; j++) {
+            cols[j] = columns.get(j).writables();
+        }
+        List<List<Writable>> out = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            Writable[] row = new Writable[cols.length];
+            for (int j = 0; j < cols.length; j++) {
+                row[j] = cols[j][i];
+            }
+            out.add(Arrays.asList(row));
+        }
+        return out;
+    }
+
+    /**
+     * Select a subset of the rows of this batch
+     *
+     * @param keep Rows to keep
+     */
+    public ColumnarBatch filter(boolean[] keep) {
+        int n = 0;
+        for (boolean b : keep) {
+            if (b)
+                n++;
+        }
+        if (n == numRows)
+            return this;
+        List<ColumnVector> out = new ArrayList<>(columns.size());
+        for (ColumnVector c : columns) {
+            out.add(c.filter(keep, n));
+        }
+        return new ColumnarBatch(schema, n, out);
+    }
+
+    /**
+     * Convert the batch to a 2d matrix, with shape [numRows, numColumns]. All columns must be numerical (integer,
+     * long, float or double)
+     *
+     * @param dataType Data type of the output array
+     */
+    public INDArray toMatrix(@NonNull DataType dataType) {
+        for (int j = 0; j < columns.size(); j++) {
+            ColumnType t = schema.getType(j);
+            if (t != ColumnType.Integer && t != ColumnType.Long && t != ColumnType.Float && t != ColumnType.Double) {
+                throw new IllegalStateException("Cannot convert batch to matrix: column \"" + schema.getName(j)
+                        + "\" is not numerical (type: " + t + ")");
+            }
+        }
+        int nCols = columns.size();
+        double[] buffer = new double[numRows * nCols];
+        for (int j = 0; j < nCols; j++) {
+            double[] col = columns.get(j).doubles();
+            for (int i = 0; i < numRows; i++) {
+                buffer[i * nCols + j] = col[i];
+            }
+        }
+        return Nd4j.create(buffer, new long[]{numRows, nCols}, DataType.DOUBLE).castTo(dataType);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.columnar;
+
+/**
+ * A batch implementation of a single {@link org.datavec.api.transform.Transform} or
+ * {@link org.datavec.api.transform.filter.Filter}, operating on whole columns at once.
+ *
+ * @see ColumnarKernels
+ */
+public interface ColumnarKernel {
+
+    /**
+     * Apply the operation to the batch
+     *
+     * @param input Input batch. Must not be modified
+     * @return Output batch
+     */
+    ColumnarBatch apply(ColumnarBatch input);
+
+}
@@ -0,0 +1,418 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.columnar;
+
+import org.datavec.api.transform.MathFunction;
+import org.datavec.api.transform.MathOp;
+import org.datavec.api.transform.Transform;
+import org.datavec.api.transform.condition.Condition;
+import org.datavec.api.transform.condition.column.*;
+import org.datavec.api.transform.filter.ConditionFilter;
+import org.datavec.api.transform.filter.Filter;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.transform.transform.categorical.CategoricalToIntegerTransform;
+import org.datavec.api.transform.transform.categorical.CategoricalToOneHotTransform;
+import org.datavec.api.transform.transform.categorical.StringToCategoricalTransform;
+import org.datavec.api.transform.transform.column.RemoveAllColumnsExceptForTransform;
+import org.datavec.api.transform.transform.column.RemoveColumnsTransform;
+import org.datavec.api.transform.transform.column.RenameColumnsTransform;
+import org.datavec.api.transform.transform.column.ReorderColumnsTransform;
+import org.datavec.api.transform.transform.doubletransform.*;
+import org.datavec.api.transform.transform.floattransform.ConvertToFloat;
+import org.datavec.api.transform.transform.floattransform.FloatMathOpTransform;
+import org.datavec.api.transform.transform.integer.ConvertToInteger;
+import org.datavec.api.transform.transform.integer.IntegerMathOpTransform;
+import org.datavec.api.transform.transform.longtransform.LongMathOpTransform;
+import org.datavec.api.writable.Writable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+/**
+ * Batch (column at a time) implementations of common transforms and filters, for {@link ColumnarTransformExecutor}.<br>
+ * Supported transforms: double, float, integer and long math ops; double math functions; min/max, standardize,
+ * subtract mean and log2 normalizers; conversion to double, float and integer; categorical to integer and one-hot;
+ * string to categorical; and removing, renaming and reordering columns.<br>
+ * Filters on a single column ({@link ConditionFilter} with a {@link ColumnCondition}) are evaluated on the column
+ * only; other filters are evaluated on each row.
+ */
+public class ColumnarKernels {
+
+    private ColumnarKernels() {
+    }
+
+    /**
+     * Get a batch kernel for the specified transform, if one is available
+     *
+     * @param t            Transform (with input schema set)
+     * @param inputSchema  Schema before the transform
+     * @param outputSchema Schema after the transform
+     * @return The kernel, or null if the transform has no batch implementation
+     */
+    public static ColumnarKernel forTransform(Transform t, Schema inputSchema, Schema outputSchema) {
+        if (t instanceof DoubleMathOpTransform) {
+            DoubleMathOpTransform d = (DoubleMathOpTransform) t;
+            return mapDoubles(d.getColumnName(), inputSchema, outputSchema, doubleOp(d.getMathOp(), d.getScalar()));
+        } else if (t instanceof DoubleMathFunctionTransform) {
+            DoubleMathFunctionTransform d = (DoubleMathFunctionTransform) t;
+            return mapDoubles(d.getColumnName(), inputSchema, outputSchema, mathFunction(d.getMathFunction()));
+        } else if (t instanceof MinMaxNormalizer) {
+            MinMaxNormalizer n = (MinMaxNormalizer) t;
+            double ratio = n.getRatio(), min = n.getMin(), newMin = n.getNewMin();
+            return mapDoubles(n.getColumnName(), inputSchema, outputSchema, x -> Double.isNaN(x) ? 0 : ratio * (x - min) + newMin);
+        } else if (t instanceof StandardizeNormalizer) {
+            StandardizeNormalizer n = (StandardizeNormalizer) t;
+            double mean = n.getMean(), stdev = n.getStdev();
+            return mapDoubles(n.getColumnName(), inputSchema, outputSchema, x -> (x - mean) / stdev);
+        } else if (t instanceof SubtractMeanNormalizer) {
+            SubtractMeanNormalizer n = (SubtractMeanNormalizer) t;
+            double mean = n.getMean();
+            return mapDoubles(n.getColumnName(), inputSchema, outputSchema, x -> x - mean);
+        } else if (t instanceof Log2Normalizer) {
+            Log2Normalizer n = (Log2Normalizer) t;
+            double mean = n.getColumnMean(), min = n.getColumnMin(), scale = n.getScalingFactor(), log2 = Math.log(2);
+            return mapDoubles(n.getColumnName(), inputSchema, outputSchema,
+                    x -> Double.isNaN(x) ? 0 : scale * (Math.log((x - min) / (mean - min) + 1) / log2));
+        } else if (t instanceof ConvertToDouble) {
+            return mapColumn(((ConvertToDouble) t).getColumnName(), inputSchema, outputSchema,
+                    c -> ColumnVector.ofDoubles(c.doubles()));
+        } else if (t instanceof FloatMathOpTransform) {
+            FloatMathOpTransform f = (FloatMathOpTransform) t;
+            MathOp op = f.getMathOp();
+            float scalar = f.getScalar();
+            return mapColumn(f.getColumnName(), inputSchema, outputSchema, c -> {
+                float[] in = c.floats();
+                float[] out = new float[in.length];
+                for (int i = 0; i < in.length; i++)
+                    out[i] = (float) doOp(op, in[i], scalar);
+                return ColumnVector.ofFloats(out);
+            });
+        } else if (t instanceof ConvertToFloat) {
+            return mapColumn(((ConvertToFloat) t).getColumnName(), inputSchema, outputSchema,
+                    c -> ColumnVector.ofFloats(c.floats()));
+        } else if (t instanceof IntegerMathOpTransform) {
+            IntegerMathOpTransform it = (IntegerMathOpTransform) t;
+            MathOp op = it.getMathOp();
+            int scalar = it.getScalar();
+            return mapColumn(it.getColumnName(), inputSchema, outputSchema, c -> {
+                int[] in = c.ints();
+                int[] out = new int[in.length];
+                for (int i = 0; i < in.length; i++)
+                    out[i] = (int) doOp(op, in[i], scalar);
+                return ColumnVector.ofInts(out);
+            });
+        } else if (t instanceof ConvertToInteger) {
+            return mapColumn(((ConvertToInteger) t).getColumnName(), inputSchema, outputSchema,
+                    c -> ColumnVector.ofInts(c.ints()));
+        } else if (t instanceof LongMathOpTransform) {
+            LongMathOpTransform l = (LongMathOpTransform) t;
+            MathOp op = l.getMathOp();
+            long scalar = l.getScalar();
+            return mapColumn(l.getColumnName(), inputSchema, outputSchema, c -> {
+                long[] in = c.longs();
+                long[] out = new long[in.length];
+                for (int i = 0; i < in.length; i++)
+                    out[i] = doOp(op, in[i], scalar);
+                return ColumnVector.ofLongs(out);
+            });
+        } else if (t instanceof StringToCategoricalTransform) {
+            //Values are unchanged; only the column metadata differs
+            return mapColumn(((StringToCategoricalTransform) t).getColumnName(), inputSchema, outputSchema, c -> c);
+        } else if (t instanceof CategoricalToIntegerTransform) {
+            CategoricalToIntegerTransform c2i = (CategoricalToIntegerTransform) t;
+            Map<String, Integer> states = c2i.getStatesMap();
+            List<String> names = c2i.getStateNames();
+            return mapColumn(c2i.getColumnName(), inputSchema, outputSchema,
+                    c -> ColumnVector.ofInts(stateIndices(c, states, names, "integer")));
+        } else if (t instanceof CategoricalToOneHotTransform) {
+            return new OneHotKernel((CategoricalToOneHotTransform) t, inputSchema, outputSchema);
+        } else if (t instanceof RemoveColumnsTransform || t instanceof RemoveAllColumnsExceptForTransform
+                || t instanceof ReorderColumnsTransform) {
+            return new SelectColumnsKernel(inputSchema, outputSchema);
+        } else if (t instanceof RenameColumnsTransform) {
+            return in -> new ColumnarBatch(outputSchema, in.getNumRows(), in.getColumns());
+        }
+        return null;
+    }
+
+    /**
+     * Get a batch kernel for the specified filter. Filters on a single column are evaluated on that column only;
+     * others are evaluated row by row.
+     *
+     * @param f Filter (with input schema set)
+     * @return The kernel
+     */
+    public static ColumnarKernel forFilter(Filter f) {
+        if (f instanceof ConditionFilter && ((ConditionFilter) f).getCondition() instanceof BaseColumnCondition) {
+            BaseColumnCondition c = (BaseColumnCondition) ((ConditionFilter) f).getCondition();
+            return in -> {
+                int idx = in.getSchema().getIndexOfColumn(c.getColumnName());
+                boolean[] remove = evaluate(c, in.getColumn(idx));
+                boolean[] keep = new boolean[remove.length];
+                for (int i = 0; i < keep.length; i++)
+                    keep[i] = !remove[i];
+                return in.filter(keep);
+            };
+        }
+
+        return in -> {
+            boolean[] keep = new boolean[in.getNumRows()];
+            for (int i = 0; i < keep.length; i++)
+                keep[i] = !f.removeExample(in.getRow(i));
+            return in.filter(keep);
+        };
+    }
+
+    /**
+     * Evaluate a column condition on every value of a column
+     */
+    protected static boolean[] evaluate(Condition condition, ColumnVector c) {
+        int n = c.length();
+        boolean[] out = new boolean[n];
+        if (condition instanceof DoubleColumnCondition) {
+            DoubleColumnCondition d = (DoubleColumnCondition) condition;
+            double v = d.getValue() == null ? Double.NaN : d.getValue();
+            double[] values = c.doubles();
+            for (int i = 0; i < n; i++)
+                out[i] = d.getOp().apply(values[i], v, d.getSet());
+        } else if (condition instanceof FloatColumnCondition) {
+            FloatColumnCondition d = (FloatColumnCondition) condition;
+            float v = d.getValue() == null ? Float.NaN : d.getValue();
+            float[] values = c.floats();
+            for (int i = 0; i < n; i++)
+                out[i] = d.getOp().apply(values[i], v, d.getSet());
+        } else if (condition instanceof IntegerColumnCondition) {
+            IntegerColumnCondition d = (IntegerColumnCondition) condition;
+            int v = d.getValue() == null ? 0 : d.getValue();
+            int[] values = c.ints();
+            for (int i = 0; i < n; i++)
+                out[i] = d.getOp().apply(values[i], v, d.getSet());
+        } else if (condition instanceof LongColumnCondition) {
+            LongColumnCondition d = (LongColumnCondition) condition;
+            long v = d.getValue() == null ? 0 : d.getValue();
+            long[] values = c.longs();
+            for (int i = 0; i < n; i++)
+                out[i] = d.getOp().apply(values[i], v, d.getSet());
+        } else {
+            ColumnCondition cc = (ColumnCondition) condition;
+            Writable[] values = c.writables();
+            for (int i = 0; i < n; i++)
+                out[i] = cc.columnCondition(values[i]);
+        }
+        return out;
+    }
+
+    private static int[] stateIndices(ColumnVector c, Map<String, Integer> states, List<String> names, String target) {
+        Writable[] in = c.writables();
+        int[] out = new int[in.length];
+        for (int i = 0; i < in.length; i++) {
+            String str = in[i].toString();
+            Integer idx = states.get(str);
+            if (idx == null) {
+                throw new IllegalStateException("Cannot convert categorical value to " + target + " value: input value (\"" + str
+                        + "\") is not in the list of known categories (state names/categories: " + names + ")");
+            }
+            out[i] = idx;
+        }
+        return out;
+    }
+
+    private static ColumnarKernel mapDoubles(String column, Schema inputSchema, Schema outputSchema, DoubleUnaryOperator op) {
+        return mapColumn(column, inputSchema, outputSchema, c -> {
+            double[] in = c.doubles();
+            double[] out = new double[in.length];
+            for (int i = 0; i < in.length; i++)
+                out[i] = op.applyAsDouble(in[i]);
+            return ColumnVector.ofDoubles(out);
+        });
+    }
+
+    private static ColumnarKernel mapColumn(String column, Schema inputSchema, Schema outputSchema,
+                                            Function<ColumnVector, ColumnVector> fn) {
+        int idx = inputSchema.getIndexOfColumn(column);
+        return in -> {
+            List<ColumnVector> out = new ArrayList<>(in.getColumns());
+            out.set(idx, fn.apply(in.getColumn(idx)));
+            return new ColumnarBatch(outputSchema, in.getNumRows(), out);
+        };
+    }
+
+    private static DoubleUnaryOperator doubleOp(MathOp op, double scalar) {
+        switch (op) {
+            case Add:
+                return x -> x + scalar;
+            case Subtract:
+                return x -> x - scalar;
+            case Multiply:
+                return x -> x * scalar;
+            case Divide:
+                return x -> x / scalar;
+            default:
+                return x -> doOp(op, x, scalar);
+        }
+    }
+
+    private static double doOp(MathOp op, double input, double scalar) {
+        switch (op) {
+            case Add:
+                return input + scalar;
+            case Subtract:
+                return input - scalar;
+            case Multiply:
+                return input * scalar;
+            case Divide:
+                return input / scalar;
+            case Modulus:
+                return input % scalar;
+            case ReverseSubtract:
+                return scalar - input;
+            case ReverseDivide:
+                return scalar / input;
+            case ScalarMin:
+                return Math.min(input, scalar);
+            case ScalarMax:
+                return Math.max(input, scalar);
+            default:
+                throw new IllegalStateException("Unknown or not implemented math op: " + op);
+        }
+    }
+
+    private static long doOp(MathOp op, long input, long scalar) {
+        switch (op) {
+            case Add:
+                return input + scalar;
+            case Subtract:
+                return input - scalar;
+            case Multiply:
+                return input * scalar;
+            case Divide:
+                return input / scalar;
+            case Modulus:
+                return input % scalar;
+            case ReverseSubtract:
+                return scalar - input;
+            case ReverseDivide:
+                return scalar / input;
+            case ScalarMin:
+                return Math.min(input, scalar);
+            case ScalarMax:
+                return Math.max(input, scalar);
+            default:
+                throw new IllegalStateException("Unknown or not implemented math op: " + op);
+        }
+    }
+
+    private static DoubleUnaryOperator mathFunction(MathFunction f) {
+        switch (f) {
+            case ABS:
+                return Math::abs;
+            case ACOS:
+                return Math::acos;
+            case ASIN:
+                return Math::asin;
+            case ATAN:
+                return Math::atan;
+            case CEIL:
+                return Math::ceil;
+            case COS:
+                return Math::cos;
+            case COSH:
+                return Math::cosh;
+            case EXP:
+                return Math::exp;
+            case FLOOR:
+                return Math::floor;
+            case LOG:
+                return Math::log;
+            case LOG10:
+                return Math::log10;
+            case SIGNUM:
+                return Math::signum;
+            case SIN:
+                return Math::sin;
+            case SINH:
+                return Math::sinh;
+            case SQRT:
+                return Math::sqrt;
+            case TAN:
+                return Math::tan;
+            case TANH:
+                return Math::tanh;
+            default:
+                throw new IllegalStateException("Unknown or not implemented math function: " + f);
+        }
+    }
+
+    private static class OneHotKernel implements ColumnarKernel {
+        private final Schema outputSchema;
+        private final int idx;
+        private final Map<String, Integer> states;
+        private final List<String> names;
+
+        private OneHotKernel(CategoricalToOneHotTransform t, Schema inputSchema, Schema outputSchema) {
+            this.outputSchema = outputSchema;
+            this.idx = inputSchema.getIndexOfColumn(t.getColumnName());
+            this.states = t.getStatesMap();
+            this.names = t.getStateNames();
+        }
+
+        @Override
+        public ColumnarBatch apply(ColumnarBatch in) {
+            int[] classIdx = stateIndices(in.getColumn(idx), states, names, "one-hot");
+            List<ColumnVector> out = new ArrayList<>(in.numColumns() + names.size() - 1);
+            out.addAll(in.getColumns().subList(0, idx));
+            for (int j = 0; j < names.size(); j++) {
+                int[] col = new int[classIdx.length];
+                for (int i = 0; i < col.length; i++) {
+                    if (classIdx[i] == j)
+                        col[i] = 1;
+                }
+                out.add(ColumnVector.ofInts(col));
+            }
+            out.addAll(in.getColumns().subList(idx + 1, in.numColumns()));
+            return new ColumnarBatch(outputSchema, in.getNumRows(), out);
+        }
+    }
+
+    /**
+     * Output columns are a subset/reordering of the input columns, matched by name
+     */
+    private static class SelectColumnsKernel implements ColumnarKernel {
+        private final Schema outputSchema;
+        private final int[] inputIdxs;
+
+        private SelectColumnsKernel(Schema inputSchema, Schema outputSchema) {
+            this.outputSchema = outputSchema;
+            this.inputIdxs = inputSchema.getIndexOfColumns(outputSchema.getColumnNames());
+        }
+
+        @Override
+        public ColumnarBatch apply(ColumnarBatch in) {
+            List<ColumnVector> out = new ArrayList<>(inputIdxs.length);
+            for (int i : inputIdxs)
+                out.add(in.getColumn(i));
+            return new ColumnarBatch(outputSchema, in.getNumRows(), out);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.columnar;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.transform.DataAction;
+import org.datavec.api.transform.Transform;
+import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.Writable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes a {@link TransformProcess} on batches of records in columnar form, as an alternative to
+ * {@link TransformProcess#execute(List)} which transforms one record (of boxed {@link Writable} values) at a time.<br>
+ * Transforms and filters with a batch implementation (see {@link ColumnarKernels}) operate on whole primitive
+ * columns. Any other transforms are executed on each row as usual ("row fallback"), with consecutive row fallback
+ * transforms executed together to avoid unnecessary conversions.<br>
+ * Output is identical to executing {@link TransformProcess#execute(List)} for each record and removing filtered
+ * records. Only non-sequence transform processes are supported.<br>
+ * Instances are thread safe, assuming the underlying transforms are.
+ */
+@Slf4j
+public class ColumnarTransformExecutor {
+
+    @Getter
+    private final TransformProcess transformProcess;
+    private final List<ColumnarKernel> kernels = new ArrayList<>();
+    private final Schema finalSchema;
+    @Getter
+    private final int numVectorizedSteps;
+    @Getter
+    private final int numRowFallbackSteps;
+
+    public ColumnarTransformExecutor(@NonNull TransformProcess transformProcess) {
+        this.transformProcess = transformProcess;
+
+        Schema schema = transformProcess.getInitialSchema();
+        List<Transform> pendingRow = new ArrayList<>();
+        int vectorized = 0;
+        int fallback = 0;
+        for (DataAction d : transformProcess.getActionList()) {
+            ColumnarKernel k;
+            Schema out = schema;
+            if (d.getTransform() != null) {
+                out = d.getTransform().transform(schema);
+                k = ColumnarKernels.forTransform(d.getTransform(), schema, out);
+                if (k == null) {
+                    pendingRow.add(d.getTransform());
+                    fallback++;
+                    schema = out;
+                    continue;
+                }
+            } else if (d.getFilter() != null) {
+                k = ColumnarKernels.forFilter(d.getFilter());
+            } else {
+                throw new UnsupportedOperationException("Columnar execution is only supported for transforms and filters, got: " + d);
+            }
+
+            if (!pendingRow.isEmpty()) {
+                kernels.add(new RowFallbackKernel(new ArrayList<>(pendingRow), schema));
+                pendingRow.clear();
+            }
+            kernels.add(k);
+            vectorized++;
+            schema = out;
+        }
+        if (!pendingRow.isEmpty()) {
+            kernels.add(new RowFallbackKernel(pendingRow, schema));
+        }
+
+        this.finalSchema = schema;
+        this.numVectorizedSteps = vectorized;
+        this.numRowFallbackSteps = fallback;
+        if (fallback > 0) {
+            log.debug("Columnar execution of transform process: {} of {} steps use row execution", fallback, vectorized + fallback);
+        }
+    }
+
+    /**
+     * Execute the transform process on a batch of records
+     *
+     * @param records Input records
+     * @return Output records. Filtered records are removed, so the output may contain fewer records than the input
+     */
+    public List<List<Writable>> execute(@NonNull List<List<Writable>> records) {
+        return execute(ColumnarBatch.fromRecords(transformProcess.getInitialSchema(), records)).toRecords();
+    }
+
+    /**
+     * Execute the transform process on a columnar batch
+     *
+     * @param batch Input batch, with the transform process' initial schema
+     * @return Output batch, with the transform process' final schema
+     */
+    public ColumnarBatch execute(@NonNull ColumnarBatch batch) {
+        ColumnarBatch curr = batch;
+        for (ColumnarKernel k : kernels) {
+            if (curr.getNumRows() == 0)
+                break;
+            curr = k.apply(curr);
+        }
+        if (curr.getNumRows() == 0 && curr.getSchema() != finalSchema) {
+            //All records were filtered before the last step
+            return new ColumnarBatch(finalSchema, 0, emptyColumns(finalSchema));
+        }
+        return curr;
+    }
+
+    private static List<ColumnVector> emptyColumns(Schema schema) {
+        List<ColumnVector> out = new ArrayList<>(schema.numColumns());
+        for (int i = 0; i < schema.numColumns(); i++)
+            out.add(ColumnVector.ofWritables(new Writable[0]));
+        return out;
+    }
+
+    /**
+     * Executes one or more transforms without a batch implementation on each row
+     */
+    private static class RowFallbackKernel implements ColumnarKernel {
+        private final List<Transform> transforms;
+        private final Schema outputSchema;
+
+        private RowFallbackKernel(List<Transform> transforms, Schema outputSchema) {
+            this.transforms = transforms;
+            this.outputSchema = outputSchema;
+        }
+
+        @Override
+        public ColumnarBatch apply(ColumnarBatch input) {
+            List<List<Writable>> rows = input.toRecords();
+            List<List<Writable>> out = new ArrayList<>(rows.size());
+            for (List<Writable> r : rows) {
+                for (Transform t : transforms) {
+                    r = t.map(r);
+                }
+                out.add(r);
+            }
+            return ColumnarBatch.fromRecords(outputSchema, out);
+        }
+    }
+}
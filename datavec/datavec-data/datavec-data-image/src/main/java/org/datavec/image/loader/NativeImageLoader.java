@@ -38,7 +38,10 @@ import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.common.util.ArrayUtil;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import org.bytedeco.leptonica.*;
 import org.bytedeco.opencv.opencv_core.*;
@@ -60,6 +63,9 @@ public class NativeImageLoader extends BaseImageLoader {
 
     boolean direct = !Loader.getPlatform().startsWith("android");
 
+    //Reusable native buffer for encoded image bytes, used when loading from files. Not thread safe: use one loader per thread
+    protected BytePointer encodedBuffer;
+
     /**
      * Loads images with no scaling or conversion.
      */
@@ -303,6 +309,51 @@ public class NativeImageLoader extends BaseImageLoader {
         return bufferMat;
     }
 
+    /**
+     * Read the file into the reusable native buffer, instead of allocating a byte array and a native copy per image
+     * @param f File to read
+     * @return Mat wrapping the buffer data as a row vector. Only valid until the next call
+     * @throws IOException
+     */
+    private Mat fileToMat(File f) throws IOException {
+        long length = f.length();
+        if (length <= 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Could not decode image from file " + f + ": invalid file length " + length);
+        }
+        if (encodedBuffer == null || encodedBuffer.capacity() < length) {
+            if (encodedBuffer != null) {
+                encodedBuffer.deallocate();
+            }
+            long capacity = (length + MIN_BUFFER_STEP_SIZE - 1) / MIN_BUFFER_STEP_SIZE * MIN_BUFFER_STEP_SIZE;
+            encodedBuffer = new BytePointer(capacity);
+        }
+        ByteBuffer bb = encodedBuffer.position(0).limit(length).asByteBuffer();
+        try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            while (bb.hasRemaining()) {
+                if (channel.read(bb) < 0) {
+                    throw new IOException("Could not decode image from file " + f + ": unexpected end of file");
+                }
+            }
+        }
+        return new Mat(1, (int) length, CV_8UC1, encodedBuffer);
+    }
+
+    /**
+     * Decode an image from a row vector of encoded bytes, falling back to Leptonica for formats OpenCV can't decode
+     */
+    private Mat decode(Mat encoded) throws IOException {
+        Mat image = imdecode(encoded, IMREAD_ANYDEPTH | IMREAD_ANYCOLOR);
+        if (image == null || image.empty()) {
+            PIX pix = pixReadMem(encoded.data(), encoded.cols());
+            if (pix == null) {
+                throw new IOException("Could not decode image from input stream");
+            }
+            image = convert(pix);
+            pixDestroy(pix);
+        }
+        return image;
+    }
+
     public Image asImageMatrix(String filename) throws IOException {
         return asImageMatrix(new File(filename));
     }
@@ -506,18 +557,7 @@ public class NativeImageLoader extends BaseImageLoader {
     }
 
     public void asMatrixView(InputStream is, INDArray view) throws IOException {
-        Mat mat = streamToMat(is);
-        Mat image = imdecode(mat, IMREAD_ANYDEPTH | IMREAD_ANYCOLOR);
-        if (image == null || image.empty()) {
-            PIX pix = pixReadMem(mat.data(), mat.cols());
-            if (pix == null) {
-                throw new IOException("Could not decode image from input stream");
-            }
-            image = convert(pix);
-            pixDestroy(pix);
-        }
-        if (image == null)
-            throw new RuntimeException();
+        Mat image = decode(streamToMat(is));
         asMatrixView(image, view);
         image.deallocate();
     }
@@ -527,9 +567,15 @@ public class NativeImageLoader extends BaseImageLoader {
     }
 
     public void asMatrixView(File f, INDArray view) throws IOException {
-        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream(f))) {
-            asMatrixView(bis, view);
+        Mat encoded = fileToMat(f);
+        Mat image;
+        try {
+            image = decode(encoded);
+        } finally {
+            encoded.deallocate();   //Only the header: the data is owned by the reusable buffer
         }
+        asMatrixView(image, view);
+        image.deallocate();
     }
 
     public void asMatrixView(Mat image, INDArray view) throws IOException {
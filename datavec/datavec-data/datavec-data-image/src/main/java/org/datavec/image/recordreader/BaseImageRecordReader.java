@@ -52,6 +52,9 @@ import org.nd4j.linalg.factory.Nd4j;
 import java.io.*;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Slf4j
 public abstract class BaseImageRecordReader extends BaseRecordReader {
@@ -78,12 +81,28 @@ public abstract class BaseImageRecordReader extends BaseRecordReader {
     protected boolean logLabelCountOnInit = true;
     @Getter @Setter
     protected boolean nchw_channels_first = true;
+    /**
+     * Number of threads used to decode (and transform) images in {@link #next(int)}. Default: 1 (decode on the calling thread)
+     */
+    @Getter
+    protected int numDecodeThreads = 1;
+    /**
+     * Factory for per-thread image transforms, used when decoding with more than one thread.<br>
+     * ImageTransform instances are not thread safe, so when {@link #imageTransform} is set and no factory is provided,
+     * images are decoded on the calling thread.
+     */
+    @Getter @Setter
+    protected Supplier<ImageTransform> imageTransformFactory;
+    protected ExecutorService decodeExecutor;
+    protected ThreadLocal<NativeImageLoader> decodeLoaders;
+    protected boolean warnedParallelTransform = false;
 
     public final static String HEIGHT = NAME_SPACE + ".height";
     public final static String WIDTH = NAME_SPACE + ".width";
     public final static String CHANNELS = NAME_SPACE + ".channels";
     public final static String CROP_IMAGE = NAME_SPACE + ".cropimage";
     public final static String IMAGE_LOADER = NAME_SPACE + ".imageloader";
+    public final static String DECODE_THREADS = NAME_SPACE + ".decodethreads";
 
     public BaseImageRecordReader() {}
 
@@ -183,6 +202,7 @@ public abstract class BaseImageRecordReader extends BaseRecordReader {
         this.width = conf.getLong(WIDTH, width);
         this.channels = conf.getLong(CHANNELS, channels);
         this.cropImage = conf.getBoolean(CROP_IMAGE, cropImage);
+        setNumDecodeThreads(conf.getInt(DECODE_THREADS, numDecodeThreads));
         if ("imageio".equals(conf.get(IMAGE_LOADER))) {
             this.imageLoader = new ImageLoader(height, width, channels, cropImage);
         } else {
@@ -337,20 +357,11 @@ public abstract class BaseImageRecordReader extends BaseRecordReader {
             cnt++;
         }
 
-        INDArray features = Nd4j.createUninitialized(new long[] {cnt, channels, height, width}, 'c');
+        //Decode directly into the (preallocated) batch array, in the requested layout
+        long[] shape = nchw_channels_first ? new long[] {cnt, channels, height, width} : new long[] {cnt, height, width, channels};
+        INDArray features = Nd4j.createUninitialized(shape, 'c');
         Nd4j.getAffinityManager().tagLocation(features, AffinityManager.Location.HOST);
-        for (int i = 0; i < cnt; i++) {
-            try {
-                ((NativeImageLoader) imageLoader).asMatrixView(currBatch.get(i),
-                        features.tensorAlongDimension(i, 1, 2, 3));
-            } catch (Exception e) {
-                System.out.println("Image file failed during load: " + currBatch.get(i).getAbsolutePath());
-                throw new RuntimeException(e);
-            }
-        }
-        if(!nchw_channels_first){
-            features = features.permute(0,2,3,1);   //NCHW to NHWC
-        }
+        decodeBatch(currBatch, features);
         Nd4j.getAffinityManager().ensureLocation(features, AffinityManager.Location.DEVICE);
 
 
@@ -398,9 +409,112 @@ public abstract class BaseImageRecordReader extends BaseRecordReader {
         return new NDArrayRecordBatch(ret);
     }
 
+    /**
+     * Set the number of threads used to decode and transform images in {@link #next(int)}.
+     * If an {@link ImageTransform} is used, {@link #setImageTransformFactory(Supplier)} must also be set for decoding to
+     * use multiple threads.
+     *
+     * @param numDecodeThreads Number of decoding threads. 1: decode on the calling thread
+     */
+    public void setNumDecodeThreads(int numDecodeThreads) {
+        Preconditions.checkArgument(numDecodeThreads > 0, "Number of decode threads must be > 0: got %s", numDecodeThreads);
+        if (numDecodeThreads != this.numDecodeThreads) {
+            shutdownDecodeExecutor();
+        }
+        this.numDecodeThreads = numDecodeThreads;
+    }
+
+    /**
+     * Decode the images into the batch array: sequentially on the calling thread, or across the decode thread pool.
+     * When decoding in parallel, each thread has its own {@link NativeImageLoader} (and thus reuses its own OpenCV
+     * buffers) and its own image transform.
+     */
+    protected void decodeBatch(final List<File> files, final INDArray features) {
+        final int n = files.size();
+        int nThreads = Math.min(numDecodeThreads, n);
+        if (nThreads > 1 && imageTransform != null && imageTransformFactory == null) {
+            if (!warnedParallelTransform) {
+                log.warn("Decoding images on the calling thread: parallel decoding with an ImageTransform requires an " +
+                        "image transform factory (ImageTransform instances are not thread safe)");
+                warnedParallelTransform = true;
+            }
+            nThreads = 1;
+        }
+
+        if (nThreads <= 1) {
+            for (int i = 0; i < n; i++) {
+                decode((NativeImageLoader) imageLoader, files.get(i), exampleView(features, i));
+            }
+            return;
+        }
+
+        ExecutorService exec = decodeExecutor();
+        final AtomicInteger next = new AtomicInteger();     //Dynamic assignment: decode cost varies between images
+        List<Future<?>> futures = new ArrayList<>(nThreads);
+        for (int t = 0; t < nThreads; t++) {
+            futures.add(exec.submit(() -> {
+                NativeImageLoader loader = decodeLoaders.get();
+                int i;
+                while ((i = next.getAndIncrement()) < n) {
+                    decode(loader, files.get(i), exampleView(features, i));
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while decoding images", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * @return View of example i of the batch array, with shape [channels, height, width]
+     */
+    protected INDArray exampleView(INDArray features, int i) {
+        INDArray view = features.tensorAlongDimension(i, 1, 2, 3);
+        return nchw_channels_first ? view : view.permute(2, 0, 1);     //NHWC: strided [c,h,w] view
+    }
+
+    protected void decode(NativeImageLoader loader, File f, INDArray view) {
+        try {
+            loader.asMatrixView(f, view);
+        } catch (Exception e) {
+            throw new RuntimeException("Image file failed during load: " + f.getAbsolutePath(), e);
+        }
+    }
+
+    protected synchronized ExecutorService decodeExecutor() {
+        if (decodeExecutor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            decodeExecutor = Executors.newFixedThreadPool(numDecodeThreads, r -> {
+                Thread t = new Thread(r, "ImageRecordReader-decode-" + count.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+            decodeLoaders = ThreadLocal.withInitial(() -> new NativeImageLoader(height, width, channels,
+                    imageTransformFactory == null ? null : imageTransformFactory.get()));
+        }
+        return decodeExecutor;
+    }
+
+    protected synchronized void shutdownDecodeExecutor() {
+        if (decodeExecutor != null) {
+            decodeExecutor.shutdown();
+            decodeExecutor = null;
+            decodeLoaders = null;
+        }
+    }
+
     @Override
     public void close() throws IOException {
-        //No op
+        shutdownDecodeExecutor();
     }
 
     @Override
@@ -0,0 +1,228 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.image.transform;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.datavec.image.data.ImageWritable;
+import org.nd4j.shade.jackson.annotation.JsonIgnoreProperties;
+import org.nd4j.shade.jackson.annotation.JsonInclude;
+import org.nd4j.shade.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.bytedeco.opencv.opencv_core.*;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * Applies a sequence of image transforms, fusing consecutive geometric transforms into a single affine warp.<br>
+ * {@link CropImageTransform}, {@link ResizeImageTransform}, {@link ScaleImageTransform}, {@link FlipImageTransform}
+ * and {@link RotateImageTransform} (with the default interpolation and border settings) are each an affine map of
+ * the pixel coordinates. For each image, the random parameters of all transforms are drawn up front (in the same order
+ * as when the transforms are applied one by one), the maps are composed, and each run of consecutive geometric
+ * transforms is executed as one {@code warpAffine} call. This avoids allocating and writing an intermediate image per
+ * transform. Other transforms are applied as usual, between the fused runs.<br>
+ * Results are equivalent to applying the transforms one by one, up to interpolation differences: resampling happens
+ * once instead of once per transform (which usually improves quality).
+ */
+@JsonIgnoreProperties({"converter", "currentImage", "segments"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+@EqualsAndHashCode(callSuper = false, exclude = {"segments"})
+public class FusedImageTransform extends BaseImageTransform<Mat> {
+
+    private List<ImageTransform> transforms;
+    //Transforms executed for the last image: either a (fused) affine matrix, or an ImageTransform. Used by query
+    private List<Object> segments = new ArrayList<>();
+
+    public FusedImageTransform(ImageTransform... transforms) {
+        this(null, Arrays.asList(transforms));
+    }
+
+    public FusedImageTransform(@JsonProperty("transforms") List<ImageTransform> transforms) {
+        this(null, transforms);
+    }
+
+    /**
+     * @param random     object to use (or null for deterministic)
+     * @param transforms transforms to apply, in order
+     */
+    public FusedImageTransform(Random random, @NonNull List<ImageTransform> transforms) {
+        super(random);
+        this.transforms = transforms;
+        this.converter = new OpenCVFrameConverter.ToMat();
+    }
+
+    /**
+     * @return True if the transform can be fused into an affine warp
+     */
+    public static boolean isAffine(ImageTransform t) {
+        if (t instanceof RotateImageTransform) {
+            RotateImageTransform r = (RotateImageTransform) t;
+            return r.interMode() == INTER_LINEAR && r.borderMode() == BORDER_CONSTANT && r.borderValue() == Scalar.ZERO;
+        }
+        return t instanceof CropImageTransform || t instanceof ResizeImageTransform || t instanceof ScaleImageTransform
+                || t instanceof FlipImageTransform;
+    }
+
+    @Override
+    protected ImageWritable doTransform(ImageWritable image, Random random) {
+        if (image == null) {
+            return null;
+        }
+        segments.clear();
+        Mat mat = converter.convert(image.getFrame());
+        int h = mat.rows();
+        int w = mat.cols();
+        double[] m = null;        //Composed 2x3 affine map from the coordinates of mat, row major
+
+        for (ImageTransform t : transforms) {
+            if (!isAffine(t)) {
+                if (m != null) {
+                    mat = warp(mat, m, w, h);
+                    m = null;
+                }
+                ImageWritable out = t.transform(new ImageWritable(converter.convert(mat)), random);
+                if (out == null) {
+                    return null;
+                }
+                segments.add(t);
+                mat = converter.convert(out.getFrame());
+                h = mat.rows();
+                w = mat.cols();
+                continue;
+            }
+
+            //Draw the random parameters exactly as the transform itself would, and compute the map for this step
+            double[] step;
+            int newH = h, newW = w;
+            if (t instanceof CropImageTransform) {
+                CropImageTransform c = (CropImageTransform) t;
+                int top = random != null ? random.nextInt(c.getCropTop() + 1) : c.getCropTop();
+                int left = random != null ? random.nextInt(c.getCropLeft() + 1) : c.getCropLeft();
+                int bottom = random != null ? random.nextInt(c.getCropBottom() + 1) : c.getCropBottom();
+                int right = random != null ? random.nextInt(c.getCropRight() + 1) : c.getCropRight();
+                int y = Math.min(top, h - 1);
+                int x = Math.min(left, w - 1);
+                newH = Math.max(1, h - bottom - y);
+                newW = Math.max(1, w - right - x);
+                step = new double[] {1, 0, -x, 0, 1, -y};
+            } else if (t instanceof ResizeImageTransform) {
+                ResizeImageTransform r = (ResizeImageTransform) t;
+                newW = r.getNewWidth();
+                newH = r.getNewHeight();
+                step = scale(newW / (double) w, newH / (double) h);
+            } else if (t instanceof ScaleImageTransform) {
+                ScaleImageTransform s = (ScaleImageTransform) t;
+                newH = Math.round(h + s.getDy() * (random != null ? 2 * random.nextFloat() - 1 : 1));
+                newW = Math.round(w + s.getDx() * (random != null ? 2 * random.nextFloat() - 1 : 1));
+                step = scale(newW / (double) w, newH / (double) h);
+            } else if (t instanceof FlipImageTransform) {
+                int mode = random != null ? random.nextInt(4) - 2 : ((FlipImageTransform) t).getFlipMode();
+                //As per FlipImageTransform: < -1 no flip, 0 around x-axis, > 0 around y-axis, -1 around both
+                boolean flipX = mode >= -1 && mode != 0;
+                boolean flipY = mode >= -1 && mode <= 0;
+                step = new double[] {flipX ? -1 : 1, 0, flipX ? w - 1 : 0, 0, flipY ? -1 : 1, flipY ? h - 1 : 0};
+            } else {
+                RotateImageTransform r = (RotateImageTransform) t;
+                float cy = h / 2 + r.centery() * (random != null ? 2 * random.nextFloat() - 1 : 1);
+                float cx = w / 2 + r.centerx() * (random != null ? 2 * random.nextFloat() - 1 : 1);
+                float a = r.angle() * (random != null ? 2 * random.nextFloat() - 1 : 1);
+                float s = 1 + r.scale() * (random != null ? 2 * random.nextFloat() - 1 : 1);
+                //As per OpenCV getRotationMatrix2D
+                double alpha = s * Math.cos(Math.toRadians(a));
+                double beta = s * Math.sin(Math.toRadians(a));
+                step = new double[] {alpha, beta, (1 - alpha) * cx - beta * cy, -beta, alpha, beta * cx + (1 - alpha) * cy};
+            }
+
+            m = m == null ? step : compose(step, m);
+            w = newW;
+            h = newH;
+        }
+
+        if (m != null) {
+            mat = warp(mat, m, w, h);
+        }
+        return new ImageWritable(converter.convert(mat));
+    }
+
+    /**
+     * Scaling map with the same pixel center convention as OpenCV resize: (x + 0.5) * s - 0.5
+     */
+    protected static double[] scale(double sx, double sy) {
+        return new double[] {sx, 0, 0.5 * (sx - 1), 0, sy, 0.5 * (sy - 1)};
+    }
+
+    /**
+     * @return The affine map "second(first(x))"
+     */
+    protected static double[] compose(double[] second, double[] first) {
+        double[] out = new double[6];
+        for (int r = 0; r < 2; r++) {
+            double a = second[3 * r], b = second[3 * r + 1];
+            out[3 * r] = a * first[0] + b * first[3];
+            out[3 * r + 1] = a * first[1] + b * first[4];
+            out[3 * r + 2] = a * first[2] + b * first[5] + second[3 * r + 2];
+        }
+        return out;
+    }
+
+    protected Mat warp(Mat mat, double[] m, int w, int h) {
+        segments.add(m);
+        if (w == mat.cols() && h == mat.rows() && Arrays.equals(m, new double[] {1, 0, 0, 0, 1, 0})) {
+            return mat;
+        }
+        Mat result = new Mat();
+        try (DoublePointer p = new DoublePointer(m); Mat mm = new Mat(2, 3, CV_64F, p)) {
+            warpAffine(mat, result, mm, new Size(w, h), INTER_LINEAR, BORDER_CONSTANT, Scalar.ZERO);
+        }
+        return result;
+    }
+
+    @Override
+    public float[] query(float... coordinates) {
+        float[] transformed = coordinates;
+        for (Object o : segments) {
+            if (o instanceof ImageTransform) {
+                transformed = ((ImageTransform) o).query(transformed);
+            } else {
+                double[] m = (double[]) o;
+                float[] next = new float[transformed.length];
+                for (int i = 0; i < transformed.length; i += 2) {
+                    float x = transformed[i];
+                    float y = transformed[i + 1];
+                    next[i] = (float) (m[0] * x + m[1] * y + m[2]);
+                    next[i + 1] = (float) (m[3] * x + m[4] * y + m[5]);
+                }
+                transformed = next;
+            }
+        }
+        return transformed;
+    }
+}
@@ -45,6 +45,10 @@ public class ImageTransformProcess {
 
     private List<ImageTransform> transformList;
     private int seed;
+    /**
+     * If true: consecutive geometric transforms are executed as a single affine warp. See {@link FusedImageTransform}
+     */
+    private boolean fused;
 
     public ImageTransformProcess(int seed, ImageTransform... transforms) {
         this.seed = seed;
@@ -58,6 +62,7 @@ public class ImageTransformProcess {
 
     public ImageTransformProcess(Builder builder) {
         this(builder.seed, builder.transformList);
+        this.fused = builder.fused;
     }
 
     public List<Writable> execute(List<Writable> image) {
@@ -71,8 +76,12 @@ public class ImageTransformProcess {
         }
 
         ImageWritable currentImage = image;
-        for (ImageTransform transform : transformList) {
-            currentImage = transform.transform(currentImage, random);
+        if (fused) {
+            currentImage = new FusedImageTransform(transformList).transform(currentImage, random);
+        } else {
+            for (ImageTransform transform : transformList) {
+                currentImage = transform.transform(currentImage, random);
+            }
         }
 
         NativeImageLoader imageLoader = new NativeImageLoader();
@@ -86,8 +95,12 @@ public class ImageTransformProcess {
         }
 
         ImageWritable currentImage = image;
-        for (ImageTransform transform : transformList) {
-            currentImage = transform.transform(currentImage, random);
+        if (fused) {
+            currentImage = new FusedImageTransform(transformList).transform(currentImage, random);
+        } else {
+            for (ImageTransform transform : transformList) {
+                currentImage = transform.transform(currentImage, random);
+            }
         }
 
         return currentImage;
@@ -164,6 +177,7 @@ public class ImageTransformProcess {
 
         private List<ImageTransform> transformList;
         private int seed = 0;
+        private boolean fused = false;
 
         public Builder() {
             transformList = new ArrayList<>();
@@ -174,6 +188,15 @@ public class ImageTransformProcess {
             return this;
         }
 
+        /**
+         * If true: execute consecutive crop/resize/scale/flip/rotate transforms as a single affine warp, instead of
+         * one OpenCV call and one intermediate image per transform. See {@link FusedImageTransform}
+         */
+        public Builder fused(boolean fused) {
+            this.fused = fused;
+            return this;
+        }
+
         public Builder cropImageTransform(int crop) {
             transformList.add(new CropImageTransform(crop));
             return this;
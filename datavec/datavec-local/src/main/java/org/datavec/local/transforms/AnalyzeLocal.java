@@ -30,17 +30,25 @@ import org.datavec.api.transform.analysis.columns.ColumnAnalysis;
 import org.datavec.api.transform.analysis.histogram.HistogramCounter;
 import org.datavec.api.transform.analysis.quality.QualityAnalysisAddFunction;
 import org.datavec.api.transform.analysis.quality.QualityAnalysisState;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisConfig;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisState;
 import org.datavec.api.transform.quality.DataQualityAnalysis;
 import org.datavec.api.transform.quality.columns.ColumnQuality;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.writable.Writable;
 import org.datavec.local.transforms.analysis.aggregate.AnalysisAddFunction;
 import org.datavec.local.transforms.analysis.histogram.HistogramAddFunction;
+import org.nd4j.common.base.Preconditions;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class AnalyzeLocal {
     private static final int DEFAULT_MAX_HISTOGRAM_BUCKETS = 30;
+    private static final int DEFAULT_SKETCH_CHUNK_SIZE = 1024;
 
     /**
      * Analyse the specified data - returns a DataAnalysis object with summary information about each column
@@ -88,6 +96,94 @@ public class AnalyzeLocal {
         return new DataAnalysis(schema, list);
     }
 
+    /**
+     * Analyse the specified data in a single pass using fixed-size, mergeable sketches - see {@link SketchAnalysisState}.
+     * Records are read on the calling thread and analysed in chunks, in parallel, using one thread per processor.
+     * Use {@link SketchAnalysisState#toDataAnalysis(int)} to get the standard DataAnalysis, or
+     * {@link #updateSketch(SketchAnalysisState, RecordReader)} to add further data to the analysis later.
+     *
+     * @param schema Schema for data
+     * @param rr     Data to analyze
+     * @return Sketch analysis state for data
+     */
+    public static SketchAnalysisState analyzeSketch(Schema schema, RecordReader rr) {
+        return analyzeSketch(schema, rr, SketchAnalysisConfig.defaultConfig(),
+                Runtime.getRuntime().availableProcessors(), DEFAULT_SKETCH_CHUNK_SIZE);
+    }
+
+    /**
+     * Analyse the specified data in a single pass using fixed-size, mergeable sketches - see {@link SketchAnalysisState}.
+     *
+     * @param schema     Schema for data
+     * @param rr         Data to analyze
+     * @param config     Sketch sizing configuration
+     * @param numThreads Number of threads to analyse chunks with. If 1, analysis is done on the calling thread
+     * @param chunkSize  Number of records per chunk
+     * @return Sketch analysis state for data
+     */
+    public static SketchAnalysisState analyzeSketch(Schema schema, RecordReader rr, SketchAnalysisConfig config,
+                                                    int numThreads, int chunkSize) {
+        Preconditions.checkArgument(numThreads > 0, "Number of threads must be positive, got %s", numThreads);
+        Preconditions.checkArgument(chunkSize > 0, "Chunk size must be positive, got %s", chunkSize);
+        SketchAnalysisState state = new SketchAnalysisState(schema, config);
+        if (numThreads == 1) {
+            while (rr.hasNext()) {
+                state.add(rr.next());
+            }
+            return state;
+        }
+
+        ExecutorService exec = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread t = new Thread(r, "AnalyzeLocal-sketch");
+            t.setDaemon(true);
+            return t;
+        });
+        //Bound the number of chunks in flight, so memory use doesn't depend on the size of the data
+        Deque<Future<SketchAnalysisState>> inFlight = new ArrayDeque<>();
+        try {
+            while (rr.hasNext()) {
+                final List<List<Writable>> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize && rr.hasNext()) {
+                    chunk.add(rr.next());
+                }
+                inFlight.add(exec.submit(() -> {
+                    SketchAnalysisState s = new SketchAnalysisState(schema, config);
+                    for (List<Writable> record : chunk) {
+                        s.add(record);
+                    }
+                    return s;
+                }));
+                if (inFlight.size() >= 2 * numThreads) {
+                    state.merge(inFlight.poll().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                state.merge(inFlight.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during sketch analysis", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error during sketch analysis", e.getCause());
+        } finally {
+            exec.shutdownNow();
+        }
+        return state;
+    }
+
+    /**
+     * Incrementally update an existing sketch analysis with new data. The data must have the same schema as the
+     * existing analysis.
+     *
+     * @param state Existing analysis state. Is modified in place
+     * @param rr    New data to add to the analysis
+     * @return The updated state
+     */
+    public static SketchAnalysisState updateSketch(SketchAnalysisState state, RecordReader rr) {
+        return state.merge(analyzeSketch(state.getSchema(), rr, state.getConfig(),
+                Runtime.getRuntime().availableProcessors(), DEFAULT_SKETCH_CHUNK_SIZE));
+    }
+
 
     /**
      * Analyze the data quality of sequence data - provides a report on missing values, values that don't comply with schema, etc
@@ -27,6 +27,7 @@ import lombok.val;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
+import org.datavec.api.records.reader.RecordReader;
 import org.datavec.api.transform.DataAction;
 import org.datavec.api.transform.Transform;
 import org.datavec.api.transform.TransformProcess;
@@ -41,6 +42,9 @@ import org.datavec.api.transform.sequence.ConvertToSequence;
 import org.datavec.api.transform.sequence.SequenceSplit;
 import org.datavec.api.writable.*;
 import org.datavec.arrow.ArrowConverter;
+import org.datavec.local.transforms.external.ExternalJoin;
+import org.datavec.local.transforms.external.ExternalMemoryConfig;
+import org.datavec.local.transforms.external.ExternalSorter;
 import org.datavec.local.transforms.functions.EmptyRecordFunction;
 import org.datavec.local.transforms.join.ExecuteJoinFromCoGroupFlatMapFunction;
 import org.datavec.local.transforms.join.ExtractKeysFunction;
@@ -54,9 +58,13 @@ import org.datavec.local.transforms.transform.filter.LocalFilterFunction;
 import org.nd4j.common.function.Function;
 import org.nd4j.common.function.FunctionalUtils;
 import org.nd4j.common.primitives.Pair;
+import org.nd4j.shade.guava.collect.Iterators;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.toList;
@@ -81,6 +89,21 @@ public class LocalTransformExecutor {
      */
     public static List<List<Writable>> execute(List<List<Writable>> inputWritables,
                                                TransformProcess transformProcess) {
+        return execute(inputWritables, transformProcess, null);
+    }
+
+    /**
+     * Execute the specified TransformProcess with the given input data, using memory-bounded (spill to disk) execution
+     * for sort operations such as {@link CalculateSortedRank}<br>
+     * Note: this method can only be used if the TransformProcess returns non-sequence data.
+     *
+     * @param inputWritables   Input data to process
+     * @param transformProcess TransformProcess to execute
+     * @param config           External memory configuration for sorts. If null, sorts are done entirely in memory
+     * @return Processed data
+     */
+    public static List<List<Writable>> execute(List<List<Writable>> inputWritables,
+                                               TransformProcess transformProcess, ExternalMemoryConfig config) {
         if (transformProcess.getFinalSchema() instanceof SequenceSchema) {
             throw new IllegalStateException("Cannot return sequence data with this method");
 
@@ -91,7 +114,7 @@ public class LocalTransformExecutor {
         if(filteredSequence.size() != inputWritables.size()) {
             log.warn("Filtered out " + (inputWritables.size() - filteredSequence.size()) + " values");
         }
-        return execute(filteredSequence, null, transformProcess).getFirst();
+        return execute(filteredSequence, null, transformProcess, config).getFirst();
     }
 
     /**
@@ -107,11 +130,25 @@ public class LocalTransformExecutor {
      */
     public static List<List<List<Writable>>> executeToSequence(List<List<Writable>> inputWritables,
                                                                TransformProcess transformProcess) {
+        return executeToSequence(inputWritables, transformProcess, null);
+    }
+
+    /**
+     * As per {@link #executeToSequence(List, TransformProcess)}, using memory-bounded (spill to disk) execution for
+     * sort operations such as {@link CalculateSortedRank}
+     *
+     * @param inputWritables   Input data to process
+     * @param transformProcess TransformProcess to execute
+     * @param config           External memory configuration for sorts. If null, sorts are done entirely in memory
+     * @return Processed (sequence) data
+     */
+    public static List<List<List<Writable>>> executeToSequence(List<List<Writable>> inputWritables,
+                                                               TransformProcess transformProcess, ExternalMemoryConfig config) {
         if (!(transformProcess.getFinalSchema() instanceof SequenceSchema)) {
             throw new IllegalStateException("Cannot return non-sequence data with this method");
         }
 
-        return execute(inputWritables, null, transformProcess).getSecond();
+        return execute(inputWritables, null, transformProcess, config).getSecond();
     }
 
     /**
@@ -125,11 +162,25 @@ public class LocalTransformExecutor {
      */
     public static List<List<Writable>> executeSequenceToSeparate(List<List<List<Writable>>> inputSequence,
                                                                  TransformProcess transformProcess) {
+        return executeSequenceToSeparate(inputSequence, transformProcess, null);
+    }
+
+    /**
+     * As per {@link #executeSequenceToSeparate(List, TransformProcess)}, using memory-bounded (spill to disk) execution
+     * for sort operations such as {@link CalculateSortedRank}
+     *
+     * @param inputSequence    Input sequence data to process
+     * @param transformProcess TransformProcess to execute
+     * @param config           External memory configuration for sorts. If null, sorts are done entirely in memory
+     * @return Processed (non-sequential) data
+     */
+    public static List<List<Writable>> executeSequenceToSeparate(List<List<List<Writable>>> inputSequence,
+                                                                 TransformProcess transformProcess, ExternalMemoryConfig config) {
         if (transformProcess.getFinalSchema() instanceof SequenceSchema) {
             throw new IllegalStateException("Cannot return sequence data with this method");
         }
 
-        return execute(null, inputSequence, transformProcess).getFirst();
+        return execute(null, inputSequence, transformProcess, config).getFirst();
     }
 
     /**
@@ -145,13 +196,13 @@ public class LocalTransformExecutor {
         if (!(transformProcess.getFinalSchema() instanceof SequenceSchema)) {
             List<List<List<Writable>>> ret = new ArrayList<>(inputSequence.size());
             for(List<List<Writable>> timeStep : inputSequence) {
-                ret.add(execute(timeStep,null, transformProcess).getFirst());
+                ret.add(execute(timeStep,null, transformProcess, null).getFirst());
             }
 
             return ret;
         }
 
-        return execute(null, inputSequence, transformProcess).getSecond();
+        return execute(null, inputSequence, transformProcess, null).getSecond();
     }
 
 
@@ -304,7 +355,7 @@ public class LocalTransformExecutor {
 
     private static Pair<List<List<Writable>>, List<List<List<Writable>>>> execute(
             List<List<Writable>> inputWritables, List<List<List<Writable>>> inputSequence,
-            TransformProcess sequence) {
+            TransformProcess sequence, ExternalMemoryConfig externalMemoryConfig) {
         List<List<Writable>> currentWritables = inputWritables;
         List<List<List<Writable>>> currentSequence = inputSequence;
 
@@ -479,6 +530,11 @@ public class LocalTransformExecutor {
                 String sortColumn = csr.getSortOnColumn();
                 int sortColumnIdx = csr.getInputSchema().getIndexOfColumn(sortColumn);
                 boolean ascending = csr.isAscending();
+                if (externalMemoryConfig != null) {
+                    currentWritables = externalSortedRank(currentWritables, comparator, sortColumnIdx, ascending,
+                            externalMemoryConfig);
+                    continue;
+                }
                 //NOTE: this likely isn't the most efficient implementation.
                 List<Pair<Writable, List<Writable>>> pairRDD =
                         currentWritables.stream().map(input -> new ColumnAsKeyPairFunction(sortColumnIdx).apply(input))
@@ -553,6 +609,29 @@ public class LocalTransformExecutor {
 
 
 
+    private static List<List<Writable>> externalSortedRank(List<List<Writable>> input, Comparator<Writable> comparator,
+                                                           int sortColumnIdx, boolean ascending,
+                                                           ExternalMemoryConfig externalMemoryConfig) {
+        Comparator<List<Writable>> recordComparator = (r1, r2) -> {
+            int result = comparator.compare(r1.get(sortColumnIdx), r2.get(sortColumnIdx));
+            return ascending ? result : -result;
+        };
+        UnzipForCalculateSortedRankFunction unzip = new UnzipForCalculateSortedRankFunction();
+        List<List<Writable>> out = new ArrayList<>(input.size());
+        try (ExternalSorter sorter = new ExternalSorter(recordComparator, externalMemoryConfig)) {
+            sorter.addAll(input.iterator());
+            Iterator<List<Writable>> sorted = sorter.sortedIterator();
+            long rank = 0;
+            while (sorted.hasNext()) {
+                List<Writable> record = sorted.next();
+                out.add(unzip.apply(Pair.of(Pair.of(record.get(sortColumnIdx), record), rank++)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error during external sort for CalculateSortedRank", e);
+        }
+        return out;
+    }
+
     /**
      * Execute a join on the specified data
      *
@@ -599,5 +678,69 @@ public class LocalTransformExecutor {
 
     }
 
+    /**
+     * Execute a join on the specified data, using a memory-bounded join implementation that spills to disk as
+     * required - see {@link ExternalJoin} and {@link ExternalMemoryConfig.JoinStrategy}
+     *
+     * @param join   Join to execute
+     * @param left   Left data for join
+     * @param right  Right data for join
+     * @param config Memory budget and join strategy
+     * @return Joined data
+     */
+    public static List<List<Writable>> executeJoin(Join join, List<List<Writable>> left,
+                                                   List<List<Writable>> right, ExternalMemoryConfig config) {
+        List<List<Writable>> ret = new ArrayList<>();
+        executeJoin(join, left.iterator(), right.iterator(), config, ret::add);
+        Schema retSchema = join.getOutputSchema();
+        return ArrowConverter.toArrowWritables(ArrowConverter.toArrowColumns(bufferAllocator,retSchema,ret),retSchema);
+    }
+
+    /**
+     * Execute a join on data from two record readers, passing each joined record to the output consumer.
+     * Neither the inputs nor the output are held in memory, so this can be used for data sets larger than memory.
+     *
+     * @param join   Join to execute
+     * @param left   Left data for join
+     * @param right  Right data for join
+     * @param config Memory budget and join strategy
+     * @param out    Consumer for joined records
+     */
+    public static void executeJoin(Join join, RecordReader left, RecordReader right, ExternalMemoryConfig config,
+                                   Consumer<List<Writable>> out) {
+        executeJoin(join, new RecordReaderIterator(left), new RecordReaderIterator(right), config, out);
+    }
+
+    private static void executeJoin(Join join, Iterator<List<Writable>> left, Iterator<List<Writable>> right,
+                                    ExternalMemoryConfig config, Consumer<List<Writable>> out) {
+        //Same filtering as the in-memory join
+        int nLeftKeys = join.getJoinColumnsLeft().length;
+        int nRightKeys = join.getJoinColumnsRight().length;
+        Iterator<List<Writable>> l = Iterators.filter(left, input -> input.size() != nLeftKeys);
+        Iterator<List<Writable>> r = Iterators.filter(right, input -> input.size() != nRightKeys);
+        try {
+            new ExternalJoin(join, config).execute(l, r, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error during external join", e);
+        }
+    }
+
+    private static class RecordReaderIterator implements Iterator<List<Writable>> {
+        private final RecordReader recordReader;
+
+        private RecordReaderIterator(RecordReader recordReader) {
+            this.recordReader = recordReader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return recordReader.hasNext();
+        }
+
+        @Override
+        public List<Writable> next() {
+            return recordReader.next();
+        }
+    }
 
 }
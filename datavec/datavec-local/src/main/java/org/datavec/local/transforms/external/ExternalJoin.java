@@ -0,0 +1,301 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.local.transforms.external;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.transform.join.Join;
+import org.datavec.api.writable.Writable;
+import org.nd4j.shade.guava.collect.Iterators;
+import org.nd4j.shade.guava.collect.PeekingIterator;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Memory-bounded join of two record streams, spilling to disk as required. Supports all {@link Join.JoinType}s,
+ * with the same semantics as {@link org.datavec.local.transforms.LocalTransformExecutor#executeJoin(Join, List, List)}.
+ * <br>
+ * Two strategies are available (see {@link ExternalMemoryConfig.JoinStrategy}):<br>
+ * - Sort-merge: both inputs are sorted with an {@link ExternalSorter} (each using half of the memory budget), then
+ *   merged one key group at a time. Only the records for a single key need to fit in memory<br>
+ * - Grace hash: the right input is buffered up to the memory budget. If it fits, this is an in-memory hash join with
+ *   the left input streamed past it. Otherwise both inputs are hash partitioned to disk on the join key, and each
+ *   partition pair is joined recursively (with a different hash at each level). Partitions that still don't fit
+ *   after {@link #MAX_PARTITION_DEPTH} levels (i.e., heavily skewed keys) fall back to sort-merge<br>
+ * Output order is not defined for grace hash joins; sort-merge output is ordered by join key.
+ */
+@Slf4j
+public class ExternalJoin {
+
+    public static final int MAX_PARTITION_DEPTH = 3;
+
+    private final Join join;
+    private final ExternalMemoryConfig config;
+    private final int[] leftKeys;
+    private final int[] rightKeys;
+    private final boolean keepUnmatchedLeft;
+    private final boolean keepUnmatchedRight;
+    @Getter
+    private int numSpilledPartitions;
+    @Getter
+    private int numSpilledRuns;
+
+    public ExternalJoin(Join join, ExternalMemoryConfig config) {
+        this.join = join;
+        this.config = config;
+        this.leftKeys = columnIndexes(join.getLeftSchema().getColumnNames(), join.getJoinColumnsLeft());
+        this.rightKeys = columnIndexes(join.getRightSchema().getColumnNames(), join.getJoinColumnsRight());
+        Join.JoinType jt = join.getJoinType();
+        this.keepUnmatchedLeft = jt == Join.JoinType.LeftOuter || jt == Join.JoinType.FullOuter;
+        this.keepUnmatchedRight = jt == Join.JoinType.RightOuter || jt == Join.JoinType.FullOuter;
+    }
+
+    /**
+     * Execute the join, passing each joined record to the output consumer
+     *
+     * @param left  Left input records
+     * @param right Right input records
+     * @param out   Consumer for the joined records
+     */
+    public void execute(Iterator<List<Writable>> left, Iterator<List<Writable>> right,
+                        Consumer<List<Writable>> out) throws IOException {
+        switch (config.getJoinStrategy()) {
+            case SORT_MERGE:
+                sortMerge(left, right, out);
+                break;
+            case GRACE_HASH:
+                graceHash(left, right, 0, out);
+                break;
+            default:
+                throw new IllegalStateException("Unknown join strategy: " + config.getJoinStrategy());
+        }
+    }
+
+    private void sortMerge(Iterator<List<Writable>> left, Iterator<List<Writable>> right,
+                           Consumer<List<Writable>> out) throws IOException {
+        long halfBudget = Math.max(1, config.getMemoryBudgetBytes() / 2);
+        try (ExternalSorter ls = new ExternalSorter(new KeyColumnsComparator(leftKeys), config, halfBudget);
+             ExternalSorter rs = new ExternalSorter(new KeyColumnsComparator(rightKeys), config, halfBudget)) {
+            ls.addAll(left);
+            rs.addAll(right);
+            PeekingIterator<List<Writable>> l = Iterators.peekingIterator(ls.sortedIterator());
+            PeekingIterator<List<Writable>> r = Iterators.peekingIterator(rs.sortedIterator());
+            numSpilledRuns += ls.getNumSpilledRuns() + rs.getNumSpilledRuns();
+
+            List<List<Writable>> leftGroup = new ArrayList<>();
+            List<List<Writable>> rightGroup = new ArrayList<>();
+            while (l.hasNext() || r.hasNext()) {
+                int c;
+                if (!l.hasNext())
+                    c = 1;
+                else if (!r.hasNext())
+                    c = -1;
+                else
+                    c = KeyColumnsComparator.compareKeys(l.peek(), leftKeys, r.peek(), rightKeys);
+
+                leftGroup.clear();
+                rightGroup.clear();
+                if (c <= 0)
+                    readGroup(l, leftKeys, leftGroup);
+                if (c >= 0)
+                    readGroup(r, rightKeys, rightGroup);
+                emit(leftGroup, rightGroup, out);
+            }
+        }
+    }
+
+    private static void readGroup(PeekingIterator<List<Writable>> iter, int[] keys, List<List<Writable>> group) {
+        List<Writable> first = iter.next();
+        group.add(first);
+        while (iter.hasNext() && KeyColumnsComparator.compareKeys(iter.peek(), keys, first, keys) == 0) {
+            group.add(iter.next());
+        }
+    }
+
+    private void graceHash(Iterator<List<Writable>> left, Iterator<List<Writable>> right, int depth,
+                           Consumer<List<Writable>> out) throws IOException {
+        long budget = config.getMemoryBudgetBytes();
+        List<List<Writable>> buffer = new ArrayList<>();
+        long bufferBytes = 0;
+        while (right.hasNext() && bufferBytes <= budget) {
+            List<Writable> r = right.next();
+            buffer.add(r);
+            bufferBytes += RecordSpillFile.estimateHeapBytes(r);
+        }
+
+        if (!right.hasNext() && bufferBytes <= budget) {
+            hashJoin(buffer, left, out);
+            return;
+        }
+
+        if (depth >= MAX_PARTITION_DEPTH) {
+            log.debug("Grace hash join partition exceeds memory budget after {} levels of partitioning;"
+                    + " falling back to sort-merge join", depth);
+            sortMerge(left, Iterators.concat(buffer.iterator(), right), out);
+            return;
+        }
+
+        int numPartitions = config.getNumHashPartitions();
+        RecordSpillFile[] rightParts = new RecordSpillFile[numPartitions];
+        RecordSpillFile[] leftParts = new RecordSpillFile[numPartitions];
+        try {
+            for (List<Writable> r : buffer) {
+                partitionFor(rightParts, r, rightKeys, depth).write(r);
+            }
+            buffer = null;
+            while (right.hasNext()) {
+                List<Writable> r = right.next();
+                partitionFor(rightParts, r, rightKeys, depth).write(r);
+            }
+            while (left.hasNext()) {
+                List<Writable> l = left.next();
+                partitionFor(leftParts, l, leftKeys, depth).write(l);
+            }
+
+            for (int i = 0; i < numPartitions; i++) {
+                if (rightParts[i] != null)
+                    rightParts[i].finish();
+                if (leftParts[i] != null)
+                    leftParts[i].finish();
+            }
+
+            for (int i = 0; i < numPartitions; i++) {
+                if (rightParts[i] == null && leftParts[i] == null)
+                    continue;
+                numSpilledPartitions++;
+                RecordSpillFile.Reader lr = (leftParts[i] == null ? null : leftParts[i].iterator());
+                RecordSpillFile.Reader rr = (rightParts[i] == null ? null : rightParts[i].iterator());
+                try {
+                    graceHash(lr == null ? Collections.<List<Writable>>emptyIterator() : lr,
+                            rr == null ? Collections.<List<Writable>>emptyIterator() : rr, depth + 1, out);
+                } finally {
+                    if (lr != null)
+                        lr.close();
+                    if (rr != null)
+                        rr.close();
+                }
+                //Delete partition files as soon as they have been joined
+                if (leftParts[i] != null)
+                    leftParts[i].close();
+                if (rightParts[i] != null)
+                    rightParts[i].close();
+                leftParts[i] = null;
+                rightParts[i] = null;
+            }
+        } finally {
+            for (int i = 0; i < numPartitions; i++) {
+                if (rightParts[i] != null)
+                    rightParts[i].close();
+                if (leftParts[i] != null)
+                    leftParts[i].close();
+            }
+        }
+    }
+
+    private RecordSpillFile partitionFor(RecordSpillFile[] partitions, List<Writable> record, int[] keys, int depth)
+            throws IOException {
+        long h = 1;
+        for (int k : keys) {
+            h = 31 * h + record.get(k).hashCode();
+        }
+        //Re-mix with a different constant per level, so records from one partition spread out at the next level
+        h += (depth + 1) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        int idx = (int) Math.floorMod(h, (long) partitions.length);
+        if (partitions[idx] == null)
+            partitions[idx] = new RecordSpillFile(config.getTempDir());
+        return partitions[idx];
+    }
+
+    private void hashJoin(List<List<Writable>> build, Iterator<List<Writable>> probe, Consumer<List<Writable>> out) {
+        Map<List<Writable>, List<List<Writable>>> map = new HashMap<>();
+        for (List<Writable> r : build) {
+            map.computeIfAbsent(key(r, rightKeys), k -> new ArrayList<>()).add(r);
+        }
+
+        Set<List<Writable>> matched = keepUnmatchedRight ? new HashSet<>() : null;
+        List<List<Writable>> single = new ArrayList<>(1);
+        while (probe.hasNext()) {
+            List<Writable> l = probe.next();
+            List<Writable> k = key(l, leftKeys);
+            List<List<Writable>> rightMatches = map.get(k);
+            if (rightMatches != null && matched != null)
+                matched.add(k);
+            single.clear();
+            single.add(l);
+            emit(single, rightMatches == null ? Collections.<List<Writable>>emptyList() : rightMatches, out);
+        }
+
+        if (keepUnmatchedRight) {
+            for (Map.Entry<List<Writable>, List<List<Writable>>> e : map.entrySet()) {
+                if (!matched.contains(e.getKey()))
+                    emit(Collections.<List<Writable>>emptyList(), e.getValue(), out);
+            }
+        }
+    }
+
+    /**
+     * Emit the joined records for a set of left and right records that all have the same key. Either list may be
+     * empty.
+     */
+    private void emit(List<List<Writable>> leftRecords, List<List<Writable>> rightRecords,
+                      Consumer<List<Writable>> out) {
+        if (!leftRecords.isEmpty() && !rightRecords.isEmpty()) {
+            for (List<Writable> l : leftRecords) {
+                for (List<Writable> r : rightRecords) {
+                    out.accept(join.joinExamples(l, r));
+                }
+            }
+        } else if (!leftRecords.isEmpty() && keepUnmatchedLeft) {
+            for (List<Writable> l : leftRecords) {
+                out.accept(join.joinExamples(l, null));
+            }
+        } else if (!rightRecords.isEmpty() && keepUnmatchedRight) {
+            for (List<Writable> r : rightRecords) {
+                out.accept(join.joinExamples(null, r));
+            }
+        }
+    }
+
+    private static List<Writable> key(List<Writable> record, int[] keys) {
+        if (keys.length == 1)
+            return Collections.singletonList(record.get(keys[0]));
+        List<Writable> k = new ArrayList<>(keys.length);
+        for (int i : keys) {
+            k.add(record.get(i));
+        }
+        return k;
+    }
+
+    private static int[] columnIndexes(List<String> columnNames, String[] keyColumns) {
+        int[] idx = new int[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            idx[i] = columnNames.indexOf(keyColumns[i]);
+            if (idx[i] < 0)
+                throw new IllegalStateException("Join column \"" + keyColumns[i] + "\" not found in schema");
+        }
+        return idx;
+    }
+}
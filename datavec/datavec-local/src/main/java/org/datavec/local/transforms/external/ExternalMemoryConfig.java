@@ -0,0 +1,127 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.local.transforms.external;
+
+import lombok.Data;
+
+import java.io.File;
+import java.io.Serializable;
+
+/**
+ * Configuration for the spill-to-disk operations in this package ({@link ExternalSorter} and {@link ExternalJoin}).<br>
+ * The memory budget bounds the estimated heap size of records buffered at any one time by a single sort or join;
+ * once it is exceeded, records are spilled to temporary files under {@link #getTempDir()}.
+ */
+@Data
+public class ExternalMemoryConfig implements Serializable {
+
+    public enum JoinStrategy {
+        /**
+         * Externally sort both inputs on the join key, then merge. Output is ordered by join key. Only the records for
+         * a single key need to fit in memory
+         */
+        SORT_MERGE,
+        /**
+         * Partition both inputs to disk by key hash until each right (build) partition fits in the memory budget,
+         * then do an in-memory hash join per partition. If the right input fits within the budget, nothing is spilled
+         */
+        GRACE_HASH
+    }
+
+    public static final long DEFAULT_MEMORY_BUDGET_BYTES = 256L * 1024 * 1024;
+
+    private final long memoryBudgetBytes;
+    private final File tempDir;
+    private final int maxMergeFanIn;
+    private final int numHashPartitions;
+    private final JoinStrategy joinStrategy;
+
+    private ExternalMemoryConfig(Builder builder) {
+        this.memoryBudgetBytes = builder.memoryBudgetBytes;
+        this.tempDir = builder.tempDir;
+        this.maxMergeFanIn = builder.maxMergeFanIn;
+        this.numHashPartitions = builder.numHashPartitions;
+        this.joinStrategy = builder.joinStrategy;
+    }
+
+    public static ExternalMemoryConfig defaultConfig() {
+        return new Builder().build();
+    }
+
+    public static class Builder {
+        private long memoryBudgetBytes = DEFAULT_MEMORY_BUDGET_BYTES;
+        private File tempDir = new File(System.getProperty("java.io.tmpdir"));
+        private int maxMergeFanIn = 64;
+        private int numHashPartitions = 32;
+        private JoinStrategy joinStrategy = JoinStrategy.GRACE_HASH;
+
+        /**
+         * @param memoryBudgetBytes Maximum estimated heap size of records buffered by a sort or join. Default: 256MB
+         */
+        public Builder memoryBudgetBytes(long memoryBudgetBytes) {
+            this.memoryBudgetBytes = memoryBudgetBytes;
+            return this;
+        }
+
+        /**
+         * @param tempDir Directory for spill files. Default: java.io.tmpdir
+         */
+        public Builder tempDir(File tempDir) {
+            this.tempDir = tempDir;
+            return this;
+        }
+
+        /**
+         * @param maxMergeFanIn Maximum number of sorted runs merged at once. If more runs than this are spilled,
+         *                      intermediate merge passes are used. Default: 64
+         */
+        public Builder maxMergeFanIn(int maxMergeFanIn) {
+            this.maxMergeFanIn = maxMergeFanIn;
+            return this;
+        }
+
+        /**
+         * @param numHashPartitions Number of partitions per level for grace hash joins. Default: 32
+         */
+        public Builder numHashPartitions(int numHashPartitions) {
+            this.numHashPartitions = numHashPartitions;
+            return this;
+        }
+
+        /**
+         * @param joinStrategy Join implementation to use. Default: {@link JoinStrategy#GRACE_HASH}
+         */
+        public Builder joinStrategy(JoinStrategy joinStrategy) {
+            this.joinStrategy = joinStrategy;
+            return this;
+        }
+
+        public ExternalMemoryConfig build() {
+            if (memoryBudgetBytes <= 0)
+                throw new IllegalArgumentException("Memory budget must be positive, got " + memoryBudgetBytes);
+            if (maxMergeFanIn < 2)
+                throw new IllegalArgumentException("Merge fan-in must be at least 2, got " + maxMergeFanIn);
+            if (numHashPartitions < 2)
+                throw new IllegalArgumentException("Number of hash partitions must be at least 2, got " + numHashPartitions);
+            return new ExternalMemoryConfig(this);
+        }
+    }
+}
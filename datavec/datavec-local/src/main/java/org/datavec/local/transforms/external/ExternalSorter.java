@@ -0,0 +1,206 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.local.transforms.external;
+
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.writable.Writable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * External merge sort for records.<br>
+ * Records are buffered in memory until their estimated size exceeds the memory budget, at which point the buffer
+ * is sorted and written to disk as a sorted run (see {@link RecordSpillFile}). The sorted output is a k-way merge
+ * of the runs; if there are more runs than {@link ExternalMemoryConfig#getMaxMergeFanIn()}, runs are first merged
+ * in intermediate passes. If all records fit within the budget, nothing is written to disk.<br>
+ * The sort is stable: records that compare as equal are returned in the order they were added.<br>
+ * Usage: {@link #add(List)} all records, then call {@link #sortedIterator()} once, then {@link #close()} to delete
+ * any spill files.
+ */
+@Slf4j
+public class ExternalSorter implements Closeable {
+
+    private final Comparator<List<Writable>> comparator;
+    private final ExternalMemoryConfig config;
+    private final long memoryBudgetBytes;
+    private List<List<Writable>> buffer = new ArrayList<>();
+    private long bufferBytes;
+    private final List<RecordSpillFile> runs = new ArrayList<>();
+    private final List<RecordSpillFile.Reader> openReaders = new ArrayList<>();
+    private int numSpilledRuns;
+    private boolean sorted;
+
+    public ExternalSorter(Comparator<List<Writable>> comparator, ExternalMemoryConfig config) {
+        this(comparator, config, config.getMemoryBudgetBytes());
+    }
+
+    /**
+     * @param comparator        Record ordering
+     * @param config            Configuration for temporary files and merging
+     * @param memoryBudgetBytes Memory budget for this sorter, overriding the budget in the configuration. Used when
+     *                          multiple sorters share one budget
+     */
+    public ExternalSorter(Comparator<List<Writable>> comparator, ExternalMemoryConfig config, long memoryBudgetBytes) {
+        this.comparator = comparator;
+        this.config = config;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    public void add(List<Writable> record) throws IOException {
+        if (sorted)
+            throw new IllegalStateException("Cannot add records after sortedIterator() has been called");
+        buffer.add(record);
+        bufferBytes += RecordSpillFile.estimateHeapBytes(record);
+        if (bufferBytes > memoryBudgetBytes)
+            spill();
+    }
+
+    public void addAll(Iterator<List<Writable>> records) throws IOException {
+        while (records.hasNext()) {
+            add(records.next());
+        }
+    }
+
+    /**
+     * @return Number of sorted runs written to disk so far. 0 if the sort was done entirely in memory
+     */
+    public int getNumSpilledRuns() {
+        return numSpilledRuns;
+    }
+
+    /**
+     * @return Iterator over all added records, in sorted order. Can only be called once
+     */
+    public Iterator<List<Writable>> sortedIterator() throws IOException {
+        if (sorted)
+            throw new IllegalStateException("sortedIterator() can only be called once");
+        sorted = true;
+
+        if (runs.isEmpty()) {
+            buffer.sort(comparator);
+            return buffer.iterator();
+        }
+
+        if (!buffer.isEmpty())
+            spill();
+        buffer = null;
+
+        //Intermediate merge passes: always merge the first (oldest) runs, so the merged run keeps its position and
+        //the sort stays stable
+        int fanIn = config.getMaxMergeFanIn();
+        while (runs.size() > fanIn) {
+            List<RecordSpillFile> toMerge = new ArrayList<>(runs.subList(0, fanIn));
+            RecordSpillFile merged = new RecordSpillFile(config.getTempDir());
+            Iterator<List<Writable>> iter = merge(toMerge);
+            while (iter.hasNext()) {
+                merged.write(iter.next());
+            }
+            merged.finish();
+            closeReaders();
+            for (RecordSpillFile f : toMerge) {
+                f.close();
+            }
+            runs.subList(0, fanIn).clear();
+            runs.add(0, merged);
+        }
+
+        return merge(runs);
+    }
+
+    private void spill() throws IOException {
+        buffer.sort(comparator);
+        RecordSpillFile run = new RecordSpillFile(config.getTempDir());
+        for (List<Writable> record : buffer) {
+            run.write(record);
+        }
+        run.finish();
+        runs.add(run);
+        numSpilledRuns++;
+        log.debug("Spilled sorted run {} of {} records ({} estimated bytes) to {}", numSpilledRuns, buffer.size(),
+                bufferBytes, run.getFile());
+        buffer = new ArrayList<>();
+        bufferBytes = 0;
+    }
+
+    private Iterator<List<Writable>> merge(List<RecordSpillFile> toMerge) throws IOException {
+        final PriorityQueue<Head> queue = new PriorityQueue<>(toMerge.size(), (h1, h2) -> {
+            int c = comparator.compare(h1.record, h2.record);
+            return c != 0 ? c : Integer.compare(h1.runIdx, h2.runIdx);
+        });
+        for (int i = 0; i < toMerge.size(); i++) {
+            RecordSpillFile.Reader r = toMerge.get(i).iterator();
+            openReaders.add(r);
+            if (r.hasNext())
+                queue.add(new Head(r.next(), i, r));
+        }
+
+        return new Iterator<List<Writable>>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public List<Writable> next() {
+                Head h = queue.poll();
+                if (h == null)
+                    throw new NoSuchElementException();
+                List<Writable> ret = h.record;
+                if (h.reader.hasNext()) {
+                    h.record = h.reader.next();
+                    queue.add(h);
+                }
+                return ret;
+            }
+        };
+    }
+
+    private void closeReaders() throws IOException {
+        for (RecordSpillFile.Reader r : openReaders) {
+            r.close();
+        }
+        openReaders.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeReaders();
+        for (RecordSpillFile f : runs) {
+            f.close();
+        }
+        runs.clear();
+        buffer = null;
+    }
+
+    private static class Head {
+        private List<Writable> record;
+        private final int runIdx;
+        private final RecordSpillFile.Reader reader;
+
+        private Head(List<Writable> record, int runIdx, RecordSpillFile.Reader reader) {
+            this.record = record;
+            this.runIdx = runIdx;
+            this.reader = reader;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.local.transforms.external;
+
+import org.datavec.api.io.WritableComparable;
+import org.datavec.api.writable.Writable;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orders records by the values in a set of key columns. Values are ordered first by {@link Writable#getType()},
+ * then by natural order for comparable writables of the same class, then by string representation. This makes
+ * the ordering consistent with the {@link Object#equals(Object)} semantics used for grouping join keys: a
+ * {@code LongWritable(1)} and {@code IntWritable(1)} are different keys.
+ */
+public class KeyColumnsComparator implements Comparator<List<Writable>>, Serializable {
+
+    private final int[] columns;
+
+    public KeyColumnsComparator(int... columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public int compare(List<Writable> o1, List<Writable> o2) {
+        return compareKeys(o1, columns, o2, columns);
+    }
+
+    /**
+     * Compare the key columns of two records, which may have different key column positions (for example, the left
+     * and right inputs of a join)
+     */
+    public static int compareKeys(List<Writable> r1, int[] columns1, List<Writable> r2, int[] columns2) {
+        for (int i = 0; i < columns1.length; i++) {
+            int c = compareValues(r1.get(columns1[i]), r2.get(columns2[i]));
+            if (c != 0)
+                return c;
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static int compareValues(Writable w1, Writable w2) {
+        int c = Integer.compare(w1.getType().ordinal(), w2.getType().ordinal());
+        if (c != 0)
+            return c;
+        if (w1 instanceof WritableComparable && w1.getClass() == w2.getClass()) {
+            return ((WritableComparable) w1).compareTo(w2);
+        }
+        return w1.toString().compareTo(w2.toString());
+    }
+}
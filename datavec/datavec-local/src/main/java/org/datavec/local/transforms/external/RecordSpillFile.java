@@ -0,0 +1,169 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.local.transforms.external;
+
+import lombok.Getter;
+import org.datavec.api.writable.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A temporary file of records, in a compact binary encoding: each record is the number of values followed by each
+ * value in {@link WritableFactory#writeWithType(Writable, DataOutput)} format (a short type index, then the value).
+ * Files are written once, then read sequentially any number of times, then deleted.
+ */
+public class RecordSpillFile implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int END_OF_FILE = -1;
+
+    @Getter
+    private final File file;
+    private DataOutputStream out;
+    @Getter
+    private long numRecords;
+    @Getter
+    private long estimatedBytes;
+
+    public RecordSpillFile(File tempDir) throws IOException {
+        this.file = File.createTempFile("datavec_spill_", ".bin", tempDir);
+        this.file.deleteOnExit();
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    public void write(List<Writable> record) throws IOException {
+        out.writeInt(record.size());
+        WritableFactory f = WritableFactory.getInstance();
+        for (Writable w : record) {
+            f.writeWithType(w, out);
+        }
+        numRecords++;
+        estimatedBytes += estimateHeapBytes(record);
+    }
+
+    /**
+     * Finish writing. Must be called before {@link #iterator()}
+     */
+    public void finish() throws IOException {
+        if (out != null) {
+            out.writeInt(END_OF_FILE);
+            out.close();
+            out = null;
+        }
+    }
+
+    /**
+     * @return Iterator over the records in the file, in the order they were written. Should be closed after use
+     */
+    public Reader iterator() throws IOException {
+        if (out != null)
+            throw new IllegalStateException("Cannot read spill file before finish() has been called");
+        return new Reader(new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)));
+    }
+
+    /**
+     * Delete the underlying file
+     */
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        if (file.exists() && !file.delete())
+            throw new IOException("Could not delete spill file: " + file.getAbsolutePath());
+    }
+
+    /**
+     * Rough estimate of the heap size of the specified record, used for enforcing memory budgets. Accounts for
+     * object headers, list overhead and variable size content (text, bytes and arrays)
+     */
+    public static long estimateHeapBytes(List<Writable> record) {
+        long bytes = 40 + 8L * record.size();
+        for (Writable w : record) {
+            if (w instanceof Text) {
+                bytes += 56 + ((Text) w).getLength();
+            } else if (w instanceof BytesWritable) {
+                byte[] content = ((BytesWritable) w).getContent();
+                bytes += 48 + (content == null ? 0 : content.length);
+            } else if (w instanceof NDArrayWritable) {
+                NDArrayWritable nw = (NDArrayWritable) w;
+                bytes += 256 + (nw.get() == null ? 0 : nw.get().length() * nw.get().dataType().width());
+            } else {
+                bytes += 24;
+            }
+        }
+        return bytes;
+    }
+
+    public static class Reader implements Iterator<List<Writable>>, Closeable {
+        private final DataInputStream in;
+        private List<Writable> next;
+        private boolean done;
+
+        private Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null)
+                return true;
+            if (done)
+                return false;
+            try {
+                int size = in.readInt();
+                if (size == END_OF_FILE) {
+                    done = true;
+                    in.close();
+                    return false;
+                }
+                WritableFactory f = WritableFactory.getInstance();
+                List<Writable> record = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    record.add(f.readWithType(in));
+                }
+                next = record;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading spill file", e);
+            }
+        }
+
+        @Override
+        public List<Writable> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            List<Writable> ret = next;
+            next = null;
+            return ret;
+        }
+
+        @Override
+        public void close() throws IOException {
+            done = true;
+            in.close();
+        }
+    }
+}
@@ -11,6 +11,7 @@ open module datavec.local {
     exports org.datavec.local.transforms;
     exports org.datavec.local.transforms.analysis.aggregate;
     exports org.datavec.local.transforms.analysis.histogram;
+    exports org.datavec.local.transforms.external;
     exports org.datavec.local.transforms.functions;
     exports org.datavec.local.transforms.functions.data;
     exports org.datavec.local.transforms.join;
@@ -0,0 +1,81 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.spark.functions;
+
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.split.ByteRangeSplit;
+import org.datavec.api.writable.Writable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads all records in a {@link ByteRangeSplit} using a line-based record reader such as
+ * {@link org.datavec.api.records.reader.impl.csv.CSVRecordReader}. Used to read large files in parallel:
+ * <pre>
+ * {@code List<ByteRangeSplit> splits = ByteRangeSplit.split(new File("/path/to/large.csv"), numPartitions);
+ * JavaRDD<List<Writable>> data = sc.parallelize(splits, splits.size())
+ *         .flatMap(new ByteRangeRecordReaderFunction(new CSVRecordReader()));}
+ * </pre>
+ * The files must be accessible at the same URIs from all executors (for example, on a shared file system).
+ * Records are read lazily, so the contents of a split are not held in memory.
+ */
+public class ByteRangeRecordReaderFunction implements FlatMapFunction<ByteRangeSplit, List<Writable>> {
+    protected RecordReader recordReader;
+
+    public ByteRangeRecordReaderFunction(RecordReader recordReader) {
+        this.recordReader = recordReader;
+    }
+
+    @Override
+    public Iterator<List<Writable>> call(ByteRangeSplit split) throws Exception {
+        recordReader.initialize(split);
+        return new Iterator<List<Writable>>() {
+            private boolean closed;
+
+            @Override
+            public boolean hasNext() {
+                if (closed)
+                    return false;
+                if (recordReader.hasNext())
+                    return true;
+                try {
+                    recordReader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                closed = true;
+                return false;
+            }
+
+            @Override
+            public List<Writable> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return recordReader.next();
+            }
+        };
+    }
+}
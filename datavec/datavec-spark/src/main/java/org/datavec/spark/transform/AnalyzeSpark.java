@@ -34,6 +34,8 @@ import org.datavec.api.transform.analysis.quality.QualityAnalysisAddFunction;
 import org.datavec.api.transform.analysis.quality.QualityAnalysisCombineFunction;
 import org.datavec.api.transform.analysis.quality.QualityAnalysisState;
 import org.datavec.api.transform.analysis.sequence.SequenceLengthAnalysis;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisConfig;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisState;
 import org.datavec.api.transform.metadata.ColumnMetaData;
 import org.datavec.api.transform.quality.DataQualityAnalysis;
 import org.datavec.api.transform.quality.columns.ColumnQuality;
@@ -51,6 +53,8 @@ import org.datavec.spark.transform.analysis.seqlength.IntToDoubleFunction;
 import org.datavec.spark.transform.analysis.seqlength.SequenceLengthAnalysisAddFunction;
 import org.datavec.spark.transform.analysis.seqlength.SequenceLengthAnalysisCounter;
 import org.datavec.spark.transform.analysis.seqlength.SequenceLengthAnalysisMergeFunction;
+import org.datavec.spark.transform.analysis.sketch.SketchAnalysisAddFunction;
+import org.datavec.spark.transform.analysis.sketch.SketchAnalysisCombineFunction;
 import org.datavec.spark.transform.analysis.unique.UniqueAddFunction;
 import org.datavec.spark.transform.analysis.unique.UniqueMergeFunction;
 import org.datavec.spark.transform.filter.FilterWritablesBySchemaFunction;
@@ -149,6 +153,30 @@ public class AnalyzeSpark {
         return new DataAnalysis(schema, list);
     }
 
+    /**
+     * Analyse the specified data in a single pass, using fixed-size mergeable sketches (HyperLogLog distinct counts,
+     * KLL quantiles/histograms and count-min most frequent values) - see {@link SketchAnalysisState}.
+     * Per-partition states are merged on the driver; the result can also be merged with states computed locally
+     * or on other RDDs, as long as the same schema and configuration are used.
+     *
+     * @param schema Schema for data
+     * @param data   Data to analyze
+     * @return Sketch analysis state for data
+     */
+    public static SketchAnalysisState analyzeSketch(Schema schema, JavaRDD<List<Writable>> data) {
+        return analyzeSketch(schema, data, SketchAnalysisConfig.defaultConfig());
+    }
+
+    /**
+     * As per {@link #analyzeSketch(Schema, JavaRDD)} with the specified sketch configuration
+     */
+    public static SketchAnalysisState analyzeSketch(Schema schema, JavaRDD<List<Writable>> data,
+                                                    SketchAnalysisConfig config) {
+        SketchAnalysisState state = data.aggregate(null, new SketchAnalysisAddFunction(schema, config),
+                        new SketchAnalysisCombineFunction());
+        return state == null ? new SketchAnalysisState(schema, config) : state;
+    }
+
     /**
      * Randomly sample values from a single column
      *
@@ -0,0 +1,43 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.spark.transform.analysis.sketch;
+
+import lombok.AllArgsConstructor;
+import org.apache.spark.api.java.function.Function2;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisConfig;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisState;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.Writable;
+
+import java.util.List;
+
+@AllArgsConstructor
+public class SketchAnalysisAddFunction implements Function2<SketchAnalysisState, List<Writable>, SketchAnalysisState> {
+    private Schema schema;
+    private SketchAnalysisConfig config;
+
+    @Override
+    public SketchAnalysisState call(SketchAnalysisState state, List<Writable> writables) throws Exception {
+        if (state == null)
+            state = new SketchAnalysisState(schema, config);
+        return state.add(writables);
+    }
+}
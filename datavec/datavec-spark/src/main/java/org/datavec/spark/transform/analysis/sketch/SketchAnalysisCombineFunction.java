@@ -0,0 +1,36 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.spark.transform.analysis.sketch;
+
+import org.apache.spark.api.java.function.Function2;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisState;
+
+public class SketchAnalysisCombineFunction
+                implements Function2<SketchAnalysisState, SketchAnalysisState, SketchAnalysisState> {
+    @Override
+    public SketchAnalysisState call(SketchAnalysisState s1, SketchAnalysisState s2) throws Exception {
+        if (s1 == null)
+            return s2;
+        if (s2 == null)
+            return s1;
+        return s1.merge(s2);
+    }
+}
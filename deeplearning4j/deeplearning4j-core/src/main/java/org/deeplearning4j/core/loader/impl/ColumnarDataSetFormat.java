@@ -0,0 +1,318 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.core.loader.impl;
+
+import lombok.NonNull;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A simple columnar binary format for {@link DataSet} minibatches, designed for fast repeated loading of exported data.<br>
+ * Unlike {@link DataSet#save(OutputStream)}, arrays are not written via {@link Nd4j#write(INDArray, DataOutputStream)}:
+ * the file is a small header (datatype and shape of the features, labels and mask arrays) followed by the raw,
+ * c-order array buffers, each aligned to {@link #ALIGNMENT} bytes. On loading, each array is allocated once (in the
+ * current workspace, if any) and filled with a single bulk copy - either directly from a memory mapped file
+ * ({@link #read(File)}) or from a stream ({@link #read(InputStream)}).<br>
+ * The data section can optionally be LZ4 compressed (frame format), which reduces storage and network IO at the cost
+ * of decompression - and means memory mapping can't be used.<br>
+ * Note that only the features, labels and mask arrays are stored; example metadata and label names are not.
+ *
+ * @see ColumnarDataSetLoader
+ */
+public class ColumnarDataSetFormat {
+
+    public static final int MAGIC = 0x444C3443;     //"DL4C"
+    public static final int VERSION = 1;
+    public static final int ALIGNMENT = 64;
+
+    private static final int FLAG_LZ4 = 1;
+    private static final int FLAG_BIG_ENDIAN = 2;
+    private static final int NUM_ARRAYS = 4;
+    private static final int FIXED_HEADER_BYTES = 24;
+
+    private ColumnarDataSetFormat() {
+    }
+
+    /**
+     * Write the DataSet to the specified file
+     *
+     * @param ds       DataSet to write
+     * @param file     File to write to
+     * @param compress If true: LZ4 compress the array data
+     */
+    public static void write(@NonNull DataSet ds, @NonNull File file, boolean compress) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(ds, os, compress);
+        }
+    }
+
+    /**
+     * Write the DataSet to the specified output stream. The stream is not closed.
+     *
+     * @param ds       DataSet to write
+     * @param os       Stream to write to
+     * @param compress If true: LZ4 compress the array data
+     */
+    public static void write(@NonNull DataSet ds, @NonNull OutputStream os, boolean compress) throws IOException {
+        INDArray[] arrays = {ds.getFeatures(), ds.getLabels(), ds.getFeaturesMaskArray(), ds.getLabelsMaskArray()};
+
+        long dataLength = 0;
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(baos);
+        for (INDArray arr : arrays) {
+            header.writeBoolean(arr != null);
+            if (arr == null)
+                continue;
+            DataType dt = arr.dataType();
+            if (!dt.isNumerical() && dt != DataType.BOOL)
+                throw new IllegalArgumentException("Unable to write array of type " + dt + ": only numerical and boolean arrays are supported");
+            header.writeInt(dt.toInt());
+            header.writeInt(arr.rank());
+            for (long l : arr.shape())
+                header.writeLong(l);
+            dataLength = align(dataLength + arr.length() * dt.width());
+        }
+        header.flush();
+        int headerLength = (int) align(FIXED_HEADER_BYTES + baos.size());
+
+        int flags = (compress ? FLAG_LZ4 : 0) | (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? FLAG_BIG_ENDIAN : 0);
+        DataOutputStream dos = new DataOutputStream(os);
+        dos.writeInt(MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeInt(flags);
+        dos.writeInt(headerLength);
+        dos.writeLong(dataLength);
+        baos.writeTo(dos);
+        dos.write(new byte[headerLength - FIXED_HEADER_BYTES - baos.size()]);
+        dos.flush();
+
+        FramedLZ4CompressorOutputStream lz4 = compress ? new FramedLZ4CompressorOutputStream(new NonClosingOutputStream(os)) : null;
+        WritableByteChannel channel = Channels.newChannel(compress ? lz4 : os);
+        ByteBuffer padding = ByteBuffer.allocate(ALIGNMENT);
+        for (INDArray arr : arrays) {
+            if (arr == null)
+                continue;
+            long bytes = arr.length() * arr.dataType().width();
+            if (bytes > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Unable to write array of " + bytes + " bytes: arrays must be smaller than 2GB");
+            if (bytes > 0) {
+                INDArray c = arr.isView() || arr.ordering() != 'c' || arr.data().length() != arr.length() ? arr.dup('c') : arr;
+                ByteBuffer src = c.data().asNio().duplicate();
+                src.position(0).limit((int) bytes);
+                while (src.hasRemaining())
+                    channel.write(src);
+            }
+            padding.clear().limit((int) (align(bytes) - bytes));
+            while (padding.hasRemaining())
+                channel.write(padding);
+        }
+        if (lz4 != null)
+            lz4.finish();
+        os.flush();
+    }
+
+    /**
+     * Read a DataSet from the specified file. Uncompressed files are memory mapped and copied directly into the
+     * new arrays.
+     *
+     * @param file File to read
+     * @return The loaded DataSet
+     */
+    public static DataSet read(@NonNull File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel fc = raf.getChannel();
+            ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER_BYTES);
+            readFully(fc, fixed);
+            fixed.flip();
+            Header h = readFixedHeader(fixed);
+            ByteBuffer rest = ByteBuffer.allocate(h.headerLength - FIXED_HEADER_BYTES);
+            readFully(fc, rest);
+            h.readArrayHeaders(new DataInputStream(new ByteArrayInputStream(rest.array())));
+
+            if (h.compressed) {
+                fc.position(h.headerLength);
+                return h.readData(Channels.newChannel(new FramedLZ4CompressorInputStream(
+                        new BufferedInputStream(Channels.newInputStream(fc)))));
+            }
+
+            if (fc.size() < h.headerLength + h.dataLength)
+                throw new IOException("Invalid or truncated file: expected " + (h.headerLength + h.dataLength) + " bytes, got " + fc.size());
+            ByteBuffer mapped = fc.map(FileChannel.MapMode.READ_ONLY, h.headerLength, h.dataLength);
+            INDArray[] out = new INDArray[NUM_ARRAYS];
+            long offset = 0;
+            for (int i = 0; i < NUM_ARRAYS; i++) {
+                if (h.types[i] == null)
+                    continue;
+                out[i] = Nd4j.create(h.types[i], h.shapes[i]);
+                long bytes = out[i].length() * h.types[i].width();
+                if (bytes > 0) {
+                    ByteBuffer src = mapped.duplicate();
+                    src.position((int) offset).limit((int) (offset + bytes));
+                    ByteBuffer dst = out[i].data().asNio().duplicate();
+                    dst.position(0);
+                    dst.put(src);
+                    h.fixByteOrder(dst, bytes, h.types[i].width());
+                }
+                offset = align(offset + bytes);
+            }
+            return new DataSet(out[0], out[1], out[2], out[3]);
+        }
+    }
+
+    /**
+     * Read a DataSet from the specified input stream. The stream is not closed.
+     *
+     * @param is Stream to read from
+     * @return The loaded DataSet
+     */
+    public static DataSet read(@NonNull InputStream is) throws IOException {
+        DataInputStream dis = new DataInputStream(is);
+        byte[] fixed = new byte[FIXED_HEADER_BYTES];
+        dis.readFully(fixed);
+        Header h = readFixedHeader(ByteBuffer.wrap(fixed));
+        byte[] rest = new byte[h.headerLength - FIXED_HEADER_BYTES];
+        dis.readFully(rest);
+        h.readArrayHeaders(new DataInputStream(new ByteArrayInputStream(rest)));
+
+        InputStream dataStream = h.compressed ? new FramedLZ4CompressorInputStream(new NonClosingInputStream(is)) : is;
+        return h.readData(Channels.newChannel(dataStream));
+    }
+
+    private static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer dst) throws IOException {
+        while (dst.hasRemaining()) {
+            if (channel.read(dst) < 0)
+                throw new EOFException("Unexpected end of data: invalid or truncated DataSet file");
+        }
+    }
+
+    private static Header readFixedHeader(ByteBuffer bb) throws IOException {
+        if (bb.getInt() != MAGIC)
+            throw new IOException("Invalid file: not a columnar DataSet file (invalid header)");
+        int version = bb.getInt();
+        if (version > VERSION)
+            throw new IOException("Unsupported columnar DataSet file version: " + version + " (max supported: " + VERSION + ")");
+        int flags = bb.getInt();
+        Header h = new Header();
+        h.compressed = (flags & FLAG_LZ4) != 0;
+        h.order = (flags & FLAG_BIG_ENDIAN) != 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        h.headerLength = bb.getInt();
+        h.dataLength = bb.getLong();
+        if (h.headerLength < FIXED_HEADER_BYTES)
+            throw new IOException("Invalid file: header length " + h.headerLength);
+        return h;
+    }
+
+    private static class Header {
+        private boolean compressed;
+        private ByteOrder order;
+        private int headerLength;
+        private long dataLength;
+        private final DataType[] types = new DataType[NUM_ARRAYS];
+        private final long[][] shapes = new long[NUM_ARRAYS][0];
+
+        private void readArrayHeaders(DataInputStream dis) throws IOException {
+            for (int i = 0; i < NUM_ARRAYS; i++) {
+                if (!dis.readBoolean())
+                    continue;
+                types[i] = DataType.fromInt(dis.readInt());
+                shapes[i] = new long[dis.readInt()];
+                for (int j = 0; j < shapes[i].length; j++)
+                    shapes[i][j] = dis.readLong();
+            }
+        }
+
+        private DataSet readData(ReadableByteChannel channel) throws IOException {
+            INDArray[] out = new INDArray[NUM_ARRAYS];
+            ByteBuffer padding = ByteBuffer.allocate(ALIGNMENT);
+            for (int i = 0; i < NUM_ARRAYS; i++) {
+                if (types[i] == null)
+                    continue;
+                out[i] = Nd4j.create(types[i], shapes[i]);
+                long bytes = out[i].length() * types[i].width();
+                if (bytes > 0) {
+                    ByteBuffer dst = out[i].data().asNio().duplicate();
+                    dst.position(0).limit((int) bytes);
+                    readFully(channel, dst);
+                    fixByteOrder(dst, bytes, types[i].width());
+                }
+                padding.clear().limit((int) (align(bytes) - bytes));
+                readFully(channel, padding);
+            }
+            return new DataSet(out[0], out[1], out[2], out[3]);
+        }
+
+        private void fixByteOrder(ByteBuffer bb, long bytes, int width) {
+            if (order == ByteOrder.nativeOrder() || width == 1)
+                return;
+            //Rare case: file written on a machine with different endianness
+            for (int i = 0; i < bytes; i += width) {
+                for (int j = 0; j < width / 2; j++) {
+                    byte b = bb.get(i + j);
+                    bb.put(i + j, bb.get(i + width - 1 - j));
+                    bb.put(i + width - 1 - j, b);
+                }
+            }
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        private NonClosingOutputStream(OutputStream os) {
+            super(os);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private static class NonClosingInputStream extends FilterInputStream {
+        private NonClosingInputStream(InputStream is) {
+            super(is);
+        }
+
+        @Override
+        public void close() {
+            //No op
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.core.loader.impl;
+
+import org.deeplearning4j.core.loader.DataSetLoader;
+import org.nd4j.common.loader.LocalFileSource;
+import org.nd4j.common.loader.Source;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads DataSets saved in the {@link ColumnarDataSetFormat}. Local files are memory mapped; other sources
+ * (such as remote files) are streamed.
+ */
+public class ColumnarDataSetLoader implements DataSetLoader {
+    @Override
+    public DataSet load(Source source) throws IOException {
+        if (source instanceof LocalFileSource) {
+            File f = new File(source.getPath());
+            if (f.isFile())
+                return ColumnarDataSetFormat.read(f);
+        }
+        try (InputStream is = source.getInputStream()) {
+            return ColumnarDataSetFormat.read(is);
+        }
+    }
+}
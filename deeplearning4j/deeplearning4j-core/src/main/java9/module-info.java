@@ -15,6 +15,7 @@ open module deeplearning4j.core {
     requires nd4j.api;
     requires nd4j.common;
     requires oshi.json;
+    requires org.apache.commons.compress;
     exports org.deeplearning4j.core.datasets.test;
     exports org.deeplearning4j.core.datasets.vectorizer;
     exports org.deeplearning4j.core.evaluation;
@@ -20,6 +20,7 @@
 
 package org.deeplearning4j.datasets.datavec;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -38,6 +39,7 @@ import org.datavec.api.writable.Writable;
 import org.datavec.api.writable.batch.NDArrayRecordBatch;
 import org.deeplearning4j.datasets.datavec.exception.ZeroLengthSequenceException;
 import org.nd4j.common.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
@@ -82,6 +84,12 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
 
     private boolean resetSupported = true;
 
+    //Reusable staging buffers for bulk conversion of non-sequence writables to 2d arrays
+    @Getter(AccessLevel.NONE)
+    private transient float[] floatStaging;
+    @Getter(AccessLevel.NONE)
+    private transient double[] doubleStaging;
+
     private RecordReaderMultiDataSetIterator(Builder builder) {
         this.batchSize = builder.batchSize;
         this.alignmentMode = builder.alignmentMode;
@@ -465,7 +473,8 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                 shape[0] = minValues;
                 arr = Nd4j.create(shape);
             } else {
-                arr = Nd4j.create(minValues, countLength(list.get(0)));
+                List<Writable> first = list.get(0);
+                return convertWritablesBulk(list, minValues, 0, first.size() - 1, countLength(first));
             }
         } else if (details.oneHot) {
             arr = Nd4j.zeros(minValues, details.oneHotNumClasses);
@@ -480,17 +489,13 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
             } else {
                 //Need to check for multiple NDArrayWritables, or mixed NDArrayWritable + DoubleWritable etc
                 int length = countLength(list.get(0), details.subsetStart, details.subsetEndInclusive);
-                arr = Nd4j.create(minValues, length);
+                return convertWritablesBulk(list, minValues, details.subsetStart, details.subsetEndInclusive, length);
             }
         }
 
         for (int i = 0; i < minValues; i++) {
             List<Writable> c = list.get(i);
-            if (details.entireReader) {
-                //Convert entire reader contents, without modification
-                INDArray converted = RecordConverter.toArray(Nd4j.defaultFloatingPointType(), c);
-                putExample(arr, converted, i);
-            } else if (details.oneHot) {
+            if (details.oneHot) {
                 //Convert a single column to a one-hot representation
                 Writable w = c.get(details.subsetStart);
                 //Index of class
@@ -502,36 +507,84 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                 }
                 arr.putScalar(i, w.toInt(), 1.0);
             } else {
-                //Convert a subset of the columns
+                //Single NDArrayWritable, either the entire reader or the single column subset. Example: ImageRecordReader
+                int idx = details.entireReader ? 0 : details.subsetStart;
+                putExample(arr, ((NDArrayWritable) c.get(idx)).get(), i);
+            }
+        }
 
-                //Special case: subsetStart == subsetEndInclusive && NDArrayWritable. Example: ImageRecordReader
-                if (details.subsetStart == details.subsetEndInclusive
-                                && (c.get(details.subsetStart) instanceof NDArrayWritable)) {
-                    putExample(arr, ((NDArrayWritable) c.get(details.subsetStart)).get(), i);
-                } else {
+        return arr;
+    }
 
-                    Iterator<Writable> iter = c.iterator();
-                    for (int j = 0; j < details.subsetStart; j++)
-                        iter.next();
-                    int k = 0;
-                    for (int j = details.subsetStart; j <= details.subsetEndInclusive; j++) {
-                        Writable w = iter.next();
+    /**
+     * Convert columns from (inclusive) to (inclusive) of each example to a 2d array of shape [minValues, length].<br>
+     * Values are written to a reusable primitive staging buffer, and the array is created from it with a single copy,
+     * instead of one putScalar/put call per value. The column layout (offset of each column within the row, and which
+     * columns are NDArrayWritables) is resolved once, from the first example, and validated for the others.
+     */
+    private INDArray convertWritablesBulk(List<List<Writable>> list, int minValues, int from, int to, int length) {
+        List<Writable> first = list.get(0);
+        int nCols = to - from + 1;
+        int[] offsets = new int[nCols];
+        boolean[] arrayCol = new boolean[nCols];
+        int pos = 0;
+        for (int j = 0; j < nCols; j++) {
+            Writable w = first.get(from + j);
+            offsets[j] = pos;
+            arrayCol[j] = w instanceof NDArrayWritable;
+            pos += arrayCol[j] ? (int) ((NDArrayWritable) w).get().length() : 1;
+        }
 
-                        if (w instanceof NDArrayWritable) {
-                            INDArray toPut = ((NDArrayWritable) w).get();
-                            arr.put(new INDArrayIndex[] {NDArrayIndex.point(i),
-                                            NDArrayIndex.interval(k, k + toPut.length())}, toPut);
-                            k += toPut.length();
-                        } else {
-                            arr.putScalar(i, k, w.toDouble());
-                            k++;
-                        }
+        DataType dt = Nd4j.defaultFloatingPointType();
+        boolean useDouble = dt == DataType.DOUBLE;
+        int n = minValues * length;
+        if (useDouble) {
+            if (doubleStaging == null || doubleStaging.length != n)
+                doubleStaging = new double[n];
+        } else {
+            if (floatStaging == null || floatStaging.length != n)
+                floatStaging = new float[n];
+        }
+
+        for (int i = 0; i < minValues; i++) {
+            List<Writable> c = list.get(i);
+            int base = i * length;
+            if (c.size() <= to) {
+                throw new IllegalStateException("Cannot convert writables: example " + i + " has " + c.size()
+                                + " values, expected at least " + (to + 1));
+            }
+            for (int j = 0; j < nCols; j++) {
+                Writable w = c.get(from + j);
+                int idx = base + offsets[j];
+                if (arrayCol[j]) {
+                    INDArray a = w instanceof NDArrayWritable ? ((NDArrayWritable) w).get() : null;
+                    int expLength = (j == nCols - 1 ? length : offsets[j + 1]) - offsets[j];
+                    if (a == null || a.length() != expLength) {
+                        throw new IllegalStateException("Cannot convert writables: column " + (from + j) + " of example "
+                                        + i + " is " + (a == null ? w.getClass().getSimpleName() : "an NDArrayWritable of length " + a.length())
+                                        + ", but first example has NDArrayWritable of length " + expLength);
+                    }
+                    if (useDouble) {
+                        System.arraycopy(a.toDoubleVector(), 0, doubleStaging, idx, expLength);
+                    } else {
+                        System.arraycopy(a.toFloatVector(), 0, floatStaging, idx, expLength);
+                    }
+                } else {
+                    if (w instanceof NDArrayWritable) {
+                        throw new IllegalStateException("Cannot convert writables: column " + (from + j) + " of example "
+                                        + i + " is an NDArrayWritable, but first example has a single value");
+                    }
+                    if (useDouble) {
+                        doubleStaging[idx] = w.toDouble();
+                    } else {
+                        floatStaging[idx] = (float) w.toDouble();
                     }
                 }
             }
         }
 
-        return arr;
+        long[] shape = {minValues, length};
+        return useDouble ? Nd4j.create(doubleStaging, shape, dt) : Nd4j.create(floatStaging, shape, dt);
     }
 
     private void putExample(INDArray arr, INDArray singleExample, int exampleIdx) {
@@ -23,10 +23,11 @@ package org.deeplearning4j.nn.modelimport.keras;
 import lombok.extern.slf4j.Slf4j;
 import org.bytedeco.hdf5.*;
 import org.bytedeco.javacpp.BytePointer;
-import org.bytedeco.javacpp.FloatPointer;
 import org.bytedeco.javacpp.Loader;
+import org.bytedeco.javacpp.Pointer;
 import org.deeplearning4j.nn.modelimport.keras.exceptions.UnsupportedKerasConfigurationException;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.Shape;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.shade.jackson.databind.DeserializationFeature;
 import org.nd4j.shade.jackson.databind.ObjectMapper;
@@ -61,6 +62,7 @@ public class Hdf5Archive implements Closeable {
 
     private H5File file;
     private static DataType dataType = new DataType(PredType.NATIVE_FLOAT());
+    private static DataType doubleDataType = new DataType(PredType.NATIVE_DOUBLE());
 
     public Hdf5Archive(String archiveFilename) {
         synchronized (LOCK_OBJECT) {
@@ -217,7 +219,9 @@ public class Hdf5Archive implements Closeable {
     }
 
     /**
-     * Read data set as ND4J array from HDF5 group.
+     * Read data set as ND4J array from HDF5 group.<br>
+     * The data set is read directly into the (c order) buffer of the returned array - no intermediate Java arrays or
+     * per-element copies are used. Any datatype conversion from the stored type is performed by HDF5 during the read.
      *
      * @param fileGroup   HDF5 file or group
      * @param datasetName Name of data set
@@ -232,80 +236,49 @@ public class Hdf5Archive implements Closeable {
             int nbDims = space.getSimpleExtentNdims();
             long[] dims = new long[nbDims];
             space.getSimpleExtentDims(dims);
-            float[] dataBuffer;
-            FloatPointer fp;
-            int j;
-            INDArray data;
-            switch (nbDims) {
-                case 5: /* 3D Convolution weights */
-                    dataBuffer = new float[(int) (dims[0] * dims[1] * dims[2] * dims[3] * dims[4])];
-                    fp = new FloatPointer(dataBuffer);
-                    dataset.read(fp, dataType);
-                    fp.get(dataBuffer);
-                    data = Nd4j.create((int) dims[0], (int) dims[1], (int) dims[2], (int) dims[3], (int) dims[4]);
-                    j = 0;
-                    for (int i1 = 0; i1 < dims[0]; i1++)
-                        for (int i2 = 0; i2 < dims[1]; i2++)
-                            for (int i3 = 0; i3 < dims[2]; i3++)
-                                for (int i4 = 0; i4 < dims[3]; i4++)
-                                    for (int i5 = 0; i5 < dims[4]; i5++)
-                                        data.putScalar(new int[] { i1, i2, i3, i4, i5 }, dataBuffer[j++]);
-                    break;
-                case 4: /* 2D Convolution weights */
-                    dataBuffer = new float[(int) (dims[0] * dims[1] * dims[2] * dims[3])];
-                    fp = new FloatPointer(dataBuffer);
-                    dataset.read(fp, dataType);
-                    fp.get(dataBuffer);
-                    data = Nd4j.create((int) dims[0], (int) dims[1], (int) dims[2], (int) dims[3]);
-                    j = 0;
-                    for (int i1 = 0; i1 < dims[0]; i1++)
-                        for (int i2 = 0; i2 < dims[1]; i2++)
-                            for (int i3 = 0; i3 < dims[2]; i3++)
-                                for (int i4 = 0; i4 < dims[3]; i4++)
-                                    data.putScalar(i1, i2, i3, i4, dataBuffer[j++]);
-                    break;
-                case 3:
-                    dataBuffer = new float[(int) (dims[0] * dims[1] * dims[2])];
-                    fp = new FloatPointer(dataBuffer);
-                    dataset.read(fp, dataType);
-                    fp.get(dataBuffer);
-                    data = Nd4j.create((int) dims[0], (int) dims[1], (int) dims[2]);
-                    j = 0;
-                    for (int i1 = 0; i1 < dims[0]; i1++)
-                        for (int i2 = 0; i2 < dims[1]; i2++)
-                            for (int i3 = 0; i3 < dims[2]; i3++)
-                                data.putScalar(i1, i2, i3, dataBuffer[j++]);
-                    break;
-                case 2: /* Dense and Recurrent weights */
-                    dataBuffer = new float[(int) (dims[0] * dims[1])];
-                    fp = new FloatPointer(dataBuffer);
-                    dataset.read(fp, dataType);
-                    fp.get(dataBuffer);
-                    data = Nd4j.create((int) dims[0], (int) dims[1]);
-                    j = 0;
-                    for (int i1 = 0; i1 < dims[0]; i1++)
-                        for (int i2 = 0; i2 < dims[1]; i2++)
-                            data.putScalar(i1, i2, dataBuffer[j++]);
-                    break;
-                case 1: /* Bias */
-                    dataBuffer = new float[(int) dims[0]];
-                    fp = new FloatPointer(dataBuffer);
-                    dataset.read(fp, dataType);
-                    fp.get(dataBuffer);
-                    data = Nd4j.create((int) dims[0]);
-                    j = 0;
-                    for (int i1 = 0; i1 < dims[0]; i1++)
-                        data.putScalar(i1, dataBuffer[j++]);
-                    break;
-                default:
+            try {
+                /* 5: 3D Convolution weights, 4: 2D Convolution weights, 2: Dense and Recurrent weights, 1: Bias */
+                if (nbDims < 1 || nbDims > 5)
                     throw new UnsupportedKerasConfigurationException("Cannot import weights with rank " + nbDims);
+                org.nd4j.linalg.api.buffer.DataType dt = Nd4j.defaultFloatingPointType();
+                if (dt != org.nd4j.linalg.api.buffer.DataType.DOUBLE) {
+                    //HDF5 has no native half precision types: read as float and cast if required
+                    INDArray data = Nd4j.createUninitialized(org.nd4j.linalg.api.buffer.DataType.FLOAT, dims, 'c');
+                    readInto(dataset, data);
+                    return dt == data.dataType() ? data : data.castTo(dt);
+                }
+                INDArray data = Nd4j.createUninitialized(dt, dims, 'c');
+                readInto(dataset, data);
+                return data;
+            } finally {
+                space.deallocate();
+                dataset.deallocate();
             }
-            space.deallocate();
-            dataset.deallocate();
-            return data;
         }
     }
 
+    private static void readInto(DataSet dataset, INDArray target) throws UnsupportedKerasConfigurationException {
+        if (target.ordering() != 'c' || !Shape.hasDefaultStridesForShape(target))
+            throw new UnsupportedKerasConfigurationException("Can only read HDF5 data sets into contiguous c order arrays");
+        DataType memType;
+        switch (target.dataType()) {
+            case FLOAT:
+                memType = dataType;
+                break;
+            case DOUBLE:
+                memType = doubleDataType;
+                break;
+            default:
+                throw new UnsupportedKerasConfigurationException("Cannot read HDF5 data set into array of type "
+                        + target.dataType() + ": only FLOAT and DOUBLE are supported");
+        }
+        if (target.isEmpty())
+            return;
+        //HDF5 converts from the stored datatype to memType during the read
+        Pointer p = target.data().addressPointer();
+        dataset.read(p, memType);
+    }
+
     /**
      * Get list of objects with a given type from a file group.
      *
@@ -29,8 +29,14 @@ import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
 
 @Slf4j
 public class KerasModelImport {
@@ -365,6 +371,98 @@ public class KerasModelImport {
         return kerasModel.getMultiLayerConfiguration();
     }
 
+    /**
+     * Load Keras (Functional API) Model saved using model.save_model(...), caching the imported network in DL4J's native
+     * format in the specified directory. Subsequent calls for the same (unmodified) HDF5 file load the cached network
+     * directly, skipping the Keras import entirely.<br>
+     * The cache entry is keyed on the canonical path, size and last modified time of the HDF5 file, and on
+     * enforceTrainingConfig.
+     *
+     * @param modelHdf5Filename     path to HDF5 archive storing Keras Model
+     * @param enforceTrainingConfig whether to enforce training configuration options
+     * @param cacheDir              directory to store cached models in. Will be created if it does not exist
+     * @return ComputationGraph
+     * @throws IOException                            IO exception
+     * @throws InvalidKerasConfigurationException     Invalid Keras config
+     * @throws UnsupportedKerasConfigurationException Unsupported Keras config
+     * @see ComputationGraph
+     */
+    public static ComputationGraph importKerasModelAndWeightsCached(String modelHdf5Filename, boolean enforceTrainingConfig,
+                                                                    File cacheDir)
+            throws IOException, UnsupportedKerasConfigurationException, InvalidKerasConfigurationException {
+        File cached = cacheFile(cacheDir, modelHdf5Filename, enforceTrainingConfig, "ComputationGraph");
+        if (cached.exists()) {
+            try {
+                return ModelSerializer.restoreComputationGraph(cached, true);
+            } catch (Exception e) {
+                log.warn("Failed to load cached model {} - re-importing Keras model {}", cached, modelHdf5Filename, e);
+            }
+        }
+        ComputationGraph model = importKerasModelAndWeights(modelHdf5Filename, enforceTrainingConfig);
+        writeCacheFile(model, cached);
+        return model;
+    }
+
+    /**
+     * Load Keras Sequential model saved using model.save_model(...), caching the imported network in DL4J's native
+     * format in the specified directory. Subsequent calls for the same (unmodified) HDF5 file load the cached network
+     * directly, skipping the Keras import entirely. See {@link #importKerasModelAndWeightsCached(String, boolean, File)}
+     *
+     * @param modelHdf5Filename     path to HDF5 archive storing Keras Sequential model
+     * @param enforceTrainingConfig whether to enforce training configuration options
+     * @param cacheDir              directory to store cached models in. Will be created if it does not exist
+     * @return MultiLayerNetwork
+     * @throws IOException IO exception
+     * @see MultiLayerNetwork
+     */
+    public static MultiLayerNetwork importKerasSequentialModelAndWeightsCached(String modelHdf5Filename,
+                                                                               boolean enforceTrainingConfig,
+                                                                               File cacheDir)
+            throws IOException, InvalidKerasConfigurationException, UnsupportedKerasConfigurationException {
+        File cached = cacheFile(cacheDir, modelHdf5Filename, enforceTrainingConfig, "MultiLayerNetwork");
+        if (cached.exists()) {
+            try {
+                return ModelSerializer.restoreMultiLayerNetwork(cached, true);
+            } catch (Exception e) {
+                log.warn("Failed to load cached model {} - re-importing Keras model {}", cached, modelHdf5Filename, e);
+            }
+        }
+        MultiLayerNetwork model = importKerasSequentialModelAndWeights(modelHdf5Filename, enforceTrainingConfig);
+        writeCacheFile(model, cached);
+        return model;
+    }
+
+    private static File cacheFile(File cacheDir, String modelHdf5Filename, boolean enforceTrainingConfig, String type)
+            throws IOException {
+        File f = new File(modelHdf5Filename);
+        if (!f.exists())
+            throw new FileNotFoundException("Keras model file does not exist: " + modelHdf5Filename);
+        if (!cacheDir.exists() && !cacheDir.mkdirs())
+            throw new IOException("Could not create model cache directory: " + cacheDir.getAbsolutePath());
+
+        String key = f.getCanonicalPath() + "|" + f.length() + "|" + f.lastModified() + "|" + enforceTrainingConfig + "|" + type;
+        String id = UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+        return new File(cacheDir, f.getName() + "-" + id + ".zip");
+    }
+
+    private static void writeCacheFile(org.deeplearning4j.nn.api.Model model, File cached) {
+        //Write to a temporary file first, so that concurrent imports never see a partially written cache entry
+        File tmp = new File(cached.getParentFile(), cached.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            ModelSerializer.writeModel(model, tmp, true);
+            try {
+                Files.move(tmp.toPath(), cached.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write imported Keras model to cache file {}", cached, e);
+        } finally {
+            if (tmp.exists())
+                tmp.delete();
+        }
+    }
+
     private static File toTempFile(InputStream is) throws IOException {
         File f = ND4JFileUtils.createTempFile("DL4JKerasModelImport",".bin");
         f.deleteOnExit();
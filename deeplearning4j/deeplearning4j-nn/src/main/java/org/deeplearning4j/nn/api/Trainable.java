@@ -60,6 +60,18 @@ public interface Trainable {
      */
     boolean updaterDivideByMinibatch(String paramName);
 
+    /**
+     * Whether the gradient for the specified parameter may be provided as a sparse row gradient (see
+     * {@link org.deeplearning4j.nn.gradient.SparseRowGradient}) - i.e., only a subset of the rows of the gradient are
+     * non-zero in any given iteration. Such parameters can have lazy, row-wise updates applied by the updater.
+     *
+     * @param paramName Name of the parameter
+     * @return True if the gradient for this parameter may be sparse; false otherwise (default, most params)
+     */
+    default boolean sparseGradients(String paramName) {
+        return false;
+    }
+
     /**
      * @return 1D gradients view array
      */
@@ -96,6 +96,29 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
 
     protected NeuralNetConfiguration defaultConfiguration;
 
+    /**
+     * Names of the vertices whose output activations are retained as checkpoints during training, when activation
+     * checkpointing is used. See {@link GraphBuilder#activationCheckpoints(String...)}
+     */
+    protected List<String> activationCheckpoints;
+
+    /**
+     * If > 0: maximum number of bytes of activations to compute before automatically adding a checkpoint.
+     * See {@link GraphBuilder#activationCheckpointMemoryBudget(long)}
+     */
+    protected long activationCheckpointMemoryBudget;
+
+    /**
+     * Mixed precision training configuration - null if not used. See {@link MixedPrecision}
+     */
+    protected MixedPrecision mixedPrecision;
+
+    /**
+     * Number of micro-batches to accumulate gradients over before each parameter update.
+     * See {@link GraphBuilder#gradientAccumulationSteps(int)}
+     */
+    protected int gradientAccumulationSteps = 1;
+
     //Counter for the number of parameter updates so far
     // This is important for learning rate schedules, for example, and is stored here to ensure it is persisted
     // for Spark and model serialization
@@ -334,6 +357,10 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
         conf.defaultConfiguration.cacheMode = this.cacheMode;
         conf.validateOutputLayerConfig = this.validateOutputLayerConfig;
         conf.dataType = this.dataType;
+        conf.activationCheckpoints = (this.activationCheckpoints == null ? null : new ArrayList<>(this.activationCheckpoints));
+        conf.activationCheckpointMemoryBudget = this.activationCheckpointMemoryBudget;
+        conf.mixedPrecision = this.mixedPrecision;
+        conf.gradientAccumulationSteps = this.gradientAccumulationSteps;
 
         return conf;
     }
@@ -368,6 +395,15 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
                     "or use allowNoOutputs(true) to disable this check");
         }
 
+        if (activationCheckpoints != null) {
+            for (String s : activationCheckpoints) {
+                if (!vertices.containsKey(s)) {
+                    throw new IllegalStateException("Invalid configuration: activation checkpoint \"" + s
+                            + "\" is not a layer or vertex in the network");
+                }
+            }
+        }
+
         //Check uniqueness of names for inputs, layers, GraphNodes
         for (String s : networkInputs) {
             if (vertices.containsKey(s)) {
@@ -733,6 +769,9 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
         protected boolean allowNoOutput = false;
         protected boolean validateOutputConfig = true;
         protected boolean validateTbpttConfig = true;
+        protected List<String> activationCheckpoints;
+        protected long activationCheckpointMemoryBudget;
+        protected int gradientAccumulationSteps = 1;
 
         protected String lastAdded = null;
 
@@ -752,6 +791,9 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
             this.backpropType = clonedConf.getBackpropType();
             this.tbpttFwdLength = clonedConf.getTbpttFwdLength();
             this.tbpttBackLength = clonedConf.getTbpttBackLength();
+            this.activationCheckpoints = clonedConf.getActivationCheckpoints();
+            this.activationCheckpointMemoryBudget = clonedConf.getActivationCheckpointMemoryBudget();
+            this.gradientAccumulationSteps = clonedConf.getGradientAccumulationSteps();
             this.globalConfiguration = globalConfiguration;
             //this.getGlobalConfiguration().setSeed(clonedConf.getDefaultConfiguration().getSeed());
         }
@@ -1143,6 +1185,59 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
             return this;
         }
 
+        /**
+         * Enable activation checkpointing (also known as gradient checkpointing) for training, retaining the output
+         * activations of only the specified vertices (plus any other activations that are required by later parts of
+         * the graph, or by output layers). All other activations are discarded after the forward pass, and recomputed
+         * during backprop. This reduces the memory required for training (especially for deep networks and long
+         * sequences) at the cost of (at most) one additional forward pass.<br>
+         * Segments for recomputation are contiguous in the topological order of the graph; checkpoints are most
+         * effective at vertices that are the only connection between two parts of the graph. May be combined with
+         * {@link #activationCheckpointMemoryBudget(long)}.<br>
+         * Note: activation checkpointing is not used with truncated BPTT, or when the training workspace mode is NONE.
+         * When checkpointing is used, TrainingListener.onForwardPass is not called during training, as most
+         * activations are not available at that point.
+         *
+         * @param vertexNames Names of the layers/vertices whose output activations should be retained
+         */
+        public GraphBuilder activationCheckpoints(String... vertexNames) {
+            this.activationCheckpoints = (vertexNames == null ? null : Arrays.asList(vertexNames));
+            return this;
+        }
+
+        /**
+         * Enable activation checkpointing (see {@link #activationCheckpoints(String...)}) with checkpoints chosen
+         * automatically: during the forward pass, a checkpoint is added once the activations computed since the last
+         * checkpoint reach the specified number of bytes. This bounds the memory used for recomputed activations at
+         * approximately this budget (plus the size of a single vertex's activations), with the retained activations
+         * using memory in addition to this.
+         *
+         * @param bytes Activation memory budget per checkpoint segment, in bytes. 0 to disable
+         */
+        public GraphBuilder activationCheckpointMemoryBudget(long bytes) {
+            Preconditions.checkArgument(bytes >= 0, "Activation checkpoint memory budget must be >= 0, got %s", bytes);
+            this.activationCheckpointMemoryBudget = bytes;
+            return this;
+        }
+
+        /**
+         * Number of micro-batches to accumulate gradients over before each parameter update. Default: 1 (no accumulation).<br>
+         * When set to N > 1, each call to fit with a minibatch of size B computes and accumulates gradients only; the
+         * parameters are updated once every N minibatches, using the gradients for all N*B examples. This is equivalent to
+         * training with minibatch size N*B, but with the activation memory requirements of minibatch size B.<br>
+         * When fitting from an iterator, any partial group of micro-batches at the end of each epoch is applied when the
+         * iterator is exhausted. Note that the iteration count (and listener iterationDone calls) reflect parameter updates,
+         * not micro-batches.<br>
+         * Note: not applicable to truncated BPTT (BackpropType.TruncatedBPTT), which already splits each minibatch
+         *
+         * @param steps Number of micro-batches per parameter update. Must be >= 1
+         */
+        public GraphBuilder gradientAccumulationSteps(int steps) {
+            Preconditions.checkArgument(steps >= 1, "Number of gradient accumulation steps must be >= 1, got %s", steps);
+            this.gradientAccumulationSteps = steps;
+            return this;
+        }
+
         /**
          * For the (perhaps partially constructed) network configuration, return a map of activation sizes for each
          * layer and vertex in the graph.<br>
@@ -1201,6 +1296,10 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
             conf.cacheMode = globalConfiguration.cacheMode;
             conf.validateOutputLayerConfig = validateOutputConfig;
             conf.dataType = globalConfiguration.dataType;
+            conf.activationCheckpoints = activationCheckpoints;
+            conf.activationCheckpointMemoryBudget = activationCheckpointMemoryBudget;
+            conf.mixedPrecision = globalConfiguration.mixedPrecision;
+            conf.gradientAccumulationSteps = gradientAccumulationSteps;
 
             conf.defaultConfiguration = globalConfiguration.build();
 
@@ -0,0 +1,96 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.nn.conf;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.nd4j.linalg.api.buffer.DataType;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for mixed precision training.<br>
+ * When used, the network parameters, activations and gradients use the (low precision) network data type - usually
+ * {@link DataType#BFLOAT16} or {@link DataType#HALF} - for the forward and backward passes, while the updater keeps a
+ * copy of the parameters ("master weights") and the updater state in the higher precision {@link #getMasterDataType()}.
+ * Gradients are converted to the master data type before any updater operations (minibatch division, gradient
+ * normalization, regularization, Adam etc) are performed. After the update, the network gradient view holds the
+ * (low precision) difference between the network parameters and the updated master weights, which is then applied to
+ * the network parameters by the step function as in standard training.<br>
+ * <br>
+ * Loss scaling: to avoid small gradient values underflowing to zero in low precision (mainly an issue for
+ * {@link DataType#HALF}), the loss gradient is multiplied by a loss scale factor before backprop, and the gradients are
+ * divided by the same factor (in the master data type) before the update. The loss scale is dynamic: if the gradients
+ * contain any NaN or infinite values, the iteration is skipped (no parameter update) and the loss scale is multiplied by
+ * {@link #getBackoffFactor()}; after {@link #getGrowthInterval()} consecutive iterations without overflow, the loss
+ * scale is multiplied by {@link #getGrowthFactor()}.<br>
+ * <br>
+ * Changes made to the network parameters outside of the updater (setParams, setParam, in-place edits of params(),
+ * parameter averaging etc) are applied to the master weights before the next update. External gradients (i.e., not
+ * the network's own gradient view) are supported, and are converted to the master data type.<br>
+ * Gradient sharing (a GradientsAccumulator, as used by ParallelWrapper and Spark in shared gradients mode) is not
+ * supported with mixed precision training: the update is applied to the master weights by the updater, not by the
+ * accumulator. Parameter averaging can be used instead.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MixedPrecision implements Serializable {
+
+    /**
+     * Data type for the master weights and updater state. Default: FLOAT
+     */
+    @Builder.Default
+    private DataType masterDataType = DataType.FLOAT;
+    /**
+     * Whether dynamic loss scaling should be used. Default: true
+     */
+    @Builder.Default
+    private boolean lossScaling = true;
+    /**
+     * Initial loss scale. Default: 2^16
+     */
+    @Builder.Default
+    private double initialLossScale = 65536.0;
+    /**
+     * Factor to multiply the loss scale by after {@link #getGrowthInterval()} iterations without overflow. Default: 2.0
+     */
+    @Builder.Default
+    private double growthFactor = 2.0;
+    /**
+     * Factor to multiply the loss scale by when NaN or infinite gradients are encountered. Default: 0.5
+     */
+    @Builder.Default
+    private double backoffFactor = 0.5;
+    /**
+     * Number of consecutive iterations without overflow before the loss scale is increased. Default: 2000
+     */
+    @Builder.Default
+    private int growthInterval = 2000;
+    /**
+     * Minimum value for the loss scale. Default: 1.0
+     */
+    @Builder.Default
+    private double minLossScale = 1.0;
+}
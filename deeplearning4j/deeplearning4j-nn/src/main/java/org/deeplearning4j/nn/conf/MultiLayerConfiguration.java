@@ -34,6 +34,7 @@ import org.deeplearning4j.nn.conf.serde.JsonMappers;
 import org.deeplearning4j.nn.weights.IWeightInit;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.deeplearning4j.util.OutputLayerUtil;
+import org.nd4j.common.base.Preconditions;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.activations.IActivation;
 import org.nd4j.linalg.api.buffer.DataType;
@@ -81,6 +82,29 @@ public class MultiLayerConfiguration implements Serializable, Cloneable {
     @Setter
     protected DataType dataType = DataType.FLOAT;   //Default to float for deserialization of beta3 and earlier nets
 
+    /**
+     * Indices of the layers whose output activations are retained as checkpoints during training, when activation
+     * checkpointing is used. See {@link Builder#activationCheckpoints(int...)}
+     */
+    protected int[] activationCheckpoints;
+
+    /**
+     * If > 0: maximum number of bytes of activations to compute before automatically adding a checkpoint.
+     * See {@link Builder#activationCheckpointMemoryBudget(long)}
+     */
+    protected long activationCheckpointMemoryBudget;
+
+    /**
+     * Mixed precision training configuration - null if not used. See {@link MixedPrecision}
+     */
+    protected MixedPrecision mixedPrecision;
+
+    /**
+     * Number of micro-batches to accumulate gradients over before each parameter update.
+     * See {@link Builder#gradientAccumulationSteps(int)}
+     */
+    protected int gradientAccumulationSteps = 1;
+
     //Counter for the number of parameter updates so far
     // This is important for learning rate schedules, for example, and is stored here to ensure it is persisted
     // for Spark and model serialization
@@ -392,6 +416,10 @@ public class MultiLayerConfiguration implements Serializable, Cloneable {
             clone.cacheMode = this.cacheMode;
             clone.validateOutputLayerConfig = this.validateOutputLayerConfig;
             clone.dataType = this.dataType;
+            clone.activationCheckpoints = (this.activationCheckpoints == null ? null : this.activationCheckpoints.clone());
+            clone.activationCheckpointMemoryBudget = this.activationCheckpointMemoryBudget;
+            clone.mixedPrecision = this.mixedPrecision;
+            clone.gradientAccumulationSteps = this.gradientAccumulationSteps;
 
             return clone;
 
@@ -479,6 +507,10 @@ public class MultiLayerConfiguration implements Serializable, Cloneable {
         protected boolean validateTbpttConfig = true;
         protected DataType dataType;
         protected boolean overrideNinUponBuild = true;
+        protected int[] activationCheckpoints;
+        protected long activationCheckpointMemoryBudget;
+        protected MixedPrecision mixedPrecision;
+        protected int gradientAccumulationSteps = 1;
 
 
         /**
@@ -544,6 +576,69 @@ public class MultiLayerConfiguration implements Serializable, Cloneable {
             return this;
         }
 
+        /**
+         * Enable activation checkpointing (also known as gradient checkpointing) for training, retaining the output
+         * activations of only the specified layers. Activations of all other layers are discarded after the forward
+         * pass, and recomputed from the nearest preceding checkpoint during backprop. This reduces the memory required
+         * for training (especially for deep networks and long sequences) at the cost of (at most) one additional
+         * forward pass.<br>
+         * A good choice is usually around every sqrt(numLayers)-th layer. May be combined with
+         * {@link #activationCheckpointMemoryBudget(long)}.<br>
+         * Note: activation checkpointing is not used with truncated BPTT, or when the training workspace mode is NONE.
+         * When checkpointing is used, TrainingListener.onForwardPass is not called during training, as most
+         * activations are not available at that point.
+         *
+         * @param layerIndices Indices of the layers whose output activations should be retained
+         */
+        public Builder activationCheckpoints(int... layerIndices) {
+            this.activationCheckpoints = layerIndices;
+            return this;
+        }
+
+        /**
+         * Enable activation checkpointing (see {@link #activationCheckpoints(int...)}) with checkpoints chosen
+         * automatically: during the forward pass, a checkpoint is added once the activations computed since the last
+         * checkpoint reach the specified number of bytes. This bounds the memory used for recomputed activations at
+         * approximately this budget (plus the size of a single layer's activations), with the retained checkpoints
+         * using memory in addition to this.
+         *
+         * @param bytes Activation memory budget per checkpoint segment, in bytes. 0 to disable
+         */
+        public Builder activationCheckpointMemoryBudget(long bytes) {
+            Preconditions.checkArgument(bytes >= 0, "Activation checkpoint memory budget must be >= 0, got %s", bytes);
+            this.activationCheckpointMemoryBudget = bytes;
+            return this;
+        }
+
+        /**
+         * Mixed precision training configuration. See {@link MixedPrecision} and
+         * {@link NeuralNetConfiguration.Builder#mixedPrecision(MixedPrecision)}
+         *
+         * @param mixedPrecision Mixed precision configuration. Null to disable (default)
+         */
+        public Builder mixedPrecision(MixedPrecision mixedPrecision) {
+            this.mixedPrecision = mixedPrecision;
+            return this;
+        }
+
+        /**
+         * Number of micro-batches to accumulate gradients over before each parameter update. Default: 1 (no accumulation).<br>
+         * When set to N > 1, each call to fit with a minibatch of size B computes and accumulates gradients only; the
+         * parameters are updated once every N minibatches, using the gradients for all N*B examples. This is equivalent to
+         * training with minibatch size N*B, but with the activation memory requirements of minibatch size B.<br>
+         * When fitting from an iterator, any partial group of micro-batches at the end of each epoch is applied when the
+         * iterator is exhausted. Note that the iteration count (and listener iterationDone calls) reflect parameter updates,
+         * not micro-batches.<br>
+         * Note: not applicable to truncated BPTT (BackpropType.TruncatedBPTT), which already splits each minibatch
+         *
+         * @param steps Number of micro-batches per parameter update. Must be >= 1
+         */
+        public Builder gradientAccumulationSteps(int steps) {
+            Preconditions.checkArgument(steps >= 1, "Number of gradient accumulation steps must be >= 1, got %s", steps);
+            this.gradientAccumulationSteps = steps;
+            return this;
+        }
+
         /**
          * The type of backprop. Default setting is used for most networks (MLP, CNN etc),
          * but optionally truncated BPTT can be used for training recurrent neural networks.
@@ -750,6 +845,10 @@ public class MultiLayerConfiguration implements Serializable, Cloneable {
             conf.inferenceWorkspaceMode = inferenceWorkspaceMode;
             conf.cacheMode = cacheMode;
             conf.dataType = dataType;
+            conf.activationCheckpoints = activationCheckpoints;
+            conf.activationCheckpointMemoryBudget = activationCheckpointMemoryBudget;
+            conf.mixedPrecision = mixedPrecision;
+            conf.gradientAccumulationSteps = gradientAccumulationSteps;
 
             Nd4j.getRandom().setSeed(conf.getConf(0).getSeed());
 
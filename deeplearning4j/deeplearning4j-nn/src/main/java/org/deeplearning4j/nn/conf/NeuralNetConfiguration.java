@@ -331,6 +331,10 @@ public class NeuralNetConfiguration implements Serializable, Cloneable {
                     .inferenceWorkspaceMode(wsmTest).confs(list).validateOutputLayerConfig(validateOutputConfig)
                     .overrideNinUponBuild(overrideNinUponBuild)
                     .dataType(globalConfig.dataType)
+                    .mixedPrecision(globalConfig.mixedPrecision)
+                    .activationCheckpoints(activationCheckpoints)
+                    .activationCheckpointMemoryBudget(activationCheckpointMemoryBudget)
+                    .gradientAccumulationSteps(gradientAccumulationSteps)
                     .build();
         }
 
@@ -485,6 +489,7 @@ public class NeuralNetConfiguration implements Serializable, Cloneable {
         protected boolean setIWM = false;
         protected CacheMode cacheMode = CacheMode.NONE;
         protected DataType dataType = DataType.FLOAT;
+        protected MixedPrecision mixedPrecision;
 
         protected ConvolutionMode convolutionMode = ConvolutionMode.Truncate;
         protected ConvolutionLayer.AlgoMode cudnnAlgoMode = ConvolutionLayer.AlgoMode.PREFER_FASTEST;
@@ -1144,15 +1149,34 @@ public class NeuralNetConfiguration implements Serializable, Cloneable {
 
         /**
          * Set the DataType for the network parameters and activations. Must be a floating point type: {@link DataType#DOUBLE},
-         * {@link DataType#FLOAT} or {@link DataType#HALF}.<br>
+         * {@link DataType#FLOAT}, {@link DataType#HALF} or {@link DataType#BFLOAT16}.<br>
+         * For HALF and BFLOAT16, see also {@link #mixedPrecision(MixedPrecision)}
          */
         public Builder dataType(@NonNull DataType dataType){
-            Preconditions.checkState(dataType == DataType.DOUBLE || dataType == DataType.FLOAT || dataType == DataType.HALF,
-                    "Data type must be a floating point type: one of DOUBLE, FLOAT, or HALF. Got datatype: %s", dataType);
+            Preconditions.checkState(dataType == DataType.DOUBLE || dataType == DataType.FLOAT || dataType == DataType.HALF
+                            || dataType == DataType.BFLOAT16,
+                    "Data type must be a floating point type: one of DOUBLE, FLOAT, HALF or BFLOAT16. Got datatype: %s", dataType);
             this.dataType = dataType;
             return this;
         }
 
+        /**
+         * Enable mixed precision training: the forward and backward passes are performed in the network data type
+         * (set via {@link #dataType(DataType)} - usually BFLOAT16 or HALF), while the updater keeps master weights
+         * and updater state in higher precision, with (optional) dynamic loss scaling. See {@link MixedPrecision}
+         * for details.
+         *
+         * @param mixedPrecision Mixed precision configuration. Null to disable (default)
+         */
+        public Builder mixedPrecision(MixedPrecision mixedPrecision){
+            if(mixedPrecision != null) {
+                Preconditions.checkState(mixedPrecision.getMasterDataType() != null && mixedPrecision.getMasterDataType().isFPType(),
+                        "Mixed precision master data type must be a floating point type, got %s", mixedPrecision.getMasterDataType());
+            }
+            this.mixedPrecision = mixedPrecision;
+            return this;
+        }
+
         /**
          * Return a configuration based on this builder
          *
@@ -48,10 +48,12 @@ import java.util.Map;
 public class EmbeddingLayer extends FeedForwardLayer {
 
     private boolean hasBias = true; //Default for pre-0.9.2 implementations
+    private boolean sparseGradients = false;
 
     private EmbeddingLayer(Builder builder) {
         super(builder);
         this.hasBias = builder.hasBias;
+        this.sparseGradients = builder.sparseGradients;
         initializeConstraints(builder);
     }
 
@@ -107,6 +109,13 @@ public class EmbeddingLayer extends FeedForwardLayer {
          */
         private boolean hasBias = false;
 
+        /**
+         * If true: weight gradients are tracked as sparse row gradients (only the rows for the indices present in
+         * the minibatch), and supported updaters (Sgd, Adam, AdaGrad, NoOp) apply lazy row-wise updates to these
+         * rows only. False (default): dense gradients and updates over the full [vocabSize, vectorSize] matrix.
+         */
+        private boolean sparseGradients = false;
+
         public Builder(){
             //Default to Identity activation - i.e., don't inherit.
             //For example, if user sets ReLU as global default, they very likely don't intend to use it for Embedding layer also
@@ -124,6 +133,20 @@ public class EmbeddingLayer extends FeedForwardLayer {
             return this;
         }
 
+        /**
+         * If true: weight gradients are tracked as sparse row gradients (only the rows for the indices present in
+         * the minibatch), and supported updaters (Sgd, Adam, AdaGrad, NoOp) apply lazy row-wise updates to these
+         * rows only. Note that for stateful updaters such as Adam, lazy updates differ from dense updates: the
+         * state of rows not present in a minibatch is not decayed.<br>
+         * False (default): dense gradients and updates over the full [vocabSize, vectorSize] matrix.
+         *
+         * @param sparseGradients If true: use sparse row gradients and lazy updates for the weights
+         */
+        public Builder sparseGradients(boolean sparseGradients) {
+            this.sparseGradients = sparseGradients;
+            return this;
+        }
+
         @Override
         public Builder weightInit(IWeightInit weightInit) {
             if(weightInit instanceof WeightInitEmbedding){
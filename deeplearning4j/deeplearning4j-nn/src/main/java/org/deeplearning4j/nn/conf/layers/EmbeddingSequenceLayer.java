@@ -51,6 +51,7 @@ public class EmbeddingSequenceLayer extends FeedForwardLayer {
     private int inputLength = 1; // By default only use one index to embed
     private boolean hasBias = false;
     private boolean inferInputLength = false; // use input length as provided by input data
+    private boolean sparseGradients = false;
     private RNNFormat outputFormat = RNNFormat.NCW;       //Default value for older deserialized models
 
     private EmbeddingSequenceLayer(Builder builder) {
@@ -58,6 +59,7 @@ public class EmbeddingSequenceLayer extends FeedForwardLayer {
         this.hasBias = builder.hasBias;
         this.inputLength = builder.inputLength;
         this.inferInputLength = builder.inferInputLength;
+        this.sparseGradients = builder.sparseGradients;
         this.outputFormat = builder.outputFormat;
         initializeConstraints(builder);
     }
@@ -171,6 +173,13 @@ public class EmbeddingSequenceLayer extends FeedForwardLayer {
 
         private RNNFormat outputFormat = RNNFormat.NCW;       //Default value for older deserialized models
 
+        /**
+         * If true: weight gradients are tracked as sparse row gradients (only the rows for the indices present in
+         * the minibatch), and supported updaters (Sgd, Adam, AdaGrad, NoOp) apply lazy row-wise updates to these
+         * rows only. False (default): dense gradients and updates.
+         */
+        private boolean sparseGradients = false;
+
         public Builder outputDataFormat(RNNFormat format){
             this.outputFormat = format;
             return this;
@@ -209,6 +218,20 @@ public class EmbeddingSequenceLayer extends FeedForwardLayer {
             return this;
         }
 
+        /**
+         * If true: weight gradients are tracked as sparse row gradients (only the rows for the indices present in
+         * the minibatch), and supported updaters (Sgd, Adam, AdaGrad, NoOp) apply lazy row-wise updates to these
+         * rows only. Note that for stateful updaters such as Adam, lazy updates differ from dense updates: the
+         * state of rows not present in a minibatch is not decayed.<br>
+         * False (default): dense gradients and updates over the full [vocabSize, vectorSize] matrix.
+         *
+         * @param sparseGradients If true: use sparse row gradients and lazy updates for the weights
+         */
+        public Builder sparseGradients(boolean sparseGradients) {
+            this.setSparseGradients(sparseGradients);
+            return this;
+        }
+
         @Override
         public Builder weightInit(IWeightInit weightInit) {
             this.setWeightInitFn(weightInit);
@@ -25,6 +25,7 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +34,7 @@ public class DefaultGradient implements Gradient {
     public static final char DEFAULT_FLATTENING_ORDER = 'f';
     private Map<String, INDArray> gradients = new LinkedHashMap<>();
     private Map<String, Character> flatteningOrders;
+    private Map<String, SparseRowGradient> sparseGradients;
     @Setter
     private INDArray flattenedGradient;
 
@@ -113,6 +115,8 @@ public class DefaultGradient implements Gradient {
     @Override
     public void clear() {
         gradients.clear();
+        if (sparseGradients != null)
+            sparseGradients.clear();
     }
 
     @Override
@@ -149,8 +153,23 @@ public class DefaultGradient implements Gradient {
     }
 
 
+    @Override
+    public Map<String, SparseRowGradient> sparseGradientForVariable() {
+        if (sparseGradients == null)
+            return Collections.emptyMap();
+        return sparseGradients;
+    }
+
+    @Override
+    public void setSparseGradientFor(String variable, SparseRowGradient gradient) {
+        if (sparseGradients == null)
+            sparseGradients = new LinkedHashMap<>();
+        sparseGradients.put(variable, gradient);
+    }
+
     @Override
     public String toString() {
-        return "DefaultGradient{" + "gradients=" + gradients + (flatteningOrders != null ? flatteningOrders : "") + '}';
+        return "DefaultGradient{" + "gradients=" + gradients + (flatteningOrders != null ? flatteningOrders : "")
+                + (sparseGradients != null && !sparseGradients.isEmpty() ? ", sparseGradients=" + sparseGradients : "") + '}';
     }
 }
@@ -23,6 +23,7 @@ package org.deeplearning4j.nn.gradient;
 import org.nd4j.linalg.api.ndarray.INDArray;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -89,4 +90,33 @@ public interface Gradient extends Serializable {
      */
     Character flatteningOrderForVariable(String variable);
 
+    /**
+     * Sparse row gradients, for variables where only a subset of the rows of the gradient are (potentially) non-zero.
+     * Keys are the same as for {@link #gradientForVariable()}; the gradient values themselves are stored in the dense
+     * gradient arrays.
+     *
+     * @return The sparse row gradients, or an empty map if none are set
+     */
+    default Map<String, SparseRowGradient> sparseGradientForVariable() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Set the sparse row gradient information for the specified variable
+     *
+     * @param variable Variable to set the sparse gradient for
+     * @param gradient Touched rows for the variable
+     */
+    default void setSparseGradientFor(String variable, SparseRowGradient gradient) {
+        throw new UnsupportedOperationException("Sparse gradients are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * @param variable Variable to get the sparse gradient for
+     * @return The sparse row gradient for the variable, or null if the gradient for the variable is dense
+     */
+    default SparseRowGradient getSparseGradientFor(String variable) {
+        return sparseGradientForVariable().get(variable);
+    }
+
 }
@@ -0,0 +1,157 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.nn.gradient;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.nd4j.common.base.Preconditions;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.scatter.ScatterUpdate;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A sparse, row-wise description of a 2d parameter gradient: the set of rows that have (potentially) non-zero gradient
+ * values for the current iteration. This is used for layers such as the EmbeddingLayer, where only the rows for the
+ * indices present in the minibatch receive a gradient.<br>
+ * The gradient values themselves are still stored in the (dense) gradient view array for the parameter; all rows not
+ * listed here are guaranteed to be zero. This allows updaters that support it to apply lazy, row-wise updates to only
+ * the touched rows (and corresponding updater state), instead of processing the full [numRows, numColumns] matrix.
+ */
+public class SparseRowGradient implements Serializable {
+
+    @Getter
+    private final int[] rowIndices;
+    @Getter
+    private final long numRows;
+    @Getter
+    private final long numColumns;
+    @Getter
+    private final char order;
+    /**
+     * Set by the updater once the touched rows (and only those rows) of the gradient view array have been updated.
+     * If true, the gradient view still has zeros for all other rows, hence only the touched rows need to be zeroed
+     * before the next iteration's gradient is accumulated.
+     */
+    @Getter @Setter
+    private transient boolean appliedSparse;
+
+    /**
+     * @param rowIndices Unique, sorted row indices
+     * @param numRows    Number of rows in the full gradient matrix
+     * @param numColumns Number of columns in the full gradient matrix
+     * @param order      Order ('c' or 'f') of the full gradient matrix, relative to the flattened gradient view
+     */
+    protected SparseRowGradient(int[] rowIndices, long numRows, long numColumns, char order) {
+        this.rowIndices = rowIndices;
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.order = order;
+    }
+
+    /**
+     * Create a sparse row gradient from the (possibly repeated, unsorted) row indices of a minibatch
+     *
+     * @param indices    Row indices - may contain duplicates
+     * @param numRows    Number of rows in the full gradient matrix
+     * @param numColumns Number of columns in the full gradient matrix
+     * @param order      Order ('c' or 'f') of the full gradient matrix, relative to the flattened gradient view
+     * @return The sparse row gradient
+     */
+    public static SparseRowGradient fromIndices(int[] indices, long numRows, long numColumns, char order) {
+        int[] unique = Arrays.stream(indices).sorted().distinct().toArray();
+        Preconditions.checkArgument(unique.length == 0 || (unique[0] >= 0 && unique[unique.length - 1] < numRows),
+                "Row indices must be in range 0 to %s inclusive", numRows - 1);
+        return new SparseRowGradient(unique, numRows, numColumns, order);
+    }
+
+    /**
+     * @return Number of rows with (potentially) non-zero gradient
+     */
+    public int numTouchedRows() {
+        return rowIndices.length;
+    }
+
+    /**
+     * @return The touched row indices as an integer array, suitable for use with scatter ops
+     */
+    public INDArray rowIndicesArray() {
+        return Nd4j.createFromArray(rowIndices);
+    }
+
+    /**
+     * Get a [numRows, numColumns] view of the specified flat (or already 2d) array, such as a parameter, gradient or
+     * updater state subset for this parameter.
+     *
+     * @param flat Array with numRows * numColumns elements
+     * @return A view of the array, with shape [numRows, numColumns]
+     */
+    public INDArray asMatrix(INDArray flat) {
+        Preconditions.checkState(flat.length() == numRows * numColumns, "Expected array with %s elements, got array " +
+                "with shape %ndShape", numRows * numColumns, flat);
+        if (flat.rank() == 2 && flat.size(0) == numRows && flat.size(1) == numColumns)
+            return flat;
+        INDArray out = Shape.newShapeNoCopy(flat.reshape(flat.length()), new long[]{numRows, numColumns}, order == 'f');
+        Preconditions.checkState(out != null, "Unable to get [%s,%s] view of array with shape %ndShape",
+                numRows, numColumns, flat);
+        return out;
+    }
+
+    /**
+     * Copy the touched rows out of the specified matrix
+     *
+     * @param matrix Matrix (or flat array) to gather the rows from
+     * @return A new 'c' order array with shape [numTouchedRows, numColumns]
+     */
+    public INDArray gatherRows(INDArray matrix) {
+        return Nd4j.pullRows(asMatrix(matrix), 1, rowIndices, 'c');
+    }
+
+    /**
+     * Assign the specified row values to the touched rows of the matrix. Other rows are not modified.
+     *
+     * @param matrix Matrix (or flat array) to scatter the rows to
+     * @param rows   Row values, shape [numTouchedRows, numColumns]
+     */
+    public void scatterRows(INDArray matrix, INDArray rows) {
+        Nd4j.scatterUpdate(ScatterUpdate.UpdateOp.ASSIGN, asMatrix(matrix), rowIndicesArray(), rows, 1);
+    }
+
+    /**
+     * Zero the touched rows of the specified matrix. Other rows are not modified.
+     *
+     * @param matrix Matrix (or flat array) to zero the rows of
+     */
+    public void zeroRows(INDArray matrix) {
+        if (rowIndices.length == 0)
+            return;
+        scatterRows(matrix, Nd4j.zeros(matrix.dataType(), rowIndices.length, numColumns));
+    }
+
+    @Override
+    public String toString() {
+        return "SparseRowGradient(numTouchedRows=" + rowIndices.length + ", numRows=" + numRows + ", numColumns="
+                + numColumns + ")";
+    }
+}
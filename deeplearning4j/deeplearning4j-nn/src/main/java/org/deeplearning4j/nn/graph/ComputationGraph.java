@@ -44,6 +44,7 @@ import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
 import org.deeplearning4j.nn.conf.layers.recurrent.Bidirectional;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.gradient.SparseRowGradient;
 import org.deeplearning4j.nn.graph.util.ComputationGraphUtil;
 import org.deeplearning4j.nn.graph.util.GraphIndices;
 import org.deeplearning4j.nn.graph.vertex.GraphVertex;
@@ -56,9 +57,11 @@ import org.deeplearning4j.nn.layers.FrozenLayerWithBackprop;
 import org.deeplearning4j.nn.layers.recurrent.BidirectionalLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
+import org.deeplearning4j.nn.workspace.ActivationCheckpoints;
 import org.deeplearning4j.nn.workspace.ArrayType;
 import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
 import org.deeplearning4j.optimize.Solver;
+import org.deeplearning4j.optimize.solvers.MicroBatchAccumulator;
 import org.deeplearning4j.optimize.api.ConvexOptimizer;
 import org.deeplearning4j.optimize.api.TrainingListener;
 import org.deeplearning4j.optimize.solvers.accumulation.GradientsAccumulator;
@@ -125,6 +128,10 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     //Workspaces for CUDNN. Pass to LayerWorkspaceMgr for re-use in cudnn helpers
     @Getter
     protected transient Map<String,Pointer> helperWorkspaces = new HashMap<>();
+    //Activation checkpointing state for the current training iteration - null if checkpointing is not used
+    protected transient ActivationCheckpoints activationCheckpoints;
+    //Gradient accumulation state across micro-batches - null if gradient accumulation is not used
+    protected transient MicroBatchAccumulator microBatchAccumulator;
 
     private transient final AtomicLong occupiedBy = new AtomicLong(-1);
 
@@ -431,6 +438,8 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
      * @param accumulator
      */
     public void setGradientsAccumulator(GradientsAccumulator accumulator) {
+        Preconditions.checkState(accumulator == null || configuration.getMixedPrecision() == null,
+                "Gradient sharing (GradientsAccumulator) is not supported with mixed precision training");
         if (!initCalled)
             init();
 
@@ -1093,7 +1102,8 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
             long time2 = System.currentTimeMillis();
             lastEtlTime.set((time2 - time1));
 
-            fit(mds.getFeatures(),mds.getLabels(), mds.getFeaturesMaskArrays(), mds.getLabelsMaskArrays());
+            fit(mds.getFeatures(),mds.getLabels(), mds.getFeaturesMaskArrays(), mds.getLabelsMaskArrays(),
+                    !multiDataSetIterator.hasNext());
             time1 = System.currentTimeMillis();
         }
 
@@ -1125,15 +1135,21 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
      * @param labelMaskArrays   Mas arrays for the labels/outputs. Typically used for RNN training. May be null.
      */
     public void fit(INDArray[] inputs, INDArray[] labels, INDArray[] featureMaskArrays, INDArray[] labelMaskArrays) {
+        fit(inputs, labels, featureMaskArrays, labelMaskArrays, false);
+    }
+
+    private void fit(INDArray[] inputs, INDArray[] labels, INDArray[] featureMaskArrays, INDArray[] labelMaskArrays,
+                     boolean flushAccumulation) {
         try{
-            fitHelper(inputs, labels, featureMaskArrays, labelMaskArrays);
+            fitHelper(inputs, labels, featureMaskArrays, labelMaskArrays, flushAccumulation);
         } catch (OutOfMemoryError e){
             CrashReportingUtil.writeMemoryCrashDump(this, e);
             throw e;
         }
     }
 
-    private synchronized void fitHelper(INDArray[] inputs, INDArray[] labels, INDArray[] featureMaskArrays, INDArray[] labelMaskArrays) {
+    private synchronized void fitHelper(INDArray[] inputs, INDArray[] labels, INDArray[] featureMaskArrays,
+                                        INDArray[] labelMaskArrays, boolean flushAccumulation) {
         if (numParams() == 0) {
             return; //Edge case: net with no params: fitting is a no-op
         }
@@ -1176,7 +1192,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
             }
 
             //TODO: cache workspace
-            solver.optimize(workspaceMgr);
+            fitMicroBatch(workspaceMgr, flushAccumulation);
 
         }
 
@@ -1188,6 +1204,75 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         synchronizeIterEpochCounts();
     }
 
+    /**
+     * Perform one optimization step (or, with gradient accumulation, one micro-batch) on the current inputs and labels.
+     * See {@link ComputationGraphConfiguration.GraphBuilder#gradientAccumulationSteps(int)}
+     *
+     * @param flush If true: apply the parameter update for any partially accumulated group of micro-batches now
+     */
+    private void fitMicroBatch(LayerWorkspaceMgr workspaceMgr, boolean flush) {
+        int steps = configuration.getGradientAccumulationSteps();
+        if (steps <= 1) {
+            microBatchAccumulator = null;
+            solver.optimize(workspaceMgr);
+            return;
+        }
+
+        if (microBatchAccumulator == null || microBatchAccumulator.getSteps() != steps) {
+            //Vertices with parameters, in the same order as the flattened parameters/gradients
+            int[] order = topologicalSortOrder();
+            List<Trainable> trainables = new ArrayList<>();
+            for (int idx : order) {
+                if (vertices[idx].numParams() > 0) {
+                    trainables.add(vertices[idx]);
+                }
+            }
+            microBatchAccumulator = new MicroBatchAccumulator(steps, trainables.toArray(new Trainable[0]));
+        }
+
+        if (flush || microBatchAccumulator.isLastMicroBatch()) {
+            //Gradients from the previous micro-batches are added in computeGradientAndScore, before the updater is applied
+            microBatchAccumulator.setFinishPending(true);
+            try {
+                solver.optimize(workspaceMgr);
+            } finally {
+                microBatchAccumulator.setFinishPending(false);
+                microBatchAccumulator.clearLastBatchSize();
+            }
+        } else {
+            computeGradientAndScore(workspaceMgr);
+            microBatchAccumulator.accumulate(flattenedGradients, score, batchSize());
+        }
+    }
+
+    /**
+     * With gradient accumulation (see {@link ComputationGraphConfiguration.GraphBuilder#gradientAccumulationSteps(int)}): apply the parameter update for any
+     * partially accumulated group of micro-batches, without fitting another micro-batch. No-op if there are no pending
+     * micro-batches.<br>
+     * Note that fitting from an iterator applies any trailing partial group automatically; this method is for use
+     * when fitting one minibatch at a time (for example, at the end of an epoch)
+     */
+    public synchronized void flushGradientAccumulation() {
+        if (microBatchAccumulator == null || microBatchAccumulator.getCount() == 0 || gradient == null)
+            return;
+
+        if (solver == null) {
+            try (MemoryWorkspace wsO = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                solver = new Solver.Builder().configure(conf()).listeners(getListeners()).model(this).build();
+            }
+        }
+
+        //The accumulated gradients are used in place of a forward/backward pass in computeGradientAndScore
+        microBatchAccumulator.setFlushPending(true);
+        try {
+            solver.optimize(LayerWorkspaceMgr.noWorkspaces());
+        } finally {
+            microBatchAccumulator.setFlushPending(false);
+            microBatchAccumulator.clearLastBatchSize();
+        }
+        synchronizeIterEpochCounts();
+    }
+
 
 
     /**
@@ -1358,6 +1443,14 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     public void computeGradientAndScore() {
         synchronizeIterEpochCounts();
 
+        if (microBatchAccumulator != null && microBatchAccumulator.isFlushPending()) {
+            //Apply the pending micro-batches only (see flushGradientAccumulation): no forward/backward pass
+            score = microBatchAccumulator.finish(flattenedGradients);
+            if (!gradient.sparseGradientForVariable().isEmpty())
+                gradient.sparseGradientForVariable().clear();
+            return;
+        }
+
         LayerWorkspaceMgr workspaceMgr;
         if(configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE){
             workspaceMgr = LayerWorkspaceMgr.noWorkspaces();
@@ -1383,9 +1476,18 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
         //Calculate activations (which are stored in each layer, and used in backprop)
         try(MemoryWorkspace wsAllActivations = workspaceMgr.notifyScopeEntered(ArrayType.ACTIVATIONS)) {
-            Map<String, INDArray> activations = ffToLayerActivationsInWS(true, -1, getOutputLayerIndices(),
-                    fwdType, tbptt, inputs, inputMaskArrays, labelMaskArrays, false);
-            if (!trainingListeners.isEmpty()) {
+            Map<String, INDArray> activations;
+            boolean checkpointed = useActivationCheckpointing(tbptt);
+            if (checkpointed) {
+                activations = ffToLayerActivationsCheckpointed(getOutputLayerIndices(), inputs, inputMaskArrays, labelMaskArrays);
+            } else {
+                activationCheckpoints = null;
+                activations = ffToLayerActivationsInWS(true, -1, getOutputLayerIndices(),
+                        fwdType, tbptt, inputs, inputMaskArrays, labelMaskArrays, false);
+            }
+            //With activation checkpointing, only the retained vertex activations are available - listeners expect all
+            // of them, so onForwardPass is not called in that case
+            if (!trainingListeners.isEmpty() && !checkpointed) {
                 try (MemoryWorkspace workspace = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
                     for (TrainingListener tl : trainingListeners) {
                         tl.onForwardPass(this, activations);
@@ -1425,6 +1527,13 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                 outNum++;
             }
 
+            if (microBatchAccumulator != null && microBatchAccumulator.isFinishPending() && gradient != null) {
+                //Last micro-batch of a group: add the accumulated gradients. The result is a dense gradient for all rows
+                score = microBatchAccumulator.finish(flattenedGradients, score, batchSize());
+                if (!gradient.sparseGradientForVariable().isEmpty())
+                    gradient.sparseGradientForVariable().clear();
+            }
+
             //Listeners
             if (!trainingListeners.isEmpty()) {
                 try (MemoryWorkspace workspace = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
@@ -2199,6 +2308,213 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     }
 
 
+    /**
+     * @return The current loss scale for mixed precision training, or 1.0 if loss scaling is not used
+     */
+    protected double currentLossScale() {
+        MixedPrecision mixedPrecision = configuration.getMixedPrecision();
+        if (mixedPrecision == null || !mixedPrecision.isLossScaling())
+            return 1.0;
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            //Updater (and hence the loss scale state) may not have been created yet
+            return getUpdater().getLossScale();
+        }
+    }
+
+    /**
+     * @return True if activation checkpointing should be used for the current training iteration
+     */
+    protected boolean useActivationCheckpointing(boolean tbptt) {
+        if (tbptt || configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE)
+            return false;
+        List<String> checkpoints = configuration.getActivationCheckpoints();
+        return (checkpoints != null && !checkpoints.isEmpty()) || configuration.getActivationCheckpointMemoryBudget() > 0;
+    }
+
+    /**
+     * Feed-forward through the network at training time, with activation checkpointing.<br>
+     * Vertices are grouped into segments of contiguous positions in the topological order. Only the activations of
+     * vertices that are used outside of their own segment (or used by the excluded output layers) are retained in
+     * workspace WS_ALL_LAYERS_ACT; all other activations are discarded at the end of each segment, and are recomputed
+     * in {@link #calcBackpropGradients(boolean, boolean, INDArray...)}
+     *
+     * @param excludeIdxs Layers (vertices) to exclude from forward pass - usually output layers. May be null.
+     * @param input       Input feature arrays
+     * @param fMask       Feature mask arrays. May be null.
+     * @param lMask       Label mask array. May be null.
+     * @return Map of retained activations (including the input), in workspace WS_ALL_LAYERS_ACT
+     */
+    protected synchronized Map<String,INDArray> ffToLayerActivationsCheckpointed(int[] excludeIdxs, INDArray[] input,
+                                                                                  INDArray[] fMask, INDArray[] lMask) {
+        setInputs(input);
+        setLayerMaskArrays(fMask, lMask);
+
+        WorkspaceUtils.assertOpenAndActive(WS_ALL_LAYERS_ACT, "ffToLayerActivationsCheckpointed method requires workspace WS_ALL_LAYERS_ACT to be open");
+        LayerWorkspaceMgr allMgr = LayerWorkspaceMgr.builder()
+                .with(ArrayType.ACTIVATIONS, WS_ALL_LAYERS_ACT, WS_ALL_LAYERS_ACT_CONFIG)
+                .with(ArrayType.INPUT, WS_ALL_LAYERS_ACT, WS_ALL_LAYERS_ACT_CONFIG)
+                .build();
+        LayerWorkspaceMgr segmentMgr = checkpointSegmentWorkspaceMgr();
+        if(input[0].isAttached()){
+            //Don't leverage out of async DataMultiSetIterator workspaces
+            allMgr.setNoLeverageOverride(input[0].data().getParentWorkspace().getId());
+            segmentMgr.setNoLeverageOverride(input[0].data().getParentWorkspace().getId());
+        }
+
+        List<String> checkpointNames = configuration.getActivationCheckpoints();
+        int[] checkpointPositions = new int[checkpointNames == null ? 0 : checkpointNames.size()];
+        for (int i = 0; i < checkpointPositions.length; i++) {
+            String name = checkpointNames.get(i);
+            if (!verticesMap.containsKey(name)) {
+                throw new IllegalStateException("Invalid activation checkpoint: no layer or vertex with name \"" + name + "\" exists");
+            }
+            checkpointPositions[i] = ArrayUtils.indexOf(topologicalOrder, verticesMap.get(name).getVertexIndex());
+        }
+        ActivationCheckpoints checkpoints = new ActivationCheckpoints(ActivationCheckpoints.checkpointPositions(
+                topologicalOrder.length, checkpointPositions), configuration.getActivationCheckpointMemoryBudget());
+
+        Map<String, INDArray> activations = new HashMap<>();
+        INDArray[] segmentOut = new INDArray[topologicalOrder.length];
+        MemoryWorkspace wsSegment = null;
+        int lastForwarded = -1;
+        try {
+            for (int i = 0; i < topologicalOrder.length; i++) {
+                GraphVertex current = vertices[topologicalOrder[i]];
+                int vIdx = current.getVertexIndex();
+
+                if (excludeIdxs != null && ArrayUtils.contains(excludeIdxs, vIdx)) {
+                    continue;
+                }
+
+                if (current.isInputVertex()) {
+                    //Network inputs are always retained, and are never part of any segment
+                    INDArray out = inputs[vIdx];
+                    activations.put(current.getVertexName(), out);
+                    setCheckpointConsumerInputs(current, out, allMgr);
+                    checkpoints.markRetained(i);
+                    continue;
+                }
+
+                if (checkpoints.beforeForward(i)) {
+                    wsSegment = segmentMgr.notifyScopeEntered(ArrayType.ACTIVATIONS);
+                }
+                INDArray out;
+                try (MemoryWorkspace wsFFWorking = segmentMgr.notifyScopeEntered(ArrayType.FF_WORKING_MEM)) {
+                    out = current.doForward(true, segmentMgr);
+                    validateArrayWorkspaces(segmentMgr, out, ArrayType.ACTIVATIONS, current.getVertexName(), false, "Feed forward (checkpointed)");
+                }
+                segmentOut[i] = out;
+                setCheckpointConsumerInputs(current, out, segmentMgr);
+                lastForwarded = i;
+
+                if (checkpoints.afterForward(i, out.length() * out.dataType().width())) {
+                    retainCheckpointSegment(checkpoints, i, excludeIdxs, segmentOut, activations, allMgr);
+                    wsSegment.close();
+                    wsSegment = null;
+                }
+            }
+
+            if (checkpoints.isSegmentOpen()) {
+                retainCheckpointSegment(checkpoints, lastForwarded, excludeIdxs, segmentOut, activations, allMgr);
+                wsSegment.close();
+                wsSegment = null;
+            }
+        } finally {
+            if (wsSegment != null) {
+                //Should only be non-null on exception
+                wsSegment.close();
+            }
+        }
+
+        this.activationCheckpoints = checkpoints;
+        return activations;
+    }
+
+    /**
+     * End the current checkpoint segment, and move to WS_ALL_LAYERS_ACT the activations of any vertex in the segment
+     * that are required after the end of the segment: i.e., by vertices at later positions in the topological order,
+     * or by the (excluded) output layers
+     */
+    private void retainCheckpointSegment(ActivationCheckpoints checkpoints, int end, int[] excludeIdxs, INDArray[] segmentOut,
+                                         Map<String, INDArray> activations, LayerWorkspaceMgr allMgr) {
+        checkpoints.endSegment(end);
+        int start = checkpoints.segmentStart(checkpoints.numSegments() - 1);
+        for (int i = start; i <= end; i++) {
+            if (segmentOut[i] == null)
+                continue;
+            GraphVertex current = vertices[topologicalOrder[i]];
+            boolean retain = (i == end) || current.isOutputVertex();
+            VertexIndices[] inputsTo = current.getOutputVertices();
+            if (!retain && inputsTo != null) {
+                for (VertexIndices v : inputsTo) {
+                    int consumerIdx = v.getVertexIndex();
+                    if (ArrayUtils.indexOf(topologicalOrder, consumerIdx) > end
+                            || (excludeIdxs != null && ArrayUtils.contains(excludeIdxs, consumerIdx))) {
+                        retain = true;
+                        break;
+                    }
+                }
+            }
+
+            if (retain) {
+                INDArray out = allMgr.leverageTo(ArrayType.ACTIVATIONS, segmentOut[i]);
+                activations.put(current.getVertexName(), out);
+                setCheckpointConsumerInputs(current, out, allMgr);
+                checkpoints.markRetained(i);
+            }
+            segmentOut[i] = null;
+        }
+    }
+
+    /**
+     * Recompute the forward pass for the specified checkpoint segment, in the (already open) checkpoint segment
+     * workspace. Used during backprop so that vertices in the segment have their inputs and internal state set
+     */
+    protected void recomputeCheckpointSegment(int segment, LayerWorkspaceMgr segmentMgr) {
+        int[] excludeIdxs = getOutputLayerIndices();
+        int start = activationCheckpoints.segmentStart(segment);
+        int end = activationCheckpoints.segmentEnd(segment);
+        long[] rngState = activationCheckpoints.restoreRngState(segment);
+        try {
+            for (int i = start; i <= end; i++) {
+                GraphVertex current = vertices[topologicalOrder[i]];
+                if (current.isInputVertex() || (excludeIdxs != null && ArrayUtils.contains(excludeIdxs, current.getVertexIndex()))) {
+                    continue;
+                }
+                try (MemoryWorkspace wsFFWorking = segmentMgr.notifyScopeEntered(ArrayType.FF_WORKING_MEM)) {
+                    INDArray out = current.doForward(true, segmentMgr);
+                    if (!activationCheckpoints.isRetained(i)) {
+                        //Retained activations have already been set as inputs (in WS_ALL_LAYERS_ACT) for their consumers
+                        setCheckpointConsumerInputs(current, out, segmentMgr);
+                    }
+                }
+            }
+        } finally {
+            ActivationCheckpoints.setRngState(rngState);
+        }
+    }
+
+    private void setCheckpointConsumerInputs(GraphVertex current, INDArray out, LayerWorkspaceMgr workspaceMgr) {
+        VertexIndices[] inputsTo = current.getOutputVertices();
+        if (inputsTo != null) {
+            for (VertexIndices v : inputsTo) {
+                vertices[v.getVertexIndex()].setInput(v.getVertexEdgeNumber(), out, workspaceMgr);
+            }
+        }
+    }
+
+    private LayerWorkspaceMgr checkpointSegmentWorkspaceMgr() {
+        LayerWorkspaceMgr mgr = LayerWorkspaceMgr.builder()
+                .with(ArrayType.INPUT, ActivationCheckpoints.WS_CHECKPOINT_SEGMENT, WS_LAYER_ACT_X_CONFIG)
+                .with(ArrayType.ACTIVATIONS, ActivationCheckpoints.WS_CHECKPOINT_SEGMENT, WS_LAYER_ACT_X_CONFIG)
+                .with(ArrayType.FF_CACHE, ActivationCheckpoints.WS_CHECKPOINT_SEGMENT, WS_LAYER_ACT_X_CONFIG)
+                .with(ArrayType.FF_WORKING_MEM, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG)
+                .with(ArrayType.RNN_FF_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM_CONFIG)
+                .build();
+        mgr.setHelperWorkspacePointers(helperWorkspaces);
+        return mgr;
+    }
+
     /**
      * Provide the output of the specified layers, detached from any workspace. This is most commonly used at inference/test
      * time, and is more memory efficient than {@link #ffToLayerActivationsDetached(boolean, FwdPassType, boolean, int, int[], INDArray[], INDArray[], INDArray[], boolean)}
@@ -2669,9 +2985,17 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
         //Do backprop, in reverse topological order
         LinkedList<Triple<String, INDArray, Character>> gradients = new LinkedList<>();
+        Map<String, SparseRowGradient> sparseGradients = new HashMap<>();
         boolean[] setVertexEpsilon = new boolean[topologicalOrder.length]; //If true: already set epsilon for this vertex; later epsilons should be *added* to the existing one, not set
         MemoryWorkspace initialWorkspace = Nd4j.getMemoryManager().getCurrentWorkspace();
 
+        //Activation checkpointing: segment activations are recomputed on entering each segment
+        boolean checkpointed = activationCheckpoints != null && (externalEpsilons == null || externalEpsilons.length == 0);
+        double lossScale = (externalEpsilons == null || externalEpsilons.length == 0 ? currentLossScale() : 1.0);
+        LayerWorkspaceMgr segmentMgr = (checkpointed ? checkpointSegmentWorkspaceMgr() : null);
+        MemoryWorkspace wsRecompute = null;
+        int currentSegment = -1;
+
         boolean traceLog = log.isTraceEnabled();
 
         Throwable t = null;
@@ -2706,6 +3030,20 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                     continue;
                 }
 
+                if (checkpointed && activationCheckpoints.segmentOf(i) != currentSegment) {
+                    if (wsRecompute != null) {
+                        wsRecompute.close();
+                        wsRecompute = null;
+                    }
+                    currentSegment = activationCheckpoints.segmentOf(i);
+                    if (currentSegment >= 0) {
+                        wsRecompute = segmentMgr.notifyScopeEntered(ArrayType.ACTIVATIONS);
+                        wsRecompute.setPreviousWorkspace(initialWorkspace);
+                        recomputeCheckpointSegment(currentSegment, segmentMgr);
+                        Nd4j.getMemoryManager().setCurrentWorkspace(initialWorkspace);
+                    }
+                }
+
 
                 //First: determine what workspace manager we should use for the activation gradients from this vertex
                 LayerWorkspaceMgr workspaceMgr;
@@ -2733,6 +3071,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                 }
                 workspaceMgr.setHelperWorkspacePointers(helperWorkspaces);
 
+                boolean scaleLoss = false;
                 if (current.isOutputVertex()) {
                     //Two reasons for a vertex to be an output vertex:
                     //(a) it's an output layer (i.e., instanceof IOutputLayer), or
@@ -2748,6 +3087,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
                         INDArray currLabels = labels[thisOutputNumber];
                         outputLayer.setLabels(currLabels);
+                        scaleLoss = lossScale != 1.0;
                     } else {
                         if ((externalEpsilons == null || externalEpsilons.length == 0)
                                 && labels[thisOutputNumber] != null) {
@@ -2787,6 +3127,20 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                     pair = current.doBackward(truncatedBPTT, workspaceMgr);
                     epsilons = pair.getSecond();
 
+                    if (scaleLoss) {
+                        //Mixed precision loss scaling: equivalent to scaling the loss itself
+                        if (pair.getFirst() != null) {
+                            for (INDArray g : pair.getFirst().gradientForVariable().values()) {
+                                g.muli(lossScale);
+                            }
+                        }
+                        for (INDArray epsilon : epsilons) {
+                            if (epsilon != null) {
+                                epsilon.muli(lossScale);
+                            }
+                        }
+                    }
+
                     //Validate workspace location for the activation gradients:
                     //validateArrayWorkspaces(LayerWorkspaceMgr mgr, INDArray array, ArrayType arrayType, String vertexName, boolean isInputVertex, String op){
                     for (INDArray epsilon : epsilons) {
@@ -2833,6 +3187,9 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                     }
                     for (Triple<String, INDArray, Character> triple : tempList)
                         gradients.addFirst(triple);
+                    for (Map.Entry<String, SparseRowGradient> entry : g.sparseGradientForVariable().entrySet()) {
+                        sparseGradients.put(current.getVertexName() + "_" + entry.getKey(), entry.getValue());
+                    }
                 }
 
                 //Close any activation gradient workspaces that we no longer require
@@ -2854,6 +3211,20 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         } catch (Throwable t2){
             t = t2;
         } finally {
+            if(wsRecompute != null){
+                try {
+                    wsRecompute.close();
+                } catch (Throwable t2){
+                    if(t != null){
+                        log.error("Encountered second exception while trying to close workspace after initial exception");
+                        log.error("Original exception:", t);
+                        throw t2;
+                    }
+                }
+            }
+            if(checkpointed){
+                activationCheckpoints = null;
+            }
             //Close all open workspaces... usually this list will be empty, but not if an exception is thrown
             for(MemoryWorkspace ws : openActivationsWorkspaces.keySet()){
                 try{
@@ -2881,6 +3252,9 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         for (Triple<String, INDArray, Character> tr : gradients) {
             gradient.setGradientFor(tr.getFirst(), tr.getSecond(), tr.getThird());
         }
+        for (Map.Entry<String, SparseRowGradient> entry : sparseGradients.entrySet()) {
+            gradient.setSparseGradientFor(entry.getKey(), entry.getValue());
+        }
 
         this.gradient = gradient;
 
@@ -3349,6 +3723,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
         if (this.flattenedParams != null && this.flattenedParams.length() == params.length()) {
             this.flattenedParams.assign(params);
+            resetMasterParams();
             return;
         }
 
@@ -3413,6 +3788,10 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
     @Override
     public int batchSize() {
+        if (microBatchAccumulator != null && microBatchAccumulator.getLastBatchSize() > 0) {
+            //Final micro-batch of a group: gradients are for all examples in the group
+            return microBatchAccumulator.getLastBatchSize();
+        }
         //In 99+% of cases, the input and labels dimension 0 size should be identical
         //The only real exceptions: space to batch, and batch to space layers
         //In those cases, we should base it on the labels size, as this impacts gradient calculation
@@ -3493,6 +3872,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
             INDArray arrNew = paramTable.get(s);
             arrCurrent.assign(arrNew);
         }
+        resetMasterParams();
     }
 
     @Override
@@ -3504,6 +3884,19 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         String layerName = key.substring(0, idx);
         String paramType = key.substring(idx + 1);
         getLayer(layerName).setParam(paramType, val);
+        resetMasterParams();
+    }
+
+    /**
+     * Mixed precision training: re-synchronize the updater's master weights after the parameters have been set externally
+     */
+    protected void resetMasterParams() {
+        if (configuration.getMixedPrecision() != null) {
+            ComputationGraphUpdater u = getUpdater(false);
+            if (u != null) {
+                u.resetMasterParams();
+            }
+        }
     }
 
     @Override
@@ -232,4 +232,9 @@ public abstract class BaseGraphVertex implements GraphVertex {
         }
         return true;
     }
+
+    @Override
+    public boolean sparseGradients(String paramName) {
+        return hasLayer() && getLayer().sparseGradients(paramName);
+    }
 }
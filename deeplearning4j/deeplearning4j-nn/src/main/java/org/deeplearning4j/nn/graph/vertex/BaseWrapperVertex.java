@@ -203,4 +203,9 @@ public abstract class BaseWrapperVertex implements GraphVertex {
     public boolean updaterDivideByMinibatch(String paramName) {
         return underlying.updaterDivideByMinibatch(paramName);
     }
+
+    @Override
+    public boolean sparseGradients(String paramName) {
+        return underlying.sparseGradients(paramName);
+    }
 }
@@ -39,6 +39,7 @@ import org.deeplearning4j.nn.workspace.ArrayType;
 @Slf4j
 public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingLayer> {
     private static final int[] DIM_1 = new int[]{1};
+    private final SparseEmbeddingGradients sparseGradients = new SparseEmbeddingGradients();
 
     public EmbeddingLayer(NeuralNetConfiguration conf, DataType dataType) {
         super(conf, dataType);
@@ -56,9 +57,14 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
         }
 
         INDArray weightGradients = gradientViews.get(DefaultParamInitializer.WEIGHT_KEY);
-        weightGradients.assign(0);
+        boolean sparse = layerConf().isSparseGradients();
+        if (sparse) {
+            sparseGradients.zeroGradients(weightGradients);
+        } else {
+            weightGradients.assign(0);
+        }
 
-        long[] indexes = new long[(int) input.length()];
+        int[] indexes = new int[(int) input.length()];
         for (int i = 0; i < indexes.length; i++) {
             indexes[i] = input.getInt(i, 0);
         }
@@ -69,6 +75,9 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
 
         Gradient ret = new DefaultGradient();
         ret.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, weightGradients);
+        if (sparse) {
+            ret.setSparseGradientFor(DefaultParamInitializer.WEIGHT_KEY, sparseGradients.record(indexes, weightGradients));
+        }
 
         if(hasBias()) {
             INDArray biasGradientsView = gradientViews.get(DefaultParamInitializer.BIAS_KEY);
@@ -137,6 +146,11 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
         return layerConf().hasBias();
     }
 
+    @Override
+    public boolean sparseGradients(String paramName) {
+        return layerConf().isSparseGradients() && DefaultParamInitializer.WEIGHT_KEY.equals(paramName);
+    }
+
     @Override
     public boolean isPretrainLayer() {
         return false;
@@ -45,6 +45,7 @@ import static org.nd4j.linalg.api.shape.Shape.hasDefaultStridesForShape;
 @Slf4j
 public class EmbeddingSequenceLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingSequenceLayer> {
     private static final int[] WEIGHT_DIM = new int[]{1};
+    private final SparseEmbeddingGradients sparseGradients = new SparseEmbeddingGradients();
 
     public EmbeddingSequenceLayer(NeuralNetConfiguration conf, DataType dataType) {
         super(conf, dataType);
@@ -83,7 +84,12 @@ public class EmbeddingSequenceLayer extends BaseLayer<org.deeplearning4j.nn.conf
         delta = delta.reshape('c',inputLength * numSamples, nOut);
 
         INDArray weightGradients = gradientViews.get(DefaultParamInitializer.WEIGHT_KEY);
-        weightGradients.assign(0);
+        boolean sparse = layerConf().isSparseGradients();
+        if (sparse) {
+            sparseGradients.zeroGradients(weightGradients);
+        } else {
+            weightGradients.assign(0);
+        }
 
         if (!hasDefaultStridesForShape(input))
             input = workspaceMgr.dup(ArrayType.ACTIVATIONS, input, 'f');
@@ -93,6 +99,9 @@ public class EmbeddingSequenceLayer extends BaseLayer<org.deeplearning4j.nn.conf
 
         Gradient ret = new DefaultGradient();
         ret.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, weightGradients);
+        if (sparse) {
+            ret.setSparseGradientFor(DefaultParamInitializer.WEIGHT_KEY, sparseGradients.record(indexes, weightGradients));
+        }
 
         if (hasBias()) {
             INDArray biasGradientsView = gradientViews.get(DefaultParamInitializer.BIAS_KEY);
@@ -210,6 +219,11 @@ public class EmbeddingSequenceLayer extends BaseLayer<org.deeplearning4j.nn.conf
         return layerConf().hasBias();
     }
 
+    @Override
+    public boolean sparseGradients(String paramName) {
+        return layerConf().isSparseGradients() && DefaultParamInitializer.WEIGHT_KEY.equals(paramName);
+    }
+
     @Override
     public boolean isPretrainLayer() {
         return false;
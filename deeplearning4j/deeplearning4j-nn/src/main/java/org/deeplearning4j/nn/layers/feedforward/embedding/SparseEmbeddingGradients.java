@@ -0,0 +1,64 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.nn.layers.feedforward.embedding;
+
+import org.deeplearning4j.nn.gradient.SparseRowGradient;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * Tracks the rows of an embedding layer weight gradient view that were touched in the previous iteration, so that
+ * only those rows need to be zeroed (instead of the full [vocabSize, vectorSize] gradient) before the next
+ * iteration's gradients are accumulated.
+ */
+class SparseEmbeddingGradients {
+
+    private SparseRowGradient last;
+    private INDArray lastView;
+
+    /**
+     * Zero the weight gradient view before accumulating gradients. If the updater applied only row-wise updates to the
+     * rows touched in the previous iteration, all other rows are still zero, and only those rows are cleared.
+     * Otherwise (first iteration, dense updater, new gradient view array) the full view is zeroed.
+     */
+    void zeroGradients(INDArray weightGradients) {
+        if (last != null && last.isAppliedSparse() && lastView == weightGradients) {
+            last.zeroRows(weightGradients);
+        } else {
+            weightGradients.assign(0);
+        }
+        last = null;
+        lastView = null;
+    }
+
+    /**
+     * Record the rows touched in this iteration
+     *
+     * @param indices         Embedding indices for the minibatch (may contain duplicates)
+     * @param weightGradients Weight gradient view, shape [vocabSize, vectorSize]
+     * @return The sparse row gradient for the weights
+     */
+    SparseRowGradient record(int[] indices, INDArray weightGradients) {
+        last = SparseRowGradient.fromIndices(indices, weightGradients.size(0), weightGradients.size(1),
+                weightGradients.ordering());
+        lastView = weightGradients;
+        return last;
+    }
+}
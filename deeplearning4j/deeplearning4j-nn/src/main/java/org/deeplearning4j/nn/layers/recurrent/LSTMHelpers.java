@@ -37,6 +37,7 @@ import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.linalg.activations.IActivation;
 import org.nd4j.linalg.activations.impl.ActivationSigmoid;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.impl.transforms.pairwise.arithmetic.MulOp;
@@ -208,6 +209,19 @@ public class LSTMHelpers {
             }
         }
 
+        //Input contribution (plus bias) to the gate pre-outputs for all time steps, in a single gemm
+        INDArray inputProjection = inputProjection(input, inputWeights, biases, is2dInput, workspaceMgr);
+
+        if (!forBackprop) {
+            activateInference(layer, gateActivationFn, inputProjection, recurrentWeightsIFOG, wFFTranspose, wOOTranspose,
+                    wGGTranspose, training, prevOutputActivations, prevMemCellState, forwards, maskArray,
+                    hasPeepholeConnections, outputActivations, toReturn, workspaceMgr);
+
+            toReturn.prevAct = originalPrevOutputActivations;
+            toReturn.prevMemCell = originalPrevMemCellState;
+            return toReturn;
+        }
+
         for (int iTimeIndex = 0; iTimeIndex < timeSeriesLength; iTimeIndex++) {
             try(MemoryWorkspace ws = workspaceMgr.notifyScopeEntered(ArrayType.RNN_FF_LOOP_WORKING_MEM)) {
                 int time = iTimeIndex;
@@ -216,19 +230,14 @@ public class LSTMHelpers {
                     time = timeSeriesLength - iTimeIndex - 1;
                 }
 
-
-                INDArray miniBatchData = (is2dInput ? input : input.tensorAlongDimension(time, 1, 0)); //[Expected shape: [m,nIn]. Also deals with edge case of T=1, with 'time series' data of shape [m,nIn], equiv. to [m,nIn,1]
-                miniBatchData = Shape.toMmulCompatible(miniBatchData);
-
                 // if we're using cache here - let's create ifogActivations within cache workspace, so all views from this array will be valid in cache
                 cacheEnter(training, cacheMode, workspaceMgr);
 
-                //Calculate activations for: network input + forget, output, input modulation gates. Next 3 lines are first part of those
-                INDArray ifogActivations = miniBatchData.mmul(inputWeights); //Shape: [miniBatch,4*layerSize]
+                //Calculate activations for: network input + forget, output, input modulation gates. Input contribution and bias are precomputed
+                INDArray ifogActivations = inputProjection.get(all(), point(time), all()).dup('f'); //Shape: [miniBatch,4*layerSize]
                 cacheExit(training, cacheMode, workspaceMgr);
 
                 Nd4j.gemm(prevOutputActivations, recurrentWeightsIFOG, ifogActivations, false, false, 1.0, 1.0);
-                ifogActivations.addiRowVector(biases);
 
                 INDArray inputActivations =
                         ifogActivations.get(all(), interval(0, hiddenLayerSize));
@@ -407,6 +416,101 @@ public class LSTMHelpers {
         return toReturn;
     }
 
+    /**
+     * Calculate the input contribution to the gate pre-outputs (x*W + b) for all time steps, as a single gemm.
+     *
+     * @return Array of shape [miniBatch, timeSeriesLength, 4*hiddenLayerSize], f order
+     */
+    private static INDArray inputProjection(INDArray input, INDArray inputWeights, INDArray biases, boolean is2dInput,
+                                            LayerWorkspaceMgr workspaceMgr) {
+        long miniBatchSize = input.size(0);
+        long timeSeriesLength = is2dInput ? 1 : input.size(2);
+        long nIn = inputWeights.size(0);
+        long nIFOG = inputWeights.size(1);
+
+        //[m,nIn,T] -> [m*T,nIn], where row (b + m*t) is example b at time step t
+        INDArray input2d = is2dInput ? Shape.toMmulCompatible(input)
+                : workspaceMgr.dup(ArrayType.FF_WORKING_MEM, input.permute(0, 2, 1), 'f').reshape('f', miniBatchSize * timeSeriesLength, nIn);
+
+        INDArray projection = workspaceMgr.create(ArrayType.FF_WORKING_MEM, inputWeights.dataType(), new long[] {miniBatchSize * timeSeriesLength, nIFOG}, 'f');
+        Nd4j.gemm(input2d, inputWeights, projection, false, false, 1.0, 0.0);
+        projection.addiRowVector(biases);
+        return projection.reshape('f', miniBatchSize, timeSeriesLength, nIFOG);
+    }
+
+    /**
+     * Forward pass when no state needs to be retained for backprop. Gate pre-outputs, memory cell state and peephole
+     * contributions use buffers allocated once for all time steps, and hidden unit activations are calculated directly
+     * in the output array.
+     */
+    private static void activateInference(final BaseRecurrentLayer layer, final IActivation gateActivationFn,
+                                          INDArray inputProjection, INDArray recurrentWeightsIFOG, INDArray wFFTranspose,
+                                          INDArray wOOTranspose, INDArray wGGTranspose, boolean training,
+                                          INDArray prevOutputActivations, INDArray prevMemCellState, boolean forwards,
+                                          INDArray maskArray, boolean hasPeepholeConnections, INDArray outputActivations,
+                                          FwdPassReturn toReturn, LayerWorkspaceMgr workspaceMgr) {
+        int miniBatchSize = (int) inputProjection.size(0);
+        int timeSeriesLength = (int) inputProjection.size(1);
+        int hiddenLayerSize = (int) recurrentWeightsIFOG.size(0);
+        DataType dataType = inputProjection.dataType();
+        IActivation afn = layer.layerConf().getActivationFn();
+
+        INDArray ifogActivations = workspaceMgr.create(ArrayType.FF_WORKING_MEM, dataType, new long[] {miniBatchSize, 4 * hiddenLayerSize}, 'f');
+        INDArray inputActivations = ifogActivations.get(all(), interval(0, hiddenLayerSize));
+        INDArray forgetGateActivations = ifogActivations.get(all(), interval(hiddenLayerSize, 2 * hiddenLayerSize));
+        INDArray outputGateActivations = ifogActivations.get(all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
+        INDArray inputModGateActivations = ifogActivations.get(all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
+
+        INDArray memCellState = workspaceMgr.dup(ArrayType.FF_WORKING_MEM, prevMemCellState, 'f');
+        INDArray peephole = hasPeepholeConnections ? workspaceMgr.create(ArrayType.FF_WORKING_MEM, dataType, new long[] {miniBatchSize, hiddenLayerSize}, 'f') : null;
+
+        for (int iTimeIndex = 0; iTimeIndex < timeSeriesLength; iTimeIndex++) {
+            int time = forwards ? iTimeIndex : timeSeriesLength - iTimeIndex - 1;
+
+            ifogActivations.assign(inputProjection.get(all(), point(time), all()));
+            Nd4j.gemm(prevOutputActivations, recurrentWeightsIFOG, ifogActivations, false, false, 1.0, 1.0);
+
+            afn.getActivation(inputActivations, training);
+
+            if (hasPeepholeConnections) {
+                forgetGateActivations.addi(peephole.assign(memCellState).muliRowVector(wFFTranspose));
+                inputModGateActivations.addi(peephole.assign(memCellState).muliRowVector(wGGTranspose));
+            }
+            gateActivationFn.getActivation(forgetGateActivations, training);
+            gateActivationFn.getActivation(inputModGateActivations, training);
+
+            //Memory cell state: c = f*c_prev + g*i, updated in place as c_prev is no longer needed
+            forgetGateActivations.muli(memCellState).addi(inputModGateActivations.muli(inputActivations));
+            memCellState.assign(forgetGateActivations);
+
+            if (hasPeepholeConnections) {
+                outputGateActivations.addi(peephole.assign(memCellState).muliRowVector(wOOTranspose));
+            }
+            gateActivationFn.getActivation(outputGateActivations, training);
+
+            //LSTM unit outputs, calculated directly in the output array. Slice: f order and contiguous
+            INDArray currHiddenUnitActivations = outputActivations.tensorAlongDimension(time, 1, 0);
+            currHiddenUnitActivations.assign(memCellState);
+            INDArray memCellActivations = afn.getActivation(currHiddenUnitActivations, training);
+            if (memCellActivations != currHiddenUnitActivations) {
+                currHiddenUnitActivations.assign(memCellActivations);
+            }
+            currHiddenUnitActivations.muli(outputGateActivations);
+
+            if (maskArray != null) {
+                //Mask array is present: bidirectional RNN -> zero out activations and memory cells (which are carried forward)
+                INDArray timeStepMaskColumn = maskArray.getColumn(time, true);
+                currHiddenUnitActivations.muliColumnVector(timeStepMaskColumn);
+                memCellState.muliColumnVector(timeStepMaskColumn);
+            }
+
+            prevOutputActivations = currHiddenUnitActivations;
+        }
+
+        toReturn.lastAct = prevOutputActivations;
+        toReturn.lastMemCell = memCellState;
+    }
+
     private static boolean shouldCache(boolean training, CacheMode cacheMode, LayerWorkspaceMgr workspaceMgr){
         return training && cacheMode != CacheMode.NONE && workspaceMgr.hasConfiguration(ArrayType.FF_CACHE) && workspaceMgr.isWorkspaceOpen(ArrayType.FF_CACHE);
     }
@@ -469,6 +573,9 @@ public class LSTMHelpers {
         INDArray deltagNext = deltaifogNext.get(all(),
                         interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
 
+        //Deltas for all time steps: input weight gradients and epsilons are calculated from these after the loop, in a single gemm each
+        INDArray deltaifogAll = workspaceMgr.create(ArrayType.BP_WORKING_MEM, inputWeights.dataType(), new long[] {miniBatchSize, timeSeriesLength, 4 * hiddenLayerSize}, 'f');
+
 //        Level1 l1BLAS = Nd4j.getBlasWrapper().level1();
         long endIdx = 0;
 
@@ -648,21 +755,16 @@ public class LSTMHelpers {
                     //Later, the deltaifogNext is used to calculate: input weight gradients, recurrent weight gradients, bias gradients
                 }
 
-                INDArray prevLayerActivationSlice =
-                        Shape.toMmulCompatible(is2dInput ? input : input.tensorAlongDimension(time, 1, 0));
+                INDArray deltaifogSlice = deltaifogAll.get(all(), point(time), all());
                 if (iTimeIndex > 0 || prevHiddenUnitActivation != null) { //For time == 0 && no prevMemCellState, equivalent to muli by 0
                     //Note that prevHiddenUnitActivations may be non-null at t=0 for TBPTT
                     //Again, deltaifog_current == deltaifogNext at this point... same array
-                    Nd4j.gemm(prevLayerActivationSlice, deltaifogNext, iwGradientsOut, true, false, 1.0, 1.0);
+                    deltaifogSlice.assign(deltaifogNext);
                 } else {
-                    INDArray iwGradients_i =
-                            iwGradientsOut.get(all(), interval(0, hiddenLayerSize));
-                    Nd4j.gemm(prevLayerActivationSlice, deltai, iwGradients_i, true, false, 1.0, 1.0);
-                    INDArray iwGradients_og = iwGradientsOut.get(all(),
-                            interval(2 * hiddenLayerSize, 4 * hiddenLayerSize));
-                    INDArray deltaog = deltaifogNext.get(all(),
-                            interval(2 * hiddenLayerSize, 4 * hiddenLayerSize));
-                    Nd4j.gemm(prevLayerActivationSlice, deltaog, iwGradients_og, true, false, 1.0, 1.0);
+                    //No contribution from forget gate at t=0: leave those deltas as 0
+                    deltaifogSlice.get(all(), interval(0, hiddenLayerSize)).assign(deltai);
+                    deltaifogSlice.get(all(), interval(2 * hiddenLayerSize, 4 * hiddenLayerSize))
+                            .assign(deltaifogNext.get(all(), interval(2 * hiddenLayerSize, 4 * hiddenLayerSize)));
                 }
 
                 if (iTimeIndex > 0 || prevHiddenUnitActivation != null) {
@@ -698,30 +800,22 @@ public class LSTMHelpers {
                     INDArray ogBiasGrad = bGradientsOutReshape.get(interval(2 * hiddenLayerSize, 4 * hiddenLayerSize));
                     ogBiasGrad.addi(ogBiasToAdd.reshape(ogBiasGrad.shape()));
                 }
-
-                //Calculate epsilonNext - i.e., equiv. to what would be (w^L*(d^(Lt))^T)^T in a normal network
-                //But here, need to add 4 weights * deltas for the IFOG gates
-                INDArray epsilonNextSlice = epsilonNext.tensorAlongDimension(time, 1, 0); //This slice: f order and contiguous, due to epsilonNext being defined as f order.
-                if (iTimeIndex > 0 || prevHiddenUnitActivation != null) {
-                    //Note that prevHiddenUnitActivation may be non-null at t=0 for TBPTT
-                    Nd4j.gemm(deltaifogNext, inputWeights, epsilonNextSlice, false, true, 1.0, 1.0);
-                } else {
-                    //No contribution from forget gate at t=0
-                    INDArray wi = inputWeights.get(all(), interval(0, hiddenLayerSize));
-                    Nd4j.gemm(deltai, wi, epsilonNextSlice, false, true, 1.0, 1.0);
-                    INDArray deltaog = deltaifogNext.get(all(), interval(2 * hiddenLayerSize, 4 * hiddenLayerSize));
-                    INDArray wog = inputWeights.get(all(), interval(2 * hiddenLayerSize, 4 * hiddenLayerSize));
-                    Nd4j.gemm(deltaog, wog, epsilonNextSlice, false, true, 1.0, 1.0); //epsilonNextSlice.addi(deltao.mmul(woTranspose)).addi(deltag.mmul(wgTranspose));
-                }
-
-                if (maskArray != null) {
-                    //Mask array is present: bidirectional RNN -> need to zero out these errors to avoid sending anything
-                    // but 0s to the layer below at this time step (for the given example)
-                    epsilonNextSlice.muli(timeStepMaskColumn);
-                }
             }
         }
 
+        //Input weight gradients: sum over time steps of (prevLayerActivations^T * deltaifog)
+        INDArray deltaifog2d = deltaifogAll.reshape('f', miniBatchSize * timeSeriesLength, 4 * hiddenLayerSize);
+        INDArray input2d = is2dInput ? Shape.toMmulCompatible(input)
+                : workspaceMgr.dup(ArrayType.BP_WORKING_MEM, input.permute(0, 2, 1), 'f').reshape('f', miniBatchSize * timeSeriesLength, prevLayerSize);
+        Nd4j.gemm(input2d, deltaifog2d, iwGradientsOut, true, false, 1.0, 1.0);
+
+        //Calculate epsilonNext - i.e., equiv. to what would be (w^L*(d^(Lt))^T)^T in a normal network
+        //But here, need to add 4 weights * deltas for the IFOG gates
+        //Masked time steps need no special handling here: their deltas have already been zeroed
+        INDArray epsilonNext2d = workspaceMgr.create(ArrayType.BP_WORKING_MEM, input.dataType(), new long[] {miniBatchSize * timeSeriesLength, prevLayerSize}, 'f');
+        Nd4j.gemm(deltaifog2d, inputWeights, epsilonNext2d, false, true, 1.0, 0.0);
+        epsilonNext.assign(epsilonNext2d.reshape('f', miniBatchSize, timeSeriesLength, prevLayerSize).permute(0, 2, 1));
+
         Gradient retGradient = new DefaultGradient();
         retGradient.gradientForVariable().put(inputWeightKey, iwGradientsOut);
         retGradient.gradientForVariable().put(recurrentWeightKey, rwGradientsOut);
@@ -771,8 +865,8 @@ public class LSTMHelpers {
         int updaterSize = (int) lstmLayer.getIUpdater().stateSize(numParams);
 
         //Memory use during forward pass:
-        //ifogActivations: nTimeSteps * [minibatch,4*layerSize] (not cached during inference fwd pass)
-        val workingMemInferencePerEx = tsLength * 4 * lstmLayer.getNOut(); //Reduced by factor of tsLength if using workspace
+        //Input projection (plus bias) for all time steps: nTimeSteps * [minibatch,4*layerSize] (not cached during inference fwd pass)
+        val workingMemInferencePerEx = tsLength * 4 * lstmLayer.getNOut();
 
         //For training, we also have
         //nTimeSteps * 5 * [minibatch, nOut] - 4 x gate pre-outs, memory cell state - may be cached
@@ -790,7 +884,9 @@ public class LSTMHelpers {
         // 5xnOut (independent of minibatch size) - deltaiFog, peephole etc. Only 2 if no peephole TODO
         //6 for non-graves, 9 for graves
 
-        val backpropWorkingSpace = (isGraves ? 9 : 6) * tsLength * lstmLayer.getNOut();
+        //Also: deltas for all time steps (4xnOut per time step) and a copy of the input, for the input weight gradient
+        // and epsilon gemms
+        val backpropWorkingSpace = (isGraves ? 13 : 10) * tsLength * lstmLayer.getNOut() + tsLength * lstmLayer.getNIn();
 
         //TODO NO WAY TO TAKE LSTM WORKSPACE INTO ACCOUNT HERE :(
 
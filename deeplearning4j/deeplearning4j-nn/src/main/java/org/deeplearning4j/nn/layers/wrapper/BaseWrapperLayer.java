@@ -327,6 +327,11 @@ public abstract class BaseWrapperLayer implements Layer {
         return underlying.updaterDivideByMinibatch(paramName);
     }
 
+    @Override
+    public boolean sparseGradients(String paramName) {
+        return underlying.sparseGradients(paramName);
+    }
+
     @Override
     public void close(){
         //No-op for individual layers
@@ -42,16 +42,20 @@ import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
 import org.deeplearning4j.nn.conf.layers.recurrent.Bidirectional;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.gradient.SparseRowGradient;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.layers.FrozenLayer;
 import org.deeplearning4j.nn.layers.FrozenLayerWithBackprop;
 import org.deeplearning4j.nn.layers.LayerHelper;
 import org.deeplearning4j.nn.layers.recurrent.BidirectionalLayer;
 import org.deeplearning4j.nn.layers.wrapper.BaseWrapperLayer;
+import org.deeplearning4j.nn.updater.BaseMultiLayerUpdater;
 import org.deeplearning4j.nn.updater.UpdaterCreator;
+import org.deeplearning4j.nn.workspace.ActivationCheckpoints;
 import org.deeplearning4j.nn.workspace.ArrayType;
 import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
 import org.deeplearning4j.optimize.Solver;
+import org.deeplearning4j.optimize.solvers.MicroBatchAccumulator;
 import org.deeplearning4j.optimize.api.ConvexOptimizer;
 import org.deeplearning4j.optimize.api.TrainingListener;
 import org.deeplearning4j.optimize.solvers.accumulation.GradientsAccumulator;
@@ -137,6 +141,14 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
     //Workspaces for CUDNN. Pass to LayerWorkspaceMgr for re-use in cudnn helpers
     @Getter
     protected transient Map<String,Pointer> helperWorkspaces = new HashMap<>();
+    //Activation checkpointing state for the current training iteration - null if checkpointing is not used
+    protected transient ActivationCheckpoints activationCheckpoints;
+    protected transient List<INDArray> checkpointActivations;
+    //Gradient accumulation state across micro-batches - null if gradient accumulation is not used
+    protected transient MicroBatchAccumulator microBatchAccumulator;
+    //Concurrent inference: per-thread layer state, sharing this network's parameters. See setConcurrentInference(boolean)
+    protected transient volatile boolean concurrentInference;
+    protected transient volatile ThreadLocal<MultiLayerNetwork> inferenceContexts;
 
 
     /**
@@ -440,6 +452,10 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         //In 99+% of cases, the input and labels dimension 0 size should be identical
         //The only real exceptions: space to batch, and batch to space layers
         //In those cases, we should base it on the labels size, as this impacts gradient calculation
+        if (microBatchAccumulator != null && microBatchAccumulator.getLastBatchSize() > 0) {
+            //Final micro-batch of a group: gradients are for all examples in the group
+            return microBatchAccumulator.getLastBatchSize();
+        }
         if (input.size(0) > Integer.MAX_VALUE || labels.size(0) > Integer.MAX_VALUE)
             throw new ND4JArraySizeException();
         return labels == null ? (int) input.size(0) : (int)labels.size(0);
@@ -562,6 +578,8 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
             INDArray toSet = paramTable.get(s);
             curr.assign(toSet);
         }
+        resetMasterParams();
+        invalidateInferenceContexts();
     }
 
     /**
@@ -580,6 +598,8 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         String newKey = key.substring(idx + 1);
 
         layers[layerIdx].setParam(newKey, val);
+        resetMasterParams();
+        invalidateInferenceContexts();
     }
 
     /**
@@ -722,6 +742,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                 layerMap.put(conf.getLayer().getLayerName(), layers[i]);
             }
             initCalled = true;
+            invalidateInferenceContexts();
         }
 
         //Set parameters in MultiLayerNetwork.defaultConfiguration for later use in BaseOptimizer.setupSearchState() etc
@@ -766,6 +787,8 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
      * @param accumulator    Gradient accumulator to use for the network
      */
     public void setGradientsAccumulator(GradientsAccumulator accumulator) {
+        Preconditions.checkState(accumulator == null || layerWiseConfigurations.getMixedPrecision() == null,
+                "Gradient sharing (GradientsAccumulator) is not supported with mixed precision training");
         if (!isInitCalled())
             init();
 
@@ -1180,6 +1203,160 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         return out;
     }
 
+    /**
+     * @return The current loss scale for mixed precision training, or 1.0 if loss scaling is not used
+     */
+    protected double currentLossScale() {
+        MixedPrecision mixedPrecision = layerWiseConfigurations.getMixedPrecision();
+        if (mixedPrecision == null || !mixedPrecision.isLossScaling())
+            return 1.0;
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            //Updater (and hence the loss scale state) may not have been created yet
+            Updater u = getUpdater();
+            return (u instanceof BaseMultiLayerUpdater ? ((BaseMultiLayerUpdater<?>) u).getLossScale() : 1.0);
+        }
+    }
+
+    /**
+     * Multiply the output layer gradients and activation gradients by the loss scale
+     */
+    protected static void scaleGradients(Gradient gradient, INDArray epsilon, double lossScale) {
+        for (INDArray g : gradient.gradientForVariable().values()) {
+            g.muli(lossScale);
+        }
+        if (epsilon != null) {
+            epsilon.muli(lossScale);
+        }
+    }
+
+    /**
+     * @return True if activation checkpointing should be used for the current training iteration
+     */
+    protected boolean useActivationCheckpointing(boolean tbptt) {
+        if (tbptt || layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.NONE)
+            return false;
+        int[] checkpoints = layerWiseConfigurations.getActivationCheckpoints();
+        return (checkpoints != null && checkpoints.length > 0) || layerWiseConfigurations.getActivationCheckpointMemoryBudget() > 0;
+    }
+
+    /**
+     * Feed-forward through the network at training time, with activation checkpointing.<br>
+     * As per {@link #ffToLayerActivationsInWs(int, FwdPassType, boolean, INDArray, INDArray, INDArray)} but only the
+     * activations at checkpoints (and the activations for the specified layer) are retained in the WS_ALL_LAYERS_ACT
+     * workspace; all other entries in the returned list are null. The remaining activations are recomputed in
+     * {@link #calcBackpropGradients(INDArray, boolean, boolean, boolean)}
+     *
+     * @param layerIndex Index (inclusive) to stop forward pass at
+     * @param input      Input to network
+     * @param fMask      Feature mask array. May be null
+     * @param lMask      Label mask array. May be null
+     * @return List of activations (including the input), with null for activations that were not retained
+     */
+    protected synchronized List<INDArray> ffToLayerActivationsCheckpointed(int layerIndex, @NonNull INDArray input,
+                                                                           INDArray fMask, INDArray lMask) {
+        setInput(input);
+        setLayerMaskArrays(fMask, lMask);
+
+        WorkspaceUtils.assertOpenAndActive(WS_ALL_LAYERS_ACT, "ffToLayerActivationsCheckpointed method requires workspace WS_ALL_LAYERS_ACT to be open");
+        LayerWorkspaceMgr allMgr = LayerWorkspaceMgr.builder()
+                .with(ArrayType.INPUT, WS_ALL_LAYERS_ACT, WS_ALL_LAYERS_ACT_CONFIG)
+                .with(ArrayType.ACTIVATIONS, WS_ALL_LAYERS_ACT, WS_ALL_LAYERS_ACT_CONFIG)
+                .build();
+        LayerWorkspaceMgr segmentMgr = checkpointSegmentWorkspaceMgr();
+        if(input.isAttached()){
+            //Don't leverage out of async DataSetIterator workspaces
+            allMgr.setNoLeverageOverride(input.data().getParentWorkspace().getId());
+            segmentMgr.setNoLeverageOverride(input.data().getParentWorkspace().getId());
+        }
+
+        ActivationCheckpoints checkpoints = new ActivationCheckpoints(ActivationCheckpoints.checkpointPositions(
+                layers.length, layerWiseConfigurations.getActivationCheckpoints()),
+                layerWiseConfigurations.getActivationCheckpointMemoryBudget());
+
+        List<INDArray> out = new ArrayList<>();
+        out.add(allMgr.leverageTo(ArrayType.INPUT, input));
+
+        MemoryWorkspace wsSegment = null;
+        try {
+            for (int i = 0; i <= layerIndex; i++) {
+                if (checkpoints.beforeForward(i)) {
+                    wsSegment = segmentMgr.notifyScopeEntered(ArrayType.ACTIVATIONS);
+                }
+                try (MemoryWorkspace wsFFWorking = segmentMgr.notifyScopeEntered(ArrayType.FF_WORKING_MEM)) {
+                    input = activateForCheckpoint(i, input, segmentMgr);
+                }
+
+                boolean endSegment = checkpoints.afterForward(i, input.length() * input.dataType().width());
+                if (endSegment || i == layerIndex) {
+                    input = allMgr.leverageTo(ArrayType.ACTIVATIONS, input);
+                    wsSegment.close();
+                    wsSegment = null;
+                    checkpoints.endSegment(i);
+                    checkpoints.markRetained(i);
+                    out.add(input);
+                } else {
+                    out.add(null);
+                }
+            }
+        } finally {
+            if (wsSegment != null) {
+                //Should only be non-null on exception
+                wsSegment.close();
+            }
+        }
+
+        this.activationCheckpoints = checkpoints;
+        this.checkpointActivations = out;
+        return out;
+    }
+
+    /**
+     * Recompute the forward pass for the specified checkpoint segment, in the (already open) checkpoint segment
+     * workspace. Used during backprop so that layers in the segment have their inputs and internal state set
+     */
+    protected void recomputeCheckpointSegment(int segment, LayerWorkspaceMgr segmentMgr) {
+        int start = activationCheckpoints.segmentStart(segment);
+        int end = activationCheckpoints.segmentEnd(segment);
+        long[] rngState = activationCheckpoints.restoreRngState(segment);
+        try {
+            //Note that out.get(i) is the input to layer i
+            INDArray input = checkpointActivations.get(start);
+            for (int i = start; i <= end; i++) {
+                try (MemoryWorkspace wsFFWorking = segmentMgr.notifyScopeEntered(ArrayType.FF_WORKING_MEM)) {
+                    input = activateForCheckpoint(i, input, segmentMgr);
+                }
+            }
+        } finally {
+            ActivationCheckpoints.setRngState(rngState);
+        }
+    }
+
+    private INDArray activateForCheckpoint(int i, INDArray input, LayerWorkspaceMgr workspaceMgr) {
+        if (getLayerWiseConfigurations().getInputPreProcess(i) != null) {
+            input = getLayerWiseConfigurations().getInputPreProcess(i).preProcess(input, getInputMiniBatchSize(), workspaceMgr);
+            validateArrayWorkspaces(workspaceMgr, input, ArrayType.ACTIVATIONS, i, true, "Feed forward to layer (checkpointed)");
+        }
+        input = layers[i].activate(input, true, workspaceMgr);
+        if (input == null) {
+            throw new IllegalStateException("Layer " + i + " returned null activations");
+        }
+        validateArrayWorkspaces(workspaceMgr, input, ArrayType.ACTIVATIONS, i, false, "Feed forward to layer (checkpointed)");
+        return input;
+    }
+
+    private LayerWorkspaceMgr checkpointSegmentWorkspaceMgr() {
+        LayerWorkspaceMgr mgr = LayerWorkspaceMgr.builder()
+                .with(ArrayType.INPUT, ActivationCheckpoints.WS_CHECKPOINT_SEGMENT, WS_LAYER_ACT_X_CONFIG)
+                .with(ArrayType.ACTIVATIONS, ActivationCheckpoints.WS_CHECKPOINT_SEGMENT, WS_LAYER_ACT_X_CONFIG)
+                .with(ArrayType.FF_CACHE, ActivationCheckpoints.WS_CHECKPOINT_SEGMENT, WS_LAYER_ACT_X_CONFIG)
+                .with(ArrayType.FF_WORKING_MEM, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG)
+                .with(ArrayType.BP_WORKING_MEM, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG)
+                .with(ArrayType.RNN_FF_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM_CONFIG)
+                .build();
+        mgr.setHelperWorkspacePointers(helperWorkspaces);
+        return mgr;
+    }
+
     /**
      * Provide the output of the specified layer, detached from any workspace. This is most commonly used at inference/test
      * time, and is more memory efficient than {@link #ffToLayerActivationsDetached(boolean, FwdPassType, boolean, int, INDArray, INDArray, INDArray, boolean)}
@@ -1575,6 +1752,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         if (flattenedParams != null && params.length() == flattenedParams.length()) {
             if (params != flattenedParams) {
                 flattenedParams.assign(params);
+                resetMasterParams();
             }
         } else {
             if (flattenedParams == null)
@@ -1589,6 +1767,19 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                 layer.setParams(get);
                 idx += range;
             }
+            invalidateInferenceContexts();
+        }
+    }
+
+    /**
+     * Mixed precision training: re-synchronize the updater's master weights after the parameters have been set externally
+     */
+    protected void resetMasterParams() {
+        if (layerWiseConfigurations.getMixedPrecision() != null) {
+            Updater u = getUpdater(false);
+            if (u instanceof BaseMultiLayerUpdater) {
+                ((BaseMultiLayerUpdater<?>) u).resetMasterParams();
+            }
         }
     }
 
@@ -1764,7 +1955,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                 }
 
                 //TODO CACHE
-                solver.optimize(workspaceMgr);
+                fitMicroBatch(workspaceMgr, !iter.hasNext());
             }
 
             if (hasMaskArrays)
@@ -1954,6 +2145,13 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         MemoryWorkspace wsActGradTemp = null;
         MemoryWorkspace initialWorkspace = Nd4j.getMemoryManager().getCurrentWorkspace();
 
+        //Activation checkpointing: segment activations are recomputed on entering each segment
+        boolean checkpointed = activationCheckpoints != null && epsilon == null;
+        double lossScale = (withOutputLayer && epsilon == null ? currentLossScale() : 1.0);
+        LayerWorkspaceMgr segmentMgr = (checkpointed ? checkpointSegmentWorkspaceMgr() : null);
+        MemoryWorkspace wsRecompute = null;
+        int currentSegment = -1;
+
         boolean traceLog = log.isTraceEnabled();
 
         Throwable t = null;
@@ -1963,6 +2161,20 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                     break;
                 }
 
+                if (checkpointed && activationCheckpoints.segmentOf(i) != currentSegment) {
+                    if (wsRecompute != null) {
+                        wsRecompute.close();
+                        wsRecompute = null;
+                    }
+                    currentSegment = activationCheckpoints.segmentOf(i);
+                    if (currentSegment >= 0) {
+                        wsRecompute = segmentMgr.notifyScopeEntered(ArrayType.ACTIVATIONS);
+                        wsRecompute.setPreviousWorkspace(initialWorkspace);
+                        recomputeCheckpointSegment(currentSegment, segmentMgr);
+                        Nd4j.getMemoryManager().setCurrentWorkspace(initialWorkspace);
+                    }
+                }
+
                 if (traceLog) {
                     log.trace("About to backprop: {} - {}", i, layers[i].getClass().getSimpleName());
                 }
@@ -2006,6 +2218,11 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                         }
                     }
 
+                    if (lossScale != 1.0 && withOutputLayer && i == layers.length - 1) {
+                        //Mixed precision loss scaling: equivalent to scaling the loss itself
+                        scaleGradients(currPair.getFirst(), currPair.getSecond(), lossScale);
+                    }
+
                     if (currPair.getSecond() != null) {
                         //Edge case: may be null for Embedding layer, for example
                         validateArrayWorkspaces(workspaceMgr, currPair.getSecond(), ArrayType.ACTIVATION_GRAD, i,
@@ -2018,6 +2235,9 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                         gradientList.addLast(new Triple<>(multiGradientKey, entry.getValue(),
                                 currPair.getFirst().flatteningOrderForVariable(origName)));
                     }
+                    for (Map.Entry<String, SparseRowGradient> entry : currPair.getFirst().sparseGradientForVariable().entrySet()) {
+                        gradient.setSparseGradientFor(String.valueOf(i) + "_" + entry.getKey(), entry.getValue());
+                    }
                     if (getLayerWiseConfigurations().getInputPreProcess(i) != null) {
                         currPair = new Pair<>(currPair.getFirst(),
                                 this.layerWiseConfigurations.getInputPreProcess(i)
@@ -2050,6 +2270,21 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         } catch (Throwable thr ){
             t = thr;
         } finally {
+            if(wsRecompute != null){
+                try {
+                    wsRecompute.close();
+                } catch (Throwable t2){
+                    if(t != null){
+                        log.error("Encountered second exception while trying to close workspace after initial exception");
+                        log.error("Original exception:", t);
+                        throw t2;
+                    }
+                }
+            }
+            if(checkpointed){
+                activationCheckpoints = null;
+                checkpointActivations = null;
+            }
             if(wsActGradCloseNext != null){
                 try {
                     wsActGradCloseNext.close();
@@ -2344,7 +2579,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                 }
             }
             //TODO CACHE WORKSPACE, IF USED???
-            solver.optimize(workspaceMgr);
+            fitMicroBatch(workspaceMgr, false);
         }
 
         clearLayerMaskArrays();
@@ -2352,6 +2587,70 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         synchronizeIterEpochCounts();
     }
 
+    /**
+     * Perform one optimization step (or, with gradient accumulation, one micro-batch) on the current input and labels.
+     * See {@link MultiLayerConfiguration.Builder#gradientAccumulationSteps(int)}
+     *
+     * @param flush If true: apply the parameter update for any partially accumulated group of micro-batches now
+     */
+    private void fitMicroBatch(LayerWorkspaceMgr workspaceMgr, boolean flush) {
+        int steps = layerWiseConfigurations.getGradientAccumulationSteps();
+        if (steps <= 1) {
+            microBatchAccumulator = null;
+            solver.optimize(workspaceMgr);
+            return;
+        }
+
+        if (microBatchAccumulator == null || microBatchAccumulator.getSteps() != steps) {
+            microBatchAccumulator = new MicroBatchAccumulator(steps, layers);
+        }
+
+        if (flush || microBatchAccumulator.isLastMicroBatch()) {
+            //Gradients from the previous micro-batches are added in computeGradientAndScore, before the updater is applied
+            microBatchAccumulator.setFinishPending(true);
+            try {
+                solver.optimize(workspaceMgr);
+            } finally {
+                microBatchAccumulator.setFinishPending(false);
+                microBatchAccumulator.clearLastBatchSize();
+            }
+        } else {
+            if (flattenedGradients == null) {
+                initGradientsView();
+            }
+            computeGradientAndScore(workspaceMgr);
+            microBatchAccumulator.accumulate(flattenedGradients, score, batchSize());
+        }
+    }
+
+    /**
+     * With gradient accumulation (see {@link MultiLayerConfiguration.Builder#gradientAccumulationSteps(int)}): apply the parameter update for any
+     * partially accumulated group of micro-batches, without fitting another micro-batch. No-op if there are no pending
+     * micro-batches.<br>
+     * Note that fitting from an iterator applies any trailing partial group automatically; this method is for use
+     * when fitting one minibatch at a time (for example, at the end of an epoch)
+     */
+    public synchronized void flushGradientAccumulation() {
+        if (microBatchAccumulator == null || microBatchAccumulator.getCount() == 0 || gradient == null)
+            return;
+
+        if (solver == null) {
+            try (MemoryWorkspace wsO = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                solver = new Solver.Builder().configure(conf()).listeners(getListeners()).model(this).build();
+            }
+        }
+
+        //The accumulated gradients are used in place of a forward/backward pass in computeGradientAndScore
+        microBatchAccumulator.setFlushPending(true);
+        try {
+            solver.optimize(LayerWorkspaceMgr.noWorkspaces());
+        } finally {
+            microBatchAccumulator.setFlushPending(false);
+            microBatchAccumulator.clearLastBatchSize();
+        }
+        synchronizeIterEpochCounts();
+    }
+
     @Override
     public void fit(INDArray data, LayerWorkspaceMgr workspaceMgr){
         throw new UnsupportedOperationException("Not supported: use pretrainLayer");
@@ -2452,12 +2751,17 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
      * @param outputWorkspace May be null. If not null: the workspace MUST be opened before calling this method.
      * @return The output/activations from the network (either detached or in the specified workspace if provided)
      */
-    public synchronized INDArray output(INDArray input, boolean train, INDArray featuresMask, INDArray labelsMask, MemoryWorkspace outputWorkspace) {
-        try {
-            return outputOfLayerDetached(train, FwdPassType.STANDARD, layers.length - 1, input, featuresMask, labelsMask, outputWorkspace);
-        } catch (OutOfMemoryError e) {
-            CrashReportingUtil.writeMemoryCrashDump(this, e);
-            throw e;
+    public INDArray output(INDArray input, boolean train, INDArray featuresMask, INDArray labelsMask, MemoryWorkspace outputWorkspace) {
+        if (!train && concurrentInference) {
+            return inferenceContext().output(input, false, featuresMask, labelsMask, outputWorkspace);
+        }
+        synchronized (this) {
+            try {
+                return outputOfLayerDetached(train, FwdPassType.STANDARD, layers.length - 1, input, featuresMask, labelsMask, outputWorkspace);
+            } catch (OutOfMemoryError e) {
+                CrashReportingUtil.writeMemoryCrashDump(this, e);
+                throw e;
+            }
         }
     }
 
@@ -2473,13 +2777,82 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
      * @param <T> T extends Object
      * @return T instance produced by OutputAdapter
      */
-    public synchronized <T> T output(@NonNull INDArray inputs, INDArray inputMasks, INDArray labelMasks, @NonNull OutputAdapter<T> outputAdapter) {
-        try (val ws = Nd4j.getWorkspaceManager().getAndActivateWorkspace(WS_ALL_LAYERS_ACT_CONFIG, WS_OUTPUT_MEM)) {
-            if (outputAdapter instanceof ModelAdapter)
-                return ((ModelAdapter<T>) outputAdapter).apply(this, new INDArray[]{inputs}, new INDArray[]{ inputMasks}, new INDArray[]{labelMasks});
-            else
-                return outputAdapter.apply(output(inputs, false, inputMasks, labelMasks, ws));
+    public <T> T output(@NonNull INDArray inputs, INDArray inputMasks, INDArray labelMasks, @NonNull OutputAdapter<T> outputAdapter) {
+        if (concurrentInference) {
+            return inferenceContext().output(inputs, inputMasks, labelMasks, outputAdapter);
+        }
+        synchronized (this) {
+            try (val ws = Nd4j.getWorkspaceManager().getAndActivateWorkspace(WS_ALL_LAYERS_ACT_CONFIG, WS_OUTPUT_MEM)) {
+                if (outputAdapter instanceof ModelAdapter)
+                    return ((ModelAdapter<T>) outputAdapter).apply(this, new INDArray[]{inputs}, new INDArray[]{ inputMasks}, new INDArray[]{labelMasks});
+                else
+                    return outputAdapter.apply(output(inputs, false, inputMasks, labelMasks, ws));
+            }
+        }
+    }
+
+    /**
+     * Enable or disable concurrent inference on this network instance.<br>
+     * By default, the output methods are synchronized, as the forward pass stores the layer inputs and mask arrays in
+     * the layers themselves. When concurrent inference is enabled, inference calls - i.e., {@code output(...)} methods
+     * with train=false, including {@link #output(INDArray, INDArray, INDArray, OutputAdapter)} - may be made from
+     * any number of threads at once. Each calling thread uses its own layer instances (created on the thread's first
+     * call) that hold this per-call state; these layers use views of this network's parameters array, hence no copies
+     * of the parameters are made, and parameter changes (for example, via {@link #setParams(INDArray)} or fitting)
+     * are visible to all threads. If the parameter arrays are replaced rather than modified in place (for example,
+     * {@link #setParams(INDArray)} with an array of a different length, or {@link #setLayers(Layer[])}), the per-thread
+     * layers are recreated on each thread's next call. Workspaces are per thread.<br>
+     * Note that parameters should not be modified while concurrent inference calls are in progress, and that other
+     * methods (feedForward, rnnTimeStep, etc) are not affected by this setting.
+     *
+     * @param concurrentInference If true: enable concurrent inference
+     */
+    public synchronized void setConcurrentInference(boolean concurrentInference) {
+        this.concurrentInference = concurrentInference;
+        //Release any existing per-thread state (both on enable and disable)
+        this.inferenceContexts = concurrentInference ? new ThreadLocal<>() : null;
+    }
+
+    /**
+     * @return True if concurrent inference is enabled. See {@link #setConcurrentInference(boolean)}
+     */
+    public boolean isConcurrentInference() {
+        return concurrentInference;
+    }
+
+    /**
+     * Get the inference context for the current thread: a network with its own layer instances, sharing this network's
+     * parameters array. Created on first use, if the parameters array has been replaced since it was created, or after
+     * {@link #invalidateInferenceContexts()}.
+     */
+    protected MultiLayerNetwork inferenceContext() {
+        if (!initCalled)
+            throw new IllegalStateException("Network must be initialized before concurrent inference can be used: call init() first");
+        ThreadLocal<MultiLayerNetwork> contexts = inferenceContexts;
+        if (contexts == null) {
+            synchronized (this) {
+                if (inferenceContexts == null)
+                    inferenceContexts = new ThreadLocal<>();
+                contexts = inferenceContexts;
+            }
+        }
+
+        MultiLayerNetwork context = contexts.get();
+        if (context == null || context.flattenedParams != flattenedParams) {
+            context = new MultiLayerNetwork(layerWiseConfigurations.clone());
+            context.init(flattenedParams, false);
+            contexts.set(context);
         }
+        return context;
+    }
+
+    /**
+     * Discard the per-thread inference contexts, so that each thread recreates its context - with views of the current
+     * parameters - on its next inference call. Called whenever parameters may have been changed other than in place.
+     */
+    protected void invalidateInferenceContexts() {
+        if (concurrentInference)
+            inferenceContexts = new ThreadLocal<>();
     }
 
     /**
@@ -2755,6 +3128,14 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                             "using backpropagation, the final layer must be an output layer");
         }
 
+        if (microBatchAccumulator != null && microBatchAccumulator.isFlushPending()) {
+            //Apply the pending micro-batches only (see flushGradientAccumulation): no forward/backward pass
+            score = microBatchAccumulator.finish(flattenedGradients);
+            if (!gradient.sparseGradientForVariable().isEmpty())
+                gradient.sparseGradientForVariable().clear();
+            return;
+        }
+
         //Note: Workspace manager is only ose here for score calculation... other workspace managers are used in the
         // various FF/backprop methds
         LayerWorkspaceMgr mgr;
@@ -2785,8 +3166,17 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
             //First: do a feed-forward through the network
             //Note that we don't actually need to do the full forward pass through the output layer right now; but we do
             // need the input to the output layer to be set (such that backprop can be done)
-            List<INDArray> activations = ffToLayerActivationsInWs(layers.length - 2, fwdType, tbptt, input, mask, null);
-            if (!trainingListeners.isEmpty()) {
+            List<INDArray> activations;
+            boolean checkpointed = useActivationCheckpointing(tbptt);
+            if (checkpointed) {
+                activations = ffToLayerActivationsCheckpointed(layers.length - 2, input, mask, null);
+            } else {
+                activationCheckpoints = null;
+                activations = ffToLayerActivationsInWs(layers.length - 2, fwdType, tbptt, input, mask, null);
+            }
+            //With activation checkpointing, most layer activations have already been discarded (null entries) - listeners
+            // expect one activation array per layer, so onForwardPass is not called in that case
+            if (!trainingListeners.isEmpty() && !checkpointed) {
                 //TODO: We possibly do want output layer activations in some cases here...
                 for (TrainingListener tl : trainingListeners) {
                     tl.onForwardPass(this, activations);
@@ -2809,6 +3199,13 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                 score = ((IOutputLayer) getOutputLayer()).computeScore(r, true, mgr);
             }
 
+            if (microBatchAccumulator != null && microBatchAccumulator.isFinishPending() && gradient != null) {
+                //Last micro-batch of a group: add the accumulated gradients. The result is a dense gradient for all rows
+                score = microBatchAccumulator.finish(flattenedGradients, score, batchSize());
+                if (!gradient.sparseGradientForVariable().isEmpty())
+                    gradient.sparseGradientForVariable().clear();
+            }
+
             //Listeners
             if (!trainingListeners.isEmpty()) {
                 try (MemoryWorkspace workspace = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
@@ -2945,6 +3342,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
 
     public void setLayers(Layer[] layers) {
         this.layers = layers;
+        invalidateInferenceContexts();
     }
 
     public INDArray getMask() {
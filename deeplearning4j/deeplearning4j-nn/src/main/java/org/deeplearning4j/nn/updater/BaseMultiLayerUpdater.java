@@ -25,8 +25,10 @@ import org.deeplearning4j.nn.api.Model;
 import org.deeplearning4j.nn.api.Trainable;
 import org.deeplearning4j.nn.api.Updater;
 import org.deeplearning4j.nn.conf.GradientNormalization;
+import org.deeplearning4j.nn.conf.MixedPrecision;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.gradient.SparseRowGradient;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -36,7 +38,9 @@ import org.nd4j.linalg.api.ops.DynamicCustomOp;
 import org.nd4j.linalg.api.ops.impl.reduce.floating.Norm2;
 import org.nd4j.linalg.exception.ND4JArraySizeException;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.BooleanIndexing;
 import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.indexing.conditions.Conditions;
 import org.deeplearning4j.nn.workspace.ArrayType;
 import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
 import org.nd4j.linalg.learning.config.IUpdater;
@@ -52,6 +56,36 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
     protected INDArray updaterStateViewArray;
     protected boolean initializedMinibatchDivision;
     protected List<INDArray> gradientsForMinibatchDivision;
+    protected List<UpdaterBlock.ParamState> sparseParamsForMinibatchDivision;
+    protected Map<Trainable, String> gradientKeyPrefixes;
+    //Mixed precision training: master weights and gradients (in the master data type) - null if not used
+    protected INDArray masterParams;
+    protected INDArray masterGradients;
+    //Network parameters (in the master data type) as of the last synchronization with the master weights
+    protected INDArray syncedParams;
+    protected Map<Trainable, INDArray> masterLayerGradientViews;
+    protected List<INDArray> lossScaledSubsets;
+    protected DynamicLossScaler lossScaler;
+    //Element-wise gradient clipping applied once per contiguous range of layers with the same threshold
+    protected List<FusedClipRange> fusedClipRanges;
+
+    /**
+     * A contiguous range of the gradients (possibly spanning multiple layers), for which all layers use
+     * {@link GradientNormalization#ClipElementWiseAbsoluteValue} with the same threshold
+     */
+    protected static class FusedClipRange {
+        protected final List<Trainable> layers = new ArrayList<>();
+        protected final double threshold;
+        protected final long start;
+        protected long end;
+
+        protected FusedClipRange(Trainable first, double threshold, long start, long end) {
+            this.layers.add(first);
+            this.threshold = threshold;
+            this.start = start;
+            this.end = end;
+        }
+    }
 
     public BaseMultiLayerUpdater(T network) {
         this(network, null);
@@ -78,6 +112,20 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
 
         INDArray paramsView = network.params();
         INDArray gradientView = getFlattenedGradientsView();
+        MixedPrecision mixedPrecision = getMixedPrecision();
+        if (mixedPrecision != null && paramsView != null && paramsView.length() > 0) {
+            //Updater blocks operate on the master weights and gradients; updates are copied to the network params
+            // in low precision after each iteration
+            masterParams = Nd4j.createUninitialized(mixedPrecision.getMasterDataType(), new long[] {paramsView.length()}, Nd4j.order());
+            masterParams.assign(paramsView.reshape(paramsView.length()));
+            syncedParams = masterParams.dup();
+            masterGradients = Nd4j.create(mixedPrecision.getMasterDataType(), new long[] {paramsView.length()}, Nd4j.order());
+            if (mixedPrecision.isLossScaling()) {
+                lossScaler = new DynamicLossScaler(mixedPrecision);
+            }
+            paramsView = masterParams;
+            gradientView = masterGradients;
+        }
         int paramsViewSoFar = 0;
         int currentUpdaterOffset = 0;
         for (int i = 0; i < layers.length; i++) {
@@ -147,7 +195,7 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
             updaterRequiresInit = false;
         } else if (updaterStateSize > 0) {
             //May be 0 if all SGD or NONE updaters, for example
-            updaterStateViewArray = Nd4j.createUninitialized(network.params().dataType(), new long[] { updaterStateSize}, Nd4j.order());
+            updaterStateViewArray = Nd4j.createUninitialized(paramsView.dataType(), new long[] { updaterStateSize}, Nd4j.order());
             updaterRequiresInit = true;
         }
 
@@ -171,6 +219,10 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
                 INDArray gradientViewSubset = gradientView.reshape(gradientView.length()).get(
                         NDArrayIndex.interval(paramsViewSoFar, paramsViewSoFar + gradSize));
                 ub.setGradientView(gradientViewSubset);
+                if (paramsView != null) {
+                    ub.setParamView(paramsView.reshape(paramsView.length()).get(
+                            NDArrayIndex.interval(paramsViewSoFar, paramsViewSoFar + gradSize)));
+                }
             }
 
             ub.init();
@@ -178,6 +230,69 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
             updaterViewSoFar += viewStateSize;
             paramsViewSoFar += gradSize;
         }
+
+        if (masterGradients != null) {
+            //Per layer master gradient views, for layerwise gradient normalization
+            Map<Trainable, long[]> layerRanges = new IdentityHashMap<>();
+            for (UpdaterBlock ub : updaterBlocks) {
+                for (UpdaterBlock.ParamState p : ub.getLayersAndVariablesInBlock()) {
+                    long[] range = layerRanges.get(p.getLayer());
+                    if (range == null) {
+                        layerRanges.put(p.getLayer(), new long[] {p.getParamOffsetStart(), p.getParamOffsetEnd()});
+                    } else {
+                        range[0] = Math.min(range[0], p.getParamOffsetStart());
+                        range[1] = Math.max(range[1], p.getParamOffsetEnd());
+                    }
+                }
+            }
+            masterLayerGradientViews = new IdentityHashMap<>();
+            for (Map.Entry<Trainable, long[]> e : layerRanges.entrySet()) {
+                long[] range = e.getValue();
+                if (range[1] > range[0]) {
+                    masterLayerGradientViews.put(e.getKey(), masterGradients.get(NDArrayIndex.interval(range[0], range[1])));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The mixed precision configuration for the model, or null if mixed precision training is not used
+     */
+    protected MixedPrecision getMixedPrecision() {
+        return null;
+    }
+
+    /**
+     * @return The current loss scale for mixed precision training, or 1.0 if loss scaling is not used
+     */
+    public double getLossScale() {
+        return lossScaler == null ? 1.0 : lossScaler.getScale();
+    }
+
+    /**
+     * Copy the network parameters to the master weights. Used for mixed precision training, when the network
+     * parameters have been modified externally (i.e., other than by this updater). No-op otherwise
+     */
+    public void resetMasterParams() {
+        if (masterParams != null) {
+            INDArray params = getParams();
+            masterParams.assign(params.reshape(params.length()));
+            syncedParams.assign(masterParams);
+        }
+    }
+
+    /**
+     * Mixed precision training: apply any changes made to the network parameters since the last synchronization
+     * (in-place edits, parameter averaging, etc) to the master weights. Unchanged parameters keep their full
+     * precision master values
+     */
+    protected void syncMasterParams() {
+        INDArray params = getParams();
+        //Master gradients are used as scratch space here: they are overwritten by toMasterGradients
+        masterGradients.assign(params.reshape(params.length()));
+        masterGradients.subi(syncedParams);
+        masterParams.addi(masterGradients);
+        syncedParams.assign(params.reshape(params.length()));
     }
 
     /**
@@ -264,12 +379,38 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
         //In a MultiLayerNetwork, the INDArray returned by .gradient() is always the standard full view array
         // hence should be the same object under normal circumstances
         boolean isExternal = gradient.gradient() != getFlattenedGradientsView();
+        boolean mixedPrecision = masterParams != null;
+
+        INDArray externalGradient = (isExternal ? gradient.gradient() : null);
+        if (mixedPrecision) {
+            syncMasterParams();
+            if (!toMasterGradients(isExternal ? externalGradient : getFlattenedGradientsView())) {
+                //Non-finite gradients with loss scaling: skip this parameter update
+                return;
+            }
+            //External gradients have been copied to the master gradients, and are updated as such from here
+            isExternal = false;
+        }
 
         //Split up the gradients on a per-layer basis, for pre-apply
         Map<String, Gradient> layerGradients = new HashMap<>();
 
         Trainable[] layers = getOrderedLayers();
-        if (layers.length == 1 && isSingleLayerUpdater()) {
+        if (mixedPrecision) {
+            for (UpdaterBlock ub : updaterBlocks) {
+                for (UpdaterBlock.ParamState p : ub.getLayersAndVariablesInBlock()) {
+                    if (p.getGradView() == null)
+                        continue;
+                    String layerName = gradientKeyPrefix(p.getLayer());
+                    Gradient g = layerGradients.get(layerName);
+                    if (g == null) {
+                        g = new DefaultGradient();
+                        layerGradients.put(layerName, g);
+                    }
+                    g.setGradientFor(p.getParamName(), p.getGradView());
+                }
+            }
+        } else if (layers.length == 1 && isSingleLayerUpdater()) {
             layerGradients.put(layers[0].getConfig().getLayerName(), gradient);
         } else {
             for (Map.Entry<String, INDArray> gradientPair : gradient.gradientForVariable().entrySet()) {
@@ -291,14 +432,23 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
             }
         }
 
+        //Sparse row gradients (embedding layers etc): only used for the standard (non-external) gradient case
+        //With mixed precision, the master gradients are always dense copies
+        Map<String, SparseRowGradient> sparseGradients = (isExternal || mixedPrecision ? Collections.<String, SparseRowGradient>emptyMap()
+                : gradient.sparseGradientForVariable());
+
         if(isMiniBatch()){
             divideByMinibatch(isExternal, gradient, batchSize);
         }
 
-        //PRE apply (gradient clipping, etc): done on a per-layer basis
+        //PRE apply (gradient clipping, etc): done on a per-layer basis, other than element-wise clipping which is
+        // applied once per contiguous range of layers with the same configuration
+        Set<Trainable> clipped = (isExternal ? Collections.<Trainable>emptySet() : applyFusedClipping(layerGradients.keySet()));
         for (Map.Entry<String, Gradient> entry : layerGradients.entrySet()) {
             String layerName = entry.getKey();
             Trainable layer = layersByName.get(layerName);
+            if (clipped.contains(layer))
+                continue;
 
             preApply(layer, layerGradients.get(layerName), iteration);
         }
@@ -320,10 +470,141 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
                     ub.updateExternalGradient(iteration, epoch, gradient.gradient(), getParams());
                 } else {
                     //Standard case
-                    ub.update(iteration, epoch);
+                    ub.update(iteration, epoch, sparseGradientsForBlock(ub, sparseGradients));
+                }
+            }
+        }
+
+        if (mixedPrecision) {
+            //Apply the updates to the master weights. As in the standard case, the network gradient view is left
+            // holding the update for the step function (and listeners): here, the difference between the current
+            // network parameters and the new master weights, in the network data type
+            masterParams.subi(masterGradients);
+            INDArray params = getParams();
+            INDArray paramsFlat = params.reshape(params.length());
+            INDArray update = (externalGradient != null ? externalGradient : getFlattenedGradientsView());
+            INDArray updateFlat = update.reshape(update.length());
+            updateFlat.assign(masterParams);
+            updateFlat.rsubi(paramsFlat);
+            //Record the parameters as they will be after the step (params - update in the network data type), so that
+            // low precision rounding of the step is not treated as an external change by syncMasterParams
+            try (MemoryWorkspace ws = workspaceMgr.notifyScopeEntered(ArrayType.UPDATER_WORKING_MEM)) {
+                syncedParams.assign(paramsFlat.sub(updateFlat));
+            }
+        }
+    }
+
+    /**
+     * Apply {@link GradientNormalization#ClipElementWiseAbsoluteValue} with one op for each contiguous range of layers
+     * that have the same clipping threshold, instead of one op per layer. Ranges are only used if all layers in the
+     * range have gradients in this iteration.
+     *
+     * @param layerNames Names of the layers with gradients in this iteration (keys for {@link #getLayersByName()})
+     * @return The layers that gradient normalization has been applied to
+     */
+    protected Set<Trainable> applyFusedClipping(Collection<String> layerNames) {
+        if (fusedClipRanges == null) {
+            fusedClipRanges = fusedClipRanges();
+        }
+        if (fusedClipRanges.isEmpty())
+            return Collections.emptySet();
+
+        Set<Trainable> withGradients = Collections.newSetFromMap(new IdentityHashMap<Trainable, Boolean>());
+        for (String s : layerNames) {
+            Trainable t = layersByName.get(s);
+            if (t != null)
+                withGradients.add(t);
+        }
+
+        INDArray gradients = (masterGradients != null ? masterGradients : getFlattenedGradientsView());
+        INDArray gradientsReshape = gradients.reshape(gradients.length());
+        Set<Trainable> out = Collections.newSetFromMap(new IdentityHashMap<Trainable, Boolean>());
+        for (FusedClipRange r : fusedClipRanges) {
+            if (!withGradients.containsAll(r.layers))
+                continue;
+            CustomOp op = DynamicCustomOp.builder("clipbyvalue")
+                    .addInputs(gradientsReshape.get(NDArrayIndex.interval(r.start, r.end)))
+                    .callInplace(true)
+                    .addFloatingPointArguments(-r.threshold, r.threshold)
+                    .build();
+            Nd4j.getExecutioner().exec(op);
+            out.addAll(r.layers);
+        }
+        return out;
+    }
+
+    private List<FusedClipRange> fusedClipRanges() {
+        List<FusedClipRange> out = new ArrayList<>();
+        if (isSingleLayerUpdater() || getFlattenedGradientsView() == null)
+            return out;
+
+        //Range of each layer's parameters, in order
+        List<Trainable> order = new ArrayList<>();
+        Map<Trainable, long[]> ranges = new IdentityHashMap<>();
+        for (UpdaterBlock ub : updaterBlocks) {
+            for (UpdaterBlock.ParamState p : ub.getLayersAndVariablesInBlock()) {
+                long[] range = ranges.get(p.getLayer());
+                if (range == null) {
+                    order.add(p.getLayer());
+                    ranges.put(p.getLayer(), new long[] {p.getParamOffsetStart(), p.getParamOffsetEnd()});
+                } else {
+                    range[0] = Math.min(range[0], p.getParamOffsetStart());
+                    range[1] = Math.max(range[1], p.getParamOffsetEnd());
                 }
             }
         }
+
+        FusedClipRange current = null;
+        for (Trainable t : order) {
+            long[] range = ranges.get(t);
+            boolean clip = t.getConfig() != null && t.getConfig().getGradientNormalization() == GradientNormalization.ClipElementWiseAbsoluteValue;
+            if (!clip || range[1] <= range[0]) {
+                current = null;
+                continue;
+            }
+            double threshold = t.getConfig().getGradientNormalizationThreshold();
+            if (current != null && current.end == range[0] && current.threshold == threshold) {
+                current.layers.add(t);
+                current.end = range[1];
+            } else {
+                current = new FusedClipRange(t, threshold, range[0], range[1]);
+                out.add(current);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Mixed precision training: copy the network gradients to the master gradients, and remove the loss scaling (if
+     * used) in the master data type
+     *
+     * @param netGradients Gradients to copy: the flattened gradients view, or external gradients (for the full network)
+     * @return False if loss scaling is used and the gradients contain NaN or infinite values (in which case the
+     * parameter update should be skipped), true otherwise
+     */
+    protected boolean toMasterGradients(INDArray netGradients) {
+        masterGradients.assign(netGradients.reshape(netGradients.length()));
+        if (lossScaler == null) {
+            return true;
+        }
+
+        if (BooleanIndexing.or(masterGradients, Conditions.notFinite())) {
+            lossScaler.overflow();
+            masterGradients.assign(0);
+            netGradients.assign(0);
+            return false;
+        }
+
+        //Only gradients are scaled - not "gradients" that are actually updates, such as BatchNorm mean/variance
+        if (lossScaledSubsets == null) {
+            lossScaledSubsets = getMinibatchDivisionSubsets(masterGradients);
+        }
+        double scale = lossScaler.getScale();
+        for (INDArray arr : lossScaledSubsets) {
+            arr.divi(scale);
+        }
+        lossScaler.success();
+        return true;
     }
 
     protected void divideByMinibatch(boolean isExternal, Gradient gradient, int batchSize){
@@ -332,7 +613,18 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
         // shouldn't be modified
 
         if(!initializedMinibatchDivision){
-            gradientsForMinibatchDivision = getMinibatchDivisionSubsets(getFlattenedGradientsView());
+            //Params that may have sparse gradients are excluded here, and divided separately (touched rows only)
+            gradientsForMinibatchDivision = getMinibatchDivisionSubsets(
+                    masterGradients != null ? masterGradients : getFlattenedGradientsView(), true);
+            sparseParamsForMinibatchDivision = new ArrayList<>();
+            for(UpdaterBlock ub : updaterBlocks){
+                for(UpdaterBlock.ParamState p : ub.getLayersAndVariablesInBlock()){
+                    if(p.getLayer().updaterDivideByMinibatch(p.getParamName()) && p.getLayer().sparseGradients(p.getParamName())
+                            && p.getParamOffsetEnd() > p.getParamOffsetStart()){
+                        sparseParamsForMinibatchDivision.add(p);
+                    }
+                }
+            }
             initializedMinibatchDivision = true;
         }
 
@@ -341,6 +633,16 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
             toDivide = getMinibatchDivisionSubsets(gradient.gradient());
         } else {
             toDivide = gradientsForMinibatchDivision;
+            for(UpdaterBlock.ParamState p : sparseParamsForMinibatchDivision){
+                SparseRowGradient g = sparseGradientFor(gradient.sparseGradientForVariable(), p);
+                if(g == null){
+                    p.getGradView().divi(batchSize);
+                } else if(g.numTouchedRows() > 0){
+                    INDArray rows = g.gatherRows(p.getGradView());
+                    rows.divi(batchSize);
+                    g.scatterRows(p.getGradView(), rows);
+                }
+            }
         }
         for(INDArray arr : toDivide){
             arr.divi(batchSize);
@@ -348,6 +650,71 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
     }
 
     protected List<INDArray> getMinibatchDivisionSubsets(INDArray from){
+        return getMinibatchDivisionSubsets(from, false);
+    }
+
+    /**
+     * Get the sparse row gradient for the specified parameter, if any
+     *
+     * @param sparseGradients Sparse gradients for the network, keyed the same way as the gradients
+     * @param p               Parameter to get the sparse gradient for
+     * @return The sparse row gradient, or null if the gradient for the parameter is dense
+     */
+    protected SparseRowGradient sparseGradientFor(Map<String, SparseRowGradient> sparseGradients, UpdaterBlock.ParamState p) {
+        if (sparseGradients.isEmpty() || !p.getLayer().sparseGradients(p.getParamName()))
+            return null;
+        String key;
+        if (isSingleLayerUpdater()) {
+            key = p.getParamName();
+        } else {
+            key = gradientKeyPrefix(p.getLayer()) + "_" + p.getParamName();
+        }
+        SparseRowGradient g = sparseGradients.get(key);
+        if (g == null || g.getNumRows() * g.getNumColumns() != p.getParamOffsetEnd() - p.getParamOffsetStart())
+            return null;
+        return g;
+    }
+
+    /**
+     * @return The prefix (layer index for MultiLayerNetwork, vertex name for ComputationGraph) used for the gradient
+     * keys of the specified layer
+     */
+    protected String gradientKeyPrefix(Trainable layer) {
+        if (gradientKeyPrefixes == null) {
+            gradientKeyPrefixes = new IdentityHashMap<>();
+            for (Map.Entry<String, Trainable> e : layersByName.entrySet()) {
+                gradientKeyPrefixes.put(e.getValue(), e.getKey());
+            }
+        }
+        return gradientKeyPrefixes.get(layer);
+    }
+
+    /**
+     * @return Sparse row gradients for each of the variables in the updater block (null entries for dense gradients),
+     * or null if all gradients for the block are dense
+     */
+    protected SparseRowGradient[] sparseGradientsForBlock(UpdaterBlock ub, Map<String, SparseRowGradient> sparseGradients) {
+        if (sparseGradients.isEmpty())
+            return null;
+        List<UpdaterBlock.ParamState> params = ub.getLayersAndVariablesInBlock();
+        SparseRowGradient[] out = null;
+        for (int i = 0; i < params.size(); i++) {
+            SparseRowGradient g = sparseGradientFor(sparseGradients, params.get(i));
+            if (g != null) {
+                if (out == null)
+                    out = new SparseRowGradient[params.size()];
+                out[i] = g;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @param from         Gradient array to get the subsets of
+     * @param excludeSparse If true: exclude parameters that may have sparse row gradients (see {@link Trainable#sparseGradients(String)})
+     * @return Subsets of the gradient array that should be divided by the minibatch size
+     */
+    protected List<INDArray> getMinibatchDivisionSubsets(INDArray from, boolean excludeSparse){
         from = from.reshape(from.length());
         List<INDArray> out = new ArrayList<>();
         long paramsSoFar = 0;
@@ -357,7 +724,7 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
             Set<String> layerParams = t.paramTable(false).keySet();
             Map<String,INDArray> paramTable = t.paramTable(false);
             for(String s : layerParams) {
-                if(t.updaterDivideByMinibatch(s)){
+                if(t.updaterDivideByMinibatch(s) && !(excludeSparse && t.sparseGradients(s))){
                     long l = paramTable.get(s).length();
                     currentEnd += l;
                 } else {
@@ -404,7 +771,8 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
             return; //no op
 
         final double threshold = layer.getConfig().getGradientNormalizationThreshold();
-        INDArray layerGradientView = layer.getGradientsViewArray();
+        INDArray layerGradientView = (masterLayerGradientViews != null ? masterLayerGradientViews.get(layer)
+                : layer.getGradientsViewArray());
 
         switch (normalization) {
             case RenormalizeL2PerLayer:
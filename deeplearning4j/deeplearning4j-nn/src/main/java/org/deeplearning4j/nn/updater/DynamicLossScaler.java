@@ -0,0 +1,67 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.nn.updater;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.conf.MixedPrecision;
+
+/**
+ * Dynamic loss scale state for mixed precision training. See {@link MixedPrecision} for details.
+ */
+@Slf4j
+public class DynamicLossScaler {
+
+    private final MixedPrecision config;
+    @Getter
+    private double scale;
+    @Getter
+    private int goodSteps;
+    @Getter
+    private long skippedSteps;
+
+    public DynamicLossScaler(MixedPrecision config) {
+        this.config = config;
+        this.scale = config.getInitialLossScale();
+    }
+
+    /**
+     * Record an iteration where the gradients contained NaN or infinite values: reduce the loss scale
+     */
+    public void overflow() {
+        double newScale = Math.max(config.getMinLossScale(), scale * config.getBackoffFactor());
+        log.debug("Non-finite gradients with loss scale {}: skipping parameter update, new loss scale {}", scale, newScale);
+        scale = newScale;
+        goodSteps = 0;
+        skippedSteps++;
+    }
+
+    /**
+     * Record an iteration without overflow: increase the loss scale after the configured number of consecutive
+     * iterations without overflow
+     */
+    public void success() {
+        if (++goodSteps >= config.getGrowthInterval()) {
+            scale *= config.getGrowthFactor();
+            goodSteps = 0;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.Trainable;
 import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.conf.MixedPrecision;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.nd4j.linalg.api.ndarray.INDArray;
 
@@ -69,6 +70,11 @@ public class MultiLayerUpdater extends BaseMultiLayerUpdater<MultiLayerNetwork>
         return network.params();
     }
 
+    @Override
+    protected MixedPrecision getMixedPrecision() {
+        return network.getLayerWiseConfigurations().getMixedPrecision();
+    }
+
     @Override
     protected boolean isMiniBatch() {
         return network.conf().isMiniBatch();
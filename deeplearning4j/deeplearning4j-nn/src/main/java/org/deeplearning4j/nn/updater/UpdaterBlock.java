@@ -22,20 +22,29 @@ package org.deeplearning4j.nn.updater;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.val;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.Trainable;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.BaseLayer;
+import org.deeplearning4j.nn.gradient.SparseRowGradient;
 import org.deeplearning4j.nn.layers.FrozenLayer;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.Shape;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.learning.GradientUpdater;
+import org.nd4j.linalg.learning.config.AdaGrad;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.learning.config.IUpdater;
+import org.nd4j.linalg.learning.config.NoOp;
+import org.nd4j.linalg.learning.config.Sgd;
 import org.nd4j.linalg.learning.regularization.Regularization;
 import org.nd4j.linalg.ops.transforms.Transforms;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Data
@@ -48,10 +57,15 @@ public class UpdaterBlock {
 
     private INDArray updaterView;
     private INDArray gradientView;
+    private INDArray paramView;
     private boolean updaterViewRequiresInitialization;
 
     private GradientUpdater gradientUpdater;
 
+    //Contiguous runs of variables in this block with identical regularization - created on first use
+    @EqualsAndHashCode.Exclude
+    private List<RegularizationRun> regularizationRuns;
+
 
     @AllArgsConstructor
     @Data
@@ -64,6 +78,18 @@ public class UpdaterBlock {
         private final INDArray gradView;
     }
 
+    /**
+     * A contiguous range of parameters (possibly spanning multiple variables and layers) in this block, all of which
+     * have the same regularization configuration
+     */
+    @AllArgsConstructor
+    @Data
+    public static class RegularizationRun {
+        private final List<Regularization> regularization;
+        private final INDArray paramView;
+        private final INDArray gradView;
+    }
+
     /**
      * @param paramOffsetStart          Start offset of the parameters in this block (relative to overall net params
      *                                  view array)
@@ -85,6 +111,21 @@ public class UpdaterBlock {
         this.layersAndVariablesInBlock = layersAndVariablesInBlock;
     }
 
+    public void setGradientView(INDArray gradientView) {
+        this.gradientView = gradientView;
+        this.regularizationRuns = null;
+    }
+
+    /**
+     * @param paramView Parameters view for this block (relative to the parameters the updater is applied to - i.e.,
+     *                  the master parameters with mixed precision training). If set, regularization for the standard
+     *                  (dense) update is applied on contiguous runs of variables - see {@link #getRegularizationRuns()}
+     */
+    public void setParamView(INDArray paramView) {
+        this.paramView = paramView;
+        this.regularizationRuns = null;
+    }
+
     public void init() {
         if (gradientUpdater == null) {
             ParamState varState = layersAndVariablesInBlock.get(0);
@@ -122,6 +163,150 @@ public class UpdaterBlock {
         update(iteration, epoch, false, gradientView, null);
     }
 
+    /**
+     * Update the gradient for this block. For parameters that have a sparse row gradient (see {@link SparseRowGradient}),
+     * lazy row-wise updates are applied if the updater supports this: only the touched rows of the gradient and the
+     * updater state are read and modified. All other rows of the gradient view (which are zero) are left as-is.<br>
+     * Falls back to the standard (dense) update if there are no sparse gradients for this block, or if the updater
+     * does not support lazy updates.
+     *
+     * @param iteration       The current iteration (i.e., total number of parameter updates so far)
+     * @param epoch           The current epoch
+     * @param sparseGradients Sparse row gradients for each of the variables in this block (same order as
+     *                        {@link #getLayersAndVariablesInBlock()}), with null entries for dense gradients. May be null
+     */
+    public void update(int iteration, int epoch, SparseRowGradient[] sparseGradients) {
+        if (sparseGradients == null || !supportsSparseUpdates()) {
+            update(iteration, epoch);
+        } else {
+            updateSparse(iteration, epoch, sparseGradients);
+        }
+    }
+
+    /**
+     * @return True if the updater for this block supports lazy row-wise updates for sparse gradients: i.e., the updater
+     * state is element-wise, and rows that have no gradient may be skipped entirely (Sgd, Adam, AdaGrad and NoOp)
+     */
+    public boolean supportsSparseUpdates() {
+        IUpdater u = getGradientUpdater().getConfig();
+        return u instanceof Sgd || u instanceof Adam || u instanceof AdaGrad || u instanceof NoOp;
+    }
+
+    /**
+     * Lazy update: gather the touched rows of the sparse parameters (and all of any dense parameters in the same block)
+     * along with the corresponding rows of each updater state component, apply the updater to the gathered values, and
+     * scatter the results back. The updater state for the block is laid out as [state0, state1, ...] with each state
+     * component having the same layout as the block gradient; the gathered state array uses the same layout.
+     */
+    protected void updateSparse(int iteration, int epoch, SparseRowGradient[] sparse) {
+        if (gradientUpdater == null) {
+            init();
+        }
+
+        int n = layersAndVariablesInBlock.size();
+        long blockLength = paramOffsetEnd - paramOffsetStart;
+        int numStates = (updaterView == null ? 0 : (int) (updaterView.length() / blockLength));
+        INDArray stateView = (updaterView == null ? null : updaterView.reshape(updaterView.length()));
+
+        long[] offsets = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            ParamState p = layersAndVariablesInBlock.get(i);
+            long len = (sparse[i] != null ? sparse[i].numTouchedRows() * sparse[i].getNumColumns() :
+                    p.getParamOffsetEnd() - p.getParamOffsetStart());
+            offsets[i + 1] = offsets[i] + len;
+        }
+        long tempLength = offsets[n];
+
+        if (tempLength > 0) {
+            INDArray tempGrad = Nd4j.createUninitialized(gradientView.dataType(), tempLength);
+            INDArray tempState = (numStates == 0 ? null :
+                    Nd4j.createUninitialized(updaterView.dataType(), numStates * tempLength));
+            INDArray[] grads = new INDArray[n];
+            INDArray[] params = new INDArray[n];
+            INDArray[][] states = new INDArray[n][numStates];
+            INDArray[][] stateSubsets = new INDArray[n][numStates];
+
+            //Gather gradients, parameters and updater state
+            for (int i = 0; i < n; i++) {
+                if (offsets[i + 1] == offsets[i])
+                    continue;
+                ParamState p = layersAndVariablesInBlock.get(i);
+                SparseRowGradient g = sparse[i];
+                long localStart = p.getParamOffsetStart() - paramOffsetStart;
+                long localEnd = p.getParamOffsetEnd() - paramOffsetStart;
+
+                grads[i] = tempRows(tempGrad, offsets[i], offsets[i + 1], g);
+                if (g != null) {
+                    Nd4j.pullRows(g.asMatrix(p.getGradView()), grads[i], 1, g.getRowIndices());
+                    params[i] = g.gatherRows(p.getParamView());
+                } else {
+                    grads[i].assign(p.getGradView());
+                    params[i] = p.getParamView();
+                }
+
+                for (int c = 0; c < numStates; c++) {
+                    stateSubsets[i][c] = stateView.get(NDArrayIndex.interval(c * blockLength + localStart, c * blockLength + localEnd));
+                    states[i][c] = tempRows(tempState, c * tempLength + offsets[i], c * tempLength + offsets[i + 1], g);
+                    if (g != null) {
+                        Nd4j.pullRows(g.asMatrix(stateSubsets[i][c]), states[i][c], 1, g.getRowIndices());
+                    } else {
+                        states[i][c].assign(stateSubsets[i][c]);
+                    }
+                }
+            }
+
+            boolean hasLR = gradientUpdater.getConfig().hasLearningRate();
+            double lr = (hasLR ? gradientUpdater.getConfig().getLearningRate(iteration, epoch) : 1.0);
+            for (int i = 0; i < n; i++) {
+                if (grads[i] != null) {
+                    ParamState p = layersAndVariablesInBlock.get(i);
+                    applyRegularization(Regularization.ApplyStep.BEFORE_UPDATER, p.getLayer(), p.getParamName(), grads[i], params[i], iteration, epoch, lr);
+                }
+            }
+
+            GradientUpdater u = gradientUpdater.getConfig().instantiate(tempState, false);
+            u.applyUpdater(tempGrad, iteration, epoch);
+
+            for (int i = 0; i < n; i++) {
+                if (grads[i] == null)
+                    continue;
+                ParamState p = layersAndVariablesInBlock.get(i);
+                applyRegularization(Regularization.ApplyStep.POST_UPDATER, p.getLayer(), p.getParamName(), grads[i], params[i], iteration, epoch, lr);
+
+                //Scatter the updated gradients and state back; untouched rows are not modified
+                SparseRowGradient g = sparse[i];
+                if (g != null) {
+                    g.scatterRows(p.getGradView(), grads[i]);
+                } else {
+                    p.getGradView().assign(grads[i]);
+                }
+                for (int c = 0; c < numStates; c++) {
+                    if (g != null) {
+                        g.scatterRows(stateSubsets[i][c], states[i][c]);
+                    } else {
+                        stateSubsets[i][c].assign(states[i][c]);
+                    }
+                }
+            }
+        }
+
+        for (SparseRowGradient g : sparse) {
+            if (g != null)
+                g.setAppliedSparse(true);
+        }
+    }
+
+    private static INDArray tempRows(INDArray temp, long start, long end, SparseRowGradient g) {
+        INDArray sub = temp.get(NDArrayIndex.interval(start, end));
+        if (g == null)
+            return sub;
+        INDArray out = Shape.newShapeNoCopy(sub, new long[]{g.numTouchedRows(), g.getNumColumns()}, false);
+        if (out == null)
+            throw new IllegalStateException("Could not reshape temporary updater array to [" + g.numTouchedRows()
+                    + "," + g.getNumColumns() + "]");
+        return out;
+    }
+
     public void updateExternalGradient(int iteration, int epoch, INDArray fullNetworkGradientView,
                                        INDArray fullNetworkParamsArray) {
         //Extract the relevant subset from the external network
@@ -155,14 +340,94 @@ public class UpdaterBlock {
             return;
         }
 
+        //Regularization for the standard case is applied once per contiguous run of variables with the same
+        // configuration, instead of once per variable
+        boolean fused = !externalGradient && paramView != null;
+
         //Pre-updater regularization: l1 and l2
-        applyRegularizationAllVariables(Regularization.ApplyStep.BEFORE_UPDATER, iteration, epoch, externalGradient, fullNetworkGradientView, fullNetworkParamsArray);
+        if (fused) {
+            applyRegularizationRuns(Regularization.ApplyStep.BEFORE_UPDATER, iteration, epoch);
+        } else {
+            applyRegularizationAllVariables(Regularization.ApplyStep.BEFORE_UPDATER, iteration, epoch, externalGradient, fullNetworkGradientView, fullNetworkParamsArray);
+        }
 
         //Apply the updater itself
         gradientUpdater.applyUpdater(blockGradViewArray.reshape(blockGradViewArray.length()), iteration, epoch);
 
         //Post updater regularization: weight decay
-        applyRegularizationAllVariables(Regularization.ApplyStep.POST_UPDATER, iteration, epoch, externalGradient, fullNetworkGradientView, fullNetworkParamsArray);
+        if (fused) {
+            applyRegularizationRuns(Regularization.ApplyStep.POST_UPDATER, iteration, epoch);
+        } else {
+            applyRegularizationAllVariables(Regularization.ApplyStep.POST_UPDATER, iteration, epoch, externalGradient, fullNetworkGradientView, fullNetworkParamsArray);
+        }
+    }
+
+    /**
+     * Apply regularization over each contiguous run of variables with identical regularization configuration. As all
+     * regularization implementations are element-wise, this is equivalent to applying regularization per variable
+     * (see {@link #applyRegularizationAllVariables(Regularization.ApplyStep, int, int, boolean, INDArray, INDArray)}),
+     * but with one op per run instead of one op per variable
+     */
+    protected void applyRegularizationRuns(Regularization.ApplyStep applyStep, int iteration, int epoch) {
+        List<RegularizationRun> runs = getRegularizationRuns();
+        if (runs.isEmpty())
+            return;
+
+        boolean hasLR = gradientUpdater.getConfig().hasLearningRate();
+        double lr = (hasLR ? gradientUpdater.getConfig().getLearningRate(iteration, epoch) : 1.0);
+        for (RegularizationRun run : runs) {
+            for (Regularization r : run.getRegularization()) {
+                if (r.applyStep() == applyStep) {
+                    r.apply(run.getParamView(), run.getGradView(), lr, iteration, epoch);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Contiguous runs of variables in this block that have identical (non-empty) regularization configuration,
+     * as views of the block parameters and gradients. Empty if no variables in this block have regularization, or if
+     * the block parameters view has not been set
+     */
+    public List<RegularizationRun> getRegularizationRuns() {
+        if (regularizationRuns != null)
+            return regularizationRuns;
+        if (paramView == null || gradientView == null)
+            return Collections.emptyList();
+
+        INDArray params = paramView.reshape(paramView.length());
+        INDArray grads = gradientView.reshape(gradientView.length());
+        List<RegularizationRun> runs = new ArrayList<>();
+        List<Regularization> current = null;
+        long start = 0;
+        long end = 0;
+        for (ParamState p : layersAndVariablesInBlock) {
+            List<Regularization> l = p.getLayer().getConfig().getRegularizationByParam(p.getParamName());
+            if (l == null)
+                l = Collections.emptyList();
+            long localStart = p.getParamOffsetStart() - paramOffsetStart;
+            long localEnd = p.getParamOffsetEnd() - paramOffsetStart;
+            if (current != null && localStart == end && current.equals(l)) {
+                end = localEnd;
+            } else {
+                addRegularizationRun(runs, current, start, end, params, grads);
+                current = l;
+                start = localStart;
+                end = localEnd;
+            }
+        }
+        addRegularizationRun(runs, current, start, end, params, grads);
+
+        regularizationRuns = runs;
+        return runs;
+    }
+
+    private static void addRegularizationRun(List<RegularizationRun> runs, List<Regularization> regularization, long start,
+                                             long end, INDArray params, INDArray grads) {
+        if (regularization == null || regularization.isEmpty() || end <= start)
+            return;
+        runs.add(new RegularizationRun(regularization, params.get(NDArrayIndex.interval(start, end)),
+                grads.get(NDArrayIndex.interval(start, end))));
     }
 
     protected void applyRegularizationAllVariables(Regularization.ApplyStep applyStep, int iteration, int epoch, boolean externalGradient, INDArray fullNetworkGradientView,
@@ -22,6 +22,7 @@ package org.deeplearning4j.nn.updater.graph;
 
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.Trainable;
+import org.deeplearning4j.nn.conf.MixedPrecision;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.graph.vertex.GraphVertex;
 import org.deeplearning4j.nn.updater.BaseMultiLayerUpdater;
@@ -90,6 +91,11 @@ public class ComputationGraphUpdater extends BaseMultiLayerUpdater<ComputationGr
         return network.params();
     }
 
+    @Override
+    protected MixedPrecision getMixedPrecision() {
+        return network.getConfiguration().getMixedPrecision();
+    }
+
     @Override
     protected boolean isMiniBatch() {
         return network.conf().isMiniBatch();
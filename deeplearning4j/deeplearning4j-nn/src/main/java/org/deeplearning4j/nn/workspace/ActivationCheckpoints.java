@@ -0,0 +1,190 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.nn.workspace;
+
+import org.nd4j.linalg.api.rng.Random;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Activation checkpointing (also known as gradient checkpointing) state for a single training iteration of a
+ * MultiLayerNetwork or ComputationGraph.<br>
+ * During the forward pass, layers/vertices are grouped into contiguous segments (by layer index, or by position in
+ * the topological order for ComputationGraph). Only the activations at segment boundaries (and any other activations
+ * required by later segments or output layers) are retained in the all-layers activations workspace; activations
+ * internal to a segment are placed in a segment workspace that is reused for each segment. During backprop, each
+ * segment's forward pass is recomputed (from its retained inputs) just before the backward pass for that segment.<br>
+ * A segment ends after an explicitly configured checkpoint layer/vertex, or once the activations computed within the
+ * segment reach the configured memory budget (if any).<br>
+ * The random number generator state is recorded at the start of each segment and restored for the recomputation, so
+ * that dropout and other stochastic operations produce the same values in both passes.
+ */
+public class ActivationCheckpoints {
+
+    /**
+     * Workspace for activations within a single checkpoint segment: opened once per segment in the forward pass, and
+     * again once per segment when recomputing activations during backprop
+     */
+    public static final String WS_CHECKPOINT_SEGMENT = "WS_CHECKPOINT_SEGMENT";
+
+    private final boolean[] checkpoint;
+    private final long memoryBudgetBytes;
+    private final int[] segmentOf;
+    private final boolean[] retained;
+    private final List<int[]> segments = new ArrayList<>();
+    private final List<long[]> rngStates = new ArrayList<>();
+    private int currentStart = -1;
+    private long currentBytes;
+
+    /**
+     * @param checkpoint        Length equal to the number of positions. True for positions where a segment should always end
+     *                          (i.e., the output activations of the layer/vertex at that position should be retained)
+     * @param memoryBudgetBytes If > 0: end the current segment once the activations computed in it exceed this number
+     *                          of bytes. 0 to only use the explicit checkpoints
+     */
+    public ActivationCheckpoints(boolean[] checkpoint, long memoryBudgetBytes) {
+        this.checkpoint = checkpoint;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.segmentOf = new int[checkpoint.length];
+        Arrays.fill(segmentOf, -1);
+        this.retained = new boolean[checkpoint.length];
+    }
+
+    /**
+     * Called before the forward pass for the layer/vertex at the specified position
+     *
+     * @return True if a new segment was started - in which case the segment workspace should be opened
+     */
+    public boolean beforeForward(int position) {
+        if (currentStart >= 0)
+            return false;
+        currentStart = position;
+        currentBytes = 0;
+        rngStates.add(rngState());
+        return true;
+    }
+
+    /**
+     * Called after the forward pass for the layer/vertex at the specified position
+     *
+     * @param activationBytes Size of the activations that were computed, in bytes
+     * @return True if the current segment should end after this position
+     */
+    public boolean afterForward(int position, long activationBytes) {
+        currentBytes += activationBytes;
+        return checkpoint[position] || (memoryBudgetBytes > 0 && currentBytes >= memoryBudgetBytes);
+    }
+
+    /**
+     * @return True if a segment has been started and not yet ended
+     */
+    public boolean isSegmentOpen() {
+        return currentStart >= 0;
+    }
+
+    /**
+     * End the current segment
+     *
+     * @param lastPosition Last position (inclusive) in the segment
+     */
+    public void endSegment(int lastPosition) {
+        int idx = segments.size();
+        segments.add(new int[]{currentStart, lastPosition});
+        for (int i = currentStart; i <= lastPosition; i++) {
+            segmentOf[i] = idx;
+        }
+        currentStart = -1;
+    }
+
+    /**
+     * Mark the activations for the specified position as retained (i.e., present in the all-layers activations
+     * workspace, and not required to be recomputed for use by other layers)
+     */
+    public void markRetained(int position) {
+        retained[position] = true;
+    }
+
+    public boolean isRetained(int position) {
+        return retained[position];
+    }
+
+    /**
+     * @return The segment index for the specified position, or -1 if the position is not part of any segment
+     */
+    public int segmentOf(int position) {
+        return segmentOf[position];
+    }
+
+    public int numSegments() {
+        return segments.size();
+    }
+
+    public int segmentStart(int segment) {
+        return segments.get(segment)[0];
+    }
+
+    public int segmentEnd(int segment) {
+        return segments.get(segment)[1];
+    }
+
+    /**
+     * Restore the random number generator state to the state at the start of the specified segment
+     *
+     * @return The random number generator state before restoring, to be passed to {@link #setRngState(long[])} once
+     * recomputation of the segment is complete
+     */
+    public long[] restoreRngState(int segment) {
+        long[] current = rngState();
+        setRngState(rngStates.get(segment));
+        return current;
+    }
+
+    public static void setRngState(long[] state) {
+        Nd4j.getRandom().setStates(state[0], state[1]);
+    }
+
+    private static long[] rngState() {
+        Random r = Nd4j.getRandom();
+        return new long[]{r.rootState(), r.nodeState()};
+    }
+
+    /**
+     * Create the boolean checkpoint array for the specified checkpoint positions
+     *
+     * @param numPositions Number of positions (layers, or vertices in topological order)
+     * @param positions    Positions to mark as checkpoints (may be null)
+     */
+    public static boolean[] checkpointPositions(int numPositions, int... positions) {
+        boolean[] out = new boolean[numPositions];
+        if (positions != null) {
+            for (int p : positions) {
+                if (p < 0 || p >= numPositions)
+                    throw new IllegalStateException("Invalid activation checkpoint: index " + p + " is not a valid layer index (" +
+                            "must be between 0 and " + (numPositions - 1) + " inclusive)");
+                out[p] = true;
+            }
+        }
+        return out;
+    }
+}
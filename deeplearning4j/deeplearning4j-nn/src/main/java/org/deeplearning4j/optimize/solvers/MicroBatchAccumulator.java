@@ -0,0 +1,196 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.optimize.solvers;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.deeplearning4j.nn.api.Trainable;
+import org.nd4j.common.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gradient accumulation over multiple micro-batches, for MultiLayerNetwork and ComputationGraph.<br>
+ * The gradients for each micro-batch are summed into a detached buffer; for the last micro-batch in each group, the
+ * accumulated gradients are added to the network's flattened gradient view before a single updater step is applied.
+ * The buffer uses at least {@link DataType#FLOAT} precision, so that low precision (HALF/BFLOAT16, possibly loss scaled)
+ * gradients are not summed in the network data type.
+ * Gradients are divided by the total number of examples in all micro-batches (via the updater's minibatch division),
+ * hence training with N micro-batches of size B is equivalent to training with minibatches of size N*B.<br>
+ * Parameters whose "gradients" are not divided by the minibatch size (such as batch normalization mean/variance
+ * estimates, which are updates rather than gradients) are averaged over the micro-batches instead of summed.
+ */
+public class MicroBatchAccumulator {
+
+    @Getter
+    private final int steps;
+    private final List<long[]> averagedRanges = new ArrayList<>();
+    private INDArray accumulated;
+    @Getter
+    private int count;
+    private long numExamples;
+    private double weightedScore;
+    /**
+     * If true: the next gradient calculation is for the last micro-batch of the current group
+     */
+    @Getter
+    @Setter
+    private boolean finishPending;
+    /**
+     * If true: the current group should be completed with the accumulated micro-batches only, without calculating the
+     * gradients for another micro-batch. See {@link #finish(INDArray)}
+     */
+    @Getter
+    @Setter
+    private boolean flushPending;
+    /**
+     * Total number of examples in the most recently completed group of micro-batches, or 0 if not applicable
+     */
+    @Getter
+    private int lastBatchSize;
+
+    /**
+     * @param steps         Number of micro-batches per parameter update. Must be >= 1
+     * @param orderedLayers Layers/vertices in the same order as the flattened parameters and gradients
+     */
+    public MicroBatchAccumulator(int steps, Trainable[] orderedLayers) {
+        Preconditions.checkArgument(steps >= 1, "Number of gradient accumulation steps must be >= 1, got %s", steps);
+        this.steps = steps;
+        long offset = 0;
+        for (Trainable t : orderedLayers) {
+            Map<String, INDArray> paramTable = t.paramTable(false);
+            if (paramTable == null)
+                continue;
+            for (Map.Entry<String, INDArray> e : paramTable.entrySet()) {
+                long length = e.getValue().length();
+                if (!t.updaterDivideByMinibatch(e.getKey()) && length > 0) {
+                    averagedRanges.add(new long[]{offset, offset + length});
+                }
+                offset += length;
+            }
+        }
+    }
+
+    /**
+     * @return True if the next micro-batch is the last micro-batch of the current group (i.e., the parameters should be
+     * updated after it)
+     */
+    public boolean isLastMicroBatch() {
+        return count + 1 >= steps;
+    }
+
+    /**
+     * Add the gradients for a micro-batch (other than the last micro-batch in the group) to the accumulated gradients
+     *
+     * @param gradientView Flattened gradients view for the network
+     * @param score        Score for the micro-batch
+     * @param batchSize    Number of examples in the micro-batch
+     */
+    public void accumulate(INDArray gradientView, double score, int batchSize) {
+        INDArray flat = gradientView.reshape(gradientView.length());
+        DataType accumulationType = accumulationType(flat.dataType());
+        if (accumulated == null || accumulated.length() != flat.length() || accumulated.dataType() != accumulationType) {
+            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                accumulated = Nd4j.createUninitialized(accumulationType, flat.length());
+            }
+            accumulated.assign(flat);
+        } else if (count == 0) {
+            accumulated.assign(flat);
+        } else {
+            accumulated.addi(flat);
+        }
+        count++;
+        numExamples += batchSize;
+        weightedScore += score * batchSize;
+    }
+
+    /**
+     * Complete the current group of micro-batches: add the accumulated gradients to the gradients for the last
+     * micro-batch (in place), and reset the accumulation state. After this method, {@link #getLastBatchSize()} returns
+     * the total number of examples for the group
+     *
+     * @param gradientView Flattened gradients view for the network, containing the gradients for the last micro-batch
+     * @param score        Score for the last micro-batch
+     * @param batchSize    Number of examples in the last micro-batch
+     * @return Score for the group of micro-batches: the average over micro-batches, weighted by number of examples
+     */
+    public double finish(INDArray gradientView, double score, int batchSize) {
+        INDArray flat = gradientView.reshape(gradientView.length());
+        if (count > 0) {
+            accumulated.addi(flat);
+            for (long[] range : averagedRanges) {
+                accumulated.get(NDArrayIndex.interval(range[0], range[1])).divi(count + 1);
+            }
+            flat.assign(accumulated);
+        }
+        long total = numExamples + batchSize;
+        double out = (weightedScore + score * batchSize) / total;
+        lastBatchSize = (int) total;
+
+        count = 0;
+        numExamples = 0;
+        weightedScore = 0.0;
+        finishPending = false;
+        return out;
+    }
+
+    /**
+     * Complete the current group of micro-batches using only the accumulated gradients (i.e., when there is no further
+     * micro-batch for the group), writing them to the gradient view, and reset the accumulation state
+     *
+     * @param gradientView Flattened gradients view for the network, to be overwritten
+     * @return Score for the group of micro-batches: the average over micro-batches, weighted by number of examples
+     */
+    public double finish(INDArray gradientView) {
+        Preconditions.checkState(count > 0, "No accumulated micro-batches to apply");
+        INDArray flat = gradientView.reshape(gradientView.length());
+        for (long[] range : averagedRanges) {
+            accumulated.get(NDArrayIndex.interval(range[0], range[1])).divi(count);
+        }
+        flat.assign(accumulated);
+        double out = weightedScore / numExamples;
+        lastBatchSize = (int) numExamples;
+
+        count = 0;
+        numExamples = 0;
+        weightedScore = 0.0;
+        flushPending = false;
+        return out;
+    }
+
+    /**
+     * Clear the batch size for the most recently completed group, once the parameter update has been applied
+     */
+    public void clearLastBatchSize() {
+        lastBatchSize = 0;
+    }
+
+    private static DataType accumulationType(DataType gradientType) {
+        return (gradientType == DataType.DOUBLE ? DataType.DOUBLE : DataType.FLOAT);
+    }
+}
@@ -200,6 +200,23 @@ public class InplaceParallelInference extends ParallelInference {
             if (!rootDevice)
                 Nd4j.getAffinityManager().replicateToDevice(targetDeviceId, params);
 
+            if (isMLN && layerIndicesOutputTo == null) {
+                // single model with shared weights: per-thread layer state is held by the network itself
+                val model = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(((MultiLayerNetwork) sourceModel).getLayerWiseConfigurations().toJson()));
+                model.init(params, false);
+                model.setConcurrentInference(true);
+                Nd4j.getExecutioner().commit();
+
+                // FIFO mode: the queue still limits the number of concurrent calls to the number of workers
+                for (int e = 0; e < workers; e++) {
+                    replicas.add(model);
+
+                    if (loadBalanceMode == LoadBalanceMode.FIFO)
+                        queue.add(model);
+                }
+                return;
+            }
+
             for (int e = 0; e < workers; e++) {
                 if (sourceModel instanceof ComputationGraph) {
                     // building configuration with shared parameters
@@ -366,6 +366,8 @@ public class ParallelInference {
          *
          * PLEASE NOTE: This method primarily suited for multi-GPU systems
          * PLEASE NOTE: For INPLACE inference mode this value will mean number of models per DEVICE
+         * PLEASE NOTE: For INPLACE inference mode with MultiLayerNetwork, a single model with shared weights is used per DEVICE,
+         * and this value is the maximum number of concurrent calls per DEVICE in FIFO load balancing mode
          *
          * @param workers
          * @return
@@ -231,6 +231,7 @@ public class ParallelWrapper implements AutoCloseable {
         val locker = new AtomicInteger(0);
 
         val blockWrapper = new DummyBlockMultiDataSetIterator(iterator);
+        int workersUsed = 0;
 
         var time1 = System.currentTimeMillis();
         while (blockWrapper.hasAnything() && !stopFit.get()) {
@@ -259,6 +260,7 @@ public class ParallelWrapper implements AutoCloseable {
                 throw new ND4JIllegalStateException("You can't have NULL as MultiDataSet");
 
             locker.set(dataSets.length);
+            workersUsed = Math.max(workersUsed, dataSets.length);
 
             /*
              * if we're using registerable accumulator (i.e. we're on spark or cuda with gradients sharing),
@@ -288,7 +290,7 @@ public class ParallelWrapper implements AutoCloseable {
             //Nd4j.getMemoryManager().invokeGcOccasionally();
 
             // optional averaging
-            if (zoo[0].averagingRequired() && iterationsCounter.get() % averagingFrequency == 0 ) {
+            if (zoo[0].averagingRequired() && iterationsCounter.get() % averagingInterval() == 0 ) {
                 /*
                  * average model, and propagate it to all workers
                  */
@@ -307,6 +309,8 @@ public class ParallelWrapper implements AutoCloseable {
         if (debug)
             log.info("Stopping everyone...");
 
+        flushGradientAccumulation(workersUsed);
+
         if (debug)
             log.info("Shutting down iterator...");
 
@@ -523,6 +527,7 @@ public class ParallelWrapper implements AutoCloseable {
         long intcnt = 0;
 
         val blockWrapper = new DummyBlockDataSetIterator(iterator);
+        int workersUsed = 0;
 
         while (blockWrapper.hasAnything() && !stopFit.get()) {
             if (modelParamsSupplier != null) {
@@ -556,6 +561,7 @@ public class ParallelWrapper implements AutoCloseable {
 
             if (dataSets == null)
                 throw new ND4JIllegalStateException("You can't have NULL as DataSet");
+            workersUsed = Math.max(workersUsed, dataSets.length);
 
             if (zoo == null)
                 throw new IllegalStateException(
@@ -593,7 +599,7 @@ public class ParallelWrapper implements AutoCloseable {
 
 
             // optional averaging
-            if (iterationsCounter.get() % averagingFrequency == 0 && zoo[0].averagingRequired() ) {
+            if (iterationsCounter.get() % averagingInterval() == 0 && zoo[0].averagingRequired() ) {
                 long timeA1 = System.currentTimeMillis();
 
                 // model averaging happens within
@@ -623,6 +629,8 @@ public class ParallelWrapper implements AutoCloseable {
             }
         }
 
+        flushGradientAccumulation(workersUsed);
+
         if (debug)
             log.info("Shutting down iterator...");
 
@@ -640,6 +648,48 @@ public class ParallelWrapper implements AutoCloseable {
     }
 
 
+    /**
+     * Number of minibatches (per worker) between model averaging. When the model uses gradient accumulation, each
+     * parameter update spans multiple minibatches, and averaging is only done after complete updates
+     */
+    private int averagingInterval() {
+        return averagingFrequency * gradientAccumulationSteps();
+    }
+
+    private int gradientAccumulationSteps() {
+        int steps = 1;
+        if (model instanceof MultiLayerNetwork) {
+            steps = ((MultiLayerNetwork) model).getLayerWiseConfigurations().getGradientAccumulationSteps();
+        } else if (model instanceof ComputationGraph) {
+            steps = ((ComputationGraph) model).getConfiguration().getGradientAccumulationSteps();
+        }
+        return Math.max(1, steps);
+    }
+
+    /**
+     * With gradient accumulation: apply any trailing partial group of micro-batches in each worker at the end of a fit
+     * call, and average the resulting models. Otherwise, these micro-batches would never be applied
+     *
+     * @param workersUsed Number of workers that were given data in this fit call
+     */
+    private void flushGradientAccumulation(int workersUsed) {
+        if (gradientAccumulationSteps() <= 1 || zoo == null || workersUsed == 0)
+            return;
+
+        for (int pos = 0; pos < workersUsed; pos++) {
+            zoo[pos].flushGradientAccumulation();
+        }
+        for (int pos = 0; pos < workersUsed; pos++) {
+            zoo[pos].waitTillRunning();
+        }
+
+        if (zoo[0].averagingRequired()) {
+            val locker = new AtomicInteger(workersUsed);
+            double score = getScore(locker);
+            averageUpdatersState(locker, score);
+        }
+    }
+
     private void createZooIfNeccessary(boolean useMDS) {
         if (zoo == null) {
             trainerContext.init(model, trainerContextArgs);
@@ -649,7 +699,7 @@ public class ParallelWrapper implements AutoCloseable {
             for (int cnt = 0; cnt < workers; cnt++) {
                 // we pass true here, to tell Trainer to use MultiDataSet queue for training
                 zoo[cnt] = trainerContext.create(this.uuid, cnt, model, Nd4j.getAffinityManager().getDeviceForCurrentThread(),
-                                useMDS, this, workspaceMode, averagingFrequency);
+                                useMDS, this, workspaceMode, averagingInterval());
 
                 /*
                 zoo[cnt].setUncaughtExceptionHandler(handler);
@@ -773,7 +823,10 @@ public class ParallelWrapper implements AutoCloseable {
         }
 
         /**
-         * Model averaging frequency.
+         * Model averaging frequency.<br>
+         * Note that if the model is configured with gradient accumulation (gradientAccumulationSteps > 1), this is the
+         * number of parameter updates between averaging: i.e., averaging is done every freq * gradientAccumulationSteps
+         * minibatches per worker.
          *
          * @param freq number of iterations between averaging
          * @return
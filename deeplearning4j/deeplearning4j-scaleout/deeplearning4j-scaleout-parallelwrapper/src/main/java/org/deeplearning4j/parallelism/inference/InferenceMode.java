@@ -33,6 +33,8 @@ public enum InferenceMode {
 
     /**
      * Inference will applied in the calling thread instead of workers. Worker models will be using shared parameters on per-device basis.
+     * For MultiLayerNetwork, a single model instance per device is used by all calling threads (see
+     * MultiLayerNetwork#setConcurrentInference(boolean))
      */
     INPLACE,
 }
@@ -69,6 +69,8 @@ public class DefaultTrainer implements Trainer,Runnable {
     protected AtomicBoolean shouldUpdate = new AtomicBoolean(false);
     @Builder.Default
     protected AtomicBoolean shouldStop = new AtomicBoolean(false);
+    @Builder.Default
+    protected AtomicBoolean flushPending = new AtomicBoolean(false);
     protected Exception thrownException;
     @Builder.Default
     protected volatile boolean useMDS = false;
@@ -135,6 +137,13 @@ public class DefaultTrainer implements Trainer,Runnable {
         lastEtlTime.set(etlTime);
     }
 
+    @Override
+    public void flushGradientAccumulation() {
+        setupIfNeccessary();
+        running.incrementAndGet();
+        flushPending.set(true);
+    }
+
     @Override
     public Model getModel() {
         return replicatedModel;
@@ -194,6 +203,8 @@ public class DefaultTrainer implements Trainer,Runnable {
             running = new AtomicInteger(0);
         if (shouldStop == null)
             shouldStop = new AtomicBoolean(false);
+        if (flushPending == null)
+            flushPending = new AtomicBoolean(false);
         if (shouldUpdate == null)
             shouldUpdate = new AtomicBoolean(false);
         if (isStopped == null)
@@ -251,6 +262,24 @@ public class DefaultTrainer implements Trainer,Runnable {
         }
     }
 
+    /**
+     * Apply any pending micro-batches for the replicated model, as requested via {@link #flushGradientAccumulation()}
+     */
+    protected void flush() {
+        try {
+            modelLock.readLock().lock();
+            if (replicatedModel instanceof MultiLayerNetwork) {
+                ((MultiLayerNetwork) replicatedModel).flushGradientAccumulation();
+            } else if (replicatedModel instanceof ComputationGraph) {
+                ((ComputationGraph) replicatedModel).flushGradientAccumulation();
+            }
+        } finally {
+            modelLock.readLock().unlock();
+        }
+        flushPending.set(false);
+        running.decrementAndGet();
+    }
+
     protected void fit(MultiDataSet dataSet) {
         if (lastEtlTime == null)
             lastEtlTime = new AtomicLong(0);
@@ -409,6 +438,8 @@ public class DefaultTrainer implements Trainer,Runnable {
                         }
 
                         running.decrementAndGet();
+                    } else if (flushPending.get()) {
+                        flush();
                     }
                 }
             } else {
@@ -439,6 +470,8 @@ public class DefaultTrainer implements Trainer,Runnable {
                         }
 
                         running.decrementAndGet();
+                    } else if (flushPending.get()) {
+                        flush();
                     }
                 }
             }
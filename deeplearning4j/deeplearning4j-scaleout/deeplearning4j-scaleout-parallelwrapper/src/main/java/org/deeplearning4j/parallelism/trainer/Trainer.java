@@ -40,6 +40,12 @@ public interface Trainer extends Runnable {
      */
     void feedDataSet(@NonNull DataSet dataSet, long etlTime);
 
+    /**
+     * Apply the parameter update for any partially accumulated group of micro-batches (gradient accumulation) in the
+     * model for this worker. Asynchronous: use {@link #waitTillRunning()} to wait for completion
+     */
+    void flushGradientAccumulation();
+
     /**
      * This method updates replicated model params
      * @param params
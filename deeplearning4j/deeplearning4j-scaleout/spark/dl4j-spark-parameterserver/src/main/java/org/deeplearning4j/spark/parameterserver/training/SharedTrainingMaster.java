@@ -34,7 +34,6 @@ import org.apache.spark.storage.StorageLevel;
 import org.datavec.spark.util.BroadcastHadoopConfigHolder;
 import org.deeplearning4j.core.loader.DataSetLoader;
 import org.deeplearning4j.core.loader.MultiDataSetLoader;
-import org.deeplearning4j.core.loader.impl.SerializedDataSetLoader;
 import org.deeplearning4j.core.loader.impl.SerializedMultiDataSetLoader;
 import org.deeplearning4j.core.storage.Persistable;
 import org.deeplearning4j.core.storage.StatsStorageRouter;
@@ -425,6 +424,9 @@ public class SharedTrainingMaster extends BaseTrainingMaster<SharedTrainingResul
         if (network == null && graph == null)
             throw new IllegalStateException("Both MLN & CG are undefined");
 
+        if (repartitioner != null)
+            repartitioner.fitStarted();
+
         //Get the port for communicating with the master/driver - and add it to the configuration for use from each machine
         //Note that each machine will allocate their own port for inbound communications according to what the PortSupplier
         //returns on each worker machine.
@@ -568,7 +570,7 @@ public class SharedTrainingMaster extends BaseTrainingMaster<SharedTrainingResul
         } else if (rddTrainingApproach == RDDTrainingApproach.Export) {
             //Export data if required (or, use cached export)
             JavaRDD<String> paths = exportIfRequired(network.getSparkContext(), trainingData);
-            executeTrainingPathsHelper(network, null, paths, new SerializedDataSetLoader(), null, batchSizePerWorker);
+            executeTrainingPathsHelper(network, null, paths, exportFormat.getDataSetLoader(), null, batchSizePerWorker);
         } else
             throw new DL4JInvalidConfigException(
                             "Unknown RDDtrainingApproach [" + rddTrainingApproach + "] was specified!");
@@ -584,7 +586,7 @@ public class SharedTrainingMaster extends BaseTrainingMaster<SharedTrainingResul
         } else if (rddTrainingApproach == RDDTrainingApproach.Export) {
             //Export data if required (or, use cached export)
             JavaRDD<String> paths = exportIfRequired(graph.getSparkContext(), trainingData);
-            executeTrainingPathsHelper(null, graph, paths, new SerializedDataSetLoader(), null, batchSizePerWorker);
+            executeTrainingPathsHelper(null, graph, paths, exportFormat.getDataSetLoader(), null, batchSizePerWorker);
         } else
             throw new DL4JInvalidConfigException(
                             "Unknown RDDtrainingApproach [" + rddTrainingApproach + "] was specified!");
@@ -900,6 +902,7 @@ public class SharedTrainingMaster extends BaseTrainingMaster<SharedTrainingResul
         protected StorageLevel storageLevel = StorageLevel.MEMORY_ONLY_SER();
         protected VoidConfiguration voidConfiguration;
         protected RDDTrainingApproach rddTrainingApproach = RDDTrainingApproach.Export;
+        protected DataSetExportFormat exportFormat = DataSetExportFormat.Serialized;
         protected long rngSeed;
         protected String exportDirectory = null;
         protected Integer numWorkers;
@@ -1054,6 +1057,19 @@ public class SharedTrainingMaster extends BaseTrainingMaster<SharedTrainingResul
             return this;
         }
 
+        /**
+         * When {@link #rddTrainingApproach(RDDTrainingApproach)} is set to {@link RDDTrainingApproach#Export} (as it is by default)
+         * this sets the file format used for the exported {@code RDD<DataSet>} minibatches.
+         * Default: {@link DataSetExportFormat#Serialized}. {@link DataSetExportFormat#Columnar} is faster to load, which
+         * matters when training for multiple epochs on the same exported data.
+         *
+         * @param exportFormat Format for exported DataSets
+         */
+        public Builder exportFormat(@NonNull DataSetExportFormat exportFormat) {
+            this.exportFormat = exportFormat;
+            return this;
+        }
+
         /**
          * When {@link #rddTrainingApproach(RDDTrainingApproach)} is set to {@link RDDTrainingApproach#Export} (as it is by default)
          * the data is exported to a temporary directory first.
@@ -1198,7 +1214,10 @@ public class SharedTrainingMaster extends BaseTrainingMaster<SharedTrainingResul
          * effects where training can only complete once the last/slowest worker finishes it's partition.<br>
          * Default repartitioner is {@link DefaultRepartitioner}, which repartitions equally up to a maximum of 5000
          * partitions, and is usually suitable for most purposes. In the worst case, the "end of epoch" effect
-         * when using the partitioner should be limited to a maximum of the amount of time required to process a single partition.
+         * when using the partitioner should be limited to a maximum of the amount of time required to process a single partition.<br>
+         * When fitting repeatedly on the same (persisted) data and network shuffling is a bottleneck, consider
+         * {@link org.deeplearning4j.spark.impl.repartitioner.LocalityAwareRepartitioner}, which keeps data in place and
+         * moves only a small fraction of objects between partitions each epoch.
          *
          * @param repartitioner Repartitioner to use
          */
@@ -1254,6 +1273,7 @@ public class SharedTrainingMaster extends BaseTrainingMaster<SharedTrainingResul
                     workerPeriodicGCFrequency, encodingDebugMode);
             if (transport != null)
                 master.transport = this.transport;
+            master.exportFormat = this.exportFormat;
 
             return master;
         }
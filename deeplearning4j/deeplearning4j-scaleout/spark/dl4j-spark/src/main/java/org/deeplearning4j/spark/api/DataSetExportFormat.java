@@ -0,0 +1,58 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.spark.api;
+
+import org.deeplearning4j.core.loader.DataSetLoader;
+import org.deeplearning4j.core.loader.impl.ColumnarDataSetFormat;
+import org.deeplearning4j.core.loader.impl.ColumnarDataSetLoader;
+import org.deeplearning4j.core.loader.impl.SerializedDataSetLoader;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * File format used when exporting {@code RDD<DataSet>} minibatches.<br>
+ * Serialized: {@link DataSet#save(OutputStream)} format<br>
+ * Columnar: {@link ColumnarDataSetFormat} - faster to load, especially for repeated epochs over exported data<br>
+ * ColumnarLZ4: {@link ColumnarDataSetFormat} with LZ4 compression - smaller files, for when IO is the bottleneck<br>
+ */
+public enum DataSetExportFormat {
+    Serialized, Columnar, ColumnarLZ4;
+
+    /**
+     * Write the DataSet to the output stream in this format. The stream is not closed.
+     */
+    public void write(DataSet ds, OutputStream os) throws IOException {
+        if (this == Serialized) {
+            ds.save(os);
+        } else {
+            ColumnarDataSetFormat.write(ds, os, this == ColumnarLZ4);
+        }
+    }
+
+    /**
+     * @return A loader for DataSets exported in this format
+     */
+    public DataSetLoader getDataSetLoader() {
+        return this == Serialized ? new SerializedDataSetLoader() : new ColumnarDataSetLoader();
+    }
+}
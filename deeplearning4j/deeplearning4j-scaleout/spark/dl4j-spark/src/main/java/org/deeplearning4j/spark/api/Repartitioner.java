@@ -28,4 +28,12 @@ public interface Repartitioner extends Serializable {
 
     <T> JavaRDD<T> repartition(JavaRDD<T> input, int minObjectsPerPartition, int numExecutors);
 
+    /**
+     * Called by the training master when a new fit (i.e., epoch) starts, before the training data is repartitioned
+     * for it. {@link #repartition(JavaRDD, int, int)} may be called more than once per fit. No-op by default.
+     */
+    default void fitStarted() {
+        //No op
+    }
+
 }
@@ -28,6 +28,7 @@ import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.broadcast.Broadcast;
 import org.datavec.spark.util.DefaultHadoopConfig;
 import org.datavec.spark.util.SerializableHadoopConfig;
+import org.deeplearning4j.spark.api.DataSetExportFormat;
 import org.deeplearning4j.core.util.UIDProvider;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.common.primitives.Pair;
@@ -40,6 +41,7 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
     private final String exportBaseDirectory;
     private final String jvmuid;
     private final Broadcast<SerializableHadoopConfig> conf;
+    private final DataSetExportFormat format;
 
     /**
      * @param minibatchSize       Minibatch size to combine examples to (if necessary)
@@ -55,11 +57,23 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
      * @param configuration       Hadoop Configuration
      */
     public BatchAndExportDataSetsFunction(int minibatchSize, String exportBaseDirectory, Broadcast<SerializableHadoopConfig> configuration) {
+        this(minibatchSize, exportBaseDirectory, configuration, DataSetExportFormat.Serialized);
+    }
+
+    /**
+     * @param minibatchSize       Minibatch size to combine examples to (if necessary)
+     * @param exportBaseDirectory Base directory for exporting
+     * @param configuration       Hadoop Configuration
+     * @param format              Format to export the DataSets in
+     */
+    public BatchAndExportDataSetsFunction(int minibatchSize, String exportBaseDirectory, Broadcast<SerializableHadoopConfig> configuration,
+                                          DataSetExportFormat format) {
         this.minibatchSize = minibatchSize;
         this.exportBaseDirectory = exportBaseDirectory;
         String fullUID = UIDProvider.getJVMUID();
         this.jvmuid = (fullUID.length() <= 8 ? fullUID : fullUID.substring(0, 8));
         this.conf = configuration;
+        this.format = (format == null ? DataSetExportFormat.Serialized : format);
     }
 
     @Override
@@ -145,7 +159,7 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
 
         FileSystem file = FileSystem.get(uri, c);
         try (FSDataOutputStream out = file.create(new Path(uri))) {
-            dataSet.save(out);
+            format.write(dataSet, out);
         }
 
         return uri.toString();
@@ -28,6 +28,7 @@ import org.apache.spark.api.java.function.VoidFunction;
 import org.apache.spark.broadcast.Broadcast;
 import org.datavec.spark.util.DefaultHadoopConfig;
 import org.datavec.spark.util.SerializableHadoopConfig;
+import org.deeplearning4j.spark.api.DataSetExportFormat;
 import org.deeplearning4j.core.util.UIDProvider;
 import org.nd4j.linalg.dataset.DataSet;
 
@@ -38,6 +39,7 @@ public class DataSetExportFunction implements VoidFunction<Iterator<DataSet>> {
 
     private final URI outputDir;
     private final Broadcast<SerializableHadoopConfig> conf;
+    private final DataSetExportFormat format;
     private String uid = null;
 
     private int outputCount;
@@ -47,8 +49,13 @@ public class DataSetExportFunction implements VoidFunction<Iterator<DataSet>> {
     }
 
     public DataSetExportFunction(URI outputDir, Broadcast<SerializableHadoopConfig> configuration) {
+        this(outputDir, configuration, DataSetExportFormat.Serialized);
+    }
+
+    public DataSetExportFunction(URI outputDir, Broadcast<SerializableHadoopConfig> configuration, DataSetExportFormat format) {
         this.outputDir = outputDir;
         this.conf = configuration;
+        this.format = (format == null ? DataSetExportFormat.Serialized : format);
     }
 
     @Override
@@ -67,7 +74,7 @@ public class DataSetExportFunction implements VoidFunction<Iterator<DataSet>> {
             URI uri = new URI(path + (path.endsWith("/") || path.endsWith("\\") ? "" : "/") + filename);
             FileSystem file = FileSystem.get(uri, c);
             try (FSDataOutputStream out = file.create(new Path(uri))) {
-                next.save(out);
+                format.write(next, out);
             }
         }
     }
@@ -96,6 +96,7 @@ public abstract class BaseTrainingMaster<R extends TrainingResult, W extends Tra
     @JsonDeserialize(using = StorageLevelDeserializer.class)
     protected StorageLevel storageLevelStreams = StorageLevel.MEMORY_ONLY();
     protected RDDTrainingApproach rddTrainingApproach = RDDTrainingApproach.Export;
+    protected DataSetExportFormat exportFormat = DataSetExportFormat.Serialized;
 
     protected Broadcast<SerializableHadoopConfig> broadcastHadoopConfig;
 
@@ -206,7 +207,7 @@ public abstract class BaseTrainingMaster<R extends TrainingResult, W extends Tra
 
         log.info("Initiating RDD<DataSet> export at {}", baseDir);
         JavaRDD<String> paths = trainingData
-                        .mapPartitionsWithIndex(new BatchAndExportDataSetsFunction(batchSizePerWorker, dataDir), true);
+                        .mapPartitionsWithIndex(new BatchAndExportDataSetsFunction(batchSizePerWorker, dataDir, null, exportFormat), true);
         paths.saveAsTextFile(pathsDir);
         log.info("RDD<DataSet> export complete at {}", baseDir);
 
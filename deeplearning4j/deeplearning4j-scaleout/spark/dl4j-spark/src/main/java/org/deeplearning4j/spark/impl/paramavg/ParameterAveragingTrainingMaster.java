@@ -22,6 +22,7 @@ package org.deeplearning4j.spark.impl.paramavg;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
@@ -34,7 +35,6 @@ import org.apache.spark.storage.StorageLevel;
 import org.datavec.spark.util.BroadcastHadoopConfigHolder;
 import org.deeplearning4j.core.loader.DataSetLoader;
 import org.deeplearning4j.core.loader.MultiDataSetLoader;
-import org.deeplearning4j.core.loader.impl.SerializedDataSetLoader;
 import org.deeplearning4j.core.loader.impl.SerializedMultiDataSetLoader;
 import org.deeplearning4j.core.storage.Persistable;
 import org.deeplearning4j.core.storage.StatsStorageRouter;
@@ -118,6 +118,7 @@ public class ParameterAveragingTrainingMaster
         this.storageLevel = builder.storageLevel;
         this.storageLevelStreams = builder.storageLevelStreams;
         this.rddTrainingApproach = builder.rddTrainingApproach;
+        this.exportFormat = builder.exportFormat;
         this.exportDirectory = builder.exportDirectory;
         this.trainingHookList = builder.trainingHooks;
         this.collectTrainingStats = builder.collectTrainingStats;
@@ -337,7 +338,7 @@ public class ParameterAveragingTrainingMaster
         } else {
             //Export data if required (or, use cached export)
             JavaRDD<String> paths = exportIfRequired(network.getSparkContext(), trainingData);
-            executeTrainingPathsHelper(network, null, paths, new SerializedDataSetLoader(), null, batchSizePerWorker); //Originally (pre-export): had rddDataSetNumExamples per DataSet. Now we have batchSizePerWorker per exported DataSet
+            executeTrainingPathsHelper(network, null, paths, exportFormat.getDataSetLoader(), null, batchSizePerWorker); //Originally (pre-export): had rddDataSetNumExamples per DataSet. Now we have batchSizePerWorker per exported DataSet
         }
     }
 
@@ -761,6 +762,7 @@ public class ParameterAveragingTrainingMaster
         protected StorageLevel storageLevel = StorageLevel.MEMORY_ONLY_SER();
         protected StorageLevel storageLevelStreams = StorageLevel.MEMORY_ONLY();
         protected RDDTrainingApproach rddTrainingApproach = RDDTrainingApproach.Export;
+        protected DataSetExportFormat exportFormat = DataSetExportFormat.Serialized;
         protected String exportDirectory = null;
         protected Long rngSeed;
         protected Collection<TrainingHook> trainingHooks;
@@ -966,6 +968,19 @@ public class ParameterAveragingTrainingMaster
             return this;
         }
 
+        /**
+         * When {@link #rddTrainingApproach(RDDTrainingApproach)} is set to {@link RDDTrainingApproach#Export} (as it is by default)
+         * this sets the file format used for the exported {@code RDD<DataSet>} minibatches.
+         * Default: {@link DataSetExportFormat#Serialized}. {@link DataSetExportFormat#Columnar} is faster to load, which
+         * matters when training for multiple epochs on the same exported data.
+         *
+         * @param exportFormat Format for exported DataSets
+         */
+        public Builder exportFormat(@NonNull DataSetExportFormat exportFormat) {
+            this.exportFormat = exportFormat;
+            return this;
+        }
+
         /**
          * When {@link #rddTrainingApproach(RDDTrainingApproach)} is set to {@link RDDTrainingApproach#Export} (as it is by default)
          * the data is exported to a temporary directory first.
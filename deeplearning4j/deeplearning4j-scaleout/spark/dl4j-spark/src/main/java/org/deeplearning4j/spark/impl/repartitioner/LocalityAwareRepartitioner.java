@@ -0,0 +1,265 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.spark.impl.repartitioner;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.HashPartitioner;
+import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.function.FlatMapFunction2;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.storage.StorageLevel;
+import org.apache.spark.util.SizeEstimator;
+import org.deeplearning4j.spark.api.Repartitioner;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import scala.Tuple2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A {@link Repartitioner} that avoids a full network shuffle of the training data on every fit/epoch.<br>
+ * Other repartitioners (and {@link org.deeplearning4j.spark.api.RepartitionStrategy#Balanced}) redistribute every
+ * object across the cluster each time they are called. When training repeatedly on the same (persisted) RDD - for
+ * example the paths of exported minibatches - this repartitioner instead keeps the existing partitions, and hence
+ * their executor/data locality, and each epoch:<br>
+ * - Moves only a small random fraction ({@link #getCrossNodeFraction()}) of the objects to other partitions, via a
+ * (small) shuffle<br>
+ * - Randomly shuffles the order of the objects within each partition, which requires no network transfer<br>
+ * This gives different minibatch orders and compositions for each epoch, at a small fraction of the network cost.<br>
+ * Partition indices are preserved, and the object assignment for each epoch is persisted (and counted, as a Spark job)
+ * when the repartitioned RDD is created. Hence the scheduler runs each training task where the cached partition
+ * (and, if the input RDD is persisted, the input partition) is located.<br>
+ * The number of objects and the (estimated) number of bytes moved between partitions are recorded for each epoch
+ * (fit): see {@link #getBytesShuffledPerEpoch()}. If the repartitioner is used outside of a training master that calls
+ * {@link #fitStarted()}, each call to {@link #repartition(JavaRDD, int, int)} is treated as a new epoch.<br>
+ * <br>
+ * If the RDD has fewer partitions than the number of executors, it is first repartitioned using
+ * {@link DefaultRepartitioner}, so that all executors are used.
+ */
+@Slf4j
+public class LocalityAwareRepartitioner implements Repartitioner {
+    public static final double DEFAULT_CROSS_NODE_FRACTION = 0.05;
+
+    @Getter
+    private final double crossNodeFraction;
+    private final long seed;
+    @Getter
+    private int epochCount;
+    //Number of repartition calls in the current epoch, and whether epochs are started via fitStarted
+    private int repartitionCount;
+    private boolean externalEpochs;
+    private final List<Long> bytesShuffled = new ArrayList<>();
+    private final List<Long> objectsShuffled = new ArrayList<>();
+    //Persisted object assignment for the last repartition call: unpersisted once the next call is made
+    private transient JavaRDD<?> lastAssignment;
+
+    /**
+     * Create a LocalityAwareRepartitioner with the default cross node fraction, {@link #DEFAULT_CROSS_NODE_FRACTION}
+     */
+    public LocalityAwareRepartitioner() {
+        this(DEFAULT_CROSS_NODE_FRACTION);
+    }
+
+    /**
+     * @param crossNodeFraction Fraction of objects (0 to 1) to move to a different partition each epoch
+     */
+    public LocalityAwareRepartitioner(double crossNodeFraction) {
+        this(crossNodeFraction, new Random().nextLong());
+    }
+
+    /**
+     * @param crossNodeFraction Fraction of objects (0 to 1) to move to a different partition each epoch
+     * @param seed              RNG seed, for repeatable epoch plans
+     */
+    public LocalityAwareRepartitioner(double crossNodeFraction, long seed) {
+        if (crossNodeFraction < 0.0 || crossNodeFraction > 1.0)
+            throw new IllegalArgumentException("Cross node fraction must be between 0 and 1, got " + crossNodeFraction);
+        this.crossNodeFraction = crossNodeFraction;
+        this.seed = seed;
+    }
+
+    @Override
+    public void fitStarted() {
+        externalEpochs = true;
+        startEpoch();
+    }
+
+    private void startEpoch() {
+        if (epochCount > 0)
+            log.info("Epoch {}: {} objects ({} bytes) moved between partitions", epochCount - 1,
+                    objectsShuffled.get(epochCount - 1), bytesShuffled.get(epochCount - 1));
+        epochCount++;
+        repartitionCount = 0;
+        bytesShuffled.add(0L);
+        objectsShuffled.add(0L);
+    }
+
+    @Override
+    public <T> JavaRDD<T> repartition(JavaRDD<T> rdd, int minObjectsPerPartition, int numExecutors) {
+        if (!externalEpochs || epochCount == 0)
+            startEpoch();
+
+        if (rdd.partitions().size() < numExecutors) {
+            log.info("RDD has fewer partitions ({}) than executors ({}) - repartitioning with DefaultRepartitioner",
+                    rdd.partitions().size(), numExecutors);
+            rdd = new DefaultRepartitioner().repartition(rdd, minObjectsPerPartition, numExecutors);
+        }
+
+        int epoch = epochCount - 1;
+        int numPartitions = rdd.partitions().size();
+        long epochSeed = seed + 1000003L * epoch + 7919L * repartitionCount++;
+
+        if (lastAssignment != null) {
+            lastAssignment.unpersist(false);
+            lastAssignment = null;
+        }
+
+        if (crossNodeFraction == 0.0 || numPartitions == 1) {
+            //Local shuffle only - no network transfer
+            ShufflePartitionFunction<T> shuffle = new ShufflePartitionFunction<>(epochSeed);
+            return rdd.mapPartitions(iter -> shuffle.call(iter, Collections.emptyIterator()), true);
+        }
+
+        //Assignment is deterministic given the seed, but is persisted so that the (exact) count of moved objects and
+        // the training job use the same cached partitions, which also provide the scheduler's locality preferences
+        JavaRDD<Tuple2<Integer, T>> tagged = rdd.mapPartitionsWithIndex(
+                new AssignPartitionFunction<T>(crossNodeFraction, numPartitions, epochSeed), true);
+        tagged.persist(StorageLevel.MEMORY_ONLY());
+        lastAssignment = tagged;
+
+        Tuple2<Long, Long> counts = tagged.filter(t -> t._1() >= 0)
+                .map(t -> new Tuple2<>(1L, estimateBytes(t._2())))
+                .fold(new Tuple2<>(0L, 0L), (a, b) -> new Tuple2<>(a._1() + b._1(), a._2() + b._2()));
+        objectsShuffled.set(epoch, objectsShuffled.get(epoch) + counts._1());
+        bytesShuffled.set(epoch, bytesShuffled.get(epoch) + counts._2());
+
+        JavaRDD<T> local = tagged.filter(t -> t._1() < 0).map(Tuple2::_2);
+        JavaRDD<T> moved = JavaPairRDD.fromJavaRDD(tagged.filter(t -> t._1() >= 0))
+                .partitionBy(new HashPartitioner(numPartitions))
+                .values();
+        return local.zipPartitions(moved, new ShufflePartitionFunction<T>(epochSeed));
+    }
+
+    /**
+     * @return Estimated bytes moved between partitions (over the network) for each epoch so far
+     */
+    public List<Long> getBytesShuffledPerEpoch() {
+        return new ArrayList<>(bytesShuffled);
+    }
+
+    /**
+     * @return Number of objects moved between partitions for each epoch so far
+     */
+    public List<Long> getObjectsShuffledPerEpoch() {
+        return new ArrayList<>(objectsShuffled);
+    }
+
+    /**
+     * Estimate the serialized size of an object moved between partitions. Array data is counted directly for
+     * DataSets and MultiDataSets (as it is stored off-heap); for Strings (such as paths) the UTF-8 length is used.
+     */
+    protected static long estimateBytes(Object o) {
+        if (o instanceof String) {
+            return ((String) o).getBytes(StandardCharsets.UTF_8).length;
+        } else if (o instanceof DataSet) {
+            DataSet ds = (DataSet) o;
+            return bytes(ds.getFeatures()) + bytes(ds.getLabels()) + bytes(ds.getFeaturesMaskArray()) + bytes(ds.getLabelsMaskArray());
+        } else if (o instanceof MultiDataSet) {
+            MultiDataSet mds = (MultiDataSet) o;
+            return bytes(mds.getFeatures()) + bytes(mds.getLabels()) + bytes(mds.getFeaturesMaskArrays()) + bytes(mds.getLabelsMaskArrays());
+        }
+        return SizeEstimator.estimate(o);
+    }
+
+    private static long bytes(INDArray... arrays) {
+        long sum = 0;
+        if (arrays != null) {
+            for (INDArray arr : arrays) {
+                if (arr != null)
+                    sum += arr.length() * arr.dataType().width();
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "LocalityAwareRepartitioner(crossNodeFraction=" + crossNodeFraction + ")";
+    }
+
+    /**
+     * Assigns each object a target partition: -1 (stay in current partition) or a different partition index
+     */
+    private static class AssignPartitionFunction<T> implements Function2<Integer, Iterator<T>, Iterator<Tuple2<Integer, T>>> {
+        private final double crossNodeFraction;
+        private final int numPartitions;
+        private final long seed;
+
+        private AssignPartitionFunction(double crossNodeFraction, int numPartitions, long seed) {
+            this.crossNodeFraction = crossNodeFraction;
+            this.numPartitions = numPartitions;
+            this.seed = seed;
+        }
+
+        @Override
+        public Iterator<Tuple2<Integer, T>> call(Integer partitionIdx, Iterator<T> iter) {
+            Random r = new Random(seed + 31L * partitionIdx);
+            List<Tuple2<Integer, T>> out = new ArrayList<>();
+            while (iter.hasNext()) {
+                T next = iter.next();
+                int target = -1;
+                if (numPartitions > 1 && r.nextDouble() < crossNodeFraction) {
+                    //Pick uniformly among the other partitions
+                    target = r.nextInt(numPartitions - 1);
+                    if (target >= partitionIdx)
+                        target++;
+                }
+                out.add(new Tuple2<>(target, next));
+            }
+            return out.iterator();
+        }
+    }
+
+    /**
+     * Combines the local and moved objects for a partition, in random order
+     */
+    private static class ShufflePartitionFunction<T> implements FlatMapFunction2<Iterator<T>, Iterator<T>, T> {
+        private final long seed;
+
+        private ShufflePartitionFunction(long seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public Iterator<T> call(Iterator<T> local, Iterator<T> moved) {
+            List<T> out = new ArrayList<>();
+            local.forEachRemaining(out::add);
+            moved.forEachRemaining(out::add);
+            Collections.shuffle(out, new Random(seed ^ (0x5DEECE66DL * (TaskContext.getPartitionId() + 1))));
+            return out.iterator();
+        }
+    }
+}
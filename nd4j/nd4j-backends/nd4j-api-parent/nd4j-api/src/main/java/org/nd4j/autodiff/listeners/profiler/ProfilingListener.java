@@ -26,14 +26,18 @@ import org.nd4j.autodiff.listeners.At;
 import org.nd4j.autodiff.listeners.BaseListener;
 import org.nd4j.autodiff.listeners.Loss;
 import org.nd4j.autodiff.listeners.Operation;
+import org.nd4j.autodiff.listeners.profiler.data.OpExecutionEvent;
 import org.nd4j.autodiff.listeners.profiler.data.Phase;
 import org.nd4j.autodiff.listeners.profiler.data.TraceEvent;
 import org.nd4j.autodiff.samediff.SameDiff;
 import org.nd4j.autodiff.samediff.internal.SameDiffOp;
+import org.nd4j.autodiff.samediff.internal.memory.MemoryMgrStats;
 import org.nd4j.common.base.Preconditions;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.OpContext;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.common.primitives.AtomicBoolean;
 import org.nd4j.shade.jackson.databind.DeserializationFeature;
 import org.nd4j.shade.jackson.databind.MapperFeature;
@@ -46,16 +50,35 @@ import java.util.*;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 
+/**
+ * SameDiff listener that records op execution times in the Chrome trace event format (JSON array format), for
+ * viewing in chrome://tracing or for analysis with {@link org.nd4j.autodiff.listeners.profiler.comparison.ProfileAnalyzer}.<br>
+ * Events are handed to a background thread via a bounded queue and are written and flushed to disk in chunks, so memory
+ * use is bounded regardless of how long profiling runs for.<br>
+ * When memory recording is enabled (default), each op event also includes the following args:<br>
+ * - inputBytes / outputBytes: total size of the op's input and output arrays<br>
+ * - allocBytes / allocs / cacheHits / cacheHitBytes: {@link org.nd4j.autodiff.samediff.internal.SessionMemMgr} allocations
+ * attributed to the op (i.e., made since the previous profiled op finished, which includes allocation of this op's outputs)<br>
+ * - workspaceBytes: bytes allocated in the current workspace (if any) during op execution<br>
+ * Optionally a {@link OpExecutionEvent} JFR event can be emitted for each op, for correlation with GC and CPU samples.
+ */
 @Getter
 @Slf4j
 public class ProfilingListener extends BaseListener {
 
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 10_000;
+    public static final int DEFAULT_FLUSH_CHUNK_SIZE = 1_000;
+
     private final File outputFile;
     private final boolean all;
     private final int warmup;
     private final int nIter;
     private final long nMs;
     private final Operation[] operations;
+    private final int maxQueueSize;
+    private final int flushChunkSize;
+    private final boolean recordMemory;
+    private final boolean emitJfr;
 
     private final long pid;
     private final long tid;
@@ -63,6 +86,10 @@ public class ProfilingListener extends BaseListener {
     private int countTotalIter = 0;
     private boolean logActive = false;
     private long opStartNano;
+    private MemoryMgrStats memStatsAtLastOp;
+    private MemoryWorkspace opWorkspace;
+    private long opWorkspaceStartBytes;
+    private OpExecutionEvent jfrEvent;
 
     private Writer writer;
     private ObjectMapper json;
@@ -72,13 +99,24 @@ public class ProfilingListener extends BaseListener {
     private final AtomicBoolean writing = new AtomicBoolean(false);
 
     protected ProfilingListener(@NonNull File outputFile, boolean all, int warmup, int nIter, long nMs, Operation[] operations) {
+        this(outputFile, all, warmup, nIter, nMs, operations, DEFAULT_MAX_QUEUE_SIZE, DEFAULT_FLUSH_CHUNK_SIZE, true, false);
+    }
+
+    protected ProfilingListener(@NonNull File outputFile, boolean all, int warmup, int nIter, long nMs, Operation[] operations,
+                                int maxQueueSize, int flushChunkSize, boolean recordMemory, boolean emitJfr) {
         Preconditions.checkArgument(!outputFile.exists(), "Output file already exists: %s", outputFile);
+        Preconditions.checkArgument(maxQueueSize > 0, "Max queue size must be positive, got %s", maxQueueSize);
+        Preconditions.checkArgument(flushChunkSize > 0, "Flush chunk size must be positive, got %s", flushChunkSize);
         this.outputFile = outputFile;
         this.all = all;
         this.warmup = warmup;
         this.nIter = nIter;
         this.nMs = nMs;
         this.operations = operations;
+        this.maxQueueSize = maxQueueSize;
+        this.flushChunkSize = flushChunkSize;
+        this.recordMemory = recordMemory;
+        this.emitJfr = emitJfr;
 
         this.pid = getProcessId();
         this.tid = Thread.currentThread().getId();
@@ -93,7 +131,8 @@ public class ProfilingListener extends BaseListener {
         this.json = jsonMapper();
 
         //Set up a queue so file access doesn't add latency to the execution thread
-        writeQueue = new LinkedBlockingDeque<>();
+        //The queue is bounded: if the writer can't keep up, the execution thread blocks rather than buffering unbounded events
+        writeQueue = new LinkedBlockingDeque<>(maxQueueSize);
         fileWritingThread = new Thread(new Runnable() {
             @Override
             public void run() {
@@ -105,16 +144,23 @@ public class ProfilingListener extends BaseListener {
             }
 
             public void runHelper() throws Exception {
+                List<TraceEvent> chunk = new ArrayList<>(flushChunkSize);
                 while (true) {
                     TraceEvent te = writeQueue.take();    //Blocking
                     writing.set(true);
                     try {
-                        String j = json.writeValueAsString(te);
-                        writer.append(j);
-                        writer.append(",\n");
+                        //Write events in bounded chunks, flushing each chunk to disk
+                        chunk.add(te);
+                        writeQueue.drainTo(chunk, flushChunkSize - 1);
+                        for (TraceEvent e : chunk) {
+                            writer.append(json.writeValueAsString(e));
+                            writer.append(",\n");
+                        }
+                        writer.flush();
                     } catch (IOException e) {
                         throw new RuntimeException(e);
                     } finally {
+                        chunk.clear();
                         writing.set(false);
                     }
                 }
@@ -132,6 +178,9 @@ public class ProfilingListener extends BaseListener {
     @Override
     public void operationStart(SameDiff sd, Operation op) {
         this.logActive = operations == null || ArrayUtils.contains(operations, op);
+        if (logActive && recordMemory) {
+            memStatsAtLastOp = MemoryMgrStats.snapshot();
+        }
     }
 
     @Override
@@ -173,6 +222,16 @@ public class ProfilingListener extends BaseListener {
 
             if(!all && nMs > 0 && firstOpStart == null)
                 firstOpStart = opStartNano;
+
+            if (recordMemory) {
+                opWorkspace = Nd4j.getMemoryManager().getCurrentWorkspace();
+                opWorkspaceStartBytes = opWorkspace == null ? 0 : opWorkspace.getThisCycleAllocations();
+            }
+
+            if (emitJfr) {
+                jfrEvent = new OpExecutionEvent();
+                jfrEvent.begin();
+            }
         }
     }
 
@@ -181,6 +240,13 @@ public class ProfilingListener extends BaseListener {
         if (logActive) {
             long now = System.nanoTime();
 
+            MemoryMgrStats memStats = null;
+            if (recordMemory) {
+                MemoryMgrStats current = MemoryMgrStats.snapshot();
+                memStats = memStatsAtLastOp == null ? null : current.since(memStatsAtLastOp);
+                memStatsAtLastOp = current;
+            }
+
             if (warmup > 0 && countTotalIter < warmup) {
                 return;     //Skip due to warmup phase
             }
@@ -209,11 +275,74 @@ public class ProfilingListener extends BaseListener {
                     .pid((int)pid)
                     .tid(tid)
                     .ph(Phase.X)
-                    .args(Collections.<String, Object>singletonMap("name", op.getName()))
+                    .args(recordMemory ? memoryArgs(op, opContext, outputs, memStats) : Collections.<String, Object>singletonMap("name", op.getName()))
                     .build();
 
-            writeQueue.add(event);
+            if (emitJfr && jfrEvent != null) {
+                commitJfrEvent(op, at, event.getArgs());
+            }
+
+            try {
+                writeQueue.put(event);      //Blocks if the writer thread has fallen too far behind
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    protected Map<String, Object> memoryArgs(SameDiffOp op, OpContext opContext, INDArray[] outputs, MemoryMgrStats memStats) {
+        Map<String, Object> args = new LinkedHashMap<>();
+        args.put("name", op.getName());
+        args.put("inputBytes", opContext == null ? 0L : totalBytes(opContext.getInputArrays()));
+        args.put("outputBytes", outputs == null ? 0L : totalBytes(Arrays.asList(outputs)));
+        if (memStats != null) {
+            args.put("allocBytes", memStats.getAllocatedBytes());
+            args.put("allocs", memStats.getAllocations());
+            args.put("cacheHits", memStats.getCacheHits());
+            args.put("cacheHitBytes", memStats.getCacheHitBytes());
+        }
+        MemoryWorkspace ws = Nd4j.getMemoryManager().getCurrentWorkspace();
+        if (ws != null && ws == opWorkspace) {
+            args.put("workspaceBytes", Math.max(0, ws.getThisCycleAllocations() - opWorkspaceStartBytes));
+        }
+        return args;
+    }
+
+    private void commitJfrEvent(SameDiffOp op, At at, Map<String, Object> args) {
+        OpExecutionEvent e = jfrEvent;
+        jfrEvent = null;
+        e.end();
+        if (e.shouldCommit()) {
+            e.name = op.getName();
+            e.opName = op.getOp().opName();
+            e.operation = at.operation() == null ? null : at.operation().name();
+            e.iteration = at.iteration();
+            e.inputBytes = longArg(args, "inputBytes");
+            e.outputBytes = longArg(args, "outputBytes");
+            e.allocatedBytes = longArg(args, "allocBytes");
+            e.allocations = longArg(args, "allocs");
+            e.cacheHits = longArg(args, "cacheHits");
+            e.workspaceBytes = longArg(args, "workspaceBytes");
+            e.commit();
+        }
+    }
+
+    private static long longArg(Map<String, Object> args, String key) {
+        Object o = args == null ? null : args.get(key);
+        return o instanceof Number ? ((Number) o).longValue() : 0L;
+    }
+
+    private static long totalBytes(List<INDArray> arrays) {
+        if (arrays == null)
+            return 0;
+        long bytes = 0;
+        for (INDArray arr : arrays) {
+            if (arr != null && !arr.isEmpty()) {
+                bytes += arr.length() * arr.dataType().width();
+            }
         }
+        return bytes;
     }
 
 
@@ -266,6 +395,10 @@ public class ProfilingListener extends BaseListener {
         private int nIter = -1;
         private long nMs = -1;
         private Operation[] operations;
+        private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+        private int flushChunkSize = DEFAULT_FLUSH_CHUNK_SIZE;
+        private boolean recordMemory = true;
+        private boolean emitJfr = false;
 
         public Builder(@NonNull File outputFile) {
             this.outputFile = outputFile;
@@ -319,11 +452,45 @@ public class ProfilingListener extends BaseListener {
             return this;
         }
 
+        /**
+         * Maximum number of events that may be queued for writing to disk. If the file writing thread falls this far
+         * behind, op execution blocks until it catches up. Default: {@link #DEFAULT_MAX_QUEUE_SIZE}
+         */
+        public Builder maxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * Maximum number of events written to the file before it is flushed to disk. Default: {@link #DEFAULT_FLUSH_CHUNK_SIZE}
+         */
+        public Builder flushChunkSize(int flushChunkSize) {
+            this.flushChunkSize = flushChunkSize;
+            return this;
+        }
+
+        /**
+         * Whether to record input/output sizes and session memory manager/workspace allocations for each op. Default: true
+         */
+        public Builder recordMemory(boolean recordMemory) {
+            this.recordMemory = recordMemory;
+            return this;
+        }
+
+        /**
+         * Whether to emit an {@link OpExecutionEvent} Java Flight Recorder event for each profiled op, in addition to
+         * writing the trace file. Default: false
+         */
+        public Builder emitJfrEvents(boolean emitJfr) {
+            this.emitJfr = emitJfr;
+            return this;
+        }
+
         /**
          * Create the profiling listener
          */
         public ProfilingListener build() {
-            return new ProfilingListener(outputFile, all, warmup, nIter, nMs, operations);
+            return new ProfilingListener(outputFile, all, warmup, nIter, nMs, operations, maxQueueSize, flushChunkSize, recordMemory, emitJfr);
         }
     }
 }
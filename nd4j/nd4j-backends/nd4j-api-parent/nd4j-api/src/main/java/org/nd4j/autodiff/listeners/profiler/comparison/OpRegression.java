@@ -0,0 +1,51 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.autodiff.listeners.profiler.comparison;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An op whose mean execution time and/or mean memory allocation regressed between two profiles.
+ * See {@link ProfileAnalyzer#findRegressions(java.io.File, java.io.File, ProfileAnalyzer.ProfileFormat, double, double)}
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class OpRegression {
+    private String opInstanceName;
+    private String opName;
+    private double meanUsBaseline;
+    private double meanUsCurrent;
+    private double timeRatio;                   //Current / baseline
+    private double meanAllocBytesBaseline;      //-1 if not recorded
+    private double meanAllocBytesCurrent;       //-1 if not recorded
+    private double memoryRatio;                 //Current / baseline, NaN if not recorded
+    private boolean timeRegressed;
+    private boolean memoryRegressed;
+
+    /**
+     * @return The larger of the time and memory ratios
+     */
+    public double maxRatio() {
+        return Double.isNaN(memoryRatio) ? timeRatio : Math.max(timeRatio, memoryRatio);
+    }
+}
@@ -33,4 +33,18 @@ public class OpStats {
     private int count;
     private NDArrayList timesUs;
     private Long sumUs;
+    private long sumOutputBytes;    //Only available for profiles recorded with memory recording enabled
+    private long sumAllocBytes;     //Only available for profiles recorded with memory recording enabled
+    private long memoryRecords;     //Number of events that had memory information
+
+    public OpStats(String opInstanceName, String opName, int count, NDArrayList timesUs, Long sumUs) {
+        this(opInstanceName, opName, count, timesUs, sumUs, 0, 0, 0);
+    }
+
+    /**
+     * @return Mean session memory manager + workspace allocation bytes per execution, or -1 if no memory information was recorded
+     */
+    public double meanAllocBytes() {
+        return memoryRecords == 0 ? -1 : sumAllocBytes / (double) memoryRecords;
+    }
 }
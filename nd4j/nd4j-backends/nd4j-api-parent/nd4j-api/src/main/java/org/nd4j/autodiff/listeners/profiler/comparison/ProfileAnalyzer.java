@@ -351,6 +351,13 @@ public class ProfileAnalyzer {
             }
             s.setCount(s.getCount() + 1);
             s.getTimesUs().add((double) e.getDur());
+
+            Map<String, Object> args = e.getArgs();
+            if (args.containsKey("outputBytes") || args.containsKey("allocBytes")) {
+                s.setMemoryRecords(s.getMemoryRecords() + 1);
+                s.setSumOutputBytes(s.getSumOutputBytes() + longArg(args, "outputBytes"));
+                s.setSumAllocBytes(s.getSumAllocBytes() + longArg(args, "allocBytes") + longArg(args, "workspaceBytes"));
+            }
         }
 
         long allOpsUs = 0;
@@ -551,6 +558,101 @@ public class ProfileAnalyzer {
         return sb.toString();
     }
 
+    private static long longArg(Map<String, Object> args, String key) {
+        Object o = args.get(key);
+        return o instanceof Number ? ((Number) o).longValue() : 0L;
+    }
+
+    /**
+     * Diff two profiles (for example, before and after a change) and return the ops whose mean execution time or
+     * mean memory allocation regressed by more than the specified thresholds.<br>
+     * Memory is only compared for ops where both profiles were recorded with memory recording enabled - see
+     * {@link ProfilingListener.Builder#recordMemory(boolean)}
+     *
+     * @param baseline        Baseline profile file
+     * @param current         Profile to check for regressions
+     * @param format          Format of both profiles
+     * @param timeThreshold   Ratio of mean times (current / baseline) above which an op is flagged. For example, 1.1 flags
+     *                        ops that are more than 10% slower
+     * @param memoryThreshold Ratio of mean allocated bytes (current / baseline) above which an op is flagged
+     * @return Regressed ops, sorted by the largest time or memory ratio first
+     */
+    public static List<OpRegression> findRegressions(@NonNull File baseline, @NonNull File current, @NonNull ProfileFormat format,
+                                                     double timeThreshold, double memoryThreshold) {
+        return findRegressions(getTraceEvents(baseline, format), getTraceEvents(current, format), timeThreshold, memoryThreshold);
+    }
+
+    /**
+     * As per {@link #findRegressions(File, File, ProfileFormat, double, double)} but for already loaded trace events
+     */
+    public static List<OpRegression> findRegressions(@NonNull TraceEvent[] baseline, @NonNull TraceEvent[] current,
+                                                     double timeThreshold, double memoryThreshold) {
+        Map<String, OpStats> s1 = aggregateTraceEvents(baseline).getSecond();
+        Map<String, OpStats> s2 = aggregateTraceEvents(current).getSecond();
+
+        List<OpRegression> out = new ArrayList<>();
+        for (Map.Entry<String, OpStats> e : s2.entrySet()) {
+            OpStats before = s1.get(e.getKey());
+            if (before == null)
+                continue;   //New op - nothing to compare against
+            OpStats after = e.getValue();
+
+            double meanUs1 = before.getSumUs() / (double) before.getCount();
+            double meanUs2 = after.getSumUs() / (double) after.getCount();
+            double timeRatio = meanUs2 / Math.max(meanUs1, 1.0);
+
+            double mem1 = before.meanAllocBytes();
+            double mem2 = after.meanAllocBytes();
+            boolean hasMem = mem1 >= 0 && mem2 >= 0;
+            double memRatio = hasMem ? (mem2 / Math.max(mem1, 1.0)) : Double.NaN;
+
+            boolean timeRegressed = timeRatio > timeThreshold;
+            boolean memRegressed = hasMem && memRatio > memoryThreshold;
+            if (timeRegressed || memRegressed) {
+                out.add(new OpRegression(e.getKey(), after.getOpName(), meanUs1, meanUs2, timeRatio,
+                        mem1, mem2, memRatio, timeRegressed, memRegressed));
+            }
+        }
+
+        Collections.sort(out, new Comparator<OpRegression>() {
+            @Override
+            public int compare(OpRegression o1, OpRegression o2) {
+                return -Double.compare(o1.maxRatio(), o2.maxRatio());
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Diff two profiles and return a human readable summary of the ops that regressed, as per
+     * {@link #findRegressions(File, File, ProfileFormat, double, double)}
+     */
+    public static String regressionReport(@NonNull File baseline, @NonNull File current, @NonNull ProfileFormat format,
+                                          double timeThreshold, double memoryThreshold) {
+        List<OpRegression> l = findRegressions(baseline, current, format, timeThreshold, memoryThreshold);
+        if (l.isEmpty()) {
+            return "No regressions found (time threshold: " + timeThreshold + ", memory threshold: " + memoryThreshold + ")\n";
+        }
+
+        int longestName = 30;
+        int longestOpName = 30;
+        for (OpRegression r : l) {
+            longestName = Math.max(longestName, r.getOpInstanceName().length() + 1);
+            longestOpName = Math.max(longestOpName, r.getOpName().length() + 1);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        String headerFormat = "%-" + longestName + "s%-" + longestOpName + "s%-14s%-14s%-12s%-16s%-16s%-12s%-10s\n";
+        String format1 = "%-" + longestName + "s%-" + longestOpName + "s%-14.2f%-14.2f%-12.2f%-16.0f%-16.0f%-12.2f%-10s\n";
+        sb.append(String.format(headerFormat, "Op Name", "Op", "Mean uS (1)", "Mean uS (2)", "Time 2/1", "Mean Alloc (1)", "Mean Alloc (2)", "Alloc 2/1", "Flags"));
+        for (OpRegression r : l) {
+            String flags = (r.isTimeRegressed() ? "TIME " : "") + (r.isMemoryRegressed() ? "MEM" : "");
+            sb.append(String.format(format1, r.getOpInstanceName(), r.getOpName(), r.getMeanUsBaseline(), r.getMeanUsCurrent(),
+                    r.getTimeRatio(), r.getMeanAllocBytesBaseline(), r.getMeanAllocBytesCurrent(), r.getMemoryRatio(), flags.trim()));
+        }
+        return sb.toString();
+    }
+
     private static double meanTime(Pair<Long, Map<String, OpStats>> p, String name) {
         if (!p.getSecond().containsKey(name)) {
             return 0.0;
@@ -0,0 +1,75 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.autodiff.listeners.profiler.data;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted by {@link org.nd4j.autodiff.listeners.profiler.ProfilingListener} for each
+ * profiled op execution. Recording these alongside the standard JDK events allows op timings and memory use to be
+ * correlated with GC pauses and CPU samples in JDK Mission Control.<br>
+ * Events are only recorded while a JFR recording with the "org.nd4j.OpExecution" event enabled is active.
+ */
+@Name("org.nd4j.OpExecution")
+@Label("SameDiff Op Execution")
+@Category({"ND4J", "SameDiff"})
+@Description("Execution of a single SameDiff op")
+@StackTrace(false)
+public class OpExecutionEvent extends jdk.jfr.Event {
+
+    @Label("Op Instance Name")
+    public String name;
+
+    @Label("Op Name")
+    public String opName;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Iteration")
+    public int iteration;
+
+    @Label("Input Bytes")
+    @DataAmount
+    public long inputBytes;
+
+    @Label("Output Bytes")
+    @DataAmount
+    public long outputBytes;
+
+    @Label("Session Allocated Bytes")
+    @DataAmount
+    public long allocatedBytes;
+
+    @Label("Session Allocations")
+    public long allocations;
+
+    @Label("Session Cache Hits")
+    public long cacheHits;
+
+    @Label("Workspace Bytes")
+    @DataAmount
+    public long workspaceBytes;
+}
@@ -42,6 +42,7 @@ import org.nd4j.autodiff.samediff.array.SingleThreadArrayHolder;
 import org.nd4j.autodiff.samediff.array.ThreadSafeArrayHolder;
 import org.nd4j.autodiff.samediff.config.*;
 import org.nd4j.autodiff.samediff.internal.*;
+import org.nd4j.autodiff.samediff.internal.memory.BucketedMemoryMgr;
 import org.nd4j.autodiff.samediff.ops.*;
 import org.nd4j.autodiff.samediff.serde.FlatBuffersMapper;
 import org.nd4j.common.base.Preconditions;
@@ -154,6 +155,22 @@ public class SameDiff extends SDBaseOps {
     @Setter
     private boolean enableCache = true;
 
+    /**
+     * If true: inference sessions created after this is set use a {@link org.nd4j.autodiff.samediff.internal.memory.StaticMemoryPlanMgr},
+     * which plans all intermediate arrays into a preallocated arena after the first execution. Suitable for repeated
+     * inference with fixed input shapes.
+     */
+    @Getter
+    @Setter
+    private boolean staticMemoryPlanning = false;
+
+    /**
+     * Shape bucketing configuration for variable-length inference - see {@link ShapeBucketConfig}. Null (default) for
+     * no bucketing.
+     */
+    @Getter
+    private ShapeBucketConfig shapeBucketConfig;
+
     ///////////////////////////////////////
     //Fields related to training
     @Getter
@@ -410,6 +427,21 @@ public class SameDiff extends SDBaseOps {
         return this;
     }
 
+    /**
+     * Set the shape bucketing configuration for inference with variable-length inputs. See {@link ShapeBucketConfig}.<br>
+     * Existing inference sessions are closed and discarded, so that new sessions use a {@link BucketedMemoryMgr}.
+     * Should not be called while inference is in progress on other threads.
+     *
+     * @param shapeBucketConfig Shape bucketing configuration. May be null to disable bucketing
+     */
+    public void setShapeBucketConfig(ShapeBucketConfig shapeBucketConfig) {
+        this.shapeBucketConfig = shapeBucketConfig;
+        for (InferenceSession s : sessions.values()) {
+            s.getMmgr().close();
+        }
+        sessions.clear();
+    }
+
     /**
      * Set the current SameDiff-wide {@link Listener} instances.
      *
@@ -3018,13 +3050,27 @@ public class SameDiff extends SDBaseOps {
         //Placeholder validation is performed in InferenceSession
 
         InferenceSession is = sessions.get(threadId);
-        return is.output(outputs == null ? Collections.emptyList() : Arrays.asList(outputs),
+        ShapeBucketConfig.BucketedInput bucketed = null;
+        if(shapeBucketConfig != null && placeholders != null && !placeholders.isEmpty()) {
+            bucketed = shapeBucketConfig.apply(this, placeholders);
+            //Only the padded/generated arrays are ours; the closeable flag of the caller's arrays is left as is
+            for(Map.Entry<String,INDArray> e : bucketed.getPlaceholders().entrySet()) {
+                if(e.getValue() != null && e.getValue() != placeholders.get(e.getKey()))
+                    e.getValue().setCloseable(false);
+            }
+            placeholders = bucketed.getPlaceholders();
+            if(is.getMmgr() instanceof BucketedMemoryMgr)
+                ((BucketedMemoryMgr) is.getMmgr()).setBucket(bucketed.getKey());
+        }
+
+        ExecutionResult result = is.output(outputs == null ? Collections.emptyList() : Arrays.asList(outputs),
                 placeholders,
                 otherPlaceHolders,
                 batch,
                 requiredActivations,
                 activeListeners,
                 at);
+        return bucketed == null ? result : shapeBucketConfig.crop(result, bucketed);
     }
 
 
@@ -0,0 +1,342 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.autodiff.samediff.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.internal.memory.BucketedMemoryMgr;
+import org.nd4j.common.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.*;
+
+/**
+ * Configuration for shape-bucketed inference with variable-length inputs (for example, sequences of varying length).<br>
+ * Without bucketing, every distinct input shape results in a different sequence of intermediate array shapes, which
+ * defeats memory planning and array reuse. With bucketing, the configured placeholder dimensions are rounded up to the
+ * next bucket size and padded, so only a small number of distinct shapes is ever executed. Each bucket gets its own
+ * memory plan and arena, cached with LRU eviction (see {@link BucketedMemoryMgr}).<br>
+ * <br>
+ * Padding changes the values seen by the graph, so the configuration also describes how to compensate for it:
+ * <ul>
+ *     <li>{@link Builder#mask(String, String, int)}: a mask placeholder (1 for valid positions, 0 for padding) that is
+ *     generated (or padded with zeros, if provided by the user) to match the bucketed length</li>
+ *     <li>{@link Builder#crop(String, int, String, int)}: outputs that are cropped back to the original length</li>
+ * </ul>
+ * Example, for an input "in" with shape [minibatch, length, features] and an output "out" with shape [minibatch, length, n]:
+ * <pre>
+ * {@code
+ * sd.setShapeBucketConfig(ShapeBucketConfig.builder()
+ *         .bucket("in", 1, 16, 32, 64, 128)
+ *         .mask("inMask", "in", 1)
+ *         .crop("out", 1, "in", 1)
+ *         .build());
+ * }
+ * </pre>
+ * Sizes larger than the largest bucket are not padded.
+ */
+@Slf4j
+@Getter
+public class ShapeBucketConfig {
+
+    private final Map<String,Map<Integer,long[]>> buckets;
+    private final Map<String,Double> padValues;
+    private final List<MaskRule> masks;
+    private final List<CropRule> crops;
+    private final int maxBuckets;
+
+    private ShapeBucketConfig(Builder b){
+        this.buckets = b.buckets;
+        this.padValues = b.padValues;
+        this.masks = b.masks;
+        this.crops = b.crops;
+        this.maxBuckets = b.maxBuckets;
+    }
+
+    public static Builder builder(){
+        return new Builder();
+    }
+
+    /**
+     * @return The bucketed size for the given placeholder dimension: the smallest bucket that is >= size, or size
+     * itself if no buckets are configured for the dimension, or if size exceeds the largest bucket
+     */
+    public long bucketSize(String placeholder, int dimension, long size){
+        Map<Integer,long[]> m = buckets.get(placeholder);
+        long[] b = m == null ? null : m.get(dimension);
+        if(b == null)
+            return size;
+        for(long l : b){
+            if(l >= size)
+                return l;
+        }
+        return size;
+    }
+
+    /**
+     * Pad placeholders up to their bucket sizes, and generate/pad mask placeholders
+     *
+     * @param sd           SameDiff instance (used for the datatype of generated masks)
+     * @param placeholders Placeholder arrays, as provided by the user
+     * @return The bucketed placeholders, along with the original shapes and the bucket key
+     */
+    public BucketedInput apply(@NonNull SameDiff sd, @NonNull Map<String,INDArray> placeholders){
+        Map<String,long[]> originalShapes = new HashMap<>();
+        Map<String,INDArray> out = new LinkedHashMap<>(placeholders);
+        for(Map.Entry<String,INDArray> e : placeholders.entrySet()){
+            if(e.getValue() != null)
+                originalShapes.put(e.getKey(), e.getValue().shape());
+        }
+
+        try(MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            for (Map.Entry<String, Map<Integer, long[]>> e : buckets.entrySet()) {
+                INDArray arr = placeholders.get(e.getKey());
+                if (arr == null)
+                    continue;
+                long[] shape = arr.shape();
+                long[] padded = shape.clone();
+                for (Integer d : e.getValue().keySet()) {
+                    Preconditions.checkState(d >= 0 && d < shape.length, "Invalid bucket dimension %s for placeholder \"%s\" with shape %ndShape",
+                            d, e.getKey(), arr);
+                    padded[d] = bucketSize(e.getKey(), d, shape[d]);
+                }
+                out.put(e.getKey(), pad(arr, padded, padValues.getOrDefault(e.getKey(), 0.0)));
+            }
+
+            for (MaskRule r : masks) {
+                long[] srcShape = originalShapes.get(r.getSource());
+                if (srcShape == null)
+                    continue;
+                long length = srcShape[r.getDimension()];
+                long bucketLength = bucketSize(r.getSource(), r.getDimension(), length);
+                int maskDim = r.getMaskDimension();
+                INDArray mask = placeholders.get(r.getMask());
+                if (mask == null) {
+                    DataType dt = sd.hasVariable(r.getMask()) ? sd.getVariable(r.getMask()).dataType() : DataType.FLOAT;
+                    long[] maskShape = new long[maskDim + 1];
+                    Arrays.fill(maskShape, 1);
+                    maskShape[0] = srcShape[0];
+                    maskShape[maskDim] = length;
+                    mask = Nd4j.ones(dt, maskShape);
+                }
+                Preconditions.checkState(maskDim < mask.rank() && mask.size(maskDim) == length,
+                        "Mask \"%s\": expected size %s (length of placeholder \"%s\") for dimension %s, got mask with shape %ndShape",
+                        r.getMask(), length, r.getSource(), maskDim, mask);
+                long[] padded = mask.shape().clone();
+                padded[maskDim] = bucketLength;
+                out.put(r.getMask(), pad(mask, padded, 0.0));
+            }
+        }
+
+        //Key: all placeholder shapes after padding - identifies the allocation sequence for the memory plan
+        StringBuilder sb = new StringBuilder();
+        for(String s : new TreeSet<>(out.keySet())){
+            INDArray arr = out.get(s);
+            if(arr != null)
+                sb.append(s).append(":").append(arr.dataType()).append(Arrays.toString(arr.shape())).append(";");
+        }
+        return new BucketedInput(out, originalShapes, sb.toString());
+    }
+
+    protected static INDArray pad(INDArray arr, long[] paddedShape, double padValue){
+        if(Arrays.equals(arr.shape(), paddedShape))
+            return arr;
+        INDArray out = Nd4j.create(arr.dataType(), paddedShape);
+        if(padValue != 0.0)
+            out.assign(padValue);
+        INDArrayIndex[] idx = new INDArrayIndex[paddedShape.length];
+        for(int i = 0; i < idx.length; i++)
+            idx[i] = NDArrayIndex.interval(0, arr.size(i));
+        out.get(idx).assign(arr);
+        return out;
+    }
+
+    /**
+     * Crop the configured outputs back to the original (pre-bucketing) lengths
+     *
+     * @param result Result of executing the graph on the bucketed placeholders
+     * @param input  The bucketed input, as returned by {@link #apply(SameDiff, Map)}
+     * @return The result with cropped outputs
+     */
+    public ExecutionResult crop(@NonNull ExecutionResult result, @NonNull BucketedInput input){
+        if(crops.isEmpty())
+            return result;
+        //Result maps may be immutable (for example, singleton maps) so copy before modifying
+        Map<String,Optional<INDArray>> outputs = result.getOutputs() == null ? null : new LinkedHashMap<>(result.getOutputs());
+        Map<String,SDValue> valueOutputs = result.getValueOutputs() == null ? null : new LinkedHashMap<>(result.getValueOutputs());
+        for(CropRule r : crops){
+            long[] srcShape = input.getOriginalShapes().get(r.getSource());
+            if(srcShape == null)
+                continue;
+            long length = srcShape[r.getSourceDimension()];
+            if(outputs != null){
+                Optional<INDArray> o = outputs.get(r.getOutput());
+                if(o != null && o.isPresent())
+                    outputs.put(r.getOutput(), Optional.of(crop(o.get(), r.getDimension(), length)));
+            }
+            if(valueOutputs != null){
+                SDValue v = valueOutputs.get(r.getOutput());
+                if(v != null && v.getSdValueType() == SDValueType.TENSOR)
+                    valueOutputs.put(r.getOutput(), SDValue.create(crop(v.getTensorValue(), r.getDimension(), length)));
+            }
+        }
+        result.setOutputs(outputs);
+        result.setValueOutputs(valueOutputs);
+        return result;
+    }
+
+    protected static INDArray crop(INDArray arr, int dimension, long length){
+        if(arr.rank() <= dimension || arr.size(dimension) <= length)
+            return arr;
+        INDArrayIndex[] idx = new INDArrayIndex[arr.rank()];
+        for(int i = 0; i < idx.length; i++)
+            idx[i] = i == dimension ? NDArrayIndex.interval(0, length) : NDArrayIndex.all();
+        return arr.get(idx).dup();
+    }
+
+    /**
+     * Placeholders after bucketing
+     */
+    @Data
+    @AllArgsConstructor
+    public static class BucketedInput {
+        private Map<String,INDArray> placeholders;
+        private Map<String,long[]> originalShapes;
+        private String key;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class MaskRule {
+        private String mask;
+        private String source;
+        private int dimension;
+        private int maskDimension;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class CropRule {
+        private String output;
+        private int dimension;
+        private String source;
+        private int sourceDimension;
+    }
+
+    public static class Builder {
+        private Map<String,Map<Integer,long[]>> buckets = new LinkedHashMap<>();
+        private Map<String,Double> padValues = new HashMap<>();
+        private List<MaskRule> masks = new ArrayList<>();
+        private List<CropRule> crops = new ArrayList<>();
+        private int maxBuckets = BucketedMemoryMgr.DEFAULT_MAX_BUCKETS;
+
+        /**
+         * Round the given dimension of a placeholder up to the next of the specified bucket sizes
+         *
+         * @param placeholder Name of the placeholder
+         * @param dimension   Dimension to bucket
+         * @param bucketSizes Bucket sizes (need not be sorted)
+         */
+        public Builder bucket(@NonNull String placeholder, int dimension, @NonNull long... bucketSizes){
+            Preconditions.checkArgument(bucketSizes.length > 0, "No bucket sizes specified for placeholder \"%s\"", placeholder);
+            long[] sorted = bucketSizes.clone();
+            Arrays.sort(sorted);
+            Preconditions.checkArgument(sorted[0] > 0, "Bucket sizes must be positive, got %s", sorted[0]);
+            buckets.computeIfAbsent(placeholder, k -> new TreeMap<>()).put(dimension, sorted);
+            return this;
+        }
+
+        /**
+         * Value used to pad the specified placeholder. Default: 0.0
+         */
+        public Builder padValue(@NonNull String placeholder, double padValue){
+            padValues.put(placeholder, padValue);
+            return this;
+        }
+
+        /**
+         * Mask placeholder with shape [minibatch, length] for the given dimension of the source placeholder: 1 for
+         * valid positions and 0 for padding. If the mask is not provided, it is generated (all 1s for the original
+         * length); if provided, it is padded with 0s.
+         *
+         * @param mask      Name of the mask placeholder
+         * @param source    Name of the bucketed placeholder
+         * @param dimension Bucketed dimension of the source placeholder
+         */
+        public Builder mask(@NonNull String mask, @NonNull String source, int dimension){
+            return mask(mask, source, dimension, 1);
+        }
+
+        /**
+         * As per {@link #mask(String, String, int)}, for a mask placeholder that has the sequence (length) dimension at
+         * the specified position - for example, 2 for a mask with shape [minibatch, 1, length]. Generated masks have
+         * shape [minibatch, 1, ..., 1, length] with the length at maskDimension.
+         *
+         * @param mask          Name of the mask placeholder
+         * @param source        Name of the bucketed placeholder
+         * @param dimension     Bucketed dimension of the source placeholder
+         * @param maskDimension Dimension of the mask placeholder that corresponds to the bucketed dimension
+         */
+        public Builder mask(@NonNull String mask, @NonNull String source, int dimension, int maskDimension){
+            Preconditions.checkArgument(maskDimension >= 1, "Mask dimension must be >= 1 (dimension 0 is the minibatch dimension), got %s", maskDimension);
+            masks.add(new MaskRule(mask, source, dimension, maskDimension));
+            return this;
+        }
+
+        /**
+         * Crop the given dimension of an output back to the original size of a placeholder dimension
+         *
+         * @param output          Name of the output variable
+         * @param dimension       Dimension of the output to crop
+         * @param source          Name of the placeholder the output length is derived from
+         * @param sourceDimension Dimension of the source placeholder
+         */
+        public Builder crop(@NonNull String output, int dimension, @NonNull String source, int sourceDimension){
+            crops.add(new CropRule(output, dimension, source, sourceDimension));
+            return this;
+        }
+
+        /**
+         * Maximum number of buckets to cache memory plans/arenas for, per inference thread. Default: 8
+         */
+        public Builder maxBuckets(int maxBuckets){
+            Preconditions.checkArgument(maxBuckets > 0, "Maximum number of buckets must be > 0, got %s", maxBuckets);
+            this.maxBuckets = maxBuckets;
+            return this;
+        }
+
+        public ShapeBucketConfig build(){
+            for(MaskRule r : masks){
+                Preconditions.checkState(buckets.containsKey(r.getSource()) && buckets.get(r.getSource()).containsKey(r.getDimension()),
+                        "Mask \"%s\": no buckets configured for dimension %s of placeholder \"%s\"", r.getMask(), r.getDimension(), r.getSource());
+            }
+            return new ShapeBucketConfig(this);
+        }
+    }
+}
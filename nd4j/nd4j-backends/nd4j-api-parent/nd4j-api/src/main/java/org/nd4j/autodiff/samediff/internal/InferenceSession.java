@@ -33,6 +33,8 @@ import org.nd4j.autodiff.samediff.config.SDValue;
 import org.nd4j.autodiff.samediff.config.SDValueType;
 import org.nd4j.autodiff.samediff.internal.memory.ArrayCacheMemoryMgr;
 import org.nd4j.autodiff.samediff.internal.memory.HashDependencyTracker;
+import org.nd4j.autodiff.samediff.internal.memory.BucketedMemoryMgr;
+import org.nd4j.autodiff.samediff.internal.memory.StaticMemoryPlanMgr;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.common.primitives.Pair;
 import org.nd4j.common.util.ArrayUtil;
@@ -92,12 +94,17 @@ public class InferenceSession extends AbstractSession<INDArray, Pair<SameDiffOp,
 
     public InferenceSession(@NonNull SameDiff sameDiff) {
         super(sameDiff);
-        mmgr = new ArrayCacheMemoryMgr();
+        if(sameDiff.getShapeBucketConfig() != null) {
+            mmgr = new BucketedMemoryMgr(new ArrayCacheMemoryMgr(), sameDiff.getShapeBucketConfig().getMaxBuckets());
+        } else {
+            mmgr = sameDiff.isStaticMemoryPlanning() ? new StaticMemoryPlanMgr(new ArrayCacheMemoryMgr()) : new ArrayCacheMemoryMgr();
+        }
     }
 
     @Override
     protected Map<String, INDArray> preprocessPlaceholders(Map<String, INDArray> placeholders, At at) {
         arrayUseTracker.clear();
+        mmgr.executionStart();
 
         //We'll also use this method as a "pre execution" hook-in, to mark variables as something we should never deallocate
         //This occurs by never marking these "ConstantDep" and "VariableDep" instances as satisfied, so there's always
@@ -221,6 +228,7 @@ public class InferenceSession extends AbstractSession<INDArray, Pair<SameDiffOp,
             }
         }
 
+        mmgr.executionEnd();
         return output;
     }
 
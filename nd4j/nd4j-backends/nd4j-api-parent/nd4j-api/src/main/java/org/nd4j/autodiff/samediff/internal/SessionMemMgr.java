@@ -64,6 +64,21 @@ public interface SessionMemMgr extends Closeable {
      */
     void release(INDArray array);
 
+    /**
+     * Called at the start of each execution (i.e., each output/forward pass call) of the session, before any arrays
+     * are allocated. Memory managers that plan allocations across executions can use this to reset per-execution state
+     */
+    default void executionStart(){
+        //No op by default
+    }
+
+    /**
+     * Called at the end of each execution, after all arrays that are no longer needed have been released
+     */
+    default void executionEnd(){
+        //No op by default
+    }
+
     /**
      * Close the session memory manager and clean up any memory / resources, if any
      */
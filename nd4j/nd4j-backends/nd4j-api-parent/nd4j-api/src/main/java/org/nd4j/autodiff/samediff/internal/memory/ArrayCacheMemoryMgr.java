@@ -227,6 +227,7 @@ public class ArrayCacheMemoryMgr extends AbstractMemoryMgr {
                     // the old cache was recreating New Array using buffer and thus gaining new
                     // reference . Note that it had IdentityHash with references being keys
                     ((BaseNDArray) arr).assignNewId();
+                    MemoryMgrStats.recordAllocation(dataType.width() * arr.data().length(), true);
                     return arr; // Allocated from cache
                 }
             }
@@ -236,6 +237,7 @@ public class ArrayCacheMemoryMgr extends AbstractMemoryMgr {
         // Allocation failed, allocate new array
         //switch to using current workspace rather than detached
         INDArray ret = detached ? Nd4j.createUninitializedDetached(dataType,shape) : Nd4j.create(dataType, shape);
+        MemoryMgrStats.recordAllocation(dataType.width() * ret.length(), false);
         return ret;
     }
 
@@ -283,12 +285,15 @@ public class ArrayCacheMemoryMgr extends AbstractMemoryMgr {
                 getLruCache().remove(arr.getId());
                 getLruCacheValues().remove(arr.getId());
                 ((BaseNDArray) arr).assignNewId();
+                MemoryMgrStats.recordAllocation(dataType.width() * arr.data().length(), true);
                 return arr; // Allocated from cache
             }
         }
 
         // Allocation failed, allocate new array
-        return Nd4j.createUninitializedDetached(dataType, shape);
+        INDArray ret = Nd4j.createUninitializedDetached(dataType, shape);
+        MemoryMgrStats.recordAllocation(dataType.width() * ret.length(), false);
+        return ret;
     }
 
     @Override
@@ -296,6 +301,7 @@ public class ArrayCacheMemoryMgr extends AbstractMemoryMgr {
         if(!array.closeable())
             return;
 
+        MemoryMgrStats.recordRelease();
         Set<Long> lruCacheForThread = getLruCacheForThread();
         Table<DataType, String, List<INDArray>> arraysForThread = getArraysForThread();
         Map<Long, INDArray> lruCacheValues = getLruCacheValues();
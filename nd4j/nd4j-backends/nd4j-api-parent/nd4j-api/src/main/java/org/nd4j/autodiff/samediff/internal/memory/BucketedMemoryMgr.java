@@ -0,0 +1,175 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.autodiff.samediff.internal.memory;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.samediff.internal.SessionMemMgr;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.LongShapeDescriptor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link SessionMemMgr} for variable-length inference with shape bucketing
+ * (see {@link org.nd4j.autodiff.samediff.config.ShapeBucketConfig}).<br>
+ * One {@link StaticMemoryPlanMgr} (memory plan + arenas) is kept per shape bucket, so that each bucket is recorded once
+ * and then served from its own arena. Buckets are kept in an LRU cache of at most {@link #getMaxBuckets()} entries;
+ * the least recently used bucket's plan and arenas are discarded when the cache is full.<br>
+ * The bucket for the next execution is selected with {@link #setBucket(String)}; executions without a bucket are
+ * served by the underlying memory manager directly.<br>
+ * NOTE: Instances are not thread safe; each InferenceSession (one per thread) should have its own instance.
+ */
+@Slf4j
+public class BucketedMemoryMgr extends AbstractMemoryMgr {
+
+    public static final int DEFAULT_MAX_BUCKETS = 8;
+
+    @Getter
+    private final SessionMemMgr underlying;
+    @Getter
+    private final int maxBuckets;
+    private final LinkedHashMap<String,StaticMemoryPlanMgr> plans;
+
+    protected String bucket;
+    protected SessionMemMgr current;
+
+    @Getter
+    protected long hits;
+    @Getter
+    protected long misses;
+    @Getter
+    protected long evictions;
+
+    public BucketedMemoryMgr(){
+        this(new ArrayCacheMemoryMgr(), DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * @param underlying Memory manager shared by all buckets for recording runs, detached arrays and unplanned allocations
+     * @param maxBuckets Maximum number of buckets to keep memory plans and arenas for
+     */
+    public BucketedMemoryMgr(@NonNull SessionMemMgr underlying, int maxBuckets){
+        if(maxBuckets < 1)
+            throw new IllegalArgumentException("Maximum number of buckets must be >= 1, got " + maxBuckets);
+        this.underlying = underlying;
+        this.maxBuckets = maxBuckets;
+        this.current = underlying;
+        this.plans = new LinkedHashMap<String,StaticMemoryPlanMgr>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StaticMemoryPlanMgr> eldest) {
+                if(size() > BucketedMemoryMgr.this.maxBuckets){
+                    //Don't close: that would close the shared underlying memory manager
+                    eldest.getValue().reset();
+                    evictions++;
+                    log.debug("Evicted memory plan for shape bucket {}", eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Set the shape bucket for the next execution. Must be called before the execution starts.
+     *
+     * @param bucket Key for the bucket (must uniquely identify the placeholder shapes), or null for no bucket
+     */
+    public void setBucket(String bucket){
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void executionStart() {
+        if(bucket == null){
+            current = underlying;
+        } else {
+            StaticMemoryPlanMgr m = plans.get(bucket);
+            if(m == null){
+                misses++;
+                m = new StaticMemoryPlanMgr(underlying);
+                plans.put(bucket, m);
+            } else {
+                hits++;
+            }
+            current = m;
+        }
+        current.executionStart();
+    }
+
+    @Override
+    public void executionEnd() {
+        current.executionEnd();
+        current = underlying;
+        bucket = null;
+    }
+
+    @Override
+    public INDArray allocate(boolean detached, DataType dataType, long... shape) {
+        return current.allocate(detached, dataType, shape);
+    }
+
+    @Override
+    public INDArray allocate(boolean detached, LongShapeDescriptor descriptor) {
+        return current.allocate(detached, descriptor);
+    }
+
+    @Override
+    public void release(@NonNull INDArray array) {
+        current.release(array);
+    }
+
+    /**
+     * @return Fraction of executions (with a bucket set) for which a memory plan for the bucket was already cached
+     */
+    public double getHitRate(){
+        long total = hits + misses;
+        return total == 0 ? 0.0 : hits / (double) total;
+    }
+
+    /**
+     * @return Number of buckets that currently have a cached memory plan
+     */
+    public int numCachedBuckets(){
+        return plans.size();
+    }
+
+    /**
+     * @return Total size of the arenas of all cached buckets, in bytes
+     */
+    public long getArenaBytes(){
+        long total = 0;
+        for(StaticMemoryPlanMgr m : plans.values())
+            total += m.getArenaBytes();
+        return total;
+    }
+
+    @Override
+    public void close() {
+        for(StaticMemoryPlanMgr m : plans.values())
+            m.reset();
+        plans.clear();
+        current = underlying;
+        underlying.close();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.nd4j.autodiff.samediff.internal.memory;
+
+import lombok.Getter;
+
+/**
+ * Per-thread allocation counters for the SameDiff session memory managers.<br>
+ * Counters are cumulative for the lifetime of the thread: consumers such as the
+ * {@link org.nd4j.autodiff.listeners.profiler.ProfilingListener} take a {@link #snapshot()} before and after a region
+ * of interest and use {@link #since(MemoryMgrStats)} to attribute allocations to it.
+ */
+@Getter
+public class MemoryMgrStats {
+
+    private static final ThreadLocal<MemoryMgrStats> STATS = ThreadLocal.withInitial(MemoryMgrStats::new);
+
+    private long allocations;       //Number of allocate calls, including cache hits
+    private long allocatedBytes;    //Bytes requested via allocate calls, including cache hits
+    private long cacheHits;         //Number of allocate calls served from a cache
+    private long cacheHitBytes;     //Bytes served from a cache
+    private long releases;          //Number of release calls
+
+    private MemoryMgrStats() {
+    }
+
+    private MemoryMgrStats(long allocations, long allocatedBytes, long cacheHits, long cacheHitBytes, long releases) {
+        this.allocations = allocations;
+        this.allocatedBytes = allocatedBytes;
+        this.cacheHits = cacheHits;
+        this.cacheHitBytes = cacheHitBytes;
+        this.releases = releases;
+    }
+
+    /**
+     * @return The live counters for the current thread
+     */
+    public static MemoryMgrStats current() {
+        return STATS.get();
+    }
+
+    /**
+     * @return An immutable copy of the counters for the current thread
+     */
+    public static MemoryMgrStats snapshot() {
+        MemoryMgrStats s = STATS.get();
+        return new MemoryMgrStats(s.allocations, s.allocatedBytes, s.cacheHits, s.cacheHitBytes, s.releases);
+    }
+
+    /**
+     * Record an allocation for the current thread
+     *
+     * @param bytes    Size of the allocated array in bytes
+     * @param cacheHit True if the array was served from a cache rather than newly allocated
+     */
+    public static void recordAllocation(long bytes, boolean cacheHit) {
+        MemoryMgrStats s = STATS.get();
+        s.allocations++;
+        s.allocatedBytes += bytes;
+        if (cacheHit) {
+            s.cacheHits++;
+            s.cacheHitBytes += bytes;
+        }
+    }
+
+    /**
+     * Record a release for the current thread
+     */
+    public static void recordRelease() {
+        STATS.get().releases++;
+    }
+
+    /**
+     * Reset the counters for the current thread
+     */
+    public static void reset() {
+        STATS.remove();
+    }
+
+    /**
+     * @param earlier An earlier snapshot, taken on the same thread
+     * @return The difference between this instance and the earlier snapshot
+     */
+    public MemoryMgrStats since(MemoryMgrStats earlier) {
+        return new MemoryMgrStats(allocations - earlier.allocations, allocatedBytes - earlier.allocatedBytes,
+                cacheHits - earlier.cacheHits, cacheHitBytes - earlier.cacheHitBytes, releases - earlier.releases);
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryMgrStats(allocations=" + allocations + ", allocatedBytes=" + allocatedBytes + ", cacheHits=" +
+                cacheHits + ", cacheHitBytes=" + cacheHitBytes + ", releases=" + releases + ")";
+    }
+}
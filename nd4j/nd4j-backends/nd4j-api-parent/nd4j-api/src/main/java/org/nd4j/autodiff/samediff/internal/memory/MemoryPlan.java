@@ -0,0 +1,223 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.autodiff.samediff.internal.memory;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.linalg.api.buffer.DataType;
+
+import java.util.*;
+
+/**
+ * A static memory plan for one (fixed shape) execution of a SameDiff graph.<br>
+ * The plan is derived from a trace of the allocate/release calls made during a previous execution: each allocation
+ * that is released before the end of the execution has a lifetime interval [allocation step, release step]. Allocations
+ * of the same datatype are then assigned an offset in a single per-datatype arena such that no two allocations with
+ * overlapping lifetimes share memory (greedy by size, largest first).<br>
+ * Allocations that are detached (i.e., may be returned to the user) or never released are not planned, and are
+ * allocated normally.
+ */
+@Getter
+public class MemoryPlan {
+
+    /**
+     * Default alignment for offsets within the arena, in bytes
+     */
+    public static final int DEFAULT_ALIGNMENT_BYTES = 64;
+
+    private final List<Allocation> allocations;
+    private final Map<DataType,Long> arenaLengths;        //Arena size in elements, per datatype
+    private final long totalRequestedBytes;               //Sum of bytes over all planned allocations (i.e., without reuse)
+
+    protected MemoryPlan(List<Allocation> allocations, Map<DataType,Long> arenaLengths, long totalRequestedBytes){
+        this.allocations = allocations;
+        this.arenaLengths = arenaLengths;
+        this.totalRequestedBytes = totalRequestedBytes;
+    }
+
+    /**
+     * One allocate call, as recorded during execution
+     */
+    @Data
+    @AllArgsConstructor
+    public static class AllocationRecord {
+        private DataType dataType;
+        private long[] shape;
+        private boolean detached;
+        private long allocStep;
+        private long releaseStep;       //-1 if never released
+    }
+
+    /**
+     * The planned placement of one allocation
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Allocation {
+        private DataType dataType;
+        private long[] shape;
+        private long length;
+        private boolean planned;        //If false: allocate normally (not from the arena)
+        private long offset;            //Offset in the arena, in elements
+        private int[] aliases;          //Indices of earlier allocations that share (part of) the same arena region
+    }
+
+    /**
+     * @return Number of allocations (planned and unplanned) in the plan
+     */
+    public int size(){
+        return allocations.size();
+    }
+
+    public Allocation get(int idx){
+        return allocations.get(idx);
+    }
+
+    /**
+     * @return Total size of all arenas, in bytes
+     */
+    public long arenaBytes(){
+        long sum = 0;
+        for(Map.Entry<DataType,Long> e : arenaLengths.entrySet()){
+            sum += e.getValue() * e.getKey().width();
+        }
+        return sum;
+    }
+
+    /**
+     * @return True if the specified allocation request matches the allocation at the specified index of the plan
+     */
+    public boolean matches(int idx, DataType dataType, long[] shape){
+        if(idx >= allocations.size())
+            return false;
+        Allocation a = allocations.get(idx);
+        return a.getDataType() == dataType && Arrays.equals(a.getShape(), shape);
+    }
+
+    /**
+     * Create a memory plan from a trace of allocations
+     *
+     * @param records        Allocation records, in order of allocation
+     * @param alignmentBytes Alignment of each planned allocation in the arena, in bytes
+     */
+    public static MemoryPlan fromTrace(@NonNull List<AllocationRecord> records, int alignmentBytes){
+        int n = records.size();
+        long[] lengths = new long[n];
+        long[] offsets = new long[n];
+        boolean[] planned = new boolean[n];
+        long totalRequested = 0;
+
+        Map<DataType,List<Integer>> byType = new LinkedHashMap<>();
+        for( int i=0; i<n; i++ ){
+            AllocationRecord r = records.get(i);
+            long len = 1;
+            for(long l : r.getShape())
+                len *= l;
+            lengths[i] = len;
+            planned[i] = !r.isDetached() && r.getReleaseStep() >= 0 && len > 0 && r.getShape().length > 0 &&
+                    r.getDataType().width() > 0;
+            if(planned[i]){
+                byType.computeIfAbsent(r.getDataType(), k -> new ArrayList<>()).add(i);
+                totalRequested += len * r.getDataType().width();
+            }
+        }
+
+        Map<DataType,Long> arenaLengths = new LinkedHashMap<>();
+        List<List<Integer>> aliases = new ArrayList<>(n);
+        for( int i=0; i<n; i++ )
+            aliases.add(null);
+
+        for(Map.Entry<DataType,List<Integer>> e : byType.entrySet()){
+            int align = Math.max(1, alignmentBytes / e.getKey().width());
+            List<Integer> idxs = new ArrayList<>(e.getValue());
+            //Greedy by size: place the largest allocations first, at the lowest offset that doesn't conflict with any
+            // already placed allocation that has an overlapping lifetime
+            idxs.sort((a,b) -> {
+                int c = Long.compare(lengths[b], lengths[a]);
+                return c != 0 ? c : Long.compare(records.get(a).getAllocStep(), records.get(b).getAllocStep());
+            });
+
+            List<Integer> placed = new ArrayList<>();
+            long arenaLength = 0;
+            for(int i : idxs){
+                long size = alignUp(lengths[i], align);
+                List<long[]> conflicts = new ArrayList<>();
+                for(int j : placed){
+                    if(lifetimesOverlap(records.get(i), records.get(j)))
+                        conflicts.add(new long[]{offsets[j], offsets[j] + alignUp(lengths[j], align)});
+                }
+                conflicts.sort(Comparator.comparingLong(a -> a[0]));
+                long offset = 0;
+                for(long[] c : conflicts){
+                    if(offset + size <= c[0])
+                        break;
+                    offset = Math.max(offset, c[1]);
+                }
+                offsets[i] = offset;
+                placed.add(i);
+                arenaLength = Math.max(arenaLength, offset + size);
+            }
+            arenaLengths.put(e.getKey(), arenaLength);
+
+            //Record which earlier allocations share memory with each allocation: these must have been released before
+            // the later allocation can be handed out
+            for(int i : idxs){
+                for(int j : idxs){
+                    if(records.get(j).getAllocStep() < records.get(i).getAllocStep() &&
+                            offsets[j] < offsets[i] + lengths[i] && offsets[i] < offsets[j] + lengths[j]){
+                        if(aliases.get(i) == null)
+                            aliases.set(i, new ArrayList<>());
+                        aliases.get(i).add(j);
+                    }
+                }
+            }
+        }
+
+        List<Allocation> out = new ArrayList<>(n);
+        for( int i=0; i<n; i++ ){
+            AllocationRecord r = records.get(i);
+            List<Integer> a = aliases.get(i);
+            int[] aliasArr = a == null ? new int[0] : a.stream().mapToInt(Integer::intValue).toArray();
+            out.add(new Allocation(r.getDataType(), r.getShape().clone(), lengths[i], planned[i], planned[i] ? offsets[i] : -1, aliasArr));
+        }
+        return new MemoryPlan(Collections.unmodifiableList(out), Collections.unmodifiableMap(arenaLengths), totalRequested);
+    }
+
+    protected static boolean lifetimesOverlap(AllocationRecord a, AllocationRecord b){
+        return a.getAllocStep() <= b.getReleaseStep() && b.getAllocStep() <= a.getReleaseStep();
+    }
+
+    protected static long alignUp(long length, long align){
+        return ((length + align - 1) / align) * align;
+    }
+
+    @Override
+    public String toString(){
+        int numPlanned = 0;
+        for(Allocation a : allocations){
+            if(a.isPlanned())
+                numPlanned++;
+        }
+        return "MemoryPlan(allocations=" + allocations.size() + ", planned=" + numPlanned + ", arenaBytes=" + arenaBytes() +
+                ", requestedBytes=" + totalRequestedBytes + ")";
+    }
+}
@@ -31,12 +31,16 @@ public class NoOpMemoryMgr extends AbstractMemoryMgr implements SessionMemMgr {
 
     @Override
     public INDArray allocate(boolean detached, DataType dataType, long... shape) {
-        return Nd4j.createUninitialized(dataType, shape);
+        INDArray ret = Nd4j.createUninitialized(dataType, shape);
+        MemoryMgrStats.recordAllocation(dataType.width() * ret.length(), false);
+        return ret;
     }
 
     @Override
     public INDArray allocate(boolean detached, LongShapeDescriptor descriptor) {
-        return Nd4j.create(descriptor, false);
+        INDArray ret = Nd4j.create(descriptor, false);
+        MemoryMgrStats.recordAllocation(descriptor.dataType().width() * ret.length(), false);
+        return ret;
     }
 
     @Override
@@ -0,0 +1,266 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.autodiff.samediff.internal.memory;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.samediff.internal.SessionMemMgr;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.LongShapeDescriptor;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+
+/**
+ * A {@link SessionMemMgr} that performs ahead-of-time memory planning for repeated, fixed shape inference.<br>
+ * The first execution is run in "record" mode: all allocations are served by the underlying memory manager, and the
+ * allocate/release sequence is recorded. At the end of that execution a {@link MemoryPlan} is computed (liveness
+ * analysis + offset assignment), and one arena per datatype is allocated.<br>
+ * Subsequent executions are served from the arena: each planned allocation is a view at a precomputed offset, so
+ * steady-state inference performs no allocations for intermediate arrays, and the memory footprint is known after the
+ * first execution ({@link #getArenaBytes()}).<br>
+ * <br>
+ * The plan is only valid while the sequence of allocations (datatypes and shapes) matches the recorded one. On the
+ * first mismatch, the remainder of the execution is served by the underlying memory manager and the next execution is
+ * recorded again. If the allocation sequence keeps changing (for example, variable batch sizes), planning is disabled
+ * after {@link #getMaxReplans()} consecutive invalid plans.<br>
+ * Detached allocations (arrays that may be returned to the user) are never served from the arena.<br>
+ * NOTE: Instances are not thread safe; each InferenceSession (one per thread) should have its own instance.
+ */
+@Slf4j
+public class StaticMemoryPlanMgr extends AbstractMemoryMgr {
+
+    public static final int DEFAULT_MAX_REPLANS = 3;
+
+    protected enum Mode {RECORD, PLANNED, DISABLED}
+
+    @Getter
+    private final SessionMemMgr underlying;
+    @Getter
+    private final int alignmentBytes;
+    @Getter
+    private final int maxReplans;
+
+    protected Mode mode = Mode.RECORD;
+    @Getter
+    protected MemoryPlan plan;
+    protected Map<DataType,INDArray> arenas = new HashMap<>();
+    protected int consecutiveInvalid;
+    protected boolean inRun;
+
+    //State for the current execution
+    protected long step;
+    protected int nextIdx;
+    protected boolean validThisRun;
+    protected List<MemoryPlan.AllocationRecord> records = new ArrayList<>();
+    protected Map<INDArray,Integer> tracked = new IdentityHashMap<>();
+    protected boolean[] released;
+
+    @Getter
+    protected long plannedAllocations;      //Total number of allocations served from the arena
+    @Getter
+    protected long fallbackAllocations;     //Total number of allocations served by the underlying memory manager
+
+    public StaticMemoryPlanMgr(){
+        this(new ArrayCacheMemoryMgr());
+    }
+
+    public StaticMemoryPlanMgr(@NonNull SessionMemMgr underlying){
+        this(underlying, MemoryPlan.DEFAULT_ALIGNMENT_BYTES, DEFAULT_MAX_REPLANS);
+    }
+
+    /**
+     * @param underlying     Memory manager used for recording runs, detached arrays and any allocations that don't match the plan
+     * @param alignmentBytes Alignment of each allocation within the arena
+     * @param maxReplans     Maximum number of consecutive invalid plans before planning is disabled
+     */
+    public StaticMemoryPlanMgr(@NonNull SessionMemMgr underlying, int alignmentBytes, int maxReplans){
+        this.underlying = underlying;
+        this.alignmentBytes = alignmentBytes;
+        this.maxReplans = maxReplans;
+    }
+
+    @Override
+    public void executionStart() {
+        inRun = true;
+        step = 0;
+        nextIdx = 0;
+        validThisRun = mode == Mode.PLANNED;
+        tracked.clear();
+        if(mode == Mode.RECORD) {
+            records.clear();
+        } else if(mode == Mode.PLANNED) {
+            released = new boolean[plan.size()];
+        }
+    }
+
+    @Override
+    public void executionEnd() {
+        if(!inRun)
+            return;
+        inRun = false;
+        if(mode == Mode.RECORD) {
+            plan = MemoryPlan.fromTrace(records, alignmentBytes);
+            allocateArenas();
+            mode = Mode.PLANNED;
+            records.clear();
+            log.debug("Created static memory plan: {}", plan);
+        } else if(mode == Mode.PLANNED) {
+            //If some arena arrays were never released (returned to the user, or leaked) they must not be overwritten
+            // by the next execution: leave the current arenas to them and plan again
+            if(validThisRun && nextIdx == plan.size() && tracked.isEmpty()) {
+                consecutiveInvalid = 0;
+            } else {
+                consecutiveInvalid++;
+                arenas.clear();
+                plan = null;
+                mode = consecutiveInvalid >= maxReplans ? Mode.DISABLED : Mode.RECORD;
+                if(mode == Mode.DISABLED)
+                    log.warn("Static memory planning disabled after {} consecutive executions with a different allocation " +
+                            "sequence (variable input shapes?)", consecutiveInvalid);
+            }
+        }
+        tracked.clear();
+    }
+
+    protected void allocateArenas(){
+        arenas.clear();
+        try(MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            for (Map.Entry<DataType, Long> e : plan.getArenaLengths().entrySet()) {
+                if (e.getValue() > 0)
+                    arenas.put(e.getKey(), Nd4j.createUninitializedDetached(e.getKey(), e.getValue()));
+            }
+        }
+    }
+
+    @Override
+    public INDArray allocate(boolean detached, DataType dataType, long... shape) {
+        if(!inRun || mode == Mode.DISABLED)
+            return underlying.allocate(detached, dataType, shape);
+
+        int idx = nextIdx++;
+        long s = step++;
+        if(mode == Mode.RECORD) {
+            INDArray arr = underlying.allocate(detached, dataType, shape);
+            records.add(new MemoryPlan.AllocationRecord(dataType, shape.clone(), detached, s, -1));
+            tracked.put(arr, idx);
+            return arr;
+        }
+
+        //Planned mode
+        if(validThisRun && !plan.matches(idx, dataType, shape)) {
+            validThisRun = false;
+        }
+        if(validThisRun && !detached) {
+            MemoryPlan.Allocation a = plan.get(idx);
+            if(a.isPlanned() && aliasesReleased(a)) {
+                INDArray arena = arenas.get(dataType);
+                INDArray arr = Nd4j.create(arena.data(), shape, Nd4j.getStrides(shape, 'c'), a.getOffset(), 'c', dataType);
+                tracked.put(arr, idx);
+                plannedAllocations++;
+                MemoryMgrStats.recordAllocation(a.getLength() * dataType.width(), true);
+                return arr;
+            }
+        }
+        if(idx < released.length)
+            released[idx] = true;       //Not using the arena, so doesn't block later allocations
+        fallbackAllocations++;
+        return underlying.allocate(detached, dataType, shape);
+    }
+
+    protected boolean aliasesReleased(MemoryPlan.Allocation a){
+        for(int j : a.getAliases()){
+            if(!released[j])
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public INDArray allocate(boolean detached, LongShapeDescriptor descriptor) {
+        if(descriptor.isEmpty() || descriptor.getOrder() != 'c' ||
+                !Arrays.equals(descriptor.getStride(), Nd4j.getStrides(descriptor.getShape(), 'c'))) {
+            //Not a simple c-order array - don't plan
+            if(inRun && mode != Mode.DISABLED) {
+                nextIdx++;
+                step++;
+                if(mode == Mode.RECORD)
+                    records.add(new MemoryPlan.AllocationRecord(descriptor.dataType(), descriptor.getShape().clone(), true, step - 1, -1));
+            }
+            return underlying.allocate(detached, descriptor);
+        }
+        return allocate(detached, descriptor.dataType(), descriptor.getShape());
+    }
+
+    @Override
+    public void release(@NonNull INDArray array) {
+        Integer idx = tracked.remove(array);
+        if(idx == null || mode == Mode.DISABLED) {
+            underlying.release(array);
+            return;
+        }
+
+        long s = step++;
+        if(mode == Mode.RECORD) {
+            records.get(idx).setReleaseStep(s);
+            underlying.release(array);
+        } else {
+            //Arena view: nothing to release, the memory is reused according to the plan
+            released[idx] = true;
+            MemoryMgrStats.recordRelease();
+        }
+    }
+
+    /**
+     * @return Total size of the arenas for the current plan, in bytes (0 if no plan has been created yet)
+     */
+    public long getArenaBytes(){
+        return plan == null ? 0 : plan.arenaBytes();
+    }
+
+    /**
+     * @return True if planning was disabled due to repeated changes in the allocation sequence
+     */
+    public boolean isDisabled(){
+        return mode == Mode.DISABLED;
+    }
+
+    /**
+     * Discard the current plan (if any) and re-enable planning: the next execution will be recorded
+     */
+    public void reset(){
+        mode = Mode.RECORD;
+        plan = null;
+        arenas.clear();
+        consecutiveInvalid = 0;
+        inRun = false;
+    }
+
+    @Override
+    public void close() {
+        arenas.clear();
+        plan = null;
+        tracked.clear();
+        underlying.close();
+    }
+}
@@ -24,14 +24,18 @@ import lombok.extern.slf4j.Slf4j;
 import org.nd4j.autodiff.samediff.ArrayHolder;
 import org.nd4j.autodiff.samediff.SDVariable;
 import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.VariableType;
 import org.nd4j.autodiff.samediff.internal.SameDiffOp;
+import org.nd4j.autodiff.samediff.internal.Variable;
 import org.nd4j.autodiff.samediff.optimize.debug.OptimizationDebugger;
 import org.nd4j.autodiff.samediff.optimize.optimizations.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  *
@@ -51,6 +55,24 @@ public class GraphOptimizer {
         );
     }
 
+    /**
+     * Optimizations applied by default to graphs after TensorFlow/ONNX import. In addition to removing unused and
+     * no-op functions, these fold batch norm into convolution weights, fuse matmul + bias (+ relu), cancel out chained
+     * permute/reshape ops, remove common subexpressions and prune switch ops with constant predicates.<br>
+     * Constant function folding is not included, as imported graphs may contain random ops.
+     */
+    public static List<OptimizerSet> importOptimizations() {
+        return Arrays.<OptimizerSet>asList(
+                new UnusedFunctionOptimizations(),
+                new ControlFlowFunctionOptimizations(),
+                new IdentityFunctionOptimizations(),
+                new ShapeFunctionOptimizations(),
+                new FusedFunctionOptimizations(),
+                new DuplicateFunctionOptimizations(),
+                new UnusedFunctionOptimizations()
+        );
+    }
+
     public static SameDiff optimize(SameDiff graph, String... requiredOutputs){
         return optimize(graph, Arrays.asList(requiredOutputs));
     }
@@ -64,14 +86,54 @@ public class GraphOptimizer {
     }
 
     public static SameDiff optimize(SameDiff graph, List<String> requiredOutputs, List<OptimizerSet> optimizations, OptimizationDebugger debugger){
+        return optimize(graph, requiredOutputs, optimizations, debugger, false);
+    }
+
+    /**
+     * Optimize the specified graph.
+     *
+     * @param inPlace If true, the provided graph itself is optimized and returned, instead of a copy of it. This avoids
+     *                holding two copies of the graph (and its arrays) in memory, but the original graph is not
+     *                retained, and the arrays of removed constants/variables are not kept for recovery. Use this when
+     *                the caller owns the graph - for example, immediately after import
+     */
+    public static SameDiff optimize(SameDiff graph, List<String> requiredOutputs, List<OptimizerSet> optimizations,
+                                    OptimizationDebugger debugger, boolean inPlace){
         //TODO Use required outputs - strip unnecessary graph components
 
-        SameDiff sd = graph.dup();
+        int constBefore = 0;
+        int varBefore = 0;
+        int arrBefore = 0;
+        for(SDVariable v : graph.variables()){
+            switch(v.getVariableType()){
+                case VARIABLE:
+                    varBefore++;
+                    break;
+                case CONSTANT:
+                    constBefore++;
+                    break;
+                case ARRAY:
+                    arrBefore++;
+                    break;
+                case PLACEHOLDER:
+                    break;
+            }
+        }
+        int totalVarsBefore = graph.getVariables().size();
+        int opsBefore = graph.getOps().size();
+
+        if(requiredOutputs == null || requiredOutputs.isEmpty())
+            requiredOutputs = defaultRequiredOutputs(graph);
+
+        if(debugger != null)
+            debugger.optimizationStarted(graph);
+
+        SameDiff sd = inPlace ? graph : graph.dup();
 
         ArrayHolder cArr = sd.getConstantArrays();
         ArrayHolder vArr = sd.getVariablesArrays();
 
-        OptimizationHelper h = new OptimizationHelper(graph, new OptimizationConfig());    //TODO defaults for config
+        OptimizationHelper h = new OptimizationHelper(inPlace ? null : graph, new OptimizationConfig(), requiredOutputs);    //TODO defaults for config
 
         for( int i=0; i<3; i++ ) {  //Run multiple times - one run isn't enough, as some more optimizations may need to be applied to the output of earlier optimizations
             for (OptimizerSet s : optimizations) {
@@ -89,7 +151,7 @@ public class GraphOptimizer {
 
                         boolean applied = o.checkAndApply(sd, h, op, cArr, vArr);
                         if(applied) {
-                            log.info("Operation was applied: {}", o);
+                            log.debug("Operation was applied: {}", o);
                         }
 
                         if(debugger != null)
@@ -99,29 +161,10 @@ public class GraphOptimizer {
             }
         }
 
-        int constBefore = 0;
         int constAfter = 0;
-        int varBefore = 0;
         int varAfter = 0;
-        int arrBefore = 0;
         int arrAfter = 0;
 
-        for(SDVariable v : graph.variables()){
-            switch(v.getVariableType()){
-                case VARIABLE:
-                    varBefore++;
-                    break;
-                case CONSTANT:
-                    constBefore++;
-                    break;
-                case ARRAY:
-                    arrBefore++;
-                    break;
-                case PLACEHOLDER:
-                    break;
-            }
-        }
-
         for(SDVariable v : sd.variables()){
             switch(v.getVariableType()){
                 case VARIABLE:
@@ -139,13 +182,32 @@ public class GraphOptimizer {
         }
 
 
-        log.info("Total variables: {} before, {} after", graph.getVariables().size(), sd.getVariables().size());
+        log.info("Total variables: {} before, {} after", totalVarsBefore, sd.getVariables().size());
         log.info("Constant variables: {} before, {} after", constBefore, constAfter);
         log.info("Array type variables: {} before, {} after", arrBefore, arrAfter);
         log.info("Variable type variables: {} before, {} after", varBefore, varAfter);
-        log.info("Ops: {} before, {} after", graph.getOps().size(), sd.getOps().size());
+        log.info("Ops: {} before, {} after", opsBefore, sd.getOps().size());
+
+        if(debugger != null)
+            debugger.optimizationComplete(graph, sd);
 
         return sd;
     }
 
+    /**
+     * When no required outputs are specified, we retain the graph outputs (if set), the loss variables and any
+     * array type variables that are not used as the input to any op (i.e., the "leaves" of the graph)
+     */
+    public static List<String> defaultRequiredOutputs(SameDiff graph){
+        Set<String> out = new LinkedHashSet<>();
+        if(graph.outputs() != null)
+            out.addAll(graph.outputs());
+        out.addAll(graph.getLossVariables());
+        for(Variable v : graph.getVariables().values()){
+            if(v.getVariable().getVariableType() == VariableType.ARRAY && (v.getInputsForOp() == null || v.getInputsForOp().isEmpty()))
+                out.add(v.getName());
+        }
+        return new ArrayList<>(out);
+    }
+
 }
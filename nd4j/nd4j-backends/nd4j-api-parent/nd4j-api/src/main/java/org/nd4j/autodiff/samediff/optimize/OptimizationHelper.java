@@ -31,22 +31,45 @@ import org.nd4j.common.base.Preconditions;
 import org.nd4j.common.function.Supplier;
 import org.nd4j.linalg.api.ndarray.INDArray;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
 
 public class OptimizationHelper {
 
     private final SameDiff originalGraph;
     @Getter
     private final Properties properties;
+    /**
+     * Variables that must be retained (with the same name and value) in the optimized graph
+     */
+    @Getter
+    private final Set<String> requiredOutputs;
     private boolean setConstantHolder = false;
     private boolean setVariableHolder = false;
 
     public OptimizationHelper(SameDiff originalGraph, Properties properties){
+        this(originalGraph, properties, null);
+    }
+
+    public OptimizationHelper(SameDiff originalGraph, Properties properties, Collection<String> requiredOutputs){
         this.originalGraph = originalGraph;
         this.properties = properties;
+        this.requiredOutputs = requiredOutputs == null ? Collections.<String>emptySet() : new HashSet<>(requiredOutputs);
+    }
+
+    /**
+     * @return True if the specified variable is a required output, and hence must not be removed or renamed by an optimizer
+     */
+    public boolean isRequiredOutput(String varName){
+        return requiredOutputs.contains(varName);
     }
 
     public OptimizationHelper arrayRecoveryFunction(String arrayName, Supplier<INDArray> fn){
+        if(originalGraph == null)
+            return this;    //Optimizing in place: there is no original graph to recover arrays for
         SDVariable v = originalGraph.getVariable(arrayName);
         Preconditions.checkState(v.getVariableType() == VariableType.VARIABLE || v.getVariableType() == VariableType.CONSTANT,
                 "Can only set an array recovery function for a variable or a constant");
@@ -0,0 +1,114 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.autodiff.samediff.optimize.debug;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.internal.SameDiffOp;
+import org.nd4j.autodiff.samediff.optimize.Optimizer;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An {@link OptimizationDebugger} that records the number of times each optimizer was applied, along with the
+ * number of ops of each type before and after optimization.<br>
+ * The summary is logged once optimization is complete, and is also available via {@link #summary()}
+ */
+@Slf4j
+@Getter
+public class OpCountOptimizationDebugger implements OptimizationDebugger {
+
+    private final Map<String,Integer> appliedCounts = new TreeMap<>();
+    private final Map<String,Integer> opCountsBefore = new TreeMap<>();
+    private final Map<String,Integer> opCountsAfter = new TreeMap<>();
+    private int totalOpsBefore;
+    private int totalOpsAfter;
+    private final boolean logSummary;
+
+    public OpCountOptimizationDebugger(){
+        this(true);
+    }
+
+    /**
+     * @param logSummary If true: log the summary (at info level) when optimization is complete
+     */
+    public OpCountOptimizationDebugger(boolean logSummary){
+        this.logSummary = logSummary;
+    }
+
+    @Override
+    public void beforeOptimizationCheck(SameDiff sd, SameDiffOp op, Optimizer o) {
+        //No op
+    }
+
+    @Override
+    public void afterOptimizationsCheck(SameDiff sd, SameDiffOp op, Optimizer o, boolean wasApplied) {
+        if(wasApplied){
+            appliedCounts.merge(o.getClass().getSimpleName(), 1, Integer::sum);
+        }
+    }
+
+    @Override
+    public void optimizationStarted(SameDiff original) {
+        //Counted before optimization, as the original graph is modified when optimizing in place
+        totalOpsBefore = countOps(original, opCountsBefore);
+    }
+
+    @Override
+    public void optimizationComplete(SameDiff original, SameDiff optimized) {
+        totalOpsAfter = countOps(optimized, opCountsAfter);
+        if(logSummary)
+            log.info(summary());
+    }
+
+    protected static int countOps(SameDiff sd, Map<String,Integer> counts){
+        counts.clear();
+        for(SameDiffOp op : sd.getOps().values()){
+            counts.merge(op.getOp().opName(), 1, Integer::sum);
+        }
+        return sd.getOps().size();
+    }
+
+    /**
+     * @return A summary of the op counts (before and after), and the number of times each optimization was applied
+     */
+    public String summary(){
+        StringBuilder sb = new StringBuilder();
+        sb.append("Graph optimization: ").append(totalOpsBefore).append(" ops before, ").append(totalOpsAfter).append(" ops after\n");
+        sb.append(String.format("%-40s%10s%10s%n", "Op type", "Before", "After"));
+        Map<String,Integer> all = new TreeMap<>(opCountsBefore);
+        for(String s : opCountsAfter.keySet()){
+            all.putIfAbsent(s, 0);
+        }
+        for(String s : all.keySet()){
+            int before = opCountsBefore.getOrDefault(s, 0);
+            int after = opCountsAfter.getOrDefault(s, 0);
+            if(before != after)
+                sb.append(String.format("%-40s%10d%10d%n", s, before, after));
+        }
+        sb.append("Optimizations applied:\n");
+        for(Map.Entry<String,Integer> e : appliedCounts.entrySet()){
+            sb.append(String.format("%-40s%10d%n", e.getKey(), e.getValue()));
+        }
+        return sb.toString();
+    }
+}
@@ -35,4 +35,23 @@ public interface OptimizationDebugger {
 
     void afterOptimizationsCheck(SameDiff sd, SameDiffOp op, Optimizer o, boolean wasApplied);
 
+    /**
+     * Called once before any optimizations are applied
+     *
+     * @param original The graph to be optimized
+     */
+    default void optimizationStarted(SameDiff original){
+        //No op by default
+    }
+
+    /**
+     * Called once after all optimizations have been applied
+     *
+     * @param original  The original graph. When optimizing in place, this is the same instance as the optimized graph
+     * @param optimized The optimized graph
+     */
+    default void optimizationComplete(SameDiff original, SameDiff optimized){
+        //No op by default
+    }
+
 }
@@ -0,0 +1,149 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.autodiff.samediff.optimize.optimizations;
+
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.ArrayHolder;
+import org.nd4j.autodiff.samediff.SDVariable;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.internal.SameDiffOp;
+import org.nd4j.autodiff.samediff.internal.Variable;
+import org.nd4j.autodiff.samediff.optimize.OptimizationHelper;
+import org.nd4j.autodiff.samediff.optimize.Optimizer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.controlflow.compat.*;
+
+import java.util.*;
+
+/**
+ * Optimizations for (TF style) control flow ops: Switch, Merge, Enter, Exit, etc
+ */
+public class ControlFlowFunctionOptimizations extends BaseOptimizerSet {
+
+    /**
+     * Prune switch ops with a constant predicate. Only one branch of such a switch can ever be executed: the live
+     * branch is connected directly to the switch input, and all ops that are only reachable via the dead branch are
+     * removed. Merge ops that are fed by the dead branch lose that input, and are themselves removed if only one
+     * input remains.<br>
+     * The optimization is not applied if the dead branch contains loop ops (Enter, Exit, NextIteration, LoopCond),
+     * control dependencies or required outputs.
+     */
+    public static class PruneConstantSwitch implements Optimizer {
+        @Override
+        public boolean checkAndApply(SameDiff sd, OptimizationHelper helper, SameDiffOp op, ArrayHolder constantArrays, ArrayHolder variablesArrays) {
+            if(!(op.getOp() instanceof Switch) || op.getInputsToOp().size() != 2 || OptimizationUtils.hasControlDependencies(op))
+                return false;
+
+            String data = op.getInputsToOp().get(0);
+            String predicate = op.getInputsToOp().get(1);
+            SDVariable pv = sd.getVariable(predicate);
+            if(pv == null || !pv.isConstant())
+                return false;
+            INDArray pArr = constantArrays.getArray(predicate);
+            if(pArr == null || pArr.length() != 1)
+                return false;
+
+            //Output 0 is the "false" branch, output 1 is the "true" branch
+            boolean pred = pArr.getDouble(0) != 0.0;
+            String live = op.getOutputsOfOp().get(pred ? 1 : 0);
+            String dead = op.getOutputsOfOp().get(pred ? 0 : 1);
+            if(helper.isRequiredOutput(live) || hasVarControlDeps(sd.getVariables().get(live)))
+                return false;
+
+            //Find everything that can only be executed via the dead branch
+            Set<String> deadVars = new LinkedHashSet<>();
+            Set<String> deadOps = new LinkedHashSet<>();
+            Map<String,Set<String>> mergeDeadInputs = new LinkedHashMap<>();
+            Deque<String> queue = new ArrayDeque<>();
+            queue.add(dead);
+            while(!queue.isEmpty()){
+                String v = queue.remove();
+                if(!deadVars.add(v))
+                    continue;
+                Variable var = sd.getVariables().get(v);
+                if(helper.isRequiredOutput(v) || hasVarControlDeps(var))
+                    return false;
+                if(var.getInputsForOp() == null)
+                    continue;
+                for(String opName : var.getInputsForOp()){
+                    SameDiffOp o = sd.getOps().get(opName);
+                    DifferentialFunction df = o.getOp();
+                    if(df instanceof Merge){
+                        mergeDeadInputs.computeIfAbsent(opName, k -> new HashSet<>()).add(v);
+                        continue;
+                    }
+                    if(df instanceof Enter || df instanceof Exit || df instanceof NextIteration || df instanceof LoopCond ||
+                            df instanceof While || OptimizationUtils.hasControlDependencies(o))
+                        return false;
+                    if(deadOps.add(opName) && o.getOutputsOfOp() != null)
+                        queue.addAll(o.getOutputsOfOp());
+                }
+            }
+
+            //Check merge ops before modifying anything: a merge with only dead inputs would itself be dead
+            for(Map.Entry<String,Set<String>> e : mergeDeadInputs.entrySet()){
+                SameDiffOp m = sd.getOps().get(e.getKey());
+                List<String> remaining = new ArrayList<>(m.getInputsToOp());
+                remaining.removeAll(e.getValue());
+                if(remaining.isEmpty())
+                    return false;
+            }
+
+            //Apply: first remove dead inputs from merge ops
+            for(Map.Entry<String,Set<String>> e : mergeDeadInputs.entrySet()){
+                SameDiffOp m = sd.getOps().get(e.getKey());
+                List<String> remaining = new ArrayList<>(m.getInputsToOp());
+                remaining.removeAll(e.getValue());
+                m.setInputsToOp(remaining);
+                for(String s : e.getValue()){
+                    sd.getVariables().get(s).getInputsForOp().remove(m.getName());
+                }
+
+                String mergeOut = m.getOutputsOfOp().get(0);
+                if(remaining.size() == 1 && !helper.isRequiredOutput(mergeOut) && !OptimizationUtils.hasControlDependencies(m) &&
+                        !hasVarControlDeps(sd.getVariables().get(mergeOut))){
+                    //Single input merge is a no-op
+                    OptimizationUtils.rewireConsumers(sd, mergeOut, remaining.get(0));
+                    OptimizationUtils.removeOpAndOutputs(sd, m.getName());
+                }
+            }
+
+            //Remove the dead branch
+            for(String s : deadOps){
+                OptimizationUtils.removeOp(sd, s);
+            }
+            for(String s : deadVars){
+                OptimizationUtils.removeVariable(sd, s);
+            }
+
+            //Connect the live branch directly to the switch input, and remove the switch
+            OptimizationUtils.rewireConsumers(sd, live, data);
+            OptimizationUtils.removeOp(sd, op.getName());
+            OptimizationUtils.removeVariable(sd, live);
+            return true;
+        }
+    }
+
+    protected static boolean hasVarControlDeps(Variable v){
+        return (v.getControlDeps() != null && !v.getControlDeps().isEmpty()) ||
+                (v.getControlDepsForOp() != null && !v.getControlDepsForOp().isEmpty()) ||
+                (v.getControlDepsForVar() != null && !v.getControlDepsForVar().isEmpty());
+    }
+}
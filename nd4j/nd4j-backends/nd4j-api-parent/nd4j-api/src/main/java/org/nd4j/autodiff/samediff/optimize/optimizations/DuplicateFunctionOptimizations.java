@@ -0,0 +1,144 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.autodiff.samediff.optimize.optimizations;
+
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.ArrayHolder;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.internal.SameDiffOp;
+import org.nd4j.autodiff.samediff.internal.Variable;
+import org.nd4j.autodiff.samediff.optimize.OptimizationHelper;
+import org.nd4j.autodiff.samediff.optimize.Optimizer;
+import org.nd4j.linalg.api.ops.BaseOp;
+import org.nd4j.linalg.api.ops.CustomOp;
+import org.nd4j.linalg.api.ops.RandomOp;
+import org.nd4j.linalg.api.ops.impl.controlflow.compat.BaseCompatOp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Optimizations that remove duplicated computation from the graph
+ */
+public class DuplicateFunctionOptimizations extends BaseOptimizerSet {
+
+    /**
+     * Common subexpression elimination: if two ops of the same type, with the same inputs and the same arguments exist,
+     * only one of them needs to be calculated. Consumers of the duplicate op's outputs are rewired to use the outputs of
+     * the remaining op.<br>
+     * Random ops, control flow ops, in-place ops and ops with control dependencies are never merged.
+     */
+    public static class CommonSubexpressionElimination implements Optimizer {
+        @Override
+        public boolean checkAndApply(SameDiff sd, OptimizationHelper helper, SameDiffOp op, ArrayHolder constantArrays, ArrayHolder variablesArrays) {
+            if(!canMerge(op))
+                return false;
+
+            Variable first = sd.getVariables().get(op.getInputsToOp().get(0));
+            if(first.getInputsForOp() == null || first.getInputsForOp().size() < 2)
+                return false;
+
+            for(String otherName : new ArrayList<>(first.getInputsForOp())){
+                if(otherName.equals(op.getName()))
+                    continue;
+                SameDiffOp other = sd.getOps().get(otherName);
+                if(other == null || !canMerge(other) || !equivalent(op, other))
+                    continue;
+
+                //Keep whichever op produces required outputs (if any)
+                SameDiffOp keep = op;
+                SameDiffOp remove = other;
+                if(anyRequired(helper, remove)){
+                    if(anyRequired(helper, keep))
+                        continue;
+                    keep = other;
+                    remove = op;
+                }
+
+                List<String> keepOut = keep.getOutputsOfOp();
+                List<String> removeOut = remove.getOutputsOfOp();
+                for( int i=0; i<removeOut.size(); i++ ){
+                    OptimizationUtils.rewireConsumers(sd, removeOut.get(i), keepOut.get(i));
+                }
+                OptimizationUtils.removeOpAndOutputs(sd, remove.getName());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    protected static boolean canMerge(SameDiffOp op){
+        DifferentialFunction df = op.getOp();
+        return op.getInputsToOp() != null && !op.getInputsToOp().isEmpty() && op.getOutputsOfOp() != null &&
+                !(df instanceof RandomOp) && !(df instanceof BaseCompatOp) && !df.isInPlace() &&
+                (df instanceof CustomOp || df instanceof BaseOp) && !OptimizationUtils.hasControlDependencies(op);
+    }
+
+    protected static boolean anyRequired(OptimizationHelper helper, SameDiffOp op){
+        for(String s : op.getOutputsOfOp()){
+            if(helper.isRequiredOutput(s))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return True if both ops are guaranteed to calculate the same outputs
+     */
+    protected static boolean equivalent(SameDiffOp o1, SameDiffOp o2){
+        DifferentialFunction d1 = o1.getOp();
+        DifferentialFunction d2 = o2.getOp();
+        if(d1.getClass() != d2.getClass() || !o1.getInputsToOp().equals(o2.getInputsToOp()) ||
+                o1.getOutputsOfOp().size() != o2.getOutputsOfOp().size())
+            return false;
+
+        if(d1 instanceof CustomOp){
+            CustomOp c1 = (CustomOp) d1;
+            CustomOp c2 = (CustomOp) d2;
+            if(!c1.opName().equals(c2.opName()) || !Arrays.equals(c1.iArgs(), c2.iArgs()) || !Arrays.equals(c1.tArgs(), c2.tArgs()) ||
+                    !Arrays.equals(c1.bArgs(), c2.bArgs()) || !Arrays.equals(c1.dArgs(), c2.dArgs()))
+                return false;
+        } else {
+            BaseOp b1 = (BaseOp) d1;
+            BaseOp b2 = (BaseOp) d2;
+            if(b1.opNum() != b2.opNum() || !Arrays.equals(b1.extraArgs(), b2.extraArgs()) ||
+                    !Arrays.equals(b1.getDimensions(), b2.getDimensions()) || !Objects.equals(b1.getScalarValue(), b2.getScalarValue()))
+                return false;
+        }
+
+        try {
+            Map<String,Object> p1 = d1.propertiesForFunction();
+            Map<String,Object> p2 = d2.propertiesForFunction();
+            if(p1.size() != p2.size())
+                return false;
+            for(Map.Entry<String,Object> e : p1.entrySet()){
+                if(!p2.containsKey(e.getKey()) || !Objects.deepEquals(e.getValue(), p2.get(e.getKey())))
+                    return false;
+            }
+        } catch (Exception e){
+            //Can't determine op properties - assume not equal
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.autodiff.samediff.optimize.optimizations;
+
+import org.nd4j.autodiff.samediff.ArrayHolder;
+import org.nd4j.autodiff.samediff.SDVariable;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.internal.SameDiffOp;
+import org.nd4j.autodiff.samediff.internal.Variable;
+import org.nd4j.autodiff.samediff.optimize.OptimizationHelper;
+import org.nd4j.autodiff.samediff.optimize.Optimizer;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.broadcast.BiasAdd;
+import org.nd4j.linalg.api.ops.impl.layers.convolution.BatchNorm;
+import org.nd4j.linalg.api.ops.impl.layers.convolution.Conv2D;
+import org.nd4j.linalg.api.ops.impl.layers.convolution.config.WeightsFormat;
+import org.nd4j.linalg.api.ops.impl.reduce.Mmul;
+import org.nd4j.linalg.api.ops.impl.scalar.RectifiedLinear;
+import org.nd4j.linalg.api.ops.impl.transforms.ReluLayer;
+import org.nd4j.linalg.api.ops.impl.transforms.custom.XwPlusB;
+import org.nd4j.linalg.api.ops.impl.transforms.pairwise.arithmetic.AddOp;
+import org.nd4j.linalg.factory.Broadcast;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inference-only optimizations that fuse a sequence of ops into a single (cheaper) op, usually by pre-computing
+ * a modified set of constant parameters.<br>
+ * These are only valid when the parameters involved are constants (i.e., for imported/frozen graphs) and when the
+ * intermediate activations are not required by any other op.
+ */
+public class FusedFunctionOptimizations extends BaseOptimizerSet {
+
+    /**
+     * Fold batchnorm(conv2d(x, W, b), mean, var, gamma, beta) into conv2d(x, W', b') where:<br>
+     * scale = gamma / sqrt(var + eps)<br>
+     * W' = W * scale (along the output channels dimension)<br>
+     * b' = (b - mean) * scale + beta
+     */
+    public static class FoldBatchNormIntoConv2d implements Optimizer {
+        @Override
+        public boolean checkAndApply(SameDiff sd, OptimizationHelper helper, SameDiffOp op, ArrayHolder constantArrays, ArrayHolder variablesArrays) {
+            if(!(op.getOp() instanceof BatchNorm) || OptimizationUtils.hasControlDependencies(op))
+                return false;
+
+            BatchNorm bn = (BatchNorm) op.getOp();
+            List<String> bnIn = op.getInputsToOp();
+            long[] bnIArgs = bn.iArgs();
+            double[] bnTArgs = bn.tArgs();
+            boolean applyGamma = bnIArgs.length > 0 ? bnIArgs[0] != 0 : bn.isApplyGamma();
+            boolean applyBeta = bnIArgs.length > 1 ? bnIArgs[1] != 0 : bn.isApplyBeta();
+            double eps = bnTArgs.length > 0 ? bnTArgs[0] : bn.getEpsilon();
+            int[] axis = bnIArgs.length > 2 ? toInt(Arrays.copyOfRange(bnIArgs, 2, bnIArgs.length)) : bn.getJaxis();
+            if(bnIn.size() != 3 + (applyGamma ? 1 : 0) + (applyBeta ? 1 : 0) || axis == null || axis.length != 1)
+                return false;
+
+            String convOut = bnIn.get(0);
+            String mean = bnIn.get(1);
+            String var = bnIn.get(2);
+            String gamma = applyGamma ? bnIn.get(3) : null;
+            String beta = applyBeta ? bnIn.get(applyGamma ? 4 : 3) : null;
+            for(String s : new String[]{mean, var, gamma, beta}){
+                if(s != null && !isConstant(sd, s))
+                    return false;
+            }
+
+            SameDiffOp convOp = OptimizationUtils.producer(sd, convOut);
+            if(convOp == null || !(convOp.getOp() instanceof Conv2D) || OptimizationUtils.hasControlDependencies(convOp) ||
+                    OptimizationUtils.numConsumers(sd, convOut) != 1 || helper.isRequiredOutput(convOut))
+                return false;
+
+            List<String> convIn = convOp.getInputsToOp();
+            String w = convIn.get(1);
+            String b = convIn.size() > 2 ? convIn.get(2) : null;
+            if(!isConstant(sd, w) || OptimizationUtils.numConsumers(sd, w) != 1 || helper.isRequiredOutput(w))
+                return false;
+            if(b != null && (!isConstant(sd, b) || OptimizationUtils.numConsumers(sd, b) != 1 || helper.isRequiredOutput(b)))
+                return false;
+
+            long[] convIArgs = ((Conv2D) convOp.getOp()).iArgs();
+            boolean nhwc = convIArgs.length > 9 && convIArgs[9] == 1;
+            WeightsFormat wf = convIArgs.length > 10 ? WeightsFormat.values()[(int) convIArgs[10]] : WeightsFormat.YXIO;
+            int bnAxis = axis[0] < 0 ? axis[0] + 4 : axis[0];
+            if(bnAxis != (nhwc ? 3 : 1))
+                return false;
+
+            INDArray wArr = constantArrays.getArray(w);
+            int oDim = wf == WeightsFormat.YXIO ? 3 : 0;
+            if(wArr == null || wArr.rank() != 4)
+                return false;
+            long nOut = wArr.size(oDim);
+            DataType dt = wArr.dataType();
+
+            INDArray meanArr = vector(constantArrays, mean, dt, nOut);
+            INDArray varArr = vector(constantArrays, var, dt, nOut);
+            INDArray gammaArr = gamma == null ? null : vector(constantArrays, gamma, dt, nOut);
+            INDArray betaArr = beta == null ? null : vector(constantArrays, beta, dt, nOut);
+            INDArray bArr = b == null ? Nd4j.zeros(dt, nOut) : vector(constantArrays, b, dt, nOut);
+            if(meanArr == null || varArr == null || bArr == null || (gamma != null && gammaArr == null) || (beta != null && betaArr == null))
+                return false;
+
+            //Calculate the new parameters
+            INDArray scale = Transforms.sqrt(varArr.add(eps), false).rdivi(1.0);
+            if(gammaArr != null)
+                scale.muli(gammaArr);
+            INDArray newW = wArr.dup();
+            Broadcast.mul(newW, scale, newW, oDim);
+            INDArray newB = bArr.sub(meanArr).muli(scale);
+            if(betaArr != null)
+                newB.addi(betaArr);
+
+            constantArrays.setArray(w, newW);
+            if(b != null){
+                constantArrays.setArray(b, newB.reshape(constantArrays.getArray(b).shape()));
+            } else {
+                String bName = uniqueName(sd, convOp.getName() + "/folded_bias");
+                sd.constant(bName, newB);
+                List<String> newIn = new ArrayList<>(convIn);
+                newIn.add(bName);
+                convOp.setInputsToOp(newIn);
+                OptimizationUtils.addConsumer(sd, bName, convOp.getName());
+            }
+
+            //conv2d now produces the batchnorm output directly
+            String bnOut = op.getOutputsOfOp().get(0);
+            OptimizationUtils.removeOp(sd, op.getName());
+            convOp.setOutputsOfOp(new ArrayList<>(Arrays.asList(bnOut)));
+            sd.getVariables().get(bnOut).setOutputOfOp(convOp.getName());
+            OptimizationUtils.removeVariable(sd, convOut);
+            return true;
+        }
+    }
+
+    /**
+     * Fuse mmul(x, W) + b and relu(mmul(x, W) + b) into a single xw_plus_b or relu_layer op, where W is a rank 2 constant
+     * and b is a rank 1 constant
+     */
+    public static class FuseMatMulBiasActivation implements Optimizer {
+        @Override
+        public boolean checkAndApply(SameDiff sd, OptimizationHelper helper, SameDiffOp op, ArrayHolder constantArrays, ArrayHolder variablesArrays) {
+            if(!(op.getOp() instanceof Mmul) || op.getInputsToOp().size() != 2 || OptimizationUtils.hasControlDependencies(op))
+                return false;
+
+            Mmul mmul = (Mmul) op.getOp();
+            for(long l : mmul.iArgs()){
+                if(l != 0)
+                    return false;   //Transpose args
+            }
+            double[] t = mmul.tArgs();
+            if((t.length > 0 && t[0] != 1.0) || (t.length > 1 && t[1] != 0.0))
+                return false;
+
+            String x = op.getInputsToOp().get(0);
+            String w = op.getInputsToOp().get(1);
+            long[] xShape = sd.getVariable(x).getShape();
+            if(xShape == null || xShape.length != 2 || !isConstant(sd, w))
+                return false;
+            INDArray wArr = constantArrays.getArray(w);
+            if(wArr == null || wArr.rank() != 2)
+                return false;
+
+            String mmulOut = op.getOutputsOfOp().get(0);
+            SameDiffOp addOp = singleConsumer(sd, helper, mmulOut);
+            if(addOp == null || addOp.getInputsToOp().size() != 2)
+                return false;
+            String b;
+            if(addOp.getOp() instanceof BiasAdd && addOp.getInputsToOp().get(0).equals(mmulOut)){
+                b = addOp.getInputsToOp().get(1);
+            } else if(addOp.getOp() instanceof AddOp){
+                List<String> in = addOp.getInputsToOp();
+                b = in.get(0).equals(mmulOut) ? in.get(1) : in.get(0);
+            } else {
+                return false;
+            }
+            if(b.equals(mmulOut) || !isConstant(sd, b))
+                return false;
+            INDArray bArr = constantArrays.getArray(b);
+            if(bArr == null || bArr.rank() != 1 || bArr.length() != wArr.size(1))
+                return false;
+
+            String addOut = addOp.getOutputsOfOp().get(0);
+            SameDiffOp reluOp = singleConsumer(sd, helper, addOut);
+            if(reluOp != null && !(reluOp.getOp() instanceof RectifiedLinear && isZero(reluOp.getOp().getScalarValue())))
+                reluOp = null;
+
+            SameDiffOp last = reluOp != null ? reluOp : addOp;
+            XwPlusB fn = reluOp != null ? new ReluLayer() : new XwPlusB();
+            fn.setSameDiff(sd);
+            fn.setOwnName(last.getName());
+
+            //Detach and remove the ops being replaced
+            for(String s : last.getInputsToOp()){
+                Variable v = sd.getVariables().get(s);
+                if(v.getInputsForOp() != null)
+                    v.getInputsForOp().remove(last.getName());
+            }
+            OptimizationUtils.removeOp(sd, op.getName());
+            if(reluOp != null)
+                OptimizationUtils.removeOp(sd, addOp.getName());
+            OptimizationUtils.removeVariable(sd, mmulOut);
+            if(reluOp != null)
+                OptimizationUtils.removeVariable(sd, addOut);
+
+            last.setOp(fn);
+            last.setInputsToOp(new ArrayList<>(Arrays.asList(x, w, b)));
+            OptimizationUtils.addConsumer(sd, x, last.getName());
+            OptimizationUtils.addConsumer(sd, w, last.getName());
+            OptimizationUtils.addConsumer(sd, b, last.getName());
+            return true;
+        }
+    }
+
+
+    protected static boolean isConstant(SameDiff sd, String name){
+        SDVariable v = sd.getVariable(name);
+        return v != null && v.isConstant();
+    }
+
+    protected static INDArray vector(ArrayHolder constantArrays, String name, DataType dt, long length){
+        INDArray arr = constantArrays.getArray(name);
+        if(arr == null || arr.length() != length)
+            return null;
+        return arr.reshape(length).castTo(dt);
+    }
+
+    protected static SameDiffOp singleConsumer(SameDiff sd, OptimizationHelper helper, String varName){
+        if(helper.isRequiredOutput(varName) || OptimizationUtils.numConsumers(sd, varName) != 1)
+            return null;
+        SameDiffOp o = sd.getOps().get(sd.getVariables().get(varName).getInputsForOp().get(0));
+        if(o == null || OptimizationUtils.hasControlDependencies(o))
+            return null;
+        return o;
+    }
+
+    protected static boolean isZero(INDArray scalar){
+        return scalar != null && scalar.length() == 1 && scalar.getDouble(0) == 0.0;
+    }
+
+    protected static String uniqueName(SameDiff sd, String base){
+        String name = base;
+        int i = 1;
+        while(sd.hasVariable(name)){
+            name = base + "_" + i++;
+        }
+        return name;
+    }
+
+    protected static int[] toInt(long[] arr){
+        int[] out = new int[arr.length];
+        for( int i=0; i<arr.length; i++ ){
+            out[i] = (int) arr[i];
+        }
+        return out;
+    }
+}
@@ -23,12 +23,12 @@ package org.nd4j.autodiff.samediff.optimize.optimizations;
 import org.nd4j.autodiff.samediff.ArrayHolder;
 import org.nd4j.autodiff.samediff.SameDiff;
 import org.nd4j.autodiff.samediff.internal.SameDiffOp;
+import org.nd4j.autodiff.samediff.internal.Variable;
 import org.nd4j.autodiff.samediff.optimize.OptimizationHelper;
 import org.nd4j.autodiff.samediff.optimize.Optimizer;
+import org.nd4j.linalg.api.ops.impl.shape.Transpose;
 import org.nd4j.linalg.api.ops.impl.transforms.same.Identity;
 
-import java.util.Properties;
-
 public class IdentityFunctionOptimizations extends BaseOptimizerSet {
 
     /**
@@ -38,7 +38,18 @@ public class IdentityFunctionOptimizations extends BaseOptimizerSet {
 
         @Override
         public boolean checkAndApply(SameDiff sd, OptimizationHelper helper, SameDiffOp op, ArrayHolder constantArrays, ArrayHolder variablesArrays) {
-            return false;
+            if(!(op.getOp() instanceof Transpose) || !canRemove(sd, helper, op))
+                return false;
+
+            int[] perm = ShapeFunctionOptimizations.permutation(op, constantArrays);
+            if(perm == null || !ShapeFunctionOptimizations.isIdentity(perm))
+                return false;
+
+            String inName = op.getInputsToOp().get(0);
+            String outputName = op.getOutputsOfOp().get(0);
+            OptimizationUtils.rewireConsumers(sd, outputName, inName);
+            OptimizationUtils.removeOpAndOutputs(sd, op.getName());
+            return true;
         }
     }
 
@@ -48,16 +59,29 @@ public class IdentityFunctionOptimizations extends BaseOptimizerSet {
     public static class RemoveIdentityOps implements Optimizer {
         @Override
         public boolean checkAndApply(SameDiff sd, OptimizationHelper helper, SameDiffOp op, ArrayHolder constantArrays, ArrayHolder variablesArrays) {
-            if(op.getOp() instanceof Identity){
+            if(op.getOp() instanceof Identity && canRemove(sd, helper, op)){
                 String inName = op.getInputsToOp().get(0);
                 String outputName = op.getOutputsOfOp().get(0);
-                OptimizationUtils.removeOp(sd, op.getName());
-                OptimizationUtils.replaceOpInputsWith(sd, outputName, inName);
-                OptimizationUtils.removeVariable(sd, outputName);
+                OptimizationUtils.rewireConsumers(sd, outputName, inName);
+                OptimizationUtils.removeOpAndOutputs(sd, op.getName());
                 return true;
             }
 
             return false;
         }
     }
+
+    /**
+     * An identity op can only be removed if its output isn't a required (named) output, and it isn't used to
+     * carry control dependencies
+     */
+    protected static boolean canRemove(SameDiff sd, OptimizationHelper helper, SameDiffOp op){
+        if(OptimizationUtils.hasControlDependencies(op))
+            return false;
+        String outputName = op.getOutputsOfOp().get(0);
+        Variable v = sd.getVariables().get(outputName);
+        return !helper.isRequiredOutput(outputName) &&
+                (v.getControlDepsForOp() == null || v.getControlDepsForOp().isEmpty()) &&
+                (v.getControlDepsForVar() == null || v.getControlDepsForVar().isEmpty());
+    }
 }
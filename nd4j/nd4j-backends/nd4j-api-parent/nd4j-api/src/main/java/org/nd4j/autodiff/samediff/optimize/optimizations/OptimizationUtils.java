@@ -67,4 +67,102 @@ public class OptimizationUtils {
         sd.getVariables().remove(varToRemove);
     }
 
+    /**
+     * Replace all uses of variable "from" as an op input with variable "to". Unlike {@link #replaceOpInputsWith(SameDiff, String, String)}
+     * any existing uses of "to" are retained - i.e., the consumers of both variables are merged.
+     * After this call, "from" has no consumers.
+     */
+    public static void rewireConsumers(@NonNull SameDiff sd, @NonNull String from, @NonNull String to){
+        if(from.equals(to))
+            return;
+
+        Variable vFrom = sd.getVariables().get(from);
+        Variable vTo = sd.getVariables().get(to);
+        List<String> consumers = vFrom.getInputsForOp();
+        if(consumers == null || consumers.isEmpty())
+            return;
+
+        List<String> newConsumers = vTo.getInputsForOp() == null ? new ArrayList<String>() : new ArrayList<>(vTo.getInputsForOp());
+        for(String opName : consumers){
+            SameDiffOp o = sd.getOps().get(opName);
+            if(o == null || o.getInputsToOp() == null)
+                continue;
+            List<String> l = new ArrayList<>(o.getInputsToOp());
+            while(l.contains(from)){
+                l.set(l.indexOf(from), to);
+            }
+            o.setInputsToOp(l);
+            if(!newConsumers.contains(opName))
+                newConsumers.add(opName);
+        }
+        vTo.setInputsForOp(newConsumers);
+        vFrom.setInputsForOp(new ArrayList<String>());
+    }
+
+    /**
+     * Replace the input at the specified index of an op with a different variable, updating the variable structure
+     */
+    public static void replaceOpInput(@NonNull SameDiff sd, @NonNull SameDiffOp op, int idx, @NonNull String newInput){
+        List<String> inputs = new ArrayList<>(op.getInputsToOp());
+        String old = inputs.get(idx);
+        inputs.set(idx, newInput);
+        op.setInputsToOp(inputs);
+        if(!inputs.contains(old)){
+            Variable vOld = sd.getVariables().get(old);
+            if(vOld != null && vOld.getInputsForOp() != null)
+                vOld.getInputsForOp().remove(op.getName());
+        }
+        addConsumer(sd, newInput, op.getName());
+    }
+
+    /**
+     * Record that the specified op uses the specified variable as an input (variable structure only)
+     */
+    public static void addConsumer(@NonNull SameDiff sd, @NonNull String varName, @NonNull String opName){
+        Variable v = sd.getVariables().get(varName);
+        List<String> l = v.getInputsForOp() == null ? new ArrayList<String>() : new ArrayList<>(v.getInputsForOp());
+        if(!l.contains(opName))
+            l.add(opName);
+        v.setInputsForOp(l);
+    }
+
+    /**
+     * @return The number of ops that use the specified variable as an input
+     */
+    public static int numConsumers(@NonNull SameDiff sd, @NonNull String varName){
+        Variable v = sd.getVariables().get(varName);
+        return v == null || v.getInputsForOp() == null ? 0 : v.getInputsForOp().size();
+    }
+
+    /**
+     * @return The op that produces the specified variable, or null if it is not the output of an op (constant, placeholder, etc)
+     */
+    public static SameDiffOp producer(@NonNull SameDiff sd, @NonNull String varName){
+        Variable v = sd.getVariables().get(varName);
+        if(v == null || v.getOutputOfOp() == null)
+            return null;
+        return sd.getOps().get(v.getOutputOfOp());
+    }
+
+    /**
+     * @return True if the op has any control dependencies, or is a control dependency for any other op or variable
+     */
+    public static boolean hasControlDependencies(@NonNull SameDiffOp op){
+        return (op.getControlDeps() != null && !op.getControlDeps().isEmpty()) ||
+                (op.getVarControlDeps() != null && !op.getVarControlDeps().isEmpty()) ||
+                (op.getControlDepFor() != null && !op.getControlDepFor().isEmpty());
+    }
+
+    /**
+     * Remove the specified op along with all of its output variables. The outputs must not be used by any other op
+     */
+    public static void removeOpAndOutputs(@NonNull SameDiff sd, @NonNull String opName){
+        SameDiffOp op = sd.getOps().get(opName);
+        List<String> outputs = op.getOutputsOfOp() == null ? new ArrayList<String>() : new ArrayList<>(op.getOutputsOfOp());
+        removeOp(sd, opName);
+        for(String s : outputs){
+            removeVariable(sd, s);
+        }
+    }
+
 }
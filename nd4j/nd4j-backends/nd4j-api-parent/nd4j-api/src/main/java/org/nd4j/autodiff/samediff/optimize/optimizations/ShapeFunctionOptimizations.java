@@ -23,49 +23,84 @@ package org.nd4j.autodiff.samediff.optimize.optimizations;
 import org.nd4j.autodiff.samediff.ArrayHolder;
 import org.nd4j.autodiff.samediff.SameDiff;
 import org.nd4j.autodiff.samediff.internal.SameDiffOp;
-import org.nd4j.autodiff.samediff.internal.Variable;
 import org.nd4j.autodiff.samediff.optimize.OptimizationHelper;
 import org.nd4j.autodiff.samediff.optimize.Optimizer;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.impl.shape.Permute;
+import org.nd4j.linalg.api.ops.impl.shape.Reshape;
+import org.nd4j.linalg.api.ops.impl.shape.Transpose;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class ShapeFunctionOptimizations extends BaseOptimizerSet {
 
     /**
      * Fuse [permute1 -> permute2 -> ... -> permuteN] into a single permute op,
-     * as long as the intermediate permute outputs aren't needed for another op
+     * as long as the intermediate permute outputs aren't needed for another op.<br>
+     * If the combined permutation is the identity permutation (for example, permute(permute(x, 0,2,1), 0,2,1) or
+     * transpose(transpose(x))) both ops are removed entirely.
      */
     public static class FuseChainedPermutes implements Optimizer {
         @Override
         public boolean checkAndApply(SameDiff sd, OptimizationHelper helper, SameDiffOp op, ArrayHolder constantArrays, ArrayHolder variablesArrays) {
-            if(!(op.getOp() instanceof Permute))
+            if(!(op.getOp() instanceof Transpose) || OptimizationUtils.hasControlDependencies(op))
                 return false;
 
-            List<String> inputs = op.getInputsToOp();
-            String input = inputs.get(0);
-
-            List<String> toFuse = new ArrayList<>();
-            toFuse.add(op.getName());
-            String currInput = input;
-            while(currInput != null){
-                Variable v = sd.getVariables().get(currInput);
-                //In order to fuse permute operations, we require:
-                // (a) the intermediate variable is ONLY needed by the next permute
-                // (b) the permute dimensions are constant,
-
-                if(v.getInputsForOp().size() > 1)
-                    break;
-            }
+            //In order to fuse permute operations, we require:
+            // (a) the intermediate variable is ONLY needed by the next permute
+            // (b) the permute dimensions are constant
+            String input = op.getInputsToOp().get(0);
+            SameDiffOp prev = OptimizationUtils.producer(sd, input);
+            if(prev == null || !(prev.getOp() instanceof Transpose) || OptimizationUtils.hasControlDependencies(prev) ||
+                    OptimizationUtils.numConsumers(sd, input) != 1 || helper.isRequiredOutput(input))
+                return false;
 
-            if(toFuse.size() > 1){
-                //Fuse the permute ops
+            String originalInput = prev.getInputsToOp().get(0);
+            String output = op.getOutputsOfOp().get(0);
+            int[] p1 = permutation(prev, constantArrays);
+            int[] p2 = permutation(op, constantArrays);
 
-//                return true;
+            boolean cancels;
+            int[] fused = null;
+            if(p1 == null && p2 == null){
+                //transpose(transpose(x)) == x for any rank
+                cancels = isReverse(prev) && isReverse(op);
+            } else if(p1 != null && p2 != null && p1.length == p2.length){
+                fused = new int[p1.length];
+                for( int i=0; i<fused.length; i++ ){
+                    fused[i] = p1[p2[i]];
+                }
+                cancels = isIdentity(fused);
+            } else {
                 return false;
             }
 
+            if(cancels){
+                if(helper.isRequiredOutput(output))
+                    return false;
+                OptimizationUtils.rewireConsumers(sd, output, originalInput);
+                OptimizationUtils.removeOpAndOutputs(sd, op.getName());
+                OptimizationUtils.removeOpAndOutputs(sd, prev.getName());
+                return true;
+            } else if(fused != null){
+                //Replace the second op with a single permute, applied directly to the original input
+                Permute p = new Permute();
+                p.setSameDiff(sd);
+                p.setOwnName(op.getName());
+                p.addIArgument(fused);
+                p.configureFromArguments();
+                for(String s : op.getInputsToOp()){
+                    sd.getVariables().get(s).getInputsForOp().remove(op.getName());
+                }
+                op.setOp(p);
+                op.setInputsToOp(new ArrayList<>(Collections.singletonList(originalInput)));
+                OptimizationUtils.addConsumer(sd, originalInput, op.getName());
+                OptimizationUtils.removeOpAndOutputs(sd, prev.getName());
+                return true;
+            }
 
             return false;
         }
@@ -78,7 +113,25 @@ public class ShapeFunctionOptimizations extends BaseOptimizerSet {
     public static class FuseChainedReshapes implements Optimizer {
         @Override
         public boolean checkAndApply(SameDiff sd, OptimizationHelper helper, SameDiffOp op, ArrayHolder constantArrays, ArrayHolder variablesArrays) {
-            return false;
+            if(!(op.getOp() instanceof Reshape) || OptimizationUtils.hasControlDependencies(op))
+                return false;
+
+            String input = op.getInputsToOp().get(0);
+            SameDiffOp prev = OptimizationUtils.producer(sd, input);
+            if(prev == null || !(prev.getOp() instanceof Reshape) || OptimizationUtils.hasControlDependencies(prev) ||
+                    OptimizationUtils.numConsumers(sd, input) != 1 || helper.isRequiredOutput(input))
+                return false;
+
+            //reshape(reshape(x, s1), s2) == reshape(x, s2) only when both reshapes use the same order, and the
+            // second shape doesn't reference the intermediate shape (i.e., 0 = "copy dimension" semantics)
+            char o1 = reshapeOrder((Reshape) prev.getOp());
+            char o2 = reshapeOrder((Reshape) op.getOp());
+            if(o1 != o2 || !isStaticShapeWithoutZeros(op, constantArrays))
+                return false;
+
+            OptimizationUtils.replaceOpInput(sd, op, 0, prev.getInputsToOp().get(0));
+            OptimizationUtils.removeOpAndOutputs(sd, prev.getName());
+            return true;
         }
     }
 
@@ -93,4 +146,73 @@ public class ShapeFunctionOptimizations extends BaseOptimizerSet {
         }
     }
 
+    /**
+     * @return The (static) permutation for a transpose/permute op, or null if it is not known
+     */
+    protected static int[] permutation(SameDiffOp op, ArrayHolder constantArrays){
+        Transpose t = (Transpose) op.getOp();
+        List<String> in = op.getInputsToOp();
+        if(in.size() > 1){
+            INDArray arr = constantArrays.getArray(in.get(1));
+            return arr == null ? null : arr.toIntVector();
+        }
+        long[] iArgs = t.iArgs();
+        if(iArgs.length > 0){
+            int[] out = new int[iArgs.length];
+            for( int i=0; i<out.length; i++ ){
+                out[i] = (int) iArgs[i];
+            }
+            return out;
+        }
+        try {
+            Object o = t.propertiesForFunction().get("permuteDims");
+            return o instanceof int[] ? (int[]) o : null;
+        } catch (Exception e){
+            return null;
+        }
+    }
+
+    /**
+     * @return True if the op is a transpose op without any permutation - i.e., reverses the dimensions
+     */
+    protected static boolean isReverse(SameDiffOp op){
+        return op.getOp().getClass() == Transpose.class && op.getInputsToOp().size() == 1 && permutation(op, null) == null;
+    }
+
+    protected static boolean isIdentity(int[] permutation){
+        for( int i=0; i<permutation.length; i++ ){
+            if(permutation[i] != i)
+                return false;
+        }
+        return true;
+    }
+
+    protected static char reshapeOrder(Reshape r){
+        long[] iArgs = r.iArgs();
+        if(iArgs.length > 0 && iArgs[0] == Reshape.F_ORDER)
+            return 'f';
+        return 'c';
+    }
+
+    protected static boolean isStaticShapeWithoutZeros(SameDiffOp op, ArrayHolder constantArrays){
+        long[] shape;
+        if(op.getInputsToOp().size() > 1){
+            INDArray arr = constantArrays.getArray(op.getInputsToOp().get(1));
+            if(arr == null)
+                return false;
+            shape = arr.toLongVector();
+        } else {
+            long[] iArgs = ((Reshape) op.getOp()).iArgs();
+            if(iArgs.length == 0)
+                return false;
+            boolean hasOrder = iArgs[0] == Reshape.C_ORDER || iArgs[0] == Reshape.F_ORDER;
+            shape = hasOrder ? Arrays.copyOfRange(iArgs, 1, iArgs.length) : iArgs;
+        }
+        for(long l : shape){
+            if(l == 0)
+                return false;
+        }
+        return true;
+    }
+
 }
@@ -1815,7 +1815,7 @@ public abstract class BaseDataBuffer implements DataBuffer {
         if(EventLogger.getInstance().isEnabled())
             deallocator().logEvent().setConstant(reallyConstant);
         if(reallyConstant)
-            Nd4j.getDeallocatorService().getReferenceMap().remove(getUniqueId());
+            Nd4j.getDeallocatorService().removeReference(getUniqueId());
 
         this.constant = reallyConstant;
 
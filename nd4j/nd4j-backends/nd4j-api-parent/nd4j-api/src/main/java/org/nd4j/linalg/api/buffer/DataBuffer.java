@@ -527,6 +527,15 @@ public interface DataBuffer extends Serializable, AutoCloseable, Deallocatable {
      */
     long length();
 
+    /**
+     * Off-heap bytes owned by this buffer, for deallocator memory pressure tracking. Views of other buffers do not own
+     * their memory, and return 0
+     */
+    @Override
+    default long offHeapBytes() {
+        return originalDataBuffer() == null ? length() * getElementSize() : 0;
+    }
+
     /**
      * Returns the length of the buffer
      *
@@ -34,6 +34,7 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 public class AllocationsTracker {
@@ -43,6 +44,13 @@ public class AllocationsTracker {
 
     private Map<String,WorkspaceAllocationsTracker> workspaceAllocationsTracker = new ConcurrentHashMap<>();
 
+    //Deallocator service metrics
+    private final AtomicLong trackedOffHeapBytes = new AtomicLong(0);
+    private final AtomicLong deallocatorQueueLag = new AtomicLong(0);
+    private final AtomicLong deallocatorThreads = new AtomicLong(0);
+    private final AtomicLong deallocationBursts = new AtomicLong(0);
+    private final AtomicLong deallocatorGcHints = new AtomicLong(0);
+
     protected AllocationsTracker() {
 
     }
@@ -118,9 +126,77 @@ public class AllocationsTracker {
         ret.append("Javacpp max physical bytes " + Pointer.maxPhysicalBytes() + "\n");
         ret.append("Java free memory: " + Runtime.getRuntime().freeMemory() + "\n");
         ret.append("Java max memory: " + Runtime.getRuntime().maxMemory() + "\n");
+        ret.append("Deallocator tracked off-heap bytes: " + trackedOffHeapBytes() + "\n");
+        ret.append("Deallocator queue lag: " + deallocatorQueueLag() + "\n");
+        ret.append("Deallocator threads: " + deallocatorThreads() + "\n");
+        ret.append("Deallocator bursts: " + deallocationBursts() + ", GC hints: " + deallocatorGcHints() + "\n");
         return ret.toString();
     }
 
+    /**
+     * Update the off-heap bytes tracked by the deallocator service: positive when objects start being tracked (to be
+     * released once garbage collected), negative when they are released or no longer tracked
+     */
+    public void updateTrackedOffHeapBytes(long delta) {
+        trackedOffHeapBytes.addAndGet(delta);
+    }
+
+    /**
+     * @return Off-heap bytes of all objects currently tracked by the deallocator service. This includes memory of
+     * objects that are still in use, not only of objects that have been garbage collected and are awaiting release
+     */
+    public long trackedOffHeapBytes() {
+        return trackedOffHeapBytes.get();
+    }
+
+    /**
+     * Record the number of references that were waiting in a deallocator queue (i.e., garbage collected but not yet
+     * deallocated) when the queue was last drained
+     */
+    public void recordDeallocatorQueueLag(long numReferences) {
+        deallocatorQueueLag.set(numReferences);
+    }
+
+    /**
+     * @return Number of references waiting for deallocation when a deallocator queue was last drained
+     */
+    public long deallocatorQueueLag() {
+        return deallocatorQueueLag.get();
+    }
+
+    public void updateDeallocatorThreads(int delta) {
+        deallocatorThreads.addAndGet(delta);
+    }
+
+    /**
+     * @return Current number of deallocator service threads (all devices)
+     */
+    public long deallocatorThreads() {
+        return deallocatorThreads.get();
+    }
+
+    public void markDeallocationBurst() {
+        deallocationBursts.incrementAndGet();
+    }
+
+    /**
+     * @return Number of deallocation bursts triggered due to off-heap memory pressure
+     */
+    public long deallocationBursts() {
+        return deallocationBursts.get();
+    }
+
+    public void markDeallocatorGcHint() {
+        deallocatorGcHints.incrementAndGet();
+    }
+
+    /**
+     * @return Number of garbage collections requested by the deallocator service due to off-heap memory pressure
+     */
+    public long deallocatorGcHints() {
+        return deallocatorGcHints.get();
+    }
+
 
     public long totalMemoryForWorkspace(String workspace,MemoryKind memoryKind) {
         return workspaceAllocationsTracker.get(workspace).currentBytes(memoryKind);
@@ -48,4 +48,12 @@ public interface Deallocatable {
      * This method returns deviceId it's affined with, so deallocator thread will be guaranteed to match it
      */
     int targetDevice();
+
+    /**
+     * This method returns the number of off-heap bytes that will be released by the deallocator for this instance,
+     * used for memory pressure tracking in the deallocator service. 0 if not known
+     */
+    default long offHeapBytes() {
+        return 0;
+    }
 }
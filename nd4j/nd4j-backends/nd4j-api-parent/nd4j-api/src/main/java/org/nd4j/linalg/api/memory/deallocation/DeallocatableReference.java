@@ -31,12 +31,14 @@ import java.lang.ref.WeakReference;
 public class DeallocatableReference extends WeakReference<Deallocatable> {
     private long id;
     private Deallocator deallocator;
+    private long bytes;
 
     public DeallocatableReference(Deallocatable referent, ReferenceQueue<? super Deallocatable> q) {
         super(referent, q);
 
         this.id = referent.getUniqueId();
         this.deallocator = referent.deallocator();
+        this.bytes = referent.offHeapBytes();
     }
 
     public void deallocate() {
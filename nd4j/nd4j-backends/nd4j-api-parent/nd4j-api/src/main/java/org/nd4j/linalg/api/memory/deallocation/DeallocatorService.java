@@ -22,11 +22,11 @@ package org.nd4j.linalg.api.memory.deallocation;
 
 import lombok.Getter;
 import lombok.NonNull;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
-import org.apache.commons.lang3.RandomUtils;
+import org.bytedeco.javacpp.Pointer;
 import org.nd4j.common.config.ND4JSystemProperties;
+import org.nd4j.linalg.api.memory.AllocationsTracker;
 import org.nd4j.linalg.api.memory.Deallocatable;
 import org.nd4j.linalg.factory.Nd4j;
 
@@ -34,11 +34,12 @@ import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Handles deallocation of offheap references.
@@ -67,16 +68,35 @@ import java.util.concurrent.atomic.AtomicLong;
  * DO THIS AT YOUR OWN RISK. ONLY FOR advanced users.
  *
  *
+ * Each device has a single reference queue, drained by a pool of deallocator threads. The pool always runs
+ * {@link ND4JSystemProperties#DEALLOCATOR_MIN_THREADS} threads per device, and grows up to
+ * {@link ND4JSystemProperties#DEALLOCATOR_MAX_THREADS} when the queue backlog is large (or off-heap memory is
+ * under pressure). Extra threads stop again once they have been idle for a while.
+ *
+ * The service also tracks the off-heap bytes of the references it holds (see {@link Deallocatable#offHeapBytes()}).
+ * When these exceed the watermark ({@link ND4JSystemProperties#DEALLOCATOR_WATERMARK}) a deallocation burst is
+ * triggered, optionally along with a rate limited GC hint ({@link ND4JSystemProperties#DEALLOCATOR_GC_HINT}), and the
+ * allocating thread may wait for memory to be released ({@link ND4JSystemProperties#DEALLOCATOR_BACKPRESSURE_WAIT_MS}).
+ * Metrics are reported via {@link AllocationsTracker}.
+ *
  * Known limitations:
  *
  * Due to relying on the JVM to supply garbage collectable references,
- * the allocator fall behind in deallocation. This happens VERY rarely and only at certain scales.
+ * the allocator may fall behind in deallocation. The memory pressure handling above mitigates, but cannot
+ * entirely prevent this: objects are only released once the JVM has garbage collected them.
  *
  */
 @Slf4j
 public class DeallocatorService {
-    private Thread[] deallocatorThreads;
-    private ReferenceQueue<Deallocatable>[] queues;
+    //Backlog (number of references drained in one go) above which an additional deallocator thread is started
+    private static final int BURST_BACKLOG = 1024;
+    //Time after which idle threads above the minimum thread count stop
+    private static final long IDLE_TIMEOUT_MS = 10_000;
+    //Minimum time between GC hints
+    private static final long GC_HINT_INTERVAL_MS = 500;
+    //Minimum growth of tracked bytes (as a fraction of the watermark) since the last GC hint or drain, for another hint
+    private static final double GC_HINT_MIN_GROWTH = 0.05;
+
     //note we do this for thread safety while reducing the amount of memory
     //strings take up. There is a performance trade off with respect to
     //ConcurrentHashMap (the prior implementation) which has higher throughput overall but is inefficient
@@ -84,39 +104,41 @@ public class DeallocatorService {
     //with a large number of objects is more important over throughput.
     @Getter
     private Map<Long,DeallocatableReference> referenceMap = new ConcurrentSkipListMap<>();
-    private static Set<Long> deallocatedIds = new ConcurrentSkipListSet<>();
 
     private static AtomicBoolean blockDeallocator = new AtomicBoolean(false);
 
-    private List<List<ReferenceQueue<Deallocatable>>> deviceMap = new ArrayList<>();
+    private List<DeviceQueue> deviceQueues = new ArrayList<>();
     private Boolean noPointerGc;
     private final transient AtomicLong counter = new AtomicLong(0);
 
+    private final int minThreads;
+    private final int maxThreads;
+    private final long watermarkBytes;
+    private final boolean gcHint;
+    private final long backpressureWaitMs;
+    private final AtomicLong trackedBytes = new AtomicLong(0);
+    private final AtomicLong lastGcHint = new AtomicLong(0);
+    //Tracked bytes at the last GC hint, lowered as references are released
+    private final AtomicLong gcHintBytes = new AtomicLong(0);
+    private final AtomicInteger threadCounter = new AtomicInteger(0);
+
     public DeallocatorService() {
-        // we need to have at least 2 threads, but for CUDA we'd need at least numDevices threads, due to thread->device affinity
+        // for CUDA we'd need at least numDevices threads, due to thread->device affinity
         int numDevices = Nd4j.getAffinityManager().getNumberOfDevices();
-        int numThreads =  4;
+        minThreads = Math.max(1, Integer.parseInt(System.getProperty(ND4JSystemProperties.DEALLOCATOR_MIN_THREADS, "1")));
+        maxThreads = Math.max(minThreads, Integer.parseInt(System.getProperty(ND4JSystemProperties.DEALLOCATOR_MAX_THREADS, "4")));
+        double watermark = Double.parseDouble(System.getProperty(ND4JSystemProperties.DEALLOCATOR_WATERMARK, "0.8"));
+        watermarkBytes = watermark > 0 && Pointer.maxBytes() > 0 ? (long) (watermark * Pointer.maxBytes()) : 0;
+        gcHint = Boolean.parseBoolean(System.getProperty(ND4JSystemProperties.DEALLOCATOR_GC_HINT, "false"));
+        backpressureWaitMs = Long.parseLong(System.getProperty(ND4JSystemProperties.DEALLOCATOR_BACKPRESSURE_WAIT_MS, "0"));
 
-        for (int e = 0; e < numDevices; e++)
-            deviceMap.add(new ArrayList<>());
-
-        deallocatorThreads = new Thread[numThreads];
-        queues = new ReferenceQueue[numThreads];
         noPointerGc = Boolean.parseBoolean(System.getProperty(ND4JSystemProperties.NO_ARRAY_GC,"false")) || Boolean.parseBoolean(System.getProperty("org.bytedeco.javacpp.nopointergc","false"));
         if(!noPointerGc) {
-            for (int e = 0; e < numThreads; e++) {
-                log.trace("Starting deallocator thread {}", e + 1);
-                queues[e] = new ReferenceQueue<>();
-
-                int deviceId = e % numDevices;
-                // attaching queue to its own thread
-                deallocatorThreads[e] = new DeallocatorServiceThread(queues[e], e, deviceId);
-                deallocatorThreads[e].setName("DeallocatorServiceThread_" + e);
-                deallocatorThreads[e].setDaemon(true);
-
-                deviceMap.get(deviceId).add(queues[e]);
-
-                deallocatorThreads[e].start();
+            for (int e = 0; e < numDevices; e++) {
+                val queue = new DeviceQueue(e);
+                deviceQueues.add(queue);
+                for (int t = 0; t < minThreads; t++)
+                    queue.startThread(true);
             }
         } else {
             log.warn("Disabling automatic garbage collection since the system property " + ND4JSystemProperties.NO_ARRAY_GC + " or " + " org.bytedeco.javacpp.nopointergc was set to false");
@@ -144,79 +166,193 @@ public class DeallocatorService {
         if(noPointerGc) {
             log.trace("Deallocation turned off. Reference " + deallocatable.getUniqueId() + " will need to be de allocated manually.");
         } else {
-            val desiredDevice = deallocatable.targetDevice();
-            val map = deviceMap.get(desiredDevice);
-            val reference = new DeallocatableReference(deallocatable, map.get(RandomUtils.nextInt(0, map.size())));
-            referenceMap.put(deallocatable.getUniqueId(), reference);
+            val queue = deviceQueues.get(deallocatable.targetDevice());
+            val reference = new DeallocatableReference(deallocatable, queue.queue);
+            val previous = referenceMap.put(deallocatable.getUniqueId(), reference);
+            if (previous != null)
+                releaseBytes(previous.getBytes());
+            if (reference.getBytes() > 0) {
+                trackedBytes.addAndGet(reference.getBytes());
+                AllocationsTracker.getInstance().updateTrackedOffHeapBytes(reference.getBytes());
+                if (watermarkBytes > 0 && trackedBytes.get() > watermarkBytes)
+                    onMemoryPressure(queue);
+            }
             return deallocatable.getUniqueId();
         }
 
         return -1;
     }
 
+    /**
+     * Stop tracking the reference with the specified id: i.e., when the object was released manually, or must not be
+     * released by this service. The removed reference is no longer reachable, so it is never enqueued: its deallocator
+     * will not be called by this service, and the caller is responsible for releasing the memory.
+     *
+     * @param id Unique id of the reference, as returned by {@link #pickObject(Deallocatable)}
+     */
+    public void removeReference(long id) {
+        val reference = referenceMap.remove(id);
+        if (reference != null)
+            releaseBytes(reference.getBytes());
+    }
+
+    /**
+     * @return Off-heap bytes of the objects currently tracked by this service
+     */
+    public long trackedBytes() {
+        return trackedBytes.get();
+    }
+
+    private void releaseBytes(long bytes) {
+        if (bytes > 0) {
+            long tracked = trackedBytes.addAndGet(-bytes);
+            if (gcHint && tracked < gcHintBytes.get())
+                gcHintBytes.accumulateAndGet(tracked, Math::min);
+            AllocationsTracker.getInstance().updateTrackedOffHeapBytes(-bytes);
+        }
+    }
+
+    private void onMemoryPressure(DeviceQueue queue) {
+        if (queue.tryStartThread())
+            AllocationsTracker.getInstance().markDeallocationBurst();
+
+        // references only reach the queue once the JVM has collected them. Only hint when tracked bytes have grown
+        // since the last hint (or drain): a large resident model above the watermark would otherwise trigger a GC
+        // on every interval, with nothing to collect
+        if (gcHint) {
+            long now = System.currentTimeMillis();
+            long last = lastGcHint.get();
+            long tracked = trackedBytes.get();
+            long baseline = gcHintBytes.get();
+            if (tracked - baseline > (long) (GC_HINT_MIN_GROWTH * watermarkBytes) && now - last >= GC_HINT_INTERVAL_MS
+                    && lastGcHint.compareAndSet(last, now)) {
+                gcHintBytes.set(tracked);
+                AllocationsTracker.getInstance().markDeallocatorGcHint();
+                Nd4j.getMemoryManager().invokeGc();
+            }
+        }
+
+        if (backpressureWaitMs > 0) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backpressureWaitMs);
+            while (trackedBytes.get() > watermarkBytes && System.nanoTime() < deadline)
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private void deallocate(DeallocatableReference reference) {
+        // references removed from the map were released (or handed over) manually, but the deallocator still owns the memory
+        val tracked = referenceMap.remove(reference.getId());
+        if (tracked != null)
+            releaseBytes(tracked.getBytes());
+
+        if (reference.getDeallocator().isConstant())
+            return;
+
+        reference.deallocate();
+    }
+
+    private class DeviceQueue {
+        private final ReferenceQueue<Deallocatable> queue = new ReferenceQueue<>();
+        private final AtomicInteger numThreads = new AtomicInteger(0);
+        private final int deviceId;
+
+        private DeviceQueue(int deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        /**
+         * Start an additional (non-core) thread, unless the maximum number of threads is already running
+         */
+        private boolean tryStartThread() {
+            int current;
+            do {
+                current = numThreads.get();
+                if (current >= maxThreads)
+                    return false;
+            } while (!numThreads.compareAndSet(current, current + 1));
+
+            launch(false);
+            return true;
+        }
+
+        private void startThread(boolean core) {
+            numThreads.incrementAndGet();
+            launch(core);
+        }
+
+        private void launch(boolean core) {
+            int threadIdx = threadCounter.getAndIncrement();
+            log.trace("Starting deallocator thread {} for device {}", threadIdx, deviceId);
+            val thread = new DeallocatorServiceThread(this, threadIdx, core);
+            thread.setDaemon(true);
+            AllocationsTracker.getInstance().updateDeallocatorThreads(1);
+            thread.start();
+        }
+    }
 
     private class DeallocatorServiceThread extends Thread implements Runnable {
-        private final ReferenceQueue<Deallocatable> queue;
+        private final DeviceQueue deviceQueue;
         private final int threadIdx;
         public static final String DeallocatorThreadNamePrefix = "DeallocatorServiceThread thread ";
-        private final int deviceId;
+        private final boolean core;
 
-        private DeallocatorServiceThread(@NonNull ReferenceQueue<Deallocatable> queue, int threadIdx, int deviceId) {
-            this.queue = queue;
+        private DeallocatorServiceThread(@NonNull DeviceQueue deviceQueue, int threadIdx, boolean core) {
+            this.deviceQueue = deviceQueue;
             this.threadIdx = threadIdx;
+            this.core = core;
             this.setName(DeallocatorThreadNamePrefix + threadIdx);
-            this.deviceId = deviceId;
             setContextClassLoader(null);
         }
 
-        @SneakyThrows
         @Override
         public void run() {
-            Nd4j.getAffinityManager().unsafeSetDevice(deviceId);
-            boolean canRun = true;
-            while (canRun) {
+            try {
+                Nd4j.getAffinityManager().unsafeSetDevice(deviceQueue.deviceId);
                 // if periodicGc is enabled, only first thread will call for it
-                if (Nd4j.getMemoryManager().isPeriodicGcActive() && threadIdx == 0 && Nd4j.getMemoryManager().getAutoGcWindow() > 0) {
-                    val reference = (DeallocatableReference) queue.poll();
-                    if (reference == null || (reference != null && reference.get() != null &&  !reference.get().shouldDeAllocate()) || !reference.getDeallocator().isConstant()) {
-                        val timeout = Nd4j.getMemoryManager().getAutoGcWindow();
-                        try {
-                            Thread.sleep(timeout);
-                            Nd4j.getMemoryManager().invokeGc();
-                        } catch (InterruptedException e) {
-                            canRun = false;
-                        }
-                    } else {
-                        // invoking deallocator
-                        if (reference != null && (reference.get().shouldDeAllocate()) || reference.getDeallocator().isConstant()) {
-                            reference.deallocate();
-                            referenceMap.remove(reference.getId());
-                        } else {
-                            referenceMap.remove(reference.getId());
+                boolean gcThread = core && threadIdx == 0;
+                long lastGc = System.currentTimeMillis();
+                while (true) {
+                    long gcWindow = gcThread && Nd4j.getMemoryManager().isPeriodicGcActive() ? Nd4j.getMemoryManager().getAutoGcWindow() : 0;
+                    // the periodic gc thread wakes up regularly, so that changes to the gc settings are picked up
+                    long timeout = !core || gcThread ? (gcWindow > 0 ? gcWindow : IDLE_TIMEOUT_MS) : 0;
+                    val reference = (DeallocatableReference) (timeout > 0 ? deviceQueue.queue.remove(timeout) : deviceQueue.queue.remove());
+
+                    if (reference != null) {
+                        // drain everything that is currently queued, so the backlog can be measured
+                        int drained = 0;
+                        DeallocatableReference next = reference;
+                        while (next != null) {
+                            process(next);
+                            drained++;
+                            next = (DeallocatableReference) deviceQueue.queue.poll();
                         }
+
+                        AllocationsTracker.getInstance().recordDeallocatorQueueLag(drained);
+                        if (drained >= BURST_BACKLOG && deviceQueue.tryStartThread())
+                            AllocationsTracker.getInstance().markDeallocationBurst();
+                    } else if (!core) {
+                        // idle: stop threads above the minimum thread count
+                        break;
                     }
-                } else {
-                    try {
-                        val reference = (DeallocatableReference) queue.remove();
-                        if (reference == null)
-                            continue;
-
-                        if( (reference.get() != null && !reference.get().shouldDeAllocate()) || reference.getDeallocator().isConstant())
-                            continue;
-
-                        if(deallocatedIds.contains(reference.getId()))
-                            throw new IllegalArgumentException("Deallocating already deallocated reference.");
-
-                        // invoking deallocator
-                        reference.deallocate();
-                        referenceMap.remove(reference.getId());
-                        deallocatedIds.add(reference.getId());
-                    } catch (InterruptedException e) {
-                        canRun = false;
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
+
+                    if (gcWindow > 0 && System.currentTimeMillis() - lastGc >= gcWindow) {
+                        Nd4j.getMemoryManager().invokeGc();
+                        lastGc = System.currentTimeMillis();
                     }
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                deviceQueue.numThreads.decrementAndGet();
+                AllocationsTracker.getInstance().updateDeallocatorThreads(-1);
+            }
+        }
+
+        private void process(DeallocatableReference reference) {
+            try {
+                deallocate(reference);
+            } catch (Exception e) {
+                log.error("Error deallocating reference " + reference.getId(), e);
             }
         }
     }
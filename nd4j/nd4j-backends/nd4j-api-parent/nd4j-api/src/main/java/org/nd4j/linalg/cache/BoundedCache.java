@@ -0,0 +1,290 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package org.nd4j.linalg.cache;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.linalg.profiler.CacheMetricsTracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A size bounded, thread safe cache for constant-like buffers (shape info, TAD packs, constant arrays).<br>
+ * Lookups are lock free and avoid contended atomics: hit and miss counts are striped ({@link LongAdder}), and a hit
+ * only copies the current value of a coarse clock (advanced on inserts, not on lookups) to the entry, skipping the
+ * write if the stamp is already current. Recency is therefore approximate, at the granularity of inserts. Once the number of entries or the
+ * total size in bytes exceeds the configured limits, the least recently used entries are evicted in a single batch
+ * (down to {@link #EVICTION_TARGET} of the limits), so the cost of ordering entries is amortized over many inserts.
+ * <br>
+ * Evicted values are passed to the eviction listener, which is responsible for releasing them. Note that evicted
+ * values may still be referenced by live arrays, so the listener should hand them back to garbage collection
+ * based deallocation rather than freeing them directly.<br>
+ * Hit, miss, eviction and size counters are reported through {@link CacheMetricsTracker}.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class BoundedCache<K, V> {
+    /**
+     * Fraction of the limits that the cache is trimmed down to when an eviction is triggered
+     */
+    public static final double EVICTION_TARGET = 0.9;
+
+    @Getter
+    private final String name;
+    @Getter
+    private final long maxEntries;
+    @Getter
+    private final long maxBytes;
+    private final ToLongFunction<V> weigher;
+    private final Consumer<V> evictionListener;
+
+    private final Map<K, Entry<V>> map = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong(0);
+    private final AtomicLong bytes = new AtomicLong(0);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final Object evictionLock = new Object();
+
+    /**
+     * @param name             Name of the cache, as reported by {@link CacheMetricsTracker}
+     * @param maxEntries       Maximum number of entries. Must be positive
+     * @param maxBytes         Maximum total size of all entries, as reported by the weigher. Use
+     *                         {@link Long#MAX_VALUE} for no byte limit
+     * @param weigher          Returns the size in bytes of a value
+     * @param evictionListener Called (outside of any lock) for each value removed from the cache. May be null
+     */
+    public BoundedCache(@NonNull String name, long maxEntries, long maxBytes, @NonNull ToLongFunction<V> weigher,
+                        Consumer<V> evictionListener) {
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("Maximum number of entries must be positive, got " + maxEntries);
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("Maximum number of bytes must be positive, got " + maxBytes);
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+        CacheMetricsTracker.getInstance().register(this);
+    }
+
+    /**
+     * Get the value for the specified key, or null if it is not present in the cache
+     */
+    public V get(K key) {
+        Entry<V> e = map.get(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        e.touch(clock.get());
+        return e.value;
+    }
+
+    /**
+     * Get the value for the specified key, creating and caching it with the provided function if it is not present.
+     * Concurrent callers for the same missing key may both invoke the function; only one of the results is cached,
+     * and the other is passed to the eviction listener.
+     * Values for which the weigher reports a size larger than the byte limit are returned without being cached.
+     */
+    public V computeIfAbsent(K key, @NonNull Function<? super K, ? extends V> function) {
+        V v = get(key);
+        if (v != null)
+            return v;
+        V created = function.apply(key);
+        if (created == null)
+            return null;
+        return putIfAbsent(key, created);
+    }
+
+    /**
+     * Add the specified value to the cache if the key is not already present.
+     *
+     * @return The value now cached for the key (which may be an existing value). If the value was not added
+     * because another value was already present, the provided value is passed to the eviction listener
+     */
+    public V putIfAbsent(K key, @NonNull V value) {
+        long size = weigher.applyAsLong(value);
+        if (size > maxBytes)
+            return value;
+
+        Entry<V> entry = new Entry<>(value, size, clock.incrementAndGet());
+        Entry<V> existing = map.putIfAbsent(key, entry);
+        if (existing != null) {
+            if (existing.value != value)
+                release(value);
+            existing.touch(clock.get());
+            return existing.value;
+        }
+
+        long total = bytes.addAndGet(size);
+        if (map.size() > maxEntries || total > maxBytes)
+            evict();
+        return value;
+    }
+
+    /**
+     * Remove all entries from the cache, passing each removed value to the eviction listener.
+     * Removals due to this method are not counted as evictions
+     */
+    public void clear() {
+        List<V> removed = new ArrayList<>();
+        synchronized (evictionLock) {
+            for (K k : new ArrayList<>(map.keySet())) {
+                Entry<V> e = map.remove(k);
+                if (e != null) {
+                    bytes.addAndGet(-e.size);
+                    removed.add(e.value);
+                }
+            }
+        }
+        for (V v : removed)
+            release(v);
+    }
+
+    /**
+     * @return Number of entries currently in the cache
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * @return Total size of all entries currently in the cache, in bytes
+     */
+    public long bytes() {
+        return bytes.get();
+    }
+
+    /**
+     * @return Number of lookups that found an entry
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Number of lookups that did not find an entry
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Number of entries removed because the cache was over its limits
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return Fraction of lookups that found an entry, or 0 if no lookups have been performed
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : h / (double) total;
+    }
+
+    /**
+     * Reset the hit, miss and eviction counters
+     */
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+        evictions.set(0);
+    }
+
+    protected void evict() {
+        List<V> removed = new ArrayList<>();
+        synchronized (evictionLock) {
+            if (map.size() <= maxEntries && bytes.get() <= maxBytes)
+                return;     //Another thread already evicted
+
+            long targetEntries = (long) (maxEntries * EVICTION_TARGET);
+            long targetBytes = (long) (maxBytes * EVICTION_TARGET);
+
+            List<Map.Entry<K, Entry<V>>> entries = new ArrayList<>(map.entrySet());
+            //Snapshot access stamps before sorting: they may be updated concurrently (and racily) by lookups
+            long[] stamps = new long[entries.size()];
+            Integer[] order = new Integer[entries.size()];
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = entries.get(i).getValue().lastAccess;
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(stamps[a], stamps[b]));
+
+            long count = entries.size();
+            for (int i = 0; i < order.length && (count > targetEntries || bytes.get() > targetBytes); i++) {
+                Map.Entry<K, Entry<V>> e = entries.get(order[i]);
+                if (map.remove(e.getKey(), e.getValue())) {
+                    bytes.addAndGet(-e.getValue().size);
+                    evictions.incrementAndGet();
+                    removed.add(e.getValue().value);
+                    count--;
+                }
+            }
+        }
+        for (V v : removed)
+            release(v);
+    }
+
+    private void release(V value) {
+        if (evictionListener != null)
+            evictionListener.accept(value);
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedCache(name=" + name + ", entries=" + size() + "/" + maxEntries + ", bytes=" + bytes() +
+                (maxBytes == Long.MAX_VALUE ? "" : "/" + maxBytes) + ", hits=" + hits() + ", misses=" + misses() +
+                ", evictions=" + evictions() + ")";
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long size;
+        //Deliberately not volatile: stamps are only used for approximate recency ordering during eviction
+        private long lastAccess;
+
+        private Entry(V value, long size, long lastAccess) {
+            this.value = value;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+
+        private void touch(long now) {
+            //Avoid writing (and invalidating the cache line of) hot entries that are already current
+            if (lastAccess != now)
+                lastAccess = now;
+        }
+    }
+}
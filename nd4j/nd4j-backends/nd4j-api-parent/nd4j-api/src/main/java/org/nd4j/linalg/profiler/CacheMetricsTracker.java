@@ -0,0 +1,106 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.nd4j.linalg.profiler;
+
+import org.nd4j.linalg.cache.BoundedCache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A CacheMetricsTracker keeps track of the {@link BoundedCache} instances
+ * used by the backends (shape info, TAD and constant buffer caches)
+ * and aggregates their hit, miss, eviction and size statistics.
+ * Caches register themselves on creation; a cache registered
+ * with the same name as an existing cache replaces it.
+ */
+public class CacheMetricsTracker {
+
+    private static final CacheMetricsTracker INSTANCE = new CacheMetricsTracker();
+    private Map<String, BoundedCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    protected CacheMetricsTracker() {}
+
+    public static CacheMetricsTracker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register a cache for reporting
+     * @param cache the cache to register
+     */
+    public void register(BoundedCache<?, ?> cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    /**
+     * @param name the name of the cache
+     * @return the cache with the given name, or null if no such cache is registered
+     */
+    public BoundedCache<?, ?> getCache(String name) {
+        return caches.get(name);
+    }
+
+    /**
+     * @return all registered caches
+     */
+    public Collection<BoundedCache<?, ?>> getCaches() {
+        return Collections.unmodifiableCollection(caches.values());
+    }
+
+    /**
+     * Total bytes held by all registered caches
+     * @return
+     */
+    public long totalCachedBytes() {
+        long sum = 0;
+        for (BoundedCache<?, ?> c : caches.values())
+            sum += c.bytes();
+        return sum;
+    }
+
+    /**
+     * Reset the hit, miss and eviction counters of all registered caches
+     */
+    public void resetCounters() {
+        caches.values().forEach(BoundedCache::resetCounters);
+    }
+
+    /**
+     * Print statistics for all registered caches: entries, bytes,
+     * hits, misses, hit rate and evictions
+     * @return the string representation of the cache statistics
+     */
+    public String printStats() {
+        StringBuilder stringBuilder = new StringBuilder();
+        caches.values().forEach(c -> {
+            stringBuilder.append("Cache " + c.getName() + ":-------\n");
+            stringBuilder.append("Entries: " + c.size() + " / " + c.getMaxEntries() + "\n");
+            stringBuilder.append("Bytes: " + c.bytes() + "\n");
+            stringBuilder.append("Hits: " + c.hits() + ", misses: " + c.misses()
+                    + ", hit rate: " + String.format("%.4f", c.hitRate()) + "\n");
+            stringBuilder.append("Evictions: " + c.evictions() + "\n");
+        });
+        return stringBuilder.toString();
+    }
+}
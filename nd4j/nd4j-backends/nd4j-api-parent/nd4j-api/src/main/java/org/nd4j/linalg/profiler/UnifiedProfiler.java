@@ -98,6 +98,15 @@ public class UnifiedProfiler {
         return OpContextTracker.getInstance().printStats(false);
     }
 
+    /**
+     * Hit, miss, eviction and size information for the
+     * backend shape info, TAD and constant buffer caches.
+     * @return
+     */
+    public String cacheInfo() {
+        return CacheMetricsTracker.getInstance().printStats();
+    }
+
     /**
      * Returns bandwidth info for each device
      * @return
@@ -129,6 +138,7 @@ public class UnifiedProfiler {
         stringBuilder.append(MemoryTracker.getInstance().memoryPerDevice());
         stringBuilder.append(bandwidthInfo());
         stringBuilder.append(OpContextTracker.getInstance().printStats(false));
+        stringBuilder.append(cacheInfo());
         return stringBuilder.toString();
     }
 
@@ -5,6 +5,7 @@ open module nd4j.api {
     requires commons.net;
     requires java.logging;
     requires java.management;
+    requires jdk.jfr;
     requires lombok;
     requires org.apache.commons.compress;
     requires org.apache.commons.lang3;
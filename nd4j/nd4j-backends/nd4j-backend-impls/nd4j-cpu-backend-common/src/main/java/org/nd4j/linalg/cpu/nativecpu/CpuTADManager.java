@@ -17,13 +17,15 @@
  *  * SPDX-License-Identifier: Apache-2.0
  *  *****************************************************************************
  */
-
 package org.nd4j.linalg.cpu.nativecpu;
 
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.val;
+import org.nd4j.common.config.ND4JSystemProperties;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.cache.BoundedCache;
 import org.nd4j.linalg.cache.ConstantHandler;
 import org.nd4j.linalg.cache.TADManager;
 import org.nd4j.linalg.cache.TadDescriptor;
@@ -32,16 +34,22 @@ import org.nd4j.common.primitives.Pair;
 import org.nd4j.nativeblas.NativeOps;
 
 import java.util.Arrays;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 
 public class CpuTADManager implements TADManager {
-    private Map<TadDescriptor, Pair<DataBuffer, DataBuffer>> cache = new ConcurrentHashMap<>();
-    private AtomicLong bytes = new AtomicLong(0);
+    public static final String CACHE_NAME = "tad";
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    // TAD buffers are views of the native TAD cache, so evicted entries need no explicit deallocation
+    @Getter
+    private final BoundedCache<TadDescriptor, Pair<DataBuffer, DataBuffer>> cache;
 
     public CpuTADManager() {
-        //
+        this(Long.getLong(ND4JSystemProperties.TAD_CACHE_MAX_ENTRIES, DEFAULT_MAX_ENTRIES));
+    }
+
+    public CpuTADManager(long maxEntries) {
+        cache = new BoundedCache<>(CACHE_NAME, maxEntries, Long.MAX_VALUE,
+                p -> (p.getFirst().length() + p.getSecond().length()) * 8, null);
     }
 
     public void init(@NonNull NativeOps nativeOps, @NonNull ConstantHandler constantHandler) {
@@ -52,7 +60,7 @@ public class CpuTADManager implements TADManager {
      */
     @Override
     public void purgeBuffers() {
-        cache = new ConcurrentHashMap<>();
+        cache.clear();
     }
 
     @Override
@@ -63,16 +71,21 @@ public class CpuTADManager implements TADManager {
         if (dimension == null)
             dimension = new int[] {Integer.MAX_VALUE};
 
+        TadDescriptor descriptor = new TadDescriptor(array, dimension.clone());
+        Pair<DataBuffer, DataBuffer> cached = cache.get(descriptor);
+        if (cached != null)
+            return cached;
+
         val pack = Nd4j.getExecutioner().tadShapeInfoAndOffsets(array, dimension);
 
         // now we need to copy this buffer to either device global memory or device cache
 
-        return new Pair<>(pack.getTadShapeInfo(), pack.getTadOffsets());
+        return cache.putIfAbsent(descriptor, new Pair<>(pack.getTadShapeInfo(), pack.getTadOffsets()));
 
     }
 
     @Override
     public long getCachedBytes() {
-        return bytes.get();
+        return cache.bytes();
     }
 }
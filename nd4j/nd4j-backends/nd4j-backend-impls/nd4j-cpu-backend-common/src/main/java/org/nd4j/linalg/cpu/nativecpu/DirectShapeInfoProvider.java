@@ -17,10 +17,11 @@
  *  * SPDX-License-Identifier: Apache-2.0
  *  *****************************************************************************
  */
-
 package org.nd4j.linalg.cpu.nativecpu;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.nd4j.common.config.ND4JSystemProperties;
 import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.memory.AllocationsTracker;
 import org.nd4j.linalg.api.memory.enums.AllocationKind;
@@ -29,17 +30,25 @@ import org.nd4j.linalg.api.shape.options.ArrayOptionsHelper;
 import org.nd4j.common.primitives.Pair;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.BaseShapeInfoProvider;
-import org.nd4j.linalg.api.shape.ShapeDescriptor;
-
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import org.nd4j.linalg.cache.BoundedCache;
+import org.nd4j.linalg.factory.Nd4j;
 
 @Slf4j
 public class DirectShapeInfoProvider extends BaseShapeInfoProvider {
-    private Map<LongShapeDescriptor, Pair<DataBuffer, long[]>> longCache = new ConcurrentHashMap<>();
-    private AtomicInteger counter = new AtomicInteger(0);
-    private static final int MAX_ENTRIES = 1000;
+    public static final String CACHE_NAME = "shapeInfo";
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    @Getter
+    private final BoundedCache<LongShapeDescriptor, Pair<DataBuffer, long[]>> longCache;
+
+    public DirectShapeInfoProvider() {
+        this(Long.getLong(ND4JSystemProperties.SHAPE_INFO_CACHE_MAX_ENTRIES, DEFAULT_MAX_ENTRIES));
+    }
+
+    public DirectShapeInfoProvider(long maxEntries) {
+        longCache = new BoundedCache<>(CACHE_NAME, maxEntries, Long.MAX_VALUE, p -> shapeBytes(p.getFirst()),
+                this::release);
+    }
 
     public Pair<DataBuffer, long[]> createShapeInformation(long[] shape, long[] stride,  long elementWiseStride, char order, DataType dataType) {
         long extras = 0;
@@ -55,30 +64,37 @@ public class DirectShapeInfoProvider extends BaseShapeInfoProvider {
             elementWiseStride = 0;
 
         LongShapeDescriptor descriptor = new LongShapeDescriptor(shape, stride, 0, elementWiseStride, order, extras);
-        if (!longCache.containsKey(descriptor)) {
-            if (counter.get() < MAX_ENTRIES) {
-                synchronized (this) {
-                    if (!longCache.containsKey(descriptor)) {
-                        counter.incrementAndGet();
-                        Pair<DataBuffer, long[]> buffer = super.createShapeInformation(shape, stride, elementWiseStride, order, extras);
-                        buffer.getFirst().setConstant(true);
-                        longCache.put(descriptor, buffer);
+        Pair<DataBuffer, long[]> cached = longCache.get(descriptor);
+        if (cached != null)
+            return cached;
 
-                        bytes.addAndGet(buffer.getFirst().length() * 8 * 2);
-                        AllocationsTracker.getInstance().markAllocated(AllocationKind.CONSTANT,0, buffer.getFirst().length() * 8 * 2);
-                        return buffer;
-                    } else
-                        return longCache.get(descriptor);
-                }
-            } else {
-                return super.createShapeInformation(shape, stride, elementWiseStride, order, extras);
-            }
-        }
+        Pair<DataBuffer, long[]> buffer = super.createShapeInformation(shape, stride, elementWiseStride, order, extras);
+        buffer.getFirst().setConstant(true);
+        long size = shapeBytes(buffer.getFirst());
+        bytes.addAndGet(size);
+        AllocationsTracker.getInstance().markAllocated(AllocationKind.CONSTANT, 0, size);
+        return longCache.putIfAbsent(descriptor, buffer);
+    }
+
+    /**
+     * Evicted shape buffers may still be referenced by live arrays, so they are not freed here: instead they are
+     * no longer marked as constant and handed back to the deallocator service, which frees them once unreachable
+     */
+    protected void release(Pair<DataBuffer, long[]> evicted) {
+        DataBuffer buffer = evicted.getFirst();
+        long size = shapeBytes(buffer);
+        bytes.addAndGet(-size);
+        AllocationsTracker.getInstance().markReleased(AllocationKind.CONSTANT, 0, size);
+        buffer.setConstant(false);
+        Nd4j.getDeallocatorService().pickObject(buffer);
+    }
 
-        return longCache.get(descriptor);
+    private static long shapeBytes(DataBuffer buffer) {
+        return buffer.length() * 8 * 2;
     }
 
     @Override
     public void purgeCache() {
+        longCache.clear();
     }
 }
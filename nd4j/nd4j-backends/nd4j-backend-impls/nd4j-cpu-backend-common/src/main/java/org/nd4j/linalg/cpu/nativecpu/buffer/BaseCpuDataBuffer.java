@@ -874,7 +874,7 @@ public abstract class BaseCpuDataBuffer extends BaseDataBuffer implements Deallo
     @Override
     protected void release() {
         ptrDataBuffer.closeBuffer();
-        Nd4j.getDeallocatorService().getReferenceMap().remove(getUniqueId());
+        Nd4j.getDeallocatorService().removeReference(getUniqueId());
         deallocator().deallocate();
         super.release();
     }
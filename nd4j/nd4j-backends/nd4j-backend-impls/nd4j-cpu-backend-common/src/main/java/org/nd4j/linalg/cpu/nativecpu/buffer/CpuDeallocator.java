@@ -80,4 +80,9 @@ public class CpuDeallocator implements Deallocator {
     public boolean isConstant() {
         return isConstant;
     }
+
+    @Override
+    public void setConstant(boolean constant) {
+        isConstant = constant;
+    }
 }
@@ -17,138 +17,92 @@
  *  * SPDX-License-Identifier: Apache-2.0
  *  *****************************************************************************
  */
-
 package org.nd4j.linalg.cpu.nativecpu.cache;
 
+import lombok.Getter;
+import org.nd4j.common.config.ND4JSystemProperties;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.memory.AllocationsTracker;
 import org.nd4j.linalg.api.memory.enums.AllocationKind;
 import org.nd4j.linalg.cache.ArrayDescriptor;
 import org.nd4j.linalg.cache.BasicConstantHandler;
+import org.nd4j.linalg.cache.BoundedCache;
 import org.nd4j.linalg.factory.Nd4j;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 public class ConstantBuffersCache extends BasicConstantHandler {
-    protected Map<ArrayDescriptor, DataBuffer> buffersCache = new ConcurrentHashMap<>();
-    private AtomicInteger counter = new AtomicInteger(0);
-    private AtomicLong bytes = new AtomicLong(0);
-    private static final int MAX_ENTRIES = 1000;
+    public static final String CACHE_NAME = "constantBuffers";
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    // Constant buffers are regular (garbage collected) buffers: evicted entries are freed once no longer referenced
+    @Getter
+    protected final BoundedCache<ArrayDescriptor, DataBuffer> buffersCache;
+
+    public ConstantBuffersCache() {
+        this(Long.getLong(ND4JSystemProperties.CONSTANT_CACHE_MAX_ENTRIES, DEFAULT_MAX_ENTRIES),
+                Long.getLong(ND4JSystemProperties.CONSTANT_CACHE_MAX_BYTES, DEFAULT_MAX_BYTES));
+    }
+
+    public ConstantBuffersCache(long maxEntries, long maxBytes) {
+        buffersCache = new BoundedCache<>(CACHE_NAME, maxEntries, maxBytes, ConstantBuffersCache::bufferBytes,
+                b -> AllocationsTracker.getInstance().markReleased(AllocationKind.CONSTANT, 0, bufferBytes(b)));
+    }
 
     /**
      * This method removes all cached constants
      */
     @Override
     public void purgeConstants() {
-        buffersCache = new ConcurrentHashMap<>();
+        buffersCache.clear();
     }
 
     @Override
     public DataBuffer getConstantBuffer(int[] array, DataType dataType) {
-        ArrayDescriptor descriptor = new ArrayDescriptor(array, dataType);
-
-        if (!buffersCache.containsKey(descriptor)) {
-            DataBuffer buffer = Nd4j.createTypedBufferDetached(array, dataType);
-
-            if (counter.get() < MAX_ENTRIES) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
-
-                bytes.addAndGet(array.length * Nd4j.sizeOfDataType(dataType));
-                AllocationsTracker.getInstance().markAllocated(AllocationKind.CONSTANT, 0, array.length * Nd4j.sizeOfDataType(dataType));
-            }
-            return buffer;
-        }
-
-        return buffersCache.get(descriptor);
+        return getOrCreate(new ArrayDescriptor(array, dataType), () -> Nd4j.createTypedBufferDetached(array, dataType));
     }
 
     @Override
     public DataBuffer getConstantBuffer(boolean[] array, DataType dataType) {
-        ArrayDescriptor descriptor = new ArrayDescriptor(array, dataType);
-
-        if (!buffersCache.containsKey(descriptor)) {
-            DataBuffer buffer = Nd4j.createTypedBufferDetached(array, dataType);
-
-            if (counter.get() < MAX_ENTRIES) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
-
-                bytes.addAndGet(array.length * Nd4j.sizeOfDataType(dataType));
-                AllocationsTracker.getInstance().markAllocated(AllocationKind.CONSTANT, 0, array.length * Nd4j.sizeOfDataType(dataType));
-            }
-            return buffer;
-        }
-
-        return buffersCache.get(descriptor);
+        return getOrCreate(new ArrayDescriptor(array, dataType), () -> Nd4j.createTypedBufferDetached(array, dataType));
     }
 
     @Override
     public DataBuffer getConstantBuffer(double[] array, DataType dataType) {
-        ArrayDescriptor descriptor = new ArrayDescriptor(array, dataType);
-
-        if (!buffersCache.containsKey(descriptor)) {
-            DataBuffer buffer = Nd4j.createTypedBufferDetached(array, dataType);
-
-            if (counter.get() < MAX_ENTRIES) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
-
-                bytes.addAndGet(array.length * Nd4j.sizeOfDataType(dataType));
-                AllocationsTracker.getInstance().markAllocated(AllocationKind.CONSTANT, 0, array.length * Nd4j.sizeOfDataType(dataType));
-            }
-            return buffer;
-        }
-
-        return buffersCache.get(descriptor);
+        return getOrCreate(new ArrayDescriptor(array, dataType), () -> Nd4j.createTypedBufferDetached(array, dataType));
     }
 
     @Override
     public DataBuffer getConstantBuffer(float[] array, DataType dataType) {
-        ArrayDescriptor descriptor = new ArrayDescriptor(array, dataType);
-
-        if (!buffersCache.containsKey(descriptor)) {
-            DataBuffer buffer = Nd4j.createTypedBufferDetached(array, dataType);
-
-            if (counter.get() < MAX_ENTRIES) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
-
-                bytes.addAndGet(array.length * Nd4j.sizeOfDataType(dataType));
-                AllocationsTracker.getInstance().markAllocated(AllocationKind.CONSTANT, 0, array.length * Nd4j.sizeOfDataType(dataType));
-            }
-            return buffer;
-        }
-
-        return buffersCache.get(descriptor);
+        return getOrCreate(new ArrayDescriptor(array, dataType), () -> Nd4j.createTypedBufferDetached(array, dataType));
     }
 
     @Override
     public DataBuffer getConstantBuffer(long[] array, DataType dataType) {
-        ArrayDescriptor descriptor = new ArrayDescriptor(array, dataType);
-
-        if (!buffersCache.containsKey(descriptor)) {
-            DataBuffer buffer = Nd4j.createTypedBufferDetached(array,dataType);
-
-            if (counter.get() < MAX_ENTRIES) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
+        return getOrCreate(new ArrayDescriptor(array, dataType), () -> Nd4j.createTypedBufferDetached(array, dataType));
+    }
 
-                bytes.addAndGet(array.length * Nd4j.sizeOfDataType(dataType));
-                AllocationsTracker.getInstance().markAllocated(AllocationKind.CONSTANT, 0, array.length * Nd4j.sizeOfDataType(dataType));
-            }
-            return buffer;
-        }
+    protected DataBuffer getOrCreate(ArrayDescriptor descriptor, Supplier<DataBuffer> creator) {
+        DataBuffer cached = buffersCache.get(descriptor);
+        if (cached != null)
+            return cached;
+
+        DataBuffer buffer = creator.get();
+        long size = bufferBytes(buffer);
+        if (size > buffersCache.getMaxBytes())
+            return buffer;      //Too large to cache
+        AllocationsTracker.getInstance().markAllocated(AllocationKind.CONSTANT, 0, size);
+        return buffersCache.putIfAbsent(descriptor, buffer);
+    }
 
-        return buffersCache.get(descriptor);
+    private static long bufferBytes(DataBuffer buffer) {
+        return buffer.length() * Nd4j.sizeOfDataType(buffer.dataType());
     }
 
     @Override
     public long getCachedBytes() {
-        return bytes.get();
+        return buffersCache.bytes();
     }
 }
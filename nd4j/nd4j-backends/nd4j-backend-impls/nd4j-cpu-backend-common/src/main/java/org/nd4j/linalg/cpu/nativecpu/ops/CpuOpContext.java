@@ -24,7 +24,6 @@ import lombok.NonNull;
 import lombok.val;
 import org.apache.commons.lang3.RandomUtils;
 import org.bytedeco.javacpp.*;
-import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.memory.Deallocatable;
 import org.nd4j.linalg.api.memory.Deallocator;
@@ -38,7 +37,6 @@ import org.nd4j.common.primitives.Pair;
 import org.nd4j.linalg.profiler.OpContextTracker;
 import org.nd4j.nativeblas.*;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class CpuOpContext extends BaseOpContext implements OpContext, Deallocatable {
@@ -53,6 +51,18 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
     private transient IntPointer dArgs;
     private transient LongPointer iArgs;
     private transient  long deallocationId;
+
+    // Argument and array pointers owned by this context. These are sized by high-water mark and reused
+    // across executions when the context is pooled: the native context copies arguments and array pointers
+    private transient DoublePointer ownedTArgs;
+    private transient BooleanPointer ownedBArgs;
+    private transient IntPointer ownedDArgs;
+    private transient LongPointer ownedIArgs;
+    private transient PointerPointer<OpaqueDataBuffer> inputBuffers;
+    private transient PointerPointer<LongPointer> inputShapeInfo;
+    private transient PointerPointer<OpaqueDataBuffer> outputBuffers;
+    private transient PointerPointer<LongPointer> outputShapeInfo;
+
     public CpuOpContext() {
         this.deallocationId = Nd4j.getDeallocatorService().pickObject(this);
         if(OpContextTracker.getInstance().isEnabled()) {
@@ -60,10 +70,18 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
         }
     }
 
+    /**
+     * Release the native context now, rather than when this object is garbage collected. The context must not be used
+     * after it has been closed. Closing more than once has no effect.
+     */
     @Override
     public void close() {
-        // no-op
-        Nd4j.getDeallocatorService().getReferenceMap().remove(deallocationId);
+        if (context == null)
+            return;
+        // unregister first: the deallocator service will then never release the native context a second time
+        Nd4j.getDeallocatorService().removeReference(deallocationId);
+        new CpuOpContextDeallocator(this).deallocate();
+        context = null;
     }
 
     @Override
@@ -149,7 +167,8 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
     public void setIArguments(long... arguments) {
         if (arguments.length > 0) {
             super.setIArguments(arguments);
-            this.iArgs = new LongPointer(arguments);
+            this.iArgs = ownedIArgs(arguments.length);
+            this.iArgs.put(arguments);
             nativeOps.setGraphContextIArguments(context, this.iArgs, arguments.length);
         }
     }
@@ -158,7 +177,8 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
     public void setBArguments(boolean... arguments) {
         if (arguments.length > 0) {
             super.setBArguments(arguments);
-            this.bArgs = new BooleanPointer(arguments);
+            this.bArgs = ownedBArgs(arguments.length);
+            this.bArgs.put(arguments);
             nativeOps.setGraphContextBArguments(context, this.bArgs, arguments.length);
         }
     }
@@ -167,7 +187,8 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
     public void setTArguments(double... arguments) {
         if (arguments.length > 0) {
             super.setTArguments(arguments);
-            this.tArgs = new DoublePointer(arguments);
+            this.tArgs = ownedTArgs(arguments.length);
+            this.tArgs.put(arguments);
             nativeOps.setGraphContextTArguments(context, tArgs, arguments.length);
         };
     }
@@ -176,15 +197,44 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
     public void setDArguments(DataType... arguments) {
         if (arguments.length > 0) {
             super.setDArguments(arguments);
-            val args = new int[arguments.length];
+            this.dArgs = ownedDArgs(arguments.length);
             for (int e = 0; e < arguments.length; e++)
-                args[e] = arguments[e].toInt();
+                this.dArgs.put(e, arguments[e].toInt());
 
-            this.dArgs =  new IntPointer(args);
             nativeOps.setGraphContextDArguments(context, this.dArgs, arguments.length);
         }
     }
 
+    private LongPointer ownedIArgs(int length) {
+        if (ownedIArgs == null || ownedIArgs.capacity() < length)
+            ownedIArgs = new LongPointer(length);
+        return ownedIArgs;
+    }
+
+    private BooleanPointer ownedBArgs(int length) {
+        if (ownedBArgs == null || ownedBArgs.capacity() < length)
+            ownedBArgs = new BooleanPointer(length);
+        return ownedBArgs;
+    }
+
+    private DoublePointer ownedTArgs(int length) {
+        if (ownedTArgs == null || ownedTArgs.capacity() < length)
+            ownedTArgs = new DoublePointer(length);
+        return ownedTArgs;
+    }
+
+    private IntPointer ownedDArgs(int length) {
+        if (ownedDArgs == null || ownedDArgs.capacity() < length)
+            ownedDArgs = new IntPointer(length);
+        return ownedDArgs;
+    }
+
+    private static <P extends Pointer> PointerPointer<P> ensureCapacity(PointerPointer<P> current, int length) {
+        if (current == null || current.capacity() < length)
+            return new PointerPointer<>(Math.max(length, 1));
+        return current;
+    }
+
     @Override
     public void setRngStates(long rootState, long nodeState) {
         nativeOps.setRandomGeneratorStates(nativeOps.getGraphContextRandomGenerator(context), rootState, nodeState);
@@ -198,87 +248,65 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
 
     @Override
     public void setInputArrays(@NonNull List<INDArray> arrays) {
-        PointerPointer<OpaqueDataBuffer> buffers = new PointerPointer<>(arrays.size());
-        PointerPointer<LongPointer> shapeInfoBuffer = new PointerPointer<>(arrays.size());
-        List<DataBuffer> shapeInfoReferences = new ArrayList<>();
+        inputBuffers = ensureCapacity(inputBuffers, arrays.size());
+        inputShapeInfo = ensureCapacity(inputShapeInfo, arrays.size());
         for(int i = 0; i < arrays.size(); i++) {
             INDArray array = arrays.get(i);
-            buffers.put(i,array.isEmpty() ? null : ((BaseCpuDataBuffer) array.data()).getOpaqueDataBuffer());
-            DataBuffer dataBuffer = array.shapeInfoDataBuffer();
-            shapeInfoReferences.add(dataBuffer);
-            Pointer addressPointer = dataBuffer.pointer();
-            addressPointer.retainReference();
-            shapeInfoBuffer.put(i,addressPointer);
+            inputBuffers.put(i,array.isEmpty() ? null : ((BaseCpuDataBuffer) array.data()).getOpaqueDataBuffer());
+            inputShapeInfo.put(i,array.shapeInfoDataBuffer().addressPointer());
             fastpath_in.put(i,array.isEmpty() ? null : array);
             if(OpContextTracker.getInstance().isEnabled()) {
                 OpContextTracker.getInstance().associateInput(array,this);
             }
         }
 
-        buffers.retainReference();
-        shapeInfoBuffer.retainReference();
-        nativeOps.setGraphContextInputBuffers(context,arrays.size(),buffers,shapeInfoBuffer,null);
+        nativeOps.setGraphContextInputBuffers(context,arrays.size(),inputBuffers,inputShapeInfo,null);
 
     }
 
     @Override
     public void setOutputArrays(@NonNull List<INDArray> arrays) {
-        OpaqueDataBuffer[] buffers1 = new OpaqueDataBuffer[arrays.size()];
-        LongPointer[] shapeInfoBufers2 = new LongPointer[arrays.size()];
-
+        outputBuffers = ensureCapacity(outputBuffers, arrays.size());
+        outputShapeInfo = ensureCapacity(outputShapeInfo, arrays.size());
         for(int i = 0; i < arrays.size(); i++) {
             INDArray array = arrays.get(i);
-            buffers1[i] = array.isEmpty() ? null : ((BaseCpuDataBuffer) array.data()).getOpaqueDataBuffer();
-            shapeInfoBufers2[i] = (LongPointer) array.shapeInfoDataBuffer().addressPointer();
+            outputBuffers.put(i,array.isEmpty() ? null : ((BaseCpuDataBuffer) array.data()).getOpaqueDataBuffer());
+            outputShapeInfo.put(i,array.shapeInfoDataBuffer().addressPointer());
             fastpath_out.put(i,array);
             if(OpContextTracker.getInstance().isEnabled()) {
                 OpContextTracker.getInstance().associateOutput(array,this);
             }
         }
 
-        PointerPointer<OpaqueDataBuffer> buffers = new PointerPointer<>(buffers1);
-        PointerPointer<LongPointer> shapeInfoBuffer = new PointerPointer<>(shapeInfoBufers2);
-        buffers.retainReference();
-        shapeInfoBuffer.retainReference();
-        nativeOps.setGraphContextOutputBuffers(context,arrays.size(),buffers,shapeInfoBuffer,null);
+        nativeOps.setGraphContextOutputBuffers(context,arrays.size(),outputBuffers,outputShapeInfo,null);
 
     }
 
     @Override
     public void setInputArrays(INDArray... arrays) {
-        OpaqueDataBuffer[] buffers1 = new OpaqueDataBuffer[arrays.length];
-        LongPointer[] shapeInfoBufers2 = new LongPointer[arrays.length];
-
+        inputBuffers = ensureCapacity(inputBuffers, arrays.length);
+        inputShapeInfo = ensureCapacity(inputShapeInfo, arrays.length);
         for(int i = 0; i < arrays.length; i++) {
             INDArray array = arrays[i];
-            buffers1[i] = array.isEmpty() ? null : ((BaseCpuDataBuffer) array.data()).getOpaqueDataBuffer();
-            shapeInfoBufers2[i] = (LongPointer) array.shapeInfoDataBuffer().addressPointer();
+            inputBuffers.put(i,array.isEmpty() ? null : ((BaseCpuDataBuffer) array.data()).getOpaqueDataBuffer());
+            inputShapeInfo.put(i,array.shapeInfoDataBuffer().addressPointer());
         }
 
-        PointerPointer<OpaqueDataBuffer> buffers = new PointerPointer<>(buffers1);
-        PointerPointer<LongPointer> shapeInfoBuffer = new PointerPointer<>(shapeInfoBufers2);
-        buffers.retainReference();
-        shapeInfoBuffer.retainReference();
-        nativeOps.setGraphContextInputBuffers(context,arrays.length,buffers,shapeInfoBuffer,null);
+        nativeOps.setGraphContextInputBuffers(context,arrays.length,inputBuffers,inputShapeInfo,null);
         super.setInputArrays(arrays);
     }
 
     @Override
     public void setOutputArrays(INDArray... arrays) {
-        OpaqueDataBuffer[] buffers1 = new OpaqueDataBuffer[arrays.length];
-        LongPointer[] shapeInfoBufers2 = new LongPointer[arrays.length];
-
+        outputBuffers = ensureCapacity(outputBuffers, arrays.length);
+        outputShapeInfo = ensureCapacity(outputShapeInfo, arrays.length);
         for(int i = 0; i < arrays.length; i++) {
             INDArray array = arrays[i];
-            buffers1[i] = array.isEmpty() ? null : ((BaseCpuDataBuffer) array.data()).getOpaqueDataBuffer();
-            shapeInfoBufers2[i] = (LongPointer) array.shapeInfoDataBuffer().addressPointer();
+            outputBuffers.put(i,array.isEmpty() ? null : ((BaseCpuDataBuffer) array.data()).getOpaqueDataBuffer());
+            outputShapeInfo.put(i,array.shapeInfoDataBuffer().addressPointer());
         }
 
-        PointerPointer<OpaqueDataBuffer> buffers = new PointerPointer<>(buffers1);
-        PointerPointer<LongPointer> shapeInfoBuffer = new PointerPointer<>(shapeInfoBufers2);
-        buffers.retainReference();
-        shapeInfoBuffer.retainReference();
-        nativeOps.setGraphContextOutputBuffers(context,arrays.length,buffers,shapeInfoBuffer,null);
+        nativeOps.setGraphContextOutputBuffers(context,arrays.length,outputBuffers,outputShapeInfo,null);
         super.setOutputArrays(arrays);
     }
 
@@ -327,6 +355,32 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
         nativeOps.ctxPurge(context);
     }
 
+    /**
+     * Reset this context to the state of a newly created context, so that it can be reused for the execution of
+     * another op: input/output arrays and all arguments are cleared and inplace/shape override/execution mode flags
+     * are restored to their defaults. Argument and array pointers are retained for reuse.
+     */
+    public void reset() {
+        purge();
+        fastpath_t.clear();
+        fastpath_b.clear();
+        fastpath_i.clear();
+        fastpath_d.clear();
+        nativeOps.setGraphContextTArguments(context, ownedTArgs(1), 0);
+        nativeOps.setGraphContextBArguments(context, ownedBArgs(1), 0);
+        nativeOps.setGraphContextIArguments(context, ownedIArgs(1), 0);
+        nativeOps.setGraphContextDArguments(context, ownedDArgs(1), 0);
+        tArgs = null;
+        bArgs = null;
+        iArgs = null;
+        dArgs = null;
+        markInplace(false);
+        shapeFunctionOverride(false);
+        allowHelpers(true);
+        if (executionMode != ExecutionMode.UNDEFINED)
+            setExecutionMode(ExecutionMode.UNDEFINED);
+    }
+
     @Override
     public long getUniqueId() {
         return BASE_CPU_OP_CONTEXT_OFFSET + id;
@@ -345,11 +399,10 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
     @Override
     public void transferTArgs() {
         if (fastpath_t.size() > 0) {
-            val args = new double[fastpath_t.size()];
+            this.tArgs = ownedTArgs(fastpath_t.size());
             for (int e = 0; e < fastpath_t.size(); e++)
-                args[e] = fastpath_t.get(e);
+                this.tArgs.put(e, fastpath_t.get(e));
 
-            this.tArgs =  new DoublePointer(args);
             nativeOps.setGraphContextTArguments(context, this.tArgs, fastpath_t.size());
         }
     }
@@ -357,11 +410,10 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
     @Override
     public void transferIArgs() {
         if (fastpath_i.size() > 0) {
-            val args = new long[fastpath_i.size()];
+            this.iArgs = ownedIArgs(fastpath_i.size());
             for (int e = 0; e < fastpath_i.size(); e++)
-                args[e] = fastpath_i.get(e);
+                this.iArgs.put(e, fastpath_i.get(e));
 
-            this.iArgs =  new LongPointer(args);
             nativeOps.setGraphContextIArguments(context, this.iArgs, fastpath_i.size());
         }
     }
@@ -369,11 +421,10 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
     @Override
     public void transferBArgs() {
         if (fastpath_b.size() > 0) {
-            val args = new boolean[fastpath_b.size()];
+            this.bArgs = ownedBArgs(fastpath_b.size());
             for (int e = 0; e < fastpath_b.size(); e++)
-                args[e] = fastpath_b.get(e);
+                this.bArgs.put(e, fastpath_b.get(e));
 
-            this.bArgs =  new BooleanPointer(args);
             nativeOps.setGraphContextBArguments(context, this.bArgs, fastpath_b.size());
         }
     }
@@ -381,11 +432,10 @@ public class CpuOpContext extends BaseOpContext implements OpContext, Deallocata
     @Override
     public void transferDArgs() {
         if (fastpath_d.size() > 0) {
-            val args = new int[fastpath_d.size()];
+            this.dArgs = ownedDArgs(fastpath_d.size());
             for (int e = 0; e < fastpath_d.size(); e++)
-                args[e] = fastpath_d.get(e).toInt();
+                this.dArgs.put(e, fastpath_d.get(e).toInt());
 
-            this.dArgs =  new IntPointer(args);
             nativeOps.setGraphContextDArguments(context, this.dArgs, fastpath_d.size());
         }
     }
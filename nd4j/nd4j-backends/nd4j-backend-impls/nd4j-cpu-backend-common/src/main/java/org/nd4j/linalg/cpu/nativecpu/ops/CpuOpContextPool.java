@@ -0,0 +1,132 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.nd4j.linalg.cpu.nativecpu.ops;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.common.config.ND4JSystemProperties;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread local pool of {@link CpuOpContext} instances, used by {@link NativeOpExecutioner} for custom op execution.
+ * Creating and destroying a native graph context (and the argument/array pointers attached to it) for each op
+ * dominates execution time for small ops; pooled contexts are instead {@link CpuOpContext#reset() reset} and reused.
+ * <br>
+ * Each thread keeps a small stack of idle contexts, so nested op executions on the same thread (for example, from
+ * user defined ops) each get their own context. Idle contexts remain registered with the deallocator service, and
+ * are released once their thread terminates.
+ */
+@Slf4j
+public class CpuOpContextPool {
+    private static final int DEFAULT_MAX_IDLE = 4;
+
+    @Getter
+    private final int maxIdlePerThread;
+    private final ThreadLocal<ArrayDeque<CpuOpContext>> idle = ThreadLocal.withInitial(ArrayDeque::new);
+    private final AtomicLong created = new AtomicLong(0);
+    private final AtomicLong reused = new AtomicLong(0);
+
+    public CpuOpContextPool() {
+        this(Integer.getInteger(ND4JSystemProperties.OP_CONTEXT_POOL_SIZE, DEFAULT_MAX_IDLE));
+    }
+
+    /**
+     * @param maxIdlePerThread Maximum number of idle contexts to retain per thread. 0 disables pooling
+     */
+    public CpuOpContextPool(int maxIdlePerThread) {
+        if (maxIdlePerThread < 0)
+            throw new IllegalArgumentException("Maximum number of idle op contexts must be >= 0, got " + maxIdlePerThread);
+        this.maxIdlePerThread = maxIdlePerThread;
+    }
+
+    /**
+     * Get an op context for the current thread: an idle pooled context if one is available, or a new context
+     */
+    public CpuOpContext acquire() {
+        CpuOpContext ctx = idle.get().pollLast();
+        if (ctx != null) {
+            reused.incrementAndGet();
+            return ctx;
+        }
+        created.incrementAndGet();
+        return new CpuOpContext();
+    }
+
+    /**
+     * Return a context obtained from {@link #acquire()} to the pool. The context is reset, and retained for reuse by
+     * the current thread unless the pool for this thread is already full.
+     * Contexts that are not retained are closed immediately, releasing the native context.
+     *
+     * @param ctx         Context to return
+     * @param reusable    If false (for example, if op execution failed and the context may be in an inconsistent
+     *                    state) the context is discarded instead of being reused
+     */
+    public void release(CpuOpContext ctx, boolean reusable) {
+        if (!reusable || maxIdlePerThread == 0) {
+            discard(ctx);
+            return;
+        }
+        ArrayDeque<CpuOpContext> queue = idle.get();
+        if (queue.size() >= maxIdlePerThread) {
+            discard(ctx);
+            return;
+        }
+        try {
+            ctx.reset();
+        } catch (Exception e) {
+            log.warn("Failed to reset op context for reuse - discarding", e);
+            discard(ctx);
+            return;
+        }
+        queue.addLast(ctx);
+    }
+
+    private void discard(CpuOpContext ctx) {
+        try {
+            ctx.close();
+        } catch (Exception e) {
+            log.warn("Failed to close discarded op context", e);
+        }
+    }
+
+    /**
+     * @return Number of new contexts created by this pool
+     */
+    public long numCreated() {
+        return created.get();
+    }
+
+    /**
+     * @return Number of times a pooled context was reused instead of creating a new context
+     */
+    public long numReused() {
+        return reused.get();
+    }
+
+    /**
+     * @return Number of idle contexts pooled for the current thread
+     */
+    public int numIdleForCurrentThread() {
+        return idle.get().size();
+    }
+}
@@ -79,6 +79,8 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
     private ConstantHandler constantHandler = Nd4j.getConstantHandler();
     @Getter
     private CpuTADManager tadManager = new CpuTADManager();
+    @Getter
+    private CpuOpContextPool opContextPool = new CpuOpContextPool();
 
     protected Map<String, CustomOpDescriptor> customOps = null;
 
@@ -1344,7 +1346,9 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
         }
 
         val name = op.opName();
-        try (val context = buildContext()) {
+        val context = opContextPool.acquire();
+        boolean reusable = false;
+        try {
             long start = profilingConfigurableHookIn(op,context);
             initOpContext(op, shapeOverride, context);
 
@@ -1367,11 +1371,14 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
             profilingConfigurableHookOut(op,context,start);
             Nd4j.getDeallocatorService().toggleDeallocationBlock(false);
 
+            reusable = true;
             return result;
         } catch (ND4JOpProfilerException e) {
             throw e;
         } catch (Exception e) {
             throw new RuntimeException("Op [" + name + "] execution failed", e);
+        } finally {
+            opContextPool.release(context, reusable);
         }
 
 
@@ -62,7 +62,7 @@ public class CudaOpContext extends BaseOpContext implements OpContext, Deallocat
 
     @Override
     public void close() {
-        Nd4j.getDeallocatorService().getReferenceMap().remove(this.deallocationId);
+        Nd4j.getDeallocatorService().removeReference(this.deallocationId);
     }
 
     @Override
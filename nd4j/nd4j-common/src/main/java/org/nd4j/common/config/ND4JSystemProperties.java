@@ -181,6 +181,13 @@ public class ND4JSystemProperties {
      */
     public final static String INIT_IMPORT_REFLECTION_CACHE = "org.nd4j.samediff.frameworkimport.initcache";
 
+    /**
+     * Used to control whether TensorFlow and ONNX graphs are optimized (op fusion, common subexpression elimination,
+     * dead branch pruning, etc) after import. Enabled by default. Set to false to retain all intermediate variables
+     * of the imported graph.
+     */
+    public final static String OPTIMIZE_IMPORTED_GRAPHS = "org.nd4j.samediff.frameworkimport.optimize";
+
 
     /**
      * Used to point to a json resource that contains json for a ClassGraph ScanResult.
@@ -245,6 +252,90 @@ public class ND4JSystemProperties {
      */
     public final static String UDF_NAME_SPACES = "org.nd4j.linalg.api.ops.udf.packages";
 
+    /**
+     * Applicability: nd4j-native<br>
+     * Description: Maximum number of shape info buffers retained by the shape info cache. Least recently used
+     * entries are evicted once this limit is exceeded.<br>
+     * Default: 10000
+     */
+    public final static String SHAPE_INFO_CACHE_MAX_ENTRIES = "org.nd4j.cache.shapeinfo.maxentries";
+
+    /**
+     * Applicability: nd4j-native<br>
+     * Description: Maximum number of TAD (tensor along dimension) shape info/offset pairs retained by the TAD cache.
+     * Least recently used entries are evicted once this limit is exceeded.<br>
+     * Default: 10000
+     */
+    public final static String TAD_CACHE_MAX_ENTRIES = "org.nd4j.cache.tad.maxentries";
+
+    /**
+     * Applicability: nd4j-native<br>
+     * Description: Maximum number of constant buffers retained by the constant buffer cache.
+     * Least recently used entries are evicted once this limit (or {@link #CONSTANT_CACHE_MAX_BYTES}) is exceeded.<br>
+     * Default: 1000
+     */
+    public final static String CONSTANT_CACHE_MAX_ENTRIES = "org.nd4j.cache.constant.maxentries";
+
+    /**
+     * Applicability: nd4j-native<br>
+     * Description: Maximum total size in bytes of the constant buffers retained by the constant buffer cache.<br>
+     * Default: 67108864 (64MB)
+     */
+    public final static String CONSTANT_CACHE_MAX_BYTES = "org.nd4j.cache.constant.maxbytes";
+
+    /**
+     * Applicability: nd4j-native<br>
+     * Description: Maximum number of idle op contexts retained per thread for reuse when executing custom ops.
+     * Set to 0 to disable pooling and create a new op context for every custom op execution.<br>
+     * Default: 4
+     */
+    public final static String OP_CONTEXT_POOL_SIZE = "org.nd4j.linalg.cpu.opcontext.poolsize";
+
+    /**
+     * Applicability: Always<br>
+     * Description: Minimum number of deallocator threads per device, for the DeallocatorService. These threads are
+     * always running.<br>
+     * Default: 1
+     */
+    public final static String DEALLOCATOR_MIN_THREADS = "org.nd4j.deallocator.minthreads";
+
+    /**
+     * Applicability: Always<br>
+     * Description: Maximum number of deallocator threads per device, for the DeallocatorService. Additional threads
+     * (above {@link #DEALLOCATOR_MIN_THREADS}) are started when the deallocation queue backlog is large, and stop
+     * after being idle.<br>
+     * Default: 4
+     */
+    public final static String DEALLOCATOR_MAX_THREADS = "org.nd4j.deallocator.maxthreads";
+
+    /**
+     * Applicability: Always<br>
+     * Description: Off-heap memory watermark for the DeallocatorService, as a fraction of the JavaCPP maximum bytes
+     * (see {@link #JAVACPP_MEMORY_MAX_BYTES}). When the bytes tracked by the DeallocatorService exceed this
+     * watermark, a deallocation burst (and optionally a GC hint - see {@link #DEALLOCATOR_GC_HINT}) is triggered.
+     * Set to 0 to disable.<br>
+     * Default: 0.8
+     */
+    public final static String DEALLOCATOR_WATERMARK = "org.nd4j.deallocator.watermark";
+
+    /**
+     * Applicability: Always<br>
+     * Description: Whether the DeallocatorService should request a garbage collection when tracked off-heap bytes
+     * exceed the watermark - see {@link #DEALLOCATOR_WATERMARK}. Objects are only released for deallocation once they
+     * have been garbage collected. Hints are rate limited, and only made when the tracked bytes have grown since the
+     * last hint.<br>
+     * Default: false
+     */
+    public final static String DEALLOCATOR_GC_HINT = "org.nd4j.deallocator.gchint";
+
+    /**
+     * Applicability: Always<br>
+     * Description: Maximum time in milliseconds that an allocating thread will wait for tracked off-heap bytes to
+     * fall below the watermark (see {@link #DEALLOCATOR_WATERMARK}) before continuing. 0 to never wait.<br>
+     * Default: 0
+     */
+    public final static String DEALLOCATOR_BACKPRESSURE_WAIT_MS = "org.nd4j.deallocator.backpressure.waitms";
+
 
     private ND4JSystemProperties() {
     }
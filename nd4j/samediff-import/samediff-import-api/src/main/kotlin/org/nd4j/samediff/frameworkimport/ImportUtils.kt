@@ -20,6 +20,10 @@
 package org.nd4j.samediff.frameworkimport
 
 import org.apache.commons.lang3.StringUtils
+import org.nd4j.autodiff.samediff.SameDiff
+import org.nd4j.autodiff.samediff.optimize.GraphOptimizer
+import org.nd4j.autodiff.samediff.optimize.debug.OptimizationDebugger
+import org.nd4j.common.config.ND4JSystemProperties
 
 object ImportUtils {
 
@@ -42,4 +46,23 @@ object ImportUtils {
         return to.map { x -> from.indexOf(x) }.toIntArray()
     }
 
+    /**
+     * Default for whether imported graphs should be optimized, see [ND4JSystemProperties.OPTIMIZE_IMPORTED_GRAPHS]
+     */
+    fun optimizeImportedGraphsByDefault(): Boolean {
+        return java.lang.Boolean.parseBoolean(System.getProperty(ND4JSystemProperties.OPTIMIZE_IMPORTED_GRAPHS,"true"))
+    }
+
+    /**
+     * Run the import time optimizations ([GraphOptimizer.importOptimizations]) on an imported graph, in place: the
+     * importer owns the graph, so no copy of it (and its arrays) is made.
+     * The graph outputs (if known) and all variables not consumed by any op are retained.
+     */
+    fun optimizeImportedGraph(sd: SameDiff, graphOutputs: List<String>, debugger: OptimizationDebugger?): SameDiff {
+        val required = LinkedHashSet<String>()
+        graphOutputs.filter { output -> sd.hasVariable(output) }.forEach { output -> required.add(output) }
+        required.addAll(GraphOptimizer.defaultRequiredOutputs(sd))
+        return GraphOptimizer.optimize(sd, required.toList(), GraphOptimizer.importOptimizations(), debugger, true)
+    }
+
 }
\ No newline at end of file
@@ -21,9 +21,11 @@ package org.nd4j.samediff.frameworkimport.onnx.importer
 
 import onnx.Onnx
 import org.nd4j.autodiff.samediff.SameDiff
+import org.nd4j.autodiff.samediff.optimize.debug.OptimizationDebugger
 import org.nd4j.linalg.api.ndarray.INDArray
 import org.nd4j.linalg.factory.Nd4j
 import org.nd4j.samediff.frameworkimport.FrameworkImporter
+import org.nd4j.samediff.frameworkimport.ImportUtils
 import org.nd4j.samediff.frameworkimport.ir.IRGraph
 import org.nd4j.samediff.frameworkimport.onnx.OnnxImportGraph
 import org.nd4j.samediff.frameworkimport.onnx.convertToOnnxTensors
@@ -42,6 +44,16 @@ class OnnxFrameworkImporter: FrameworkImporter {
     val onnxOpDescriptorLoader = OnnxOpDescriptorLoader()
     val registry = onnxOpDescriptorLoader.createOpMappingRegistry<Onnx.GraphProto,Onnx.NodeProto,Onnx.NodeProto,Onnx.TensorProto,Onnx.AttributeProto,Onnx.AttributeProto,Onnx.TensorProto.DataType>()
     val loadedGraphBuilder = Onnx.GraphProto.newBuilder()
+    /**
+     * If true, the imported graph is optimized (see [ImportUtils.optimizeImportedGraph]).
+     * Disable to retain all intermediate variables of the original graph.
+     */
+    var optimizeGraph = ImportUtils.optimizeImportedGraphsByDefault()
+    /**
+     * Optional debugger for the import time optimizations, for example
+     * [org.nd4j.autodiff.samediff.optimize.debug.OpCountOptimizationDebugger] to report op counts before and after
+     */
+    var optimizationDebugger: OptimizationDebugger? = null
     init {
         loader.values.forEach { loadedGraphBuilder.addNode(it) }
     }
@@ -55,15 +67,17 @@ class OnnxFrameworkImporter: FrameworkImporter {
 
     override fun runImport(fileName: String, dynamicVariables: Map<String, INDArray>,suggestDynamicVariables: Boolean): SameDiff {
         val loadGraph = loadGraph(fileName)
-        if(suggestDynamicVariables) {
+        val imported = if(suggestDynamicVariables) {
             val newDynamicVariables  = suggestDynamicVariables(loadGraph as IRGraph<GeneratedMessageV3, GeneratedMessageV3, GeneratedMessageV3, GeneratedMessageV3, GeneratedMessageV3, GeneratedMessageV3, ProtocolMessageEnum>)
             val dynamicVariablesConverted = convertToOnnxTensors(newDynamicVariables)
-            return onnxImporter.importGraph(loadGraph,null,null, dynamicVariablesConverted,registry)
+            onnxImporter.importGraph(loadGraph,null,null, dynamicVariablesConverted,registry)
         } else {
             val dynamicVariablesConverted = convertToOnnxTensors(dynamicVariables)
-            return onnxImporter.importGraph(loadGraph,null,null, dynamicVariablesConverted,registry)
+            onnxImporter.importGraph(loadGraph,null,null, dynamicVariablesConverted,registry)
         }
 
+        return if(optimizeGraph) ImportUtils.optimizeImportedGraph(imported, loadGraph.graphOutputs(), optimizationDebugger) else imported
+
     }
 
 
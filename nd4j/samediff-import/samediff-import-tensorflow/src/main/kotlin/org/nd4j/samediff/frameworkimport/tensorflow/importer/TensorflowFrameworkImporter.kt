@@ -20,10 +20,12 @@
 package org.nd4j.samediff.frameworkimport.tensorflow.importer
 
 import org.nd4j.autodiff.samediff.SameDiff
+import org.nd4j.autodiff.samediff.optimize.debug.OptimizationDebugger
 import org.nd4j.imports.graphmapper.tf.TFGraphMapper
 import org.nd4j.linalg.api.ndarray.INDArray
 import org.nd4j.linalg.factory.Nd4j
 import org.nd4j.samediff.frameworkimport.FrameworkImporter
+import org.nd4j.samediff.frameworkimport.ImportUtils
 import org.nd4j.samediff.frameworkimport.ir.IRGraph
 import org.nd4j.samediff.frameworkimport.opdefs.OpDescriptorLoaderHolder
 import org.nd4j.samediff.frameworkimport.tensorflow.TensorflowImportGraph
@@ -50,6 +52,17 @@ class TensorflowFrameworkImporter: FrameworkImporter {
     val registry =
         tfOpDescriptorLoader.createOpMappingRegistry<GraphDef, NodeDef, OpDef, TensorProto, OpDef.AttrDef, AttrValue, DataType>()
 
+    /**
+     * If true, the imported graph is optimized (see [ImportUtils.optimizeImportedGraph]).
+     * Disable to retain all intermediate variables of the original graph.
+     */
+    var optimizeGraph = ImportUtils.optimizeImportedGraphsByDefault()
+    /**
+     * Optional debugger for the import time optimizations, for example
+     * [org.nd4j.autodiff.samediff.optimize.debug.OpCountOptimizationDebugger] to report op counts before and after
+     */
+    var optimizationDebugger: OptimizationDebugger? = null
+
     init {
         loader.values.forEach { opDef -> opDefListBuilder.addOp(opDef) }
 
@@ -62,7 +75,8 @@ class TensorflowFrameworkImporter: FrameworkImporter {
             dynamicVariablesConverted[name] = converted
         }
         val irGraph = TensorflowIRGraph(graphDef, opDefList, registry)
-        return tfImporter.importGraph(irGraph, null, null, dynamicVariablesConverted, tensorflowOpRegistry)
+        val imported = tfImporter.importGraph(irGraph, null, null, dynamicVariablesConverted, tensorflowOpRegistry)
+        return if(optimizeGraph) ImportUtils.optimizeImportedGraph(imported, irGraph.graphOutputs(), optimizationDebugger) else imported
 
     }
 
@@ -26,6 +26,7 @@ import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
 import org.datavec.api.records.reader.impl.csv.CSVRegexRecordReader;
 import org.datavec.api.records.writer.impl.FileRecordWriter;
 import org.datavec.api.records.writer.impl.csv.CSVRecordWriter;
+import org.datavec.api.split.ByteRangeSplit;
 import org.datavec.api.split.FileSplit;
 import org.datavec.api.split.InputStreamInputSplit;
 import org.datavec.api.split.StringSplit;
@@ -36,6 +37,7 @@ import org.datavec.api.writable.Writable;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.nd4j.common.io.ClassPathResource;
 import org.nd4j.common.tests.BaseND4JTest;
 import org.nd4j.common.tests.tags.TagNames;
@@ -332,4 +334,47 @@ class CSVRecordReaderTest extends BaseND4JTest {
             assertTrue(e.getMessage().contains("initialized"),e.getMessage());
         }
     }
+
+    @Test
+    @DisplayName("Test CSV Byte Range Split With Header")
+    void testCsvByteRangeSplitWithHeader(@TempDir Path testDir) throws Exception {
+        File f = testDir.resolve("data.csv").toFile();
+        List<String> lines = new ArrayList<>();
+        lines.add("a,b,c");
+        for (int i = 0; i < 500; i++) {
+            lines.add(i + "," + (2 * i) + ",value" + i);
+        }
+        FileUtils.writeLines(f, lines);
+
+        List<List<Writable>> expected = new ArrayList<>();
+        CSVRecordReader sequential = new CSVRecordReader(1, ',');
+        sequential.initialize(new FileSplit(f));
+        while (sequential.hasNext()) {
+            expected.add(sequential.next());
+        }
+        assertEquals(500, expected.size());
+
+        List<ByteRangeSplit> splits = ByteRangeSplit.split(f, 5);
+        assertTrue(splits.size() > 1);
+        List<List<Writable>> actual = new ArrayList<>();
+        List<Record> records = new ArrayList<>();
+        for (ByteRangeSplit split : splits) {
+            //Header should only be skipped for the range at the start of the file
+            CSVRecordReader rr = new CSVRecordReader(1, ',');
+            rr.initialize(split);
+            while (rr.hasNext()) {
+                Record r = rr.nextRecord();
+                actual.add(r.getRecord());
+                records.add(r);
+            }
+        }
+        assertEquals(expected, actual);
+
+        CSVRecordReader rr = new CSVRecordReader(1, ',');
+        rr.initialize(splits.get(2));
+        Record fromMeta = rr.loadFromMetaData(records.get(123).getMetaData());
+        assertEquals(records.get(123).getRecord(), fromMeta.getRecord());
+        assertEquals(records.get(123).getMetaData(), fromMeta.getMetaData());
+    }
+
 }
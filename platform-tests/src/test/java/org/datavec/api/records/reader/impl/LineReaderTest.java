@@ -25,6 +25,7 @@ import org.apache.commons.io.IOUtils;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.metadata.RecordMetaData;
 import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.split.ByteRangeSplit;
 import org.datavec.api.split.FileSplit;
 import org.datavec.api.split.InputSplit;
 import org.datavec.api.split.InputStreamInputSplit;
@@ -41,14 +42,17 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DisplayName("Line Reader Test")
 @Tag(TagNames.JAVA_ONLY)
@@ -148,4 +152,56 @@ class LineReaderTest extends BaseND4JTest {
         }
         assertEquals(9, count);
     }
+
+    @Test
+    @DisplayName("Test Line Reader Byte Range Split")
+    void testLineReaderByteRangeSplit(@TempDir Path tmpDir) throws Exception {
+        File f = new File(tmpDir.toFile(), "large.txt");
+        StringBuilder sb = new StringBuilder();
+        Random r = new Random(12345);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            //Variable length lines, some with CRLF endings and some non-ASCII characters
+            StringBuilder line = new StringBuilder().append(i).append("_");
+            if (i % 7 == 0)
+                line.append("\u00e9\u00e8");
+            int len = r.nextInt(50);
+            for (int j = 0; j < len; j++)
+                line.append((char) ('a' + r.nextInt(26)));
+            lines.add(line.toString());
+            sb.append(line).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        FileUtils.writeStringToFile(f, sb.toString(), StandardCharsets.UTF_8);
+
+        for (int numSplits : new int[]{1, 3, 7, 64}) {
+            List<ByteRangeSplit> splits = ByteRangeSplit.split(f, numSplits);
+            assertTrue(splits.size() <= numSplits);
+            long totalLength = 0;
+            List<String> read = new ArrayList<>();
+            List<Record> records = new ArrayList<>();
+            List<RecordMetaData> meta = new ArrayList<>();
+            for (ByteRangeSplit split : splits) {
+                totalLength += split.length();
+                RecordReader reader = new LineRecordReader();
+                reader.initialize(split);
+                while (reader.hasNext()) {
+                    Record rec = reader.nextRecord();
+                    read.add(rec.getRecord().get(0).toString());
+                    records.add(rec);
+                    meta.add(rec.getMetaData());
+                }
+                reader.close();
+            }
+            assertEquals(f.length(), totalLength);
+            assertEquals(lines, read);
+
+            //Load a subset in a different order via byte offset metadata
+            RecordReader reader = new LineRecordReader();
+            reader.initialize(splits.get(0));
+            List<RecordMetaData> subset = Arrays.asList(meta.get(999), meta.get(0), meta.get(500), meta.get(3));
+            List<Record> loaded = reader.loadFromMetaData(subset);
+            assertEquals(Arrays.asList(records.get(999), records.get(0), records.get(500), records.get(3)), loaded);
+        }
+    }
+
 }
@@ -0,0 +1,167 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.datavec.api.transform.columnar;
+
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.reader.impl.collection.CollectionRecordReader;
+import org.datavec.api.records.reader.impl.transform.TransformProcessRecordReader;
+import org.datavec.api.transform.MathFunction;
+import org.datavec.api.transform.MathOp;
+import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.condition.ConditionOp;
+import org.datavec.api.transform.condition.column.CategoricalColumnCondition;
+import org.datavec.api.transform.condition.column.DoubleColumnCondition;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.transform.transform.doubletransform.MinMaxNormalizer;
+import org.datavec.api.transform.transform.doubletransform.StandardizeNormalizer;
+import org.datavec.api.writable.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nd4j.common.tests.BaseND4JTest;
+import org.nd4j.common.tests.tags.TagNames;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag(TagNames.JAVA_ONLY)
+@Tag(TagNames.FILE_IO)
+public class TestColumnarTransformExecutor extends BaseND4JTest {
+
+    private static Schema schema() {
+        return new Schema.Builder()
+                .addColumnDouble("d")
+                .addColumnInteger("i")
+                .addColumnLong("l")
+                .addColumnCategorical("cat", "a", "b", "c")
+                .addColumnString("s")
+                .addColumnString("s2")
+                .build();
+    }
+
+    private static List<List<Writable>> data(int n) {
+        Random r = new Random(12345);
+        String[] cats = {"a", "b", "c"};
+        List<List<Writable>> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            out.add(Arrays.<Writable>asList(new DoubleWritable(r.nextDouble() * 10), new IntWritable(r.nextInt(100)),
+                    new LongWritable(r.nextLong() % 1000), new Text(cats[r.nextInt(3)]), new Text("str" + i),
+                    new Text(cats[r.nextInt(3)])));
+        }
+        return out;
+    }
+
+    private static List<List<Writable>> executeRows(TransformProcess tp, List<List<Writable>> in) {
+        List<List<Writable>> out = new ArrayList<>();
+        for (List<Writable> l : in) {
+            List<Writable> o = tp.execute(l);
+            if (o != null)
+                out.add(o);
+        }
+        return out;
+    }
+
+    @Test
+    public void testColumnarMatchesRowExecution() {
+        TransformProcess tp = new TransformProcess.Builder(schema())
+                .doubleMathOp("d", MathOp.Multiply, 2.0)
+                .doubleMathFunction("d", MathFunction.SQRT)
+                .transform(new StandardizeNormalizer("d", 2.0, 0.5))
+                .integerMathOp("i", MathOp.Modulus, 7)
+                .longMathOp("l", MathOp.ReverseSubtract, 5)
+                .filter(new DoubleColumnCondition("d", ConditionOp.GreaterThan, 1.5))
+                .appendStringColumnTransform("s", "_x")       //No batch implementation: row fallback
+                .stringToCategorical("s2", Arrays.asList("a", "b", "c"))
+                .categoricalToInteger("s2")
+                .filter(new CategoricalColumnCondition("cat", ConditionOp.Equal, "c"))
+                .categoricalToOneHot("cat")
+                .removeColumns("l")
+                .renameColumn("i", "iRenamed")
+                .transform(new MinMaxNormalizer("iRenamed", 0, 6))
+                .build();
+
+        ColumnarTransformExecutor exec = new ColumnarTransformExecutor(tp);
+        assertEquals(1, exec.getNumRowFallbackSteps());
+        assertEquals(13, exec.getNumVectorizedSteps());
+
+        List<List<Writable>> in = data(200);
+        List<List<Writable>> expected = executeRows(tp, in);
+        List<List<Writable>> actual = exec.execute(in);
+        assertTrue(expected.size() > 0 && expected.size() < in.size());
+        assertEquals(expected, actual);
+
+        ColumnarBatch batch = exec.execute(ColumnarBatch.fromRecords(tp.getInitialSchema(), in));
+        assertEquals(tp.getFinalSchema(), batch.getSchema());
+        assertEquals(expected.size(), batch.getNumRows());
+
+        //All filtered
+        TransformProcess tp2 = new TransformProcess.Builder(schema())
+                .filter(new DoubleColumnCondition("d", ConditionOp.GreaterOrEqual, 0.0))
+                .removeColumns("s", "s2", "cat")
+                .build();
+        ColumnarBatch empty = new ColumnarTransformExecutor(tp2).execute(ColumnarBatch.fromRecords(tp2.getInitialSchema(), in));
+        assertEquals(0, empty.getNumRows());
+        assertEquals(tp2.getFinalSchema().numColumns(), empty.numColumns());
+    }
+
+    @Test
+    public void testToMatrix() {
+        TransformProcess tp = new TransformProcess.Builder(schema())
+                .removeColumns("s", "s2")
+                .categoricalToOneHot("cat")
+                .build();
+        List<List<Writable>> in = data(10);
+        ColumnarBatch out = new ColumnarTransformExecutor(tp).execute(ColumnarBatch.fromRecords(tp.getInitialSchema(), in));
+        INDArray arr = out.toMatrix(DataType.DOUBLE);
+        assertArrayEquals(new long[]{10, 6}, arr.shape());
+        List<List<Writable>> expected = executeRows(tp, in);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 6; j++) {
+                assertEquals(expected.get(i).get(j).toDouble(), arr.getDouble(i, j), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testTransformProcessRecordReaderColumnar() throws Exception {
+        TransformProcess tp = new TransformProcess.Builder(schema())
+                .filter(new DoubleColumnCondition("d", ConditionOp.LessThan, 3.0))
+                .doubleMathOp("d", MathOp.Subtract, 1.0)
+                .categoricalToInteger("cat")
+                .build();
+        List<List<Writable>> in = data(100);
+        List<List<Writable>> expected = executeRows(tp, in);
+
+        RecordReader rr = new TransformProcessRecordReader(new CollectionRecordReader(in), tp, true);
+        List<List<Writable>> actual = new ArrayList<>();
+        while (rr.hasNext()) {
+            List<List<Writable>> batch = rr.next(16);
+            assertTrue(batch.size() <= 16);
+            actual.addAll(batch);
+        }
+        assertEquals(expected, actual);
+    }
+}
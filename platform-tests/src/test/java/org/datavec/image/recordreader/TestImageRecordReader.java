@@ -37,6 +37,7 @@ import org.datavec.api.writable.NDArrayWritable;
 import org.datavec.api.writable.Writable;
 import org.datavec.api.writable.batch.NDArrayRecordBatch;
 import org.datavec.image.recordreader.ImageRecordReader;
+import org.datavec.image.transform.ResizeImageTransform;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -555,5 +556,38 @@ public class TestImageRecordReader {
             assertArrayEquals(new long[]{1, 32, 32, 3}, arr.shape());
         }
     }
-}
 
+    @Test
+    public void testParallelDecoding(@TempDir Path testDir) throws Exception {
+        File f0 = testDir.toFile();
+        new ClassPathResource("datavec-data-image/testimages/").copyDirectory(f0);
+
+        for(boolean nchwFirst : new boolean[]{true, false}) {
+            for (boolean transform : new boolean[]{false, true}) {
+                ImageRecordReader sequential = new ImageRecordReader(32, 32, 3, nchwFirst);
+                ImageRecordReader parallel = new ImageRecordReader(32, 32, 3, nchwFirst);
+                parallel.setNumDecodeThreads(4);
+                if (transform) {
+                    sequential.initialize(new FileSplit(f0, new Random(12345)), new ResizeImageTransform(40, 48));
+                    parallel.setImageTransformFactory(() -> new ResizeImageTransform(40, 48));
+                    parallel.initialize(new FileSplit(f0, new Random(12345)), new ResizeImageTransform(40, 48));
+                } else {
+                    sequential.initialize(new FileSplit(f0, new Random(12345)));
+                    parallel.initialize(new FileSplit(f0, new Random(12345)));
+                }
+
+                int batchCount = 0;
+                while (sequential.hasNext()) {
+                    assertTrue(parallel.hasNext());
+                    INDArray exp = ((NDArrayRecordBatch) sequential.next(4)).getArrays().get(0);
+                    INDArray act = ((NDArrayRecordBatch) parallel.next(4)).getArrays().get(0);
+                    assertEquals(exp, act);
+                    batchCount++;
+                }
+                assertFalse(parallel.hasNext());
+                assertEquals(2, batchCount);
+                parallel.close();
+            }
+        }
+    }
+}
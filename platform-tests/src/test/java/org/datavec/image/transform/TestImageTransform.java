@@ -400,6 +400,55 @@ public class TestImageTransform {
         assertEquals(99, transformed[1], 0);
     }
 
+    @Test
+    public void testFusedImageTransform() throws Exception {
+        NativeImageLoader loader = new NativeImageLoader();
+        ImageWritable writable = makeRandomImage(0, 0, 3);
+        Frame frame = writable.getFrame();
+
+        //Crops and flips are integer translations/reflections: the fused warp should give exactly the same pixels
+        for (int flipMode : new int[] {-2, -1, 0, 1}) {
+            ImageTransform[] transforms = {new CropImageTransform(5, 10, 15, 20), new FlipImageTransform(flipMode),
+                    new CropImageTransform(3)};
+            ImageWritable expected = writable;
+            for (ImageTransform t : transforms) {
+                expected = t.transform(expected);
+            }
+            FusedImageTransform fused = new FusedImageTransform(transforms);
+            ImageWritable actual = fused.transform(writable);
+            assertEquals(loader.asMatrix(expected), loader.asMatrix(actual));
+
+            float[] expPoint = {30, 40};
+            for (ImageTransform t : transforms) {
+                expPoint = t.query(expPoint);
+            }
+            assertArrayEquals(expPoint, fused.query(30, 40), 1e-3f);
+        }
+
+        //Random parameters are drawn in the same order as the unfused transforms: same output sizes and coordinates
+        for (int i = 0; i < 20; i++) {
+            ImageTransform[] transforms = {new CropImageTransform(20), new ScaleImageTransform(30),
+                    new FlipImageTransform(), new RotateImageTransform(0, 0, 30, 0.2f), new EqualizeHistTransform(),
+                    new ResizeImageTransform(64, 48)};
+            ImageWritable expected = writable;
+            Random r1 = new Random(12345 + i);
+            for (ImageTransform t : transforms) {
+                expected = t.transform(expected, r1);
+            }
+            FusedImageTransform fused = new FusedImageTransform(transforms);
+            ImageWritable actual = fused.transform(writable, new Random(12345 + i));
+            assertEquals(expected.getFrame().imageWidth, actual.getFrame().imageWidth);
+            assertEquals(expected.getFrame().imageHeight, actual.getFrame().imageHeight);
+            assertEquals(frame.imageChannels, actual.getFrame().imageChannels);
+        }
+
+        ImageTransformProcess p = new ImageTransformProcess.Builder().seed(12345).fused(true)
+                .cropImageTransform(10).flipImageTransform(1).resizeImageTransform(32, 32).build();
+        assertArrayEquals(new long[] {1, 3, 32, 32}, p.executeArray(writable).shape());
+        assertTrue(ImageTransformProcess.fromJson(p.toJson()).isFused());
+        assertNull(new FusedImageTransform(new FlipImageTransform(1)).transform(null));
+    }
+
     /**
      * This test code is kind of a manual test using specific image(largestblobtest.jpg)
      * with particular thresholds(blur size, thresholds for edge detector)
@@ -21,12 +21,20 @@
 package org.datavec.local.transforms.analysis;
 
 import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.reader.impl.collection.CollectionRecordReader;
 import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
 import org.datavec.api.split.FileSplit;
 import org.datavec.api.transform.analysis.DataAnalysis;
+import org.datavec.api.transform.analysis.columns.DoubleAnalysis;
+import org.datavec.api.transform.analysis.columns.IntegerAnalysis;
 import org.datavec.api.transform.analysis.columns.NumericalColumnAnalysis;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisConfig;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisState;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.util.ndarray.RecordConverter;
+import org.datavec.api.writable.DoubleWritable;
+import org.datavec.api.writable.IntWritable;
+import org.datavec.api.writable.Text;
 import org.datavec.api.writable.Writable;
 import org.datavec.local.transforms.AnalyzeLocal;
 import org.junit.jupiter.api.Tag;
@@ -36,10 +44,10 @@ import org.nd4j.common.tests.tags.TagNames;
 import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 @Tag(TagNames.FILE_IO)
 @Tag(TagNames.JAVA_ONLY)
 public class TestAnalyzeLocal {
@@ -81,4 +89,77 @@ public class TestAnalyzeLocal {
 
     }
 
+    @Test
+    public void testSketchAnalysis() throws Exception {
+        Schema s = new Schema.Builder()
+                .addColumnInteger("int")
+                .addColumnDouble("double")
+                .addColumnString("str")
+                .addColumnCategorical("cat", "A", "B", "C")
+                .build();
+
+        int n = 20000;
+        Random r = new Random(12345);
+        List<List<Writable>> data = new ArrayList<>();
+        double[] doubles = new double[n];
+        for( int i = 0; i < n; i++) {
+            doubles[i] = r.nextGaussian();
+            String cat = (i % 10 < 6 ? "A" : (i % 10 < 9 ? "B" : "C"));
+            data.add(Arrays.<Writable>asList(new IntWritable(i % 1000), new DoubleWritable(doubles[i]),
+                    new Text("value_" + i), new Text(cat)));
+        }
+        Arrays.sort(doubles);
+
+        SketchAnalysisState single = AnalyzeLocal.analyzeSketch(s, new CollectionRecordReader(data),
+                SketchAnalysisConfig.defaultConfig(), 1, 1000);
+        SketchAnalysisState parallel = AnalyzeLocal.analyzeSketch(s, new CollectionRecordReader(data),
+                SketchAnalysisConfig.defaultConfig(), 4, 500);
+
+        for(SketchAnalysisState state : new SketchAnalysisState[]{single, parallel}) {
+            assertEquals(1000, state.getDistinctCount("int"), 50);
+            assertEquals(n, state.getDistinctCount("str"), 0.05 * n);
+            assertEquals(3, state.getDistinctCount("cat"));
+
+            //Quantile sketch: check the rank of the returned values in the exact sorted data
+            for(double q : new double[]{0.1, 0.5, 0.9}) {
+                double v = state.getQuantile("double", q);
+                int rank = Arrays.binarySearch(doubles, v);
+                assertTrue(rank >= 0);
+                assertEquals(q, rank / (double) n, 0.02);
+            }
+
+            Map<String, Long> top = state.getTopValues("cat", 2);
+            assertEquals(Arrays.asList("A", "B"), new ArrayList<>(top.keySet()));
+            assertEquals(12000L, (long) top.get("A"));
+
+            DataAnalysis da = state.toDataAnalysis(20);
+            DoubleAnalysis dbl = (DoubleAnalysis) da.getColumnAnalysis().get(1);
+            assertEquals(n, dbl.getCountTotal());
+            assertEquals(doubles[0], dbl.getMin(), 0.0);
+            assertEquals(doubles[n - 1], dbl.getMax(), 0.0);
+            long sum = 0;
+            for(long l : dbl.getHistogramBucketCounts())
+                sum += l;
+            assertEquals(n, sum);
+
+            IntegerAnalysis ia = (IntegerAnalysis) da.getColumnAnalysis().get(0);
+            assertEquals(999.0 / 2, ia.getMean(), 1e-6);
+            assertEquals(20, ia.getCountMinValue());
+            assertEquals(20, ia.getCountMaxValue());
+        }
+
+        DataAnalysis exact = AnalyzeLocal.analyze(s, new CollectionRecordReader(data));
+        DoubleAnalysis exactDouble = (DoubleAnalysis) exact.getColumnAnalysis().get(1);
+        DoubleAnalysis sketchDouble = (DoubleAnalysis) parallel.toDataAnalysis(20).getColumnAnalysis().get(1);
+        assertEquals(exactDouble.getMean(), sketchDouble.getMean(), 1e-9);
+        assertEquals(exactDouble.getSampleStdev(), sketchDouble.getSampleStdev(), 1e-9);
+
+        //Incremental update should give the same totals as analysing all data at once
+        SketchAnalysisState incremental = AnalyzeLocal.analyzeSketch(s, new CollectionRecordReader(data.subList(0, n / 2)));
+        AnalyzeLocal.updateSketch(incremental, new CollectionRecordReader(data.subList(n / 2, n)));
+        DataAnalysis incDa = incremental.toDataAnalysis(20);
+        assertEquals(n, incDa.getColumnAnalysis().get(2).getCountTotal());
+        assertEquals(exactDouble.getMean(), ((DoubleAnalysis) incDa.getColumnAnalysis().get(1)).getMean(), 1e-9);
+    }
+
 }
@@ -26,6 +26,8 @@ import org.datavec.api.transform.join.Join;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.writable.*;
 import org.datavec.local.transforms.LocalTransformExecutor;
+import org.datavec.local.transforms.external.ExternalJoin;
+import org.datavec.local.transforms.external.ExternalMemoryConfig;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.nd4j.common.tests.tags.TagNames;
@@ -33,9 +35,11 @@ import org.nd4j.common.tests.tags.TagNames;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 @Tag(TagNames.FILE_IO)
 @Tag(TagNames.JAVA_ONLY)
 public class TestJoin  {
@@ -225,4 +229,49 @@ public class TestJoin  {
         assertEquals(4, count);
     }
 
+    @Test
+    public void testExternalJoinMatchesInMemory() throws Exception {
+        Schema leftSchema = new Schema.Builder().addColumnLong("key").addColumnInteger("leftValue").build();
+        Schema rightSchema = new Schema.Builder().addColumnString("rightValue").addColumnLong("key").build();
+
+        List<List<Writable>> left = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            left.add(Arrays.<Writable>asList(new LongWritable(i % 500), new IntWritable(i)));
+        }
+        List<List<Writable>> right = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            right.add(Arrays.<Writable>asList(new Text("r" + i), new LongWritable(250 + i % 700)));
+        }
+
+        //Small memory budget, to force spilling for both strategies
+        for (ExternalMemoryConfig.JoinStrategy strategy : ExternalMemoryConfig.JoinStrategy.values()) {
+            ExternalMemoryConfig config = new ExternalMemoryConfig.Builder().memoryBudgetBytes(16 * 1024)
+                            .numHashPartitions(4).maxMergeFanIn(8).joinStrategy(strategy).build();
+            for (Join.JoinType jt : Join.JoinType.values()) {
+                Join join = new Join.Builder(jt).setJoinColumns("key").setSchemas(leftSchema, rightSchema).build();
+
+                List<List<Writable>> expected = sortByString(LocalTransformExecutor.executeJoin(join, left, right));
+                List<List<Writable>> actual = sortByString(LocalTransformExecutor.executeJoin(join, left, right, config));
+                assertEquals(expected.size(), actual.size(), strategy + " - " + jt);
+                assertEquals(expected, actual, strategy + " - " + jt);
+
+                ExternalJoin ej = new ExternalJoin(join, config);
+                List<List<Writable>> direct = new ArrayList<>();
+                ej.execute(left.iterator(), right.iterator(), direct::add);
+                assertEquals(expected.size(), direct.size());
+                if (strategy == ExternalMemoryConfig.JoinStrategy.SORT_MERGE) {
+                    assertTrue(ej.getNumSpilledRuns() > 0);
+                } else {
+                    assertTrue(ej.getNumSpilledPartitions() > 0);
+                }
+            }
+        }
+    }
+
+    private static List<List<Writable>> sortByString(List<List<Writable>> list) {
+        List<List<Writable>> out = new ArrayList<>(list);
+        out.sort(Comparator.comparing(Object::toString));
+        return out;
+    }
+
 }
@@ -29,6 +29,7 @@ import org.datavec.api.writable.Text;
 import org.datavec.api.writable.Writable;
 import org.datavec.api.writable.comparator.DoubleWritableComparator;
 import org.datavec.local.transforms.LocalTransformExecutor;
+import org.datavec.local.transforms.external.ExternalMemoryConfig;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.nd4j.common.tests.tags.TagNames;
@@ -36,6 +37,7 @@ import org.nd4j.common.tests.tags.TagNames;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 @Tag(TagNames.FILE_IO)
@@ -77,4 +79,26 @@ public class TestCalculateSortedRank  {
         }
     }
 
+    @Test
+    public void testCalculateSortedRankExternalSort() {
+        List<List<Writable>> data = new ArrayList<>();
+        Random r = new Random(12345);
+        for (int i = 0; i < 5000; i++) {
+            //Duplicate values: rank order should still match the (stable) in-memory sort
+            data.add(Arrays.asList((Writable) new Text(String.valueOf(i)), new DoubleWritable(r.nextInt(100))));
+        }
+
+        Schema schema = new Schema.Builder().addColumnsString("TextCol").addColumnDouble("DoubleCol").build();
+        TransformProcess tp = new TransformProcess.Builder(schema)
+                        .calculateSortedRank("rank", "DoubleCol", new DoubleWritableComparator(), false).build();
+
+        List<List<Writable>> expected = LocalTransformExecutor.execute(data, tp);
+
+        //Small budget and fan-in: many spilled runs, and multiple merge passes
+        ExternalMemoryConfig config = new ExternalMemoryConfig.Builder()
+                        .memoryBudgetBytes(16 * 1024).maxMergeFanIn(4).build();
+        List<List<Writable>> out = LocalTransformExecutor.execute(data, tp, config);
+        assertEquals(expected, out);
+    }
+
 }
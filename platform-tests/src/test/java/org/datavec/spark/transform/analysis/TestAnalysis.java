@@ -24,10 +24,13 @@ import com.tdunning.math.stats.TDigest;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.util.StatCounter;
 import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.reader.impl.collection.CollectionRecordReader;
 import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
 import org.datavec.api.split.FileSplit;
 import org.datavec.api.transform.analysis.DataAnalysis;
 import org.datavec.api.transform.analysis.columns.*;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisConfig;
+import org.datavec.api.transform.analysis.sketch.SketchAnalysisState;
 import org.datavec.api.transform.metadata.BinaryMetaData;
 import org.datavec.api.transform.metadata.BooleanMetaData;
 import org.datavec.api.transform.quality.DataQualityAnalysis;
@@ -369,4 +372,38 @@ public class TestAnalysis extends BaseSparkTest {
         da.toJson();
     }
 
+    @Test
+    public void testSketchAnalysisMergeAcrossPartitions() {
+        Schema schema = new Schema.Builder().addColumnLong("long").addColumnString("str")
+                        .addColumnCategorical("cat", "A", "B").build();
+
+        int n = 5000;
+        List<List<Writable>> data = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            data.add(Arrays.<Writable>asList(new LongWritable(i), new Text("s" + (i % 2500)),
+                            new Text(i % 5 == 0 ? "B" : "A")));
+        }
+
+        SketchAnalysisState sparkState = AnalyzeSpark.analyzeSketch(schema, sc.parallelize(data, 8));
+        SketchAnalysisState localState = AnalyzeLocal.analyzeSketch(schema,
+                        new CollectionRecordReader(data), SketchAnalysisConfig.defaultConfig(), 1, 1000);
+
+        assertEquals(localState.getDistinctCount("long"), sparkState.getDistinctCount("long"), 0.05 * n);
+        assertEquals(n, sparkState.getDistinctCount("long"), 0.05 * n);
+        assertEquals(2500, sparkState.getDistinctCount("str"), 0.05 * 2500);
+        assertEquals(Arrays.asList("A", "B"), new ArrayList<>(sparkState.getTopValues("cat", 5).keySet()));
+        assertEquals(n / 2, sparkState.getQuantile("long", 0.5), 0.02 * n);
+
+        DataAnalysis sparkDa = sparkState.toDataAnalysis(10);
+        LongAnalysis la = (LongAnalysis) sparkDa.getColumnAnalysis().get(0);
+        assertEquals(n, la.getCountTotal());
+        assertEquals(0, la.getMin());
+        assertEquals(n - 1, la.getMax());
+        assertEquals((n - 1) / 2.0, la.getMean(), 1e-6);
+
+        //Partition states computed elsewhere merge with the Spark result
+        sparkState.merge(localState);
+        assertEquals(2 * n, sparkState.toDataAnalysis(10).getColumnAnalysis().get(0).getCountTotal());
+    }
+
 }
@@ -23,8 +23,10 @@ package org.deeplearning4j.parallelism;
 import lombok.val;
 import org.deeplearning4j.BaseDL4JTest;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.parallelism.inference.InferenceMode;
 import org.deeplearning4j.parallelism.inference.LoadBalanceMode;
 import org.junit.jupiter.api.Tag;
@@ -35,6 +37,14 @@ import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 @Tag(TagNames.FILE_IO)
 @NativeTag
@@ -168,4 +178,114 @@ public class InplaceParallelInferenceTest extends BaseDL4JTest {
             pi.shutdown();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConcurrentInferenceSharedWeights() throws Exception {
+        val conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(5).nOut(8).activation(Activation.TANH).build())
+                .layer(new OutputLayer.Builder().nIn(8).nOut(3).activation(Activation.SOFTMAX).build())
+                .build();
+
+        val net = new MultiLayerNetwork(conf);
+        net.init();
+
+        int nThreads = 4;
+        INDArray params0 = net.params().dup();
+        INDArray params1 = params0.mul(0.5);
+        INDArray[] inputs = new INDArray[nThreads];
+        INDArray[][] expected = new INDArray[2][nThreads];
+        for (int i = 0; i < nThreads; i++) {
+            inputs[i] = Nd4j.rand(10 + i, 5);
+        }
+        for (int p = 0; p < 2; p++) {
+            net.setParams(p == 0 ? params0 : params1);
+            for (int i = 0; i < nThreads; i++) {
+                expected[p][i] = net.output(inputs[i]);
+            }
+        }
+        assertNotEquals(expected[0][0], expected[1][0]);
+        net.setParams(params0);
+
+        //Parameters are changed while the inference threads (and their contexts) are live: the change must be
+        // visible to all of them, as parameters are shared rather than copied
+        net.setConcurrentInference(true);
+        val barrier = new CyclicBarrier(nThreads + 1);
+        val pool = Executors.newFixedThreadPool(nThreads);
+        try {
+            val futures = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < nThreads; i++) {
+                final int idx = i;
+                futures.add(pool.submit(() -> {
+                    boolean ok = true;
+                    for (int p = 0; p < 2; p++) {
+                        if (p > 0) {
+                            barrier.await(1, TimeUnit.MINUTES);     //Wait for params to be updated
+                        }
+                        for (int j = 0; j < 20; j++) {
+                            ok &= expected[p][idx].equals(net.output(inputs[idx]));
+                        }
+                        if (p == 0) {
+                            barrier.await(1, TimeUnit.MINUTES);     //Phase 0 done
+                        }
+                    }
+                    return ok;
+                }));
+            }
+            barrier.await(1, TimeUnit.MINUTES);
+            net.setParams(params1);
+            barrier.await(1, TimeUnit.MINUTES);
+            for (val f : futures) {
+                assertTrue(f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(net.isConcurrentInference());
+
+        //Setting the parameter table (params1 * 2 == params0) is also visible to this thread's existing context
+        assertEquals(expected[1][0], net.output(inputs[0]));
+        Map<String, INDArray> table = new HashMap<>();
+        for (Map.Entry<String, INDArray> e : net.paramTable().entrySet()) {
+            table.put(e.getKey(), e.getValue().mul(2.0));
+        }
+        net.setParamTable(table);
+        assertEquals(expected[0][0], net.output(inputs[0]));
+    }
+
+    @Test
+    public void testOutput_MultiLayerNetwork_SharedModel() throws Exception {
+        val conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(5).nOut(8).activation(Activation.TANH).build())
+                .layer(new OutputLayer.Builder().nIn(8).nOut(3).activation(Activation.SOFTMAX).build())
+                .build();
+
+        val net = new MultiLayerNetwork(conf);
+        net.init();
+
+        val pi = new ParallelInference.Builder(net)
+                .inferenceMode(InferenceMode.INPLACE)
+                .loadBalanceMode(LoadBalanceMode.FIFO)
+                .workers(4)
+                .build();
+
+        try {
+            //Single shared-weights model per device, regardless of the number of workers
+            for (val h : ((InplaceParallelInference) pi).holders) {
+                assertEquals(4, h.replicas.size());
+                for (val m : h.replicas) {
+                    assertSame(h.replicas.get(0), m);
+                }
+                assertTrue(((MultiLayerNetwork) h.replicas.get(0)).isConcurrentInference());
+            }
+
+            INDArray in = Nd4j.rand(3, 5);
+            assertEquals(net.output(in), pi.output(in));
+        } finally {
+            pi.shutdown();
+        }
+    }
+}
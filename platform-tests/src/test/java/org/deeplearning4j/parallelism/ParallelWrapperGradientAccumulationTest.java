@@ -0,0 +1,95 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.datasets.iterator.utilty.ListDataSetIterator;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nd4j.common.tests.tags.NativeTag;
+import org.nd4j.common.tests.tags.TagNames;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@NativeTag
+@Tag(TagNames.MULTI_THREADED)
+public class ParallelWrapperGradientAccumulationTest extends BaseDL4JTest {
+
+    @Test
+    public void testTrailingMicroBatchesApplied() throws Exception {
+        //5 minibatches with 2 accumulation steps: updates with 2, 2 and (at the end of fit) 1 minibatches
+        Nd4j.getRandom().setSeed(12345);
+        INDArray f = Nd4j.rand(DataType.DOUBLE, 40, 10);
+        INDArray l = Nd4j.zeros(DataType.DOUBLE, 40, 3);
+        for (int i = 0; i < 40; i++) {
+            l.putScalar(i, i % 3, 1.0);
+        }
+        List<DataSet> batches = new DataSet(f, l).batchBy(8);
+        assertEquals(5, batches.size());
+
+        MultiLayerNetwork base = new MultiLayerNetwork(conf());
+        base.init();
+        MultiLayerNetwork model = new MultiLayerNetwork(conf());
+        model.init();
+
+        ParallelWrapper wrapper = new ParallelWrapper.Builder<>(model)
+                .workers(1)
+                .prefetchBuffer(0)
+                .averagingFrequency(1)
+                .build();
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            base.fit(new ListDataSetIterator<>(batches, 1));
+            wrapper.fit(new ListDataSetIterator<>(batches, 1));
+            assertTrue(base.params().equalsWithEps(model.params(), 1e-8), "Epoch " + epoch);
+            assertEquals(3 * (epoch + 1), model.getIterationCount());
+        }
+        wrapper.shutdown();
+    }
+
+    private static MultiLayerConfiguration conf() {
+        return new NeuralNetConfiguration.Builder()
+                .dataType(DataType.DOUBLE)
+                .seed(12345)
+                .updater(new Adam(0.01))
+                .list()
+                .layer(new DenseLayer.Builder().nIn(10).nOut(16).activation(Activation.TANH).build())
+                .layer(new OutputLayer.Builder().nIn(16).nOut(3).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build())
+                .gradientAccumulationSteps(2)
+                .build();
+    }
+}
@@ -29,6 +29,7 @@ import org.deeplearning4j.spark.api.Repartition;
 import org.deeplearning4j.spark.api.RepartitionStrategy;
 import org.deeplearning4j.spark.impl.common.CountPartitionsFunction;
 import org.deeplearning4j.spark.impl.repartitioner.DefaultRepartitioner;
+import org.deeplearning4j.spark.impl.repartitioner.LocalityAwareRepartitioner;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.nd4j.common.tests.tags.NativeTag;
@@ -36,9 +37,11 @@ import org.nd4j.common.tests.tags.TagNames;
 import scala.Tuple2;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 @Tag(TagNames.FILE_IO)
@@ -277,5 +280,58 @@ public class TestRepartitioning extends BaseSparkTest {
         assertEquals(100, rdd2.partitions().size());
     }
 
-
+    @Test
+    public void testLocalityAwareRepartitioner() {
+        if(Platform.isWindows()) {
+            //Spark tests don't run on windows
+            return;
+        }
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(String.valueOf(i));
+        }
+        JavaRDD<String> rdd = sc.parallelize(list, 10);
+        List<List<String>> before = rdd.glom().collect();
+
+        LocalityAwareRepartitioner r = new LocalityAwareRepartitioner(0.1, 12345);
+        for (int epoch = 0; epoch < 3; epoch++) {
+            JavaRDD<String> out = r.repartition(rdd, 1, 10);
+            List<List<String>> after = out.glom().collect();
+            assertEquals(10, after.size());
+
+            //All objects present exactly once
+            Set<String> all = new HashSet<>();
+            int moved = 0;
+            for (int i = 0; i < after.size(); i++) {
+                all.addAll(after.get(i));
+                for (String s : after.get(i)) {
+                    if (!before.get(i).contains(s))
+                        moved++;
+                }
+            }
+            assertEquals(1000, all.size());
+            assertEquals(1000, (int) out.count());
+
+            //Only a small fraction should have moved between partitions
+            assertTrue(moved > 0 && moved < 200, "Moved: " + moved);
+            long movedReported = r.getObjectsShuffledPerEpoch().get(epoch);
+            assertEquals(moved, movedReported);
+            assertTrue(r.getBytesShuffledPerEpoch().get(epoch) > 0);
+
+            //Object assignment is cached, so partitions should prefer the executors holding them
+            for (int i = 0; i < after.size(); i++) {
+                assertFalse(sc.sc().getPreferredLocs(out.rdd(), i).isEmpty(), "No preferred locations: partition " + i);
+            }
+        }
+        assertEquals(3, r.getEpochCount());
+
+        //With fitStarted called by the training master, all repartition calls within one fit count as one epoch
+        r.fitStarted();
+        assertEquals(1000, (int) r.repartition(rdd, 1, 10).count());
+        long firstSplit = r.getObjectsShuffledPerEpoch().get(3);
+        assertEquals(1000, (int) r.repartition(rdd, 1, 10).count());
+        assertEquals(4, r.getEpochCount());
+        assertEquals(4, r.getObjectsShuffledPerEpoch().size());
+        assertTrue(firstSplit > 0 && r.getObjectsShuffledPerEpoch().get(3) > firstSplit);
+    }
 }
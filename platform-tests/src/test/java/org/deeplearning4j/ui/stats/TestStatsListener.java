@@ -26,8 +26,11 @@ import org.deeplearning4j.core.storage.StatsStorage;
 import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.ui.model.stats.J7StatsListener;
 import org.deeplearning4j.ui.model.stats.StatsListener;
@@ -38,6 +41,7 @@ import org.nd4j.common.tests.tags.NativeTag;
 import org.nd4j.common.tests.tags.TagNames;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 import java.util.List;
@@ -103,4 +107,59 @@ public class TestStatsListener extends BaseDL4JTest {
 
     }
 
+    @Test
+    public void testListenerActivationCheckpointing() {
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .updater(new Adam(0.01))
+                .list()
+                .layer(new DenseLayer.Builder().nIn(4).nOut(8).activation(Activation.TANH).build())
+                .layer(new DenseLayer.Builder().nIn(8).nOut(8).activation(Activation.TANH).build())
+                .layer(new DenseLayer.Builder().nIn(8).nOut(8).activation(Activation.TANH).build())
+                .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .activation(Activation.SOFTMAX).nIn(8).nOut(3).build())
+                .activationCheckpoints(1)
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        StatsStorage ss = new MapDBStatsStorage();
+        net.setListeners(new StatsListener(ss, 1));
+        for (int i = 0; i < 3; i++) {
+            net.fit(ds);
+        }
+        assertUpdateCount(ss, 3);
+
+        ComputationGraphConfiguration cgConf = new NeuralNetConfiguration.Builder()
+                .updater(new Adam(0.01))
+                .graphBuilder()
+                .addInputs("in")
+                .addLayer("0", new DenseLayer.Builder().nIn(4).nOut(8).activation(Activation.TANH).build(), "in")
+                .addLayer("1", new DenseLayer.Builder().nIn(8).nOut(8).activation(Activation.TANH).build(), "0")
+                .addLayer("2", new DenseLayer.Builder().nIn(8).nOut(8).activation(Activation.TANH).build(), "1")
+                .addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .activation(Activation.SOFTMAX).nIn(8).nOut(3).build(), "2")
+                .setOutputs("out")
+                .activationCheckpoints("1")
+                .build();
+
+        ComputationGraph cg = new ComputationGraph(cgConf);
+        cg.init();
+        StatsStorage ssCg = new MapDBStatsStorage();
+        cg.setListeners(new StatsListener(ssCg, 1));
+        for (int i = 0; i < 3; i++) {
+            cg.fit(ds);
+        }
+        assertUpdateCount(ssCg, 3);
+    }
+
+    private static void assertUpdateCount(StatsStorage ss, int expected) {
+        String sessionID = ss.listSessionIDs().get(0);
+        String typeID = ss.listTypeIDsForSession(sessionID).get(0);
+        String workerID = ss.listWorkerIDsForSession(sessionID).get(0);
+        assertNotNull(ss.getStaticInfo(sessionID, typeID, workerID));
+        assertEquals(expected, ss.getAllUpdatesAfter(sessionID, typeID, workerID, 0).size());
+    }
+
 }
@@ -48,6 +48,7 @@ import org.datavec.api.split.NumberedFileInputSplit;
 import org.datavec.api.writable.DoubleWritable;
 import org.datavec.api.writable.IntWritable;
 import org.datavec.api.writable.NDArrayWritable;
+import org.datavec.api.writable.Text;
 import org.datavec.api.writable.Writable;
 import org.datavec.image.recordreader.ImageRecordReader;
 import org.deeplearning4j.BaseDL4JTest;
@@ -956,6 +957,39 @@ class RecordReaderDataSetiteratorTest extends BaseDL4JTest {
         assertEquals(expLabels, ds2.getLabels());
     }
 
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    @DisplayName("Test Record Reader Data Set Iterator Bulk Conversion")
+    void testRecordReaderDataSetIteratorBulkConversion(Nd4jBackend backend) {
+        DataType orig = Nd4j.defaultFloatingPointType();
+        try {
+            for (DataType dt : new DataType[]{DataType.FLOAT, DataType.DOUBLE}) {
+                Nd4j.setDefaultDataTypes(dt, dt);
+                Collection<Collection<Writable>> data = new ArrayList<>();
+                for (int i = 0; i < 7; i++) {
+                    data.add(Arrays.<Writable>asList(new DoubleWritable(i), new Text(String.valueOf(i + 0.5)),
+                            new NDArrayWritable(Nd4j.create(new double[]{10 * i, 10 * i + 1}, new long[]{1, 2})),
+                            new IntWritable(i % 3)));
+                }
+                DataSetIterator iter = new RecordReaderDataSetIterator(new CollectionRecordReader(data), 3, 3, 3);
+                int count = 0;
+                while (iter.hasNext()) {
+                    DataSet ds = iter.next();
+                    for (int j = 0; j < ds.numExamples(); j++) {
+                        int i = count++;
+                        INDArray exp = Nd4j.create(new double[]{i, i + 0.5, 10 * i, 10 * i + 1}, new long[]{4}).castTo(dt);
+                        assertEquals(dt, ds.getFeatures().dataType());
+                        assertEquals(exp, ds.getFeatures().getRow(j));
+                        assertEquals(i % 3, ds.getLabels().getRow(j).argMax().getInt(0));
+                    }
+                }
+                assertEquals(7, count);
+            }
+        } finally {
+            Nd4j.setDefaultDataTypes(orig, orig);
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
     @Disabled
@@ -21,15 +21,20 @@
 package org.eclipse.deeplearning4j.dl4jcore.datasets.iterator;
 
 import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.core.loader.impl.ColumnarDataSetFormat;
+import org.deeplearning4j.core.loader.impl.ColumnarDataSetLoader;
 import org.deeplearning4j.datasets.iterator.loader.DataSetLoaderIterator;
 import org.deeplearning4j.datasets.iterator.loader.MultiDataSetLoaderIterator;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.nd4j.common.loader.Loader;
 import org.nd4j.common.loader.LocalFileSourceFactory;
+import org.nd4j.common.loader.LocalFileSource;
 import org.nd4j.common.loader.Source;
 import org.nd4j.common.tests.tags.NativeTag;
 import org.nd4j.common.tests.tags.TagNames;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
@@ -37,12 +42,17 @@ import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 @NativeTag
 @Tag(TagNames.FILE_IO)
@@ -108,4 +118,33 @@ public class LoaderIteratorTests extends BaseDL4JTest {
         }
     }
 
+    @Test
+    public void testColumnarDataSetLoader(@TempDir Path testDir) throws Exception {
+        INDArray f = Nd4j.rand(DataType.FLOAT, 5, 3, 7);
+        INDArray l = Nd4j.rand(DataType.DOUBLE, 5, 2, 7);
+        INDArray lm = Nd4j.rand(DataType.FLOAT, 7, 5).gt(0.5).castTo(DataType.INT).transpose();   //Non c-order view
+        DataSet ds = new DataSet(f, l, null, lm);
+
+        ColumnarDataSetLoader loader = new ColumnarDataSetLoader();
+        for (boolean compress : new boolean[]{false, true}) {
+            File file = new File(testDir.toFile(), "ds_" + compress + ".bin");
+            ColumnarDataSetFormat.write(ds, file, compress);
+
+            //Memory mapped, and streamed
+            DataSet fromFile = loader.load(new LocalFileSource(file.getAbsolutePath()));
+            DataSet fromStream;
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ColumnarDataSetFormat.write(ds, baos, compress);
+            try (ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray())) {
+                fromStream = ColumnarDataSetFormat.read(bais);
+            }
+
+            for (DataSet loaded : new DataSet[]{fromFile, fromStream}) {
+                assertEquals(f, loaded.getFeatures());
+                assertEquals(l, loaded.getLabels());
+                assertNull(loaded.getFeaturesMaskArray());
+                assertEquals(lm, loaded.getLabelsMaskArray());
+            }
+        }
+    }
 }
@@ -46,7 +46,10 @@ import org.nd4j.linalg.activations.impl.ActivationIdentity;
 import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.learning.config.IUpdater;
 import org.nd4j.linalg.learning.config.Sgd;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 import java.util.List;
@@ -546,6 +549,57 @@ class EmbeddingLayerTest extends BaseDL4JTest {
         }
     }
 
+    @Test
+    @DisplayName("Test Embedding Sparse Gradients")
+    void testEmbeddingSparseGradients() {
+        //With SGD, lazy row-wise updates are identical to dense updates
+        //With Adam, the first update is identical; after that, rows that are never used must not be modified
+        int nIn = 20;
+        int maxIdx = 10;
+        for (boolean seq : new boolean[] { false, true }) {
+            for (IUpdater u : new IUpdater[] { new Sgd(0.1), new Adam(0.01) }) {
+                MultiLayerNetwork dense = sparseEmbeddingNet(seq, nIn, u, false);
+                MultiLayerNetwork sparse = sparseEmbeddingNet(seq, nIn, u, true);
+                assertEquals(dense.params(), sparse.params());
+                INDArray initialW = sparse.getParam("0_W").dup();
+
+                Random r = new Random(12345);
+                for (int iter = 0; iter < 5; iter++) {
+                    INDArray in = Nd4j.create(DataType.FLOAT, seq ? new long[] { 4, 3 } : new long[] { 4, 1 });
+                    for (int i = 0; i < in.length(); i++) {
+                        in.putScalar(i, r.nextInt(maxIdx));
+                    }
+                    INDArray labels = Nd4j.rand(DataType.FLOAT, seq ? new long[] { 4, 3, 3 } : new long[] { 4, 3 });
+                    dense.fit(in, labels);
+                    sparse.fit(in, labels);
+
+                    String str = (seq ? "EmbeddingSequenceLayer" : "EmbeddingLayer") + " - " + u + " - iter " + iter;
+                    if (u instanceof Sgd || iter == 0) {
+                        assertTrue(dense.params().equalsWithEps(sparse.params(), 1e-5), str);
+                    }
+                    INDArray w = sparse.getParam("0_W");
+                    assertEquals(initialW.get(NDArrayIndex.interval(maxIdx, nIn), NDArrayIndex.all()),
+                            w.get(NDArrayIndex.interval(maxIdx, nIn), NDArrayIndex.all()), str);
+                    assertNotEquals(initialW.get(NDArrayIndex.interval(0, maxIdx), NDArrayIndex.all()),
+                            w.get(NDArrayIndex.interval(0, maxIdx), NDArrayIndex.all()), str);
+                }
+            }
+        }
+    }
+
+    private static MultiLayerNetwork sparseEmbeddingNet(boolean seq, int nIn, IUpdater updater, boolean sparse) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).dataType(DataType.FLOAT)
+                .updater(updater).list()
+                .layer(seq ? new EmbeddingSequenceLayer.Builder().inputLength(3).hasBias(true).nIn(nIn).nOut(5).sparseGradients(sparse).build()
+                        : new EmbeddingLayer.Builder().hasBias(true).nIn(nIn).nOut(5).sparseGradients(sparse).build())
+                .layer(seq ? new RnnOutputLayer.Builder().nIn(5).nOut(3).activation(Activation.IDENTITY).lossFunction(LossFunctions.LossFunction.MSE).build()
+                        : new OutputLayer.Builder().nIn(5).nOut(3).activation(Activation.IDENTITY).lossFunction(LossFunctions.LossFunction.MSE).build())
+                .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
     public static double relErr(double d1, double d2) {
         if (d1 == 0.0 && d2 == 0.0)
             return 0.0;
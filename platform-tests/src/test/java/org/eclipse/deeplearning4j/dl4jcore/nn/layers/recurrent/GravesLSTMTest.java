@@ -28,6 +28,15 @@ import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.distribution.UniformDistribution;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.layers.recurrent.GravesLSTM;
+import org.deeplearning4j.gradientcheck.GradientCheckUtil;
+import org.deeplearning4j.nn.conf.CacheMode;
+import org.deeplearning4j.nn.conf.layers.AbstractLSTM;
+import org.deeplearning4j.nn.layers.recurrent.BaseRecurrentLayer;
+import org.deeplearning4j.nn.layers.recurrent.FwdPassReturn;
+import org.deeplearning4j.nn.layers.recurrent.LSTMHelpers;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.learning.config.NoOp;
+import org.nd4j.linalg.ops.transforms.Transforms;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.params.GravesLSTMParamInitializer;
 import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
@@ -163,6 +172,138 @@ class GravesLSTMTest extends BaseDL4JTest {
         }
     }
 
+    @Test
+    @DisplayName("Test LSTM Forward Pass Matches Reference")
+    void testLSTMForwardPassMatchesReference() {
+        // Both the inference (forBackprop == false) and backprop (forBackprop == true) forward passes should match a
+        // straightforward per time step implementation, with and without peepholes, masks, and in both directions
+        Nd4j.getRandom().setSeed(12345);
+        int nIn = 4;
+        int layerSize = 6;
+        int miniBatchSize = 3;
+        int timeSeriesLength = 9;
+        for (boolean graves : new boolean[] { true, false }) {
+            for (boolean masked : new boolean[] { false, true }) {
+                for (boolean forwards : new boolean[] { true, false }) {
+                    String msg = "graves=" + graves + ", masked=" + masked + ", forwards=" + forwards;
+                    AbstractLSTM layerConf = graves ?
+                            new org.deeplearning4j.nn.conf.layers.GravesLSTM.Builder().nIn(nIn).nOut(layerSize).dist(new UniformDistribution(-1, 1)).activation(Activation.TANH).build() :
+                            new org.deeplearning4j.nn.conf.layers.LSTM.Builder().nIn(nIn).nOut(layerSize).dist(new UniformDistribution(-1, 1)).activation(Activation.TANH).build();
+                    NeuralNetConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).layer(layerConf).build();
+                    val numParams = conf.getLayer().initializer().numParams(conf);
+                    INDArray params = Nd4j.create(DataType.DOUBLE, 1, numParams);
+                    BaseRecurrentLayer layer = (BaseRecurrentLayer) conf.getLayer().instantiate(conf, null, 0, params, true, DataType.DOUBLE);
+                    INDArray inputWeights = layer.getParam(GravesLSTMParamInitializer.INPUT_WEIGHT_KEY);
+                    INDArray recurrentWeights = layer.getParam(GravesLSTMParamInitializer.RECURRENT_WEIGHT_KEY);
+                    INDArray biases = layer.getParam(GravesLSTMParamInitializer.BIAS_KEY);
+
+                    INDArray input = Nd4j.rand(DataType.DOUBLE, miniBatchSize, nIn, timeSeriesLength).subi(0.5);
+                    INDArray mask = null;
+                    if (masked) {
+                        // Variable length: example i has its last 2*i time steps masked out
+                        mask = Nd4j.ones(DataType.DOUBLE, miniBatchSize, timeSeriesLength);
+                        for (int i = 1; i < miniBatchSize; i++) {
+                            mask.get(NDArrayIndex.point(i), NDArrayIndex.interval(timeSeriesLength - 2 * i, timeSeriesLength)).assign(0);
+                        }
+                    }
+
+                    INDArray expected = referenceForwardPass(input, inputWeights, recurrentWeights, biases, mask, graves, forwards);
+                    int lastTime = forwards ? timeSeriesLength - 1 : 0;
+                    for (boolean forBackprop : new boolean[] { false, true }) {
+                        FwdPassReturn fwd = LSTMHelpers.activateHelper(layer, conf, layerConf.getGateActivationFn(), input,
+                                recurrentWeights, inputWeights, biases, false, null, null, forBackprop, forwards,
+                                GravesLSTMParamInitializer.INPUT_WEIGHT_KEY, mask, graves, null, CacheMode.NONE,
+                                LayerWorkspaceMgr.noWorkspaces(), true);
+                        for (int t = 0; t < timeSeriesLength; t++) {
+                            INDArray exp = expected.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(t));
+                            INDArray act = forBackprop ? fwd.fwdPassOutputAsArrays[t] :
+                                    fwd.fwdPassOutput.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(t));
+                            assertEquals(exp, act, msg + ", forBackprop=" + forBackprop + ", t=" + t);
+                        }
+                        assertEquals(expected.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(lastTime)), fwd.lastAct,
+                                msg + ", forBackprop=" + forBackprop);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Per time step LSTM forward pass (tanh activation, sigmoid gates), with separate input and recurrent gemms for
+     * each step. Gate order: [block input, forget, output, input modulation]; peepholes [wFF, wOO, wGG]
+     */
+    private static INDArray referenceForwardPass(INDArray input, INDArray inputWeights, INDArray recurrentWeights,
+                                                 INDArray biases, INDArray mask, boolean peepholes, boolean forwards) {
+        long mb = input.size(0);
+        int l = (int) recurrentWeights.size(0);
+        int tsLength = (int) input.size(2);
+        INDArray out = Nd4j.create(DataType.DOUBLE, mb, l, tsLength);
+        INDArray h = Nd4j.zeros(DataType.DOUBLE, mb, l);
+        INDArray c = Nd4j.zeros(DataType.DOUBLE, mb, l);
+        INDArray rw = recurrentWeights.get(NDArrayIndex.all(), NDArrayIndex.interval(0, 4 * l));
+        for (int i = 0; i < tsLength; i++) {
+            int t = forwards ? i : tsLength - i - 1;
+            INDArray x = input.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(t));
+            INDArray z = x.mmul(inputWeights).addRowVector(biases).addi(h.mmul(rw));
+            INDArray a = Transforms.tanh(z.get(NDArrayIndex.all(), NDArrayIndex.interval(0, l)), true);
+            INDArray f = z.get(NDArrayIndex.all(), NDArrayIndex.interval(l, 2 * l)).dup();
+            INDArray o = z.get(NDArrayIndex.all(), NDArrayIndex.interval(2 * l, 3 * l)).dup();
+            INDArray g = z.get(NDArrayIndex.all(), NDArrayIndex.interval(3 * l, 4 * l)).dup();
+            if (peepholes) {
+                f.addi(c.mulRowVector(recurrentWeights.getColumn(4 * l).reshape(1, l)));
+                g.addi(c.mulRowVector(recurrentWeights.getColumn(4 * l + 2).reshape(1, l)));
+            }
+            f = Transforms.sigmoid(f, false);
+            g = Transforms.sigmoid(g, false);
+            c = f.mul(c).addi(g.mul(a));
+            if (peepholes) {
+                o.addi(c.mulRowVector(recurrentWeights.getColumn(4 * l + 1).reshape(1, l)));
+            }
+            o = Transforms.sigmoid(o, false);
+            h = Transforms.tanh(c, true).muli(o);
+            if (mask != null) {
+                INDArray m = mask.getColumn(t, true);
+                h.muliColumnVector(m);
+                c.muliColumnVector(m);
+            }
+            out.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(t)).assign(h);
+        }
+        return out;
+    }
+
+    @Test
+    @DisplayName("Test LSTM Masked Gradients")
+    void testLSTMMaskedGradients() {
+        // Input weight gradients and epsilons are calculated for all time steps at once after the backprop loop:
+        // check them (with and without masks) against numerical gradients
+        int nIn = 3;
+        int layerSize = 4;
+        int miniBatchSize = 3;
+        int timeSeriesLength = 5;
+        for (boolean masked : new boolean[] { false, true }) {
+            Nd4j.getRandom().setSeed(12345);
+            MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).dataType(DataType.DOUBLE)
+                    .updater(new NoOp()).weightInit(new UniformDistribution(-1, 1)).list()
+                    .layer(new org.deeplearning4j.nn.conf.layers.GravesLSTM.Builder().activation(Activation.TANH).nIn(nIn).nOut(layerSize).build())
+                    .layer(new org.deeplearning4j.nn.conf.layers.LSTM.Builder().activation(Activation.TANH).nIn(layerSize).nOut(layerSize).build())
+                    .layer(new org.deeplearning4j.nn.conf.layers.RnnOutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MSE).nIn(layerSize).nOut(2).activation(Activation.IDENTITY).build())
+                    .build();
+            MultiLayerNetwork net = new MultiLayerNetwork(conf);
+            net.init();
+            INDArray input = Nd4j.rand(DataType.DOUBLE, miniBatchSize, nIn, timeSeriesLength).subi(0.5);
+            INDArray labels = Nd4j.rand(DataType.DOUBLE, miniBatchSize, 2, timeSeriesLength);
+            INDArray mask = null;
+            if (masked) {
+                mask = Nd4j.ones(DataType.DOUBLE, miniBatchSize, timeSeriesLength);
+                mask.putScalar(1, timeSeriesLength - 1, 0.0);
+                mask.get(NDArrayIndex.point(2), NDArrayIndex.interval(2, timeSeriesLength)).assign(0);
+            }
+            boolean gradOK = GradientCheckUtil.checkGradients(new GradientCheckUtil.MLNConfig().net(net).input(input)
+                    .labels(labels).inputMask(mask).labelMask(mask));
+            assertTrue(gradOK, "masked=" + masked);
+        }
+    }
+
     @Test
     @DisplayName("Test Single Example")
     void testSingleExample() {
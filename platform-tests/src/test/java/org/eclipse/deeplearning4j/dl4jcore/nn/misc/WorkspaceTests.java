@@ -24,6 +24,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.BaseDL4JTest;
 import org.deeplearning4j.nn.api.MaskState;
 import org.deeplearning4j.nn.conf.*;
+import org.deeplearning4j.nn.conf.graph.MergeVertex;
 import org.deeplearning4j.nn.conf.graph.rnn.LastTimeStepVertex;
 import org.deeplearning4j.nn.conf.inputs.InputType;
 import org.deeplearning4j.nn.conf.layers.*;
@@ -40,6 +41,7 @@ import org.junit.jupiter.api.Test;
 import org.nd4j.common.tests.tags.NativeTag;
 import org.nd4j.common.tests.tags.TagNames;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
 import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
@@ -699,4 +701,135 @@ public class WorkspaceTests extends BaseDL4JTest {
             }
         }
     }
+
+    @Test
+    public void testActivationCheckpointingMLN() {
+        INDArray f = Nd4j.rand(DataType.FLOAT, 8, 10);
+        INDArray l = Nd4j.rand(DataType.FLOAT, 8, 5);
+
+        for (int test = 0; test < 3; test++) {
+            MultiLayerNetwork base = new MultiLayerNetwork(checkpointMLNConf(test, false));
+            base.init();
+            MultiLayerNetwork checkpointed = new MultiLayerNetwork(checkpointMLNConf(test, true));
+            checkpointed.init();
+            assertEquals(base.params(), checkpointed.params());
+
+            for (int i = 0; i < 3; i++) {
+                Nd4j.getRandom().setSeed(12345 + i);
+                base.setInput(f);
+                base.setLabels(l);
+                base.computeGradientAndScore();
+
+                Nd4j.getRandom().setSeed(12345 + i);
+                checkpointed.setInput(f);
+                checkpointed.setLabels(l);
+                checkpointed.computeGradientAndScore();
+
+                String msg = "Test " + test + ", iter " + i;
+                assertEquals(base.score(), checkpointed.score(), 1e-5, msg);
+                assertEquals(base.getFlattenedGradients(), checkpointed.getFlattenedGradients(), msg);
+
+                Nd4j.getRandom().setSeed(12345 + i);
+                base.fit(f, l);
+                Nd4j.getRandom().setSeed(12345 + i);
+                checkpointed.fit(f, l);
+                assertEquals(base.params(), checkpointed.params(), msg);
+            }
+        }
+    }
+
+    private static MultiLayerConfiguration checkpointMLNConf(int test, boolean checkpointing) {
+        NeuralNetConfiguration.ListBuilder b = new NeuralNetConfiguration.Builder()
+                .dataType(DataType.FLOAT)
+                .seed(12345)
+                .updater(new Adam(0.01))
+                .dropOut(0.8)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(10).nOut(16).activation(Activation.TANH).build())
+                .layer(new DenseLayer.Builder().nIn(16).nOut(16).activation(Activation.TANH).build())
+                .layer(new DenseLayer.Builder().nIn(16).nOut(16).activation(Activation.TANH).build())
+                .layer(new DenseLayer.Builder().nIn(16).nOut(16).activation(Activation.TANH).build())
+                .layer(new OutputLayer.Builder().nIn(16).nOut(5).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build());
+        if (checkpointing) {
+            switch (test) {
+                case 0:
+                    b.activationCheckpoints(1);
+                    break;
+                case 1:
+                    b.activationCheckpoints(0, 2);
+                    break;
+                case 2:
+                    //8 examples x 16 values x 4 bytes -> segments of 2 layers
+                    b.activationCheckpointMemoryBudget(2 * 8 * 16 * 4);
+                    break;
+            }
+        }
+        return b.build();
+    }
+
+    @Test
+    public void testActivationCheckpointingCG() {
+        INDArray f = Nd4j.rand(DataType.FLOAT, 8, 10);
+        INDArray l1 = Nd4j.rand(DataType.FLOAT, 8, 5);
+        INDArray l2 = Nd4j.rand(DataType.FLOAT, 8, 3);
+
+        for (int test = 0; test < 2; test++) {
+            ComputationGraph base = new ComputationGraph(checkpointCGConf(test, false));
+            base.init();
+            ComputationGraph checkpointed = new ComputationGraph(checkpointCGConf(test, true));
+            checkpointed.init();
+            assertEquals(base.params(), checkpointed.params());
+
+            for (int i = 0; i < 3; i++) {
+                Nd4j.getRandom().setSeed(12345 + i);
+                base.setInputs(f);
+                base.setLabels(l1, l2);
+                base.computeGradientAndScore();
+
+                Nd4j.getRandom().setSeed(12345 + i);
+                checkpointed.setInputs(f);
+                checkpointed.setLabels(l1, l2);
+                checkpointed.computeGradientAndScore();
+
+                String msg = "Test " + test + ", iter " + i;
+                assertEquals(base.score(), checkpointed.score(), 1e-5, msg);
+                assertEquals(base.getFlattenedGradients(), checkpointed.getFlattenedGradients(), msg);
+
+                Nd4j.getRandom().setSeed(12345 + i);
+                base.fit(new INDArray[]{f}, new INDArray[]{l1, l2});
+                Nd4j.getRandom().setSeed(12345 + i);
+                checkpointed.fit(new INDArray[]{f}, new INDArray[]{l1, l2});
+                assertEquals(base.params(), checkpointed.params(), msg);
+            }
+        }
+    }
+
+    private static ComputationGraphConfiguration checkpointCGConf(int test, boolean checkpointing) {
+        ComputationGraphConfiguration.GraphBuilder b = new NeuralNetConfiguration.Builder()
+                .dataType(DataType.FLOAT)
+                .seed(12345)
+                .updater(new Adam(0.01))
+                .dropOut(0.8)
+                .graphBuilder()
+                .addInputs("in")
+                .addLayer("0", new DenseLayer.Builder().nIn(10).nOut(16).activation(Activation.TANH).build(), "in")
+                .addLayer("1", new DenseLayer.Builder().nIn(16).nOut(16).activation(Activation.TANH).build(), "0")
+                .addLayer("2", new DenseLayer.Builder().nIn(16).nOut(16).activation(Activation.TANH).build(), "1")
+                .addVertex("merge", new MergeVertex(), "0", "2")
+                .addLayer("3", new DenseLayer.Builder().nIn(32).nOut(16).activation(Activation.TANH).build(), "merge")
+                .addLayer("out1", new OutputLayer.Builder().nIn(16).nOut(5).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build(), "3")
+                .addLayer("out2", new OutputLayer.Builder().nIn(16).nOut(3).activation(Activation.IDENTITY)
+                        .lossFunction(LossFunctions.LossFunction.MSE).build(), "1")
+                .setOutputs("out1", "out2");
+        if (checkpointing) {
+            if (test == 0) {
+                b.activationCheckpoints("2");
+            } else {
+                b.activationCheckpointMemoryBudget(8 * 16 * 4);
+            }
+        }
+        return b.build();
+    }
 }
@@ -0,0 +1,229 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.eclipse.deeplearning4j.dl4jcore.nn.updater;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.datasets.iterator.utilty.ListDataSetIterator;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.LSTM;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nd4j.common.tests.tags.NativeTag;
+import org.nd4j.common.tests.tags.TagNames;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@NativeTag
+@Tag(TagNames.DL4J_OLD_API)
+public class TestGradientAccumulation extends BaseDL4JTest {
+
+    @Test
+    public void testAccumulationMatchesLargerMinibatch() {
+        DataSet all = data(32);
+        List<DataSet> micro = all.batchBy(8);
+
+        MultiLayerNetwork base = new MultiLayerNetwork(conf(1));
+        base.init();
+        MultiLayerNetwork acc = new MultiLayerNetwork(conf(4));
+        acc.init();
+        assertEquals(base.params(), acc.params());
+
+        for (int i = 0; i < 3; i++) {
+            base.fit(all);
+            for (int j = 0; j < micro.size(); j++) {
+                INDArray before = acc.params().dup();
+                acc.fit(micro.get(j));
+                if (j < micro.size() - 1) {
+                    //No parameter update until the last micro-batch
+                    assertEquals(before, acc.params());
+                }
+            }
+            assertTrue(base.params().equalsWithEps(acc.params(), 1e-8));
+            assertEquals(base.score(), acc.score(), 1e-8);
+        }
+        assertEquals(3, acc.getIterationCount());
+    }
+
+    @Test
+    public void testAccumulationFlushAtEndOfEpoch() {
+        DataSet all = data(24);
+        List<DataSet> micro = all.batchBy(8);
+
+        //3 micro-batches with 2 accumulation steps: one update with 16 examples, then one with the remaining 8
+        MultiLayerNetwork base = new MultiLayerNetwork(conf(1));
+        base.init();
+        MultiLayerNetwork acc = new MultiLayerNetwork(conf(2));
+        acc.init();
+
+        for (int i = 0; i < 2; i++) {
+            base.fit(DataSet.merge(Arrays.asList(micro.get(0), micro.get(1))));
+            base.fit(micro.get(2));
+            acc.fit(new ListDataSetIterator<>(micro, 1));
+            assertTrue(base.params().equalsWithEps(acc.params(), 1e-8));
+        }
+        assertEquals(4, acc.getIterationCount());
+        assertEquals(2, acc.getEpochCount());
+    }
+
+    @Test
+    public void testAccumulationComputationGraph() {
+        DataSet all = data(32);
+        List<DataSet> micro = all.batchBy(16);
+
+        ComputationGraph base = new ComputationGraph(graphConf(1));
+        base.init();
+        ComputationGraph acc = new ComputationGraph(graphConf(2));
+        acc.init();
+
+        for (int i = 0; i < 3; i++) {
+            base.fit(all);
+            acc.fit(new ListDataSetIterator<>(micro, 1));
+            assertTrue(base.params().equalsWithEps(acc.params(), 1e-8));
+        }
+        assertEquals(3, acc.getIterationCount());
+    }
+
+    @Test
+    public void testAccumulationMaskedRnn() {
+        //Variable length time series: micro-batches with feature and label masks should match one large minibatch
+        int n = 16;
+        int tsLength = 6;
+        Nd4j.getRandom().setSeed(12345);
+        INDArray f = Nd4j.rand(DataType.DOUBLE, n, 4, tsLength);
+        INDArray l = Nd4j.zeros(DataType.DOUBLE, n, 3, tsLength);
+        INDArray mask = Nd4j.zeros(DataType.DOUBLE, n, tsLength);
+        for (int i = 0; i < n; i++) {
+            int length = 2 + i % (tsLength - 1);
+            for (int t = 0; t < tsLength; t++) {
+                l.putScalar(new int[]{i, (i + t) % 3, t}, 1.0);
+                if (t < length) {
+                    mask.putScalar(i, t, 1.0);
+                }
+            }
+        }
+        DataSet all = new DataSet(f, l, mask, mask.dup());
+        List<DataSet> micro = Arrays.asList(rows(all, 0, 8), rows(all, 8, n));
+
+        MultiLayerNetwork base = new MultiLayerNetwork(rnnConf(1));
+        base.init();
+        MultiLayerNetwork acc = new MultiLayerNetwork(rnnConf(2));
+        acc.init();
+
+        for (int i = 0; i < 3; i++) {
+            base.fit(all);
+            acc.fit(micro.get(0));
+            acc.fit(micro.get(1));
+            assertTrue(base.params().equalsWithEps(acc.params(), 1e-8), "Iteration " + i);
+            assertEquals(base.score(), acc.score(), 1e-8);
+        }
+        assertEquals(3, acc.getIterationCount());
+    }
+
+    @Test
+    public void testAccumulationConfigSerialization() {
+        MultiLayerConfiguration conf = conf(4);
+        assertEquals(4, conf.getGradientAccumulationSteps());
+        assertEquals(conf, MultiLayerConfiguration.fromJson(conf.toJson()));
+
+        ComputationGraphConfiguration cgc = graphConf(3);
+        assertEquals(3, cgc.getGradientAccumulationSteps());
+        assertEquals(cgc, ComputationGraphConfiguration.fromJson(cgc.toJson()));
+        assertEquals(3, cgc.clone().getGradientAccumulationSteps());
+    }
+
+    private static DataSet data(int n) {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray f = Nd4j.rand(DataType.DOUBLE, n, 10);
+        INDArray l = Nd4j.zeros(DataType.DOUBLE, n, 3);
+        for (int i = 0; i < n; i++) {
+            l.putScalar(i, i % 3, 1.0);
+        }
+        return new DataSet(f, l);
+    }
+
+    private static DataSet rows(DataSet ds, int from, int to) {
+        return new DataSet(
+                ds.getFeatures().get(NDArrayIndex.interval(from, to), NDArrayIndex.all(), NDArrayIndex.all()).dup(),
+                ds.getLabels().get(NDArrayIndex.interval(from, to), NDArrayIndex.all(), NDArrayIndex.all()).dup(),
+                ds.getFeaturesMaskArray().get(NDArrayIndex.interval(from, to), NDArrayIndex.all()).dup(),
+                ds.getLabelsMaskArray().get(NDArrayIndex.interval(from, to), NDArrayIndex.all()).dup());
+    }
+
+    private static MultiLayerConfiguration rnnConf(int accumulationSteps) {
+        return new NeuralNetConfiguration.Builder()
+                .dataType(DataType.DOUBLE)
+                .seed(12345)
+                .updater(new Adam(0.01))
+                .list()
+                .layer(new LSTM.Builder().nIn(4).nOut(8).activation(Activation.TANH).build())
+                .layer(new RnnOutputLayer.Builder().nIn(8).nOut(3).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build())
+                .gradientAccumulationSteps(accumulationSteps)
+                .build();
+    }
+
+    private static MultiLayerConfiguration conf(int accumulationSteps) {
+        return new NeuralNetConfiguration.Builder()
+                .dataType(DataType.DOUBLE)
+                .seed(12345)
+                .updater(new Adam(0.01))
+                .l2(1e-4)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(10).nOut(16).activation(Activation.TANH).build())
+                .layer(new OutputLayer.Builder().nIn(16).nOut(3).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build())
+                .gradientAccumulationSteps(accumulationSteps)
+                .build();
+    }
+
+    private static ComputationGraphConfiguration graphConf(int accumulationSteps) {
+        return new NeuralNetConfiguration.Builder()
+                .dataType(DataType.DOUBLE)
+                .seed(12345)
+                .updater(new Adam(0.01))
+                .graphBuilder()
+                .addInputs("in")
+                .addLayer("0", new DenseLayer.Builder().nIn(10).nOut(16).activation(Activation.TANH).build(), "in")
+                .addLayer("out", new OutputLayer.Builder().nIn(16).nOut(3).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build(), "0")
+                .setOutputs("out")
+                .gradientAccumulationSteps(accumulationSteps)
+                .build();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.eclipse.deeplearning4j.dl4jcore.nn.updater;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MixedPrecision;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.gradient.DefaultGradient;
+import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.updater.BaseMultiLayerUpdater;
+import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
+import org.deeplearning4j.optimize.api.BaseTrainingListener;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nd4j.common.tests.tags.NativeTag;
+import org.nd4j.common.tests.tags.TagNames;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@NativeTag
+@Tag(TagNames.DL4J_OLD_API)
+public class TestMixedPrecision extends BaseDL4JTest {
+
+    @Test
+    public void testMixedPrecisionMatchesFullPrecision() {
+        //With FLOAT network and master weights and a power of 2 loss scale, results should match standard training
+        DataSet ds = data(DataType.FLOAT);
+        MixedPrecision mp = MixedPrecision.builder().initialLossScale(1024).build();
+
+        MultiLayerNetwork base = new MultiLayerNetwork(conf(DataType.FLOAT, null));
+        base.init();
+        MultiLayerNetwork mixed = new MultiLayerNetwork(conf(DataType.FLOAT, mp));
+        mixed.init();
+        assertEquals(base.params(), mixed.params());
+
+        for (int i = 0; i < 5; i++) {
+            base.fit(ds);
+            mixed.fit(ds);
+            assertEquals(base.params(), mixed.params());
+            assertEquals(base.score(), mixed.score(), 1e-5);
+        }
+        assertEquals(1024.0, ((BaseMultiLayerUpdater<?>) mixed.getUpdater()).getLossScale(), 0.0);
+    }
+
+    @Test
+    public void testMixedPrecisionBFloat16() {
+        DataSet ds = data(DataType.BFLOAT16);
+        MultiLayerNetwork net = new MultiLayerNetwork(conf(DataType.BFLOAT16, new MixedPrecision()));
+        net.init();
+
+        double scoreBefore = net.score(ds);
+        for (int i = 0; i < 20; i++) {
+            net.fit(ds);
+        }
+        double scoreAfter = net.score(ds);
+        assertTrue(scoreAfter < scoreBefore, "Score did not decrease: " + scoreBefore + " -> " + scoreAfter);
+
+        BaseMultiLayerUpdater<?> u = (BaseMultiLayerUpdater<?>) net.getUpdater();
+        assertEquals(DataType.BFLOAT16, net.params().dataType());
+        assertEquals(DataType.FLOAT, u.getMasterParams().dataType());
+        assertEquals(DataType.FLOAT, u.getStateViewArray().dataType());
+        assertEquals(net.params().castTo(DataType.FLOAT), u.getMasterParams().reshape(net.params().shape()));
+    }
+
+    @Test
+    public void testLossScaleOverflowSkipsUpdate() {
+        //Loss scale large enough to overflow HALF precision gradients
+        DataSet ds = data(DataType.HALF);
+        MixedPrecision mp = MixedPrecision.builder().initialLossScale(1e12).build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf(DataType.HALF, mp));
+        net.init();
+
+        INDArray paramsBefore = net.params().dup();
+        net.fit(ds);
+        assertEquals(paramsBefore, net.params());
+        BaseMultiLayerUpdater<?> u = (BaseMultiLayerUpdater<?>) net.getUpdater();
+        assertEquals(5e11, u.getLossScale(), 1.0);
+        assertEquals(1, u.getLossScaler().getSkippedSteps());
+
+        //Loss scale should eventually be reduced to a usable value
+        for (int i = 0; i < 50 && paramsBefore.equals(net.params()); i++) {
+            net.fit(ds);
+        }
+        assertNotEquals(paramsBefore, net.params());
+        assertFalse(net.params().isNaN().any());
+    }
+
+    @Test
+    public void testMixedPrecisionComputationGraph() {
+        DataSet ds = data(DataType.BFLOAT16);
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder()
+                .dataType(DataType.BFLOAT16)
+                .mixedPrecision(new MixedPrecision())
+                .seed(12345)
+                .updater(new Adam(0.01))
+                .graphBuilder()
+                .addInputs("in")
+                .addLayer("0", new DenseLayer.Builder().nIn(10).nOut(16).activation(Activation.TANH).build(), "in")
+                .addLayer("out", new OutputLayer.Builder().nIn(16).nOut(3).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build(), "0")
+                .setOutputs("out")
+                .build();
+        ComputationGraph cg = new ComputationGraph(conf);
+        cg.init();
+
+        double scoreBefore = cg.score(ds);
+        for (int i = 0; i < 20; i++) {
+            cg.fit(ds);
+        }
+        assertTrue(cg.score(ds) < scoreBefore);
+
+        BaseMultiLayerUpdater<?> u = cg.getUpdater();
+        assertEquals(DataType.FLOAT, u.getMasterParams().dataType());
+        assertEquals(cg.params().castTo(DataType.FLOAT), u.getMasterParams().reshape(cg.params().shape()));
+    }
+
+    @Test
+    public void testExternalParamChangesAppliedToMasterWeights() {
+        DataSet ds = data(DataType.BFLOAT16);
+        MultiLayerNetwork net = new MultiLayerNetwork(conf(DataType.BFLOAT16, new MixedPrecision()));
+        net.init();
+        net.fit(ds);
+        BaseMultiLayerUpdater<?> u = (BaseMultiLayerUpdater<?>) net.getUpdater();
+
+        //setParam: master weights are re-synchronized immediately
+        net.setParam("0_W", Nd4j.zeros(DataType.BFLOAT16, 10, 16));
+        assertEquals(net.params().castTo(DataType.FLOAT), u.getMasterParams().reshape(net.params().shape()));
+
+        //In-place edit: applied to the master weights before the next update, not overwritten by them
+        net.getParam("0_W").addi(1.0);
+        net.fit(ds);
+        INDArray w = net.getParam("0_W");
+        assertTrue(w.minNumber().doubleValue() > 0.9 && w.maxNumber().doubleValue() < 1.1, w.toString());
+        assertEquals(net.params().castTo(DataType.FLOAT), u.getMasterParams().reshape(net.params().shape()));
+    }
+
+    @Test
+    public void testMixedPrecisionExternalGradients() {
+        DataSet ds = data(DataType.BFLOAT16);
+        MultiLayerNetwork net = new MultiLayerNetwork(conf(DataType.BFLOAT16, new MixedPrecision()));
+        net.init();
+        net.setInput(ds.getFeatures());
+        net.setLabels(ds.getLabels());
+        net.computeGradientAndScore();
+
+        Gradient external = new DefaultGradient(net.gradient().gradient().dup());
+        INDArray paramsBefore = net.params().dup();
+        BaseMultiLayerUpdater<?> u = (BaseMultiLayerUpdater<?>) net.getUpdater();
+        u.update(external, 0, 0, ds.numExamples(), LayerWorkspaceMgr.noWorkspaces());
+
+        //The update is applied to the master weights; the external gradient holds the update for the network params
+        assertEquals(paramsBefore, net.params());
+        assertNotEquals(0.0, external.gradient().norm1Number().doubleValue(), 0.0);
+        net.params().subi(external.gradient());
+        assertNotEquals(paramsBefore, net.params());
+        assertEquals(net.params().castTo(DataType.FLOAT), u.getMasterParams().reshape(net.params().shape()));
+    }
+
+    @Test
+    public void testMixedPrecisionUpdateVisibleToListeners() {
+        DataSet ds = data(DataType.BFLOAT16);
+        MultiLayerNetwork net = new MultiLayerNetwork(conf(DataType.BFLOAT16, new MixedPrecision()));
+        net.init();
+
+        final List<Double> updateNorms = new ArrayList<>();
+        final List<Double> paramChanges = new ArrayList<>();
+        final INDArray paramsBefore = net.params().dup();
+        net.setListeners(new BaseTrainingListener() {
+            @Override
+            public void iterationDone(Model model, int iteration, int epoch) {
+                updateNorms.add(model.gradient().gradient().norm1Number().doubleValue());
+                paramChanges.add(paramsBefore.sub(model.params()).norm1Number().doubleValue());
+                paramsBefore.assign(model.params());
+            }
+        });
+
+        for (int i = 0; i < 3; i++) {
+            net.fit(ds);
+        }
+        assertEquals(3, updateNorms.size());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(updateNorms.get(i) > 0.0, "Update not visible in iteration " + i);
+            //Update view holds exactly the change applied to the parameters
+            assertEquals(paramChanges.get(i), updateNorms.get(i), 1e-2 * updateNorms.get(i));
+        }
+    }
+
+    private static DataSet data(DataType dataType) {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray f = Nd4j.rand(DataType.FLOAT, 16, 10);
+        INDArray l = Nd4j.zeros(DataType.FLOAT, 16, 3);
+        for (int i = 0; i < 16; i++) {
+            l.putScalar(i, i % 3, 1.0);
+        }
+        return new DataSet(f.castTo(dataType), l.castTo(dataType));
+    }
+
+    private static MultiLayerConfiguration conf(DataType dataType, MixedPrecision mixedPrecision) {
+        return new NeuralNetConfiguration.Builder()
+                .dataType(dataType)
+                .mixedPrecision(mixedPrecision)
+                .seed(12345)
+                .updater(new Adam(0.01))
+                .list()
+                .layer(new DenseLayer.Builder().nIn(10).nOut(16).activation(Activation.TANH).build())
+                .layer(new OutputLayer.Builder().nIn(16).nOut(3).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build())
+                .build();
+    }
+}
@@ -26,6 +26,7 @@ import org.deeplearning4j.BaseDL4JTest;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.Updater;
 import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.GradientNormalization;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.*;
@@ -1118,4 +1119,54 @@ public class TestUpdaters extends BaseDL4JTest {
         INDArray expView3 = viewReshape.get(interval(start3, start3 + length3));
         assertEquals(expView3.reshape(l.get(2).shape()), l.get(2));
     }
+
+    @Test
+    public void testFusedRegularizationAndClipping() {
+        //Regularization and element-wise clipping are applied over contiguous ranges spanning multiple layers;
+        // results should be the same as applying them per variable/layer
+        double lr = 0.1;
+        double l1 = 1e-3;
+        double wd = 1e-2;
+        double threshold = 0.05;
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .dataType(DataType.DOUBLE)
+                .seed(12345)
+                .updater(new Sgd(lr))
+                .l1(l1).l1Bias(l1)
+                .weightDecay(wd).weightDecayBias(wd)
+                .gradientNormalization(GradientNormalization.ClipElementWiseAbsoluteValue)
+                .gradientNormalizationThreshold(threshold)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(4).nOut(5).activation(Activation.TANH).build())
+                .layer(new DenseLayer.Builder().nIn(5).nOut(5).activation(Activation.TANH).build())
+                .layer(new OutputLayer.Builder().nIn(5).nOut(3).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        BaseMultiLayerUpdater<?> u = (BaseMultiLayerUpdater<?>) net.getUpdater();
+        assertEquals(1, u.getUpdaterBlocks().size());
+        assertEquals(1, u.getUpdaterBlocks().get(0).getRegularizationRuns().size());
+
+        INDArray f = Nd4j.rand(DataType.DOUBLE, 8, 4);
+        INDArray l = Nd4j.zeros(DataType.DOUBLE, 8, 3);
+        for (int i = 0; i < 8; i++) {
+            l.putScalar(i, i % 3, 1.0);
+        }
+
+        net.setInput(f);
+        net.setLabels(l);
+        net.computeGradientAndScore();
+        INDArray p = net.params().dup();
+        INDArray g = net.getFlattenedGradients().dup().divi(8);
+        g = Transforms.max(Transforms.min(g, threshold), -threshold);
+        g.addi(Transforms.sign(p).muli(l1));
+        INDArray update = g.muli(lr).addi(p.mul(wd * lr));
+        INDArray expParams = p.sub(update);
+
+        net.fit(f, l);
+        assertTrue(expParams.equalsWithEps(net.params(), 1e-8));
+    }
 }
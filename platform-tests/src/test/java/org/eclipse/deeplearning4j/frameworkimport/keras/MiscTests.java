@@ -113,6 +113,23 @@ public class MiscTests extends BaseDL4JTest {
         }
     }
 
+    @Test()
+    @Timeout(60000L)
+    public void testImportCached(@TempDir Path testDir) throws Exception {
+        final File f = Resources.asFile("modelimport/keras/examples/mnist_mlp/mnist_mlp_tf_keras_1_model.h5");
+        File cacheDir = new File(testDir.toFile(), "cache");
+
+        MultiLayerNetwork imported = KerasModelImport.importKerasSequentialModelAndWeightsCached(f.getAbsolutePath(), false, cacheDir);
+        File[] cached = cacheDir.listFiles();
+        assertNotNull(cached);
+        assertEquals(1, cached.length);
+
+        MultiLayerNetwork fromCache = KerasModelImport.importKerasSequentialModelAndWeightsCached(f.getAbsolutePath(), false, cacheDir);
+        assertEquals(imported.getLayerWiseConfigurations(), fromCache.getLayerWiseConfigurations());
+        assertEquals(imported.params(), fromCache.params());
+        assertEquals(KerasModelImport.importKerasSequentialModelAndWeights(f.getAbsolutePath(), false).params(), fromCache.params());
+    }
+
     @Test()
     @Timeout(60000L)
     public void testModelValidatorSequential(@TempDir Path testDir) throws Exception {
@@ -81,6 +81,10 @@ import static org.eclipse.deeplearning4j.frameworkimport.tensorflow.TFGraphsSkip
 public class TFGraphTestAllHelper {
     public static final String resourceFolderVar = "DL4J_TEST_RESOURCES";
     public static TensorflowFrameworkImporter tensorflowFrameworkImporter = new TensorflowFrameworkImporter();
+    static {
+        //Intermediate node outputs are compared against TF, so they must not be optimized away
+        tensorflowFrameworkImporter.setOptimizeGraph(false);
+    }
     public final static String PRINT_GRAPH_PROP = "org.nd4j.imports.tfgraphs.printgraphs";
     public enum ExecuteWith {
         SAMEDIFF, LIBND4J, JUST_PRINT
@@ -29,11 +29,19 @@ import org.nd4j.autodiff.samediff.SDVariable;
 import org.nd4j.autodiff.samediff.SameDiff;
 import org.nd4j.autodiff.samediff.VariableType;
 import org.nd4j.autodiff.samediff.optimize.GraphOptimizer;
+import org.nd4j.autodiff.samediff.optimize.debug.OpCountOptimizationDebugger;
 import org.nd4j.autodiff.samediff.optimize.optimizations.ConstantFunctionOptimizations;
+import org.nd4j.autodiff.samediff.optimize.optimizations.ControlFlowFunctionOptimizations;
+import org.nd4j.autodiff.samediff.optimize.optimizations.FusedFunctionOptimizations;
 import org.nd4j.autodiff.samediff.optimize.optimizations.IdentityFunctionOptimizations;
+import org.nd4j.autodiff.samediff.optimize.optimizations.ShapeFunctionOptimizations;
 import org.nd4j.common.tests.tags.TagNames;
 import org.nd4j.linalg.BaseNd4jTestWithBackends;
 import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.layers.convolution.Conv2D;
+import org.nd4j.linalg.api.ops.impl.layers.convolution.config.Conv2DConfig;
+import org.nd4j.linalg.api.ops.impl.transforms.ReluLayer;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.factory.Nd4jBackend;
 
@@ -160,4 +168,170 @@ public class TestOptimization extends BaseNd4jTestWithBackends {
         assertFalse(optimized.hasVariable(i3.name()));
         assertTrue(optimized.hasVariable("out"));
     }
-}
\ No newline at end of file
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testConvBatchNormFolding(Nd4jBackend nd4jBackend) {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 3, 8, 8);
+        SDVariable w = sd.constant("w", Nd4j.rand(DataType.FLOAT, 3, 3, 3, 4));
+        SDVariable b = sd.constant("b", Nd4j.rand(DataType.FLOAT, 4));
+        SDVariable conv = sd.cnn.conv2d(in, w, b, Conv2DConfig.builder().kH(3).kW(3).build());
+        SDVariable mean = sd.constant("mean", Nd4j.rand(DataType.FLOAT, 4));
+        SDVariable var = sd.constant("var", Nd4j.rand(DataType.FLOAT, 4).addi(0.5));
+        SDVariable gamma = sd.constant("gamma", Nd4j.rand(DataType.FLOAT, 4));
+        SDVariable beta = sd.constant("beta", Nd4j.rand(DataType.FLOAT, 4));
+        SDVariable out = sd.nn.batchNorm("out", conv, mean, var, gamma, beta, 1e-5, 1);
+
+        File subDir = tempDir.resolve("conv-bn-folding").toFile();
+        assertTrue(subDir.mkdirs());
+        OptTestConfig conf = OptTestConfig.builder()
+                .original(sd)
+                .tempFolder(subDir)
+                .outputs(Collections.singletonList("out"))
+                .placeholder("in", Nd4j.rand(DataType.FLOAT, 2, 3, 8, 8))
+                .optimizerSets(GraphOptimizer.importOptimizations())
+                .mustApply(sd.getVariables().get("out").getOutputOfOp(), FusedFunctionOptimizations.FoldBatchNormIntoConv2d.class)
+                .build();
+
+        SameDiff optimized = OptimizationTestUtil.testOptimization(conf);
+        assertEquals(1, optimized.getOps().size());
+        assertTrue(optimized.getOps().values().iterator().next().getOp() instanceof Conv2D);
+        assertFalse(optimized.hasVariable(conv.name()));
+        assertTrue(optimized.hasVariable("out"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testMatMulBiasReluFusion(Nd4jBackend nd4jBackend) {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 4);
+        SDVariable w = sd.constant("w", Nd4j.rand(DataType.FLOAT, 4, 3));
+        SDVariable b = sd.constant("b", Nd4j.rand(DataType.FLOAT, 3));
+        SDVariable mmul = in.mmul(w);
+        SDVariable out = sd.nn.relu("out", mmul.add(b), 0.0);
+
+        File subDir = tempDir.resolve("matmul-bias-relu").toFile();
+        assertTrue(subDir.mkdirs());
+        OptTestConfig conf = OptTestConfig.builder()
+                .original(sd)
+                .tempFolder(subDir)
+                .outputs(Collections.singletonList("out"))
+                .placeholder("in", Nd4j.rand(DataType.FLOAT, 5, 4).subi(0.5))
+                .optimizerSets(GraphOptimizer.importOptimizations())
+                .mustApply(sd.getVariables().get(mmul.name()).getOutputOfOp(), FusedFunctionOptimizations.FuseMatMulBiasActivation.class)
+                .build();
+
+        SameDiff optimized = OptimizationTestUtil.testOptimization(conf);
+        assertEquals(1, optimized.getOps().size());
+        assertTrue(optimized.getOps().values().iterator().next().getOp() instanceof ReluLayer);
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testOptimizeInPlace(Nd4jBackend nd4jBackend) {
+        //Optimizing in place should modify and return the provided graph (no copy), with the same results
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 4);
+        SDVariable w = sd.constant("w", Nd4j.rand(DataType.FLOAT, 4, 3));
+        SDVariable b = sd.constant("b", Nd4j.rand(DataType.FLOAT, 3));
+        SDVariable out = sd.nn.relu("out", in.mmul(w).add(b), 0.0);
+
+        INDArray input = Nd4j.rand(DataType.FLOAT, 5, 4).subi(0.5);
+        INDArray expected = sd.outputSingle(Collections.singletonMap("in", input), "out");
+        int opsBefore = sd.getOps().size();
+
+        OpCountOptimizationDebugger debugger = new OpCountOptimizationDebugger(false);
+        SameDiff optimized = GraphOptimizer.optimize(sd, Collections.singletonList("out"), GraphOptimizer.importOptimizations(), debugger, true);
+        assertSame(sd, optimized);
+        assertEquals(1, optimized.getOps().size());
+        assertEquals(opsBefore, debugger.getTotalOpsBefore());
+        assertEquals(1, debugger.getTotalOpsAfter());
+        assertEquals(expected, optimized.outputSingle(Collections.singletonMap("in", input), "out"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testChainedPermuteRemoval(Nd4jBackend nd4jBackend) {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, 2, 3, 4);
+        SDVariable p1 = sd.permute(in, 0, 2, 1);
+        SDVariable p2 = sd.permute(p1, 0, 2, 1);
+        SDVariable p3 = sd.permute(p2, 1, 0, 2);
+        SDVariable p4 = sd.permute(p3, 2, 1, 0);
+        SDVariable out = p4.mul("out", 2.0);
+
+        File subDir = tempDir.resolve("chained-permutes").toFile();
+        assertTrue(subDir.mkdirs());
+        OptTestConfig conf = OptTestConfig.builder()
+                .original(sd)
+                .tempFolder(subDir)
+                .outputs(Collections.singletonList("out"))
+                .placeholder("in", Nd4j.rand(DataType.FLOAT, 2, 3, 4))
+                .optimizerSets(GraphOptimizer.importOptimizations())
+                .mustApply(sd.getVariables().get(p2.name()).getOutputOfOp(), ShapeFunctionOptimizations.FuseChainedPermutes.class)
+                .mustApply(sd.getVariables().get(p4.name()).getOutputOfOp(), ShapeFunctionOptimizations.FuseChainedPermutes.class)
+                .build();
+
+        //p1/p2 cancel out; p3/p4 are fused into a single permute
+        SameDiff optimized = OptimizationTestUtil.testOptimization(conf);
+        assertEquals(2, optimized.getOps().size());
+        assertFalse(optimized.hasVariable(p1.name()));
+        assertFalse(optimized.hasVariable(p2.name()));
+        assertFalse(optimized.hasVariable(p3.name()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testCommonSubexpressionElimination(Nd4jBackend nd4jBackend) {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 4);
+        SDVariable t1 = sd.math.tanh(in);
+        SDVariable t2 = sd.math.tanh(in);
+        SDVariable s1 = sd.sum(t1, 1);
+        SDVariable s2 = sd.sum(t2, 1);
+        SDVariable out = s1.add("out", s2);
+
+        File subDir = tempDir.resolve("cse").toFile();
+        assertTrue(subDir.mkdirs());
+        OptTestConfig conf = OptTestConfig.builder()
+                .original(sd)
+                .tempFolder(subDir)
+                .outputs(Collections.singletonList("out"))
+                .placeholder("in", Nd4j.rand(DataType.FLOAT, 5, 4))
+                .optimizerSets(GraphOptimizer.importOptimizations())
+                .build();
+
+        SameDiff optimized = OptimizationTestUtil.testOptimization(conf);
+        assertEquals(3, optimized.getOps().size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testPruneConstantSwitch(Nd4jBackend nd4jBackend) {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 4);
+        SDVariable pred = sd.constant("pred", Nd4j.scalar(true));
+        SDVariable[] sw = sd.switchOp(in, pred);
+        SDVariable falseBranch = sw[0].mul(2.0);
+        SDVariable trueBranch = sw[1].add(1.0);
+        SDVariable merge = sd.merge(falseBranch, trueBranch);
+        SDVariable out = merge.mul("out", 3.0);
+
+        File subDir = tempDir.resolve("constant-switch").toFile();
+        assertTrue(subDir.mkdirs());
+        OptTestConfig conf = OptTestConfig.builder()
+                .original(sd)
+                .tempFolder(subDir)
+                .outputs(Collections.singletonList("out"))
+                .placeholder("in", Nd4j.rand(DataType.FLOAT, 5, 4))
+                .optimizerSets(GraphOptimizer.importOptimizations())
+                .mustApply(sd.getVariables().get(sw[0].name()).getOutputOfOp(), ControlFlowFunctionOptimizations.PruneConstantSwitch.class)
+                .build();
+
+        SameDiff optimized = OptimizationTestUtil.testOptimization(conf);
+        assertEquals(2, optimized.getOps().size());
+        assertFalse(optimized.hasVariable(falseBranch.name()));
+        assertFalse(optimized.hasVariable(merge.name()));
+    }
+}
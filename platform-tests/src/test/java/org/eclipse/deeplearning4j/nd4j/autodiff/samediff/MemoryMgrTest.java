@@ -26,7 +26,14 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.nd4j.autodiff.samediff.SDVariable;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.config.ShapeBucketConfig;
 import org.nd4j.autodiff.samediff.internal.memory.ArrayCacheMemoryMgr;
+import org.nd4j.autodiff.samediff.internal.memory.BucketedMemoryMgr;
+import org.nd4j.autodiff.samediff.internal.memory.MemoryPlan;
+import org.nd4j.autodiff.samediff.internal.memory.NoOpMemoryMgr;
+import org.nd4j.autodiff.samediff.internal.memory.StaticMemoryPlanMgr;
 import org.nd4j.common.tests.tags.NativeTag;
 import org.nd4j.common.tests.tags.TagNames;
 import org.nd4j.linalg.BaseNd4jTestWithBackends;
@@ -36,6 +43,11 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.factory.Nd4jBackend;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -161,4 +173,164 @@ public class MemoryMgrTest extends BaseNd4jTestWithBackends {
         assertEquals(2000, mmgr.getLruCacheValues().size());
     }
 
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testStaticMemoryPlan(Nd4jBackend backend) {
+        StaticMemoryPlanMgr mmgr = new StaticMemoryPlanMgr(new NoOpMemoryMgr(), 4, StaticMemoryPlanMgr.DEFAULT_MAX_REPLANS);
+
+        for( int run=0; run<3; run++ ) {
+            mmgr.executionStart();
+            //a and b overlap, c can reuse a's memory, d is detached (returned to user)
+            INDArray a = mmgr.allocate(false, DataType.FLOAT, 10, 10);
+            INDArray b = mmgr.allocate(false, DataType.FLOAT, 10, 10);
+            a.assign(1.0);
+            b.assign(2.0);
+            mmgr.release(a);
+            INDArray c = mmgr.allocate(false, DataType.FLOAT, 5, 10);
+            c.assign(3.0);
+            assertEquals(Nd4j.valueArrayOf(new long[]{10, 10}, 2.0f), b);
+            INDArray d = mmgr.allocate(true, DataType.FLOAT, 10);
+            mmgr.release(b);
+            mmgr.release(c);
+            mmgr.executionEnd();
+
+            if(run == 0){
+                MemoryPlan plan = mmgr.getPlan();
+                assertNotNull(plan);
+                assertEquals(4, plan.size());
+                assertTrue(plan.get(0).isPlanned());
+                assertFalse(plan.get(3).isPlanned());
+                //2 overlapping 10x10 arrays, c fits in a's slot
+                assertEquals(200 * DataType.FLOAT.width(), plan.arenaBytes());
+                assertEquals(plan.get(0).getOffset(), plan.get(2).getOffset());
+            } else {
+                assertFalse(d.isView());
+            }
+        }
+
+        assertEquals(6, mmgr.getPlannedAllocations());
+        assertFalse(mmgr.isDisabled());
+
+        //Different shapes on every run: planning should be disabled eventually
+        for( int run=0; run<2 * StaticMemoryPlanMgr.DEFAULT_MAX_REPLANS; run++ ){
+            mmgr.executionStart();
+            INDArray a = mmgr.allocate(false, DataType.FLOAT, run + 1, 10);
+            mmgr.release(a);
+            mmgr.executionEnd();
+        }
+        assertTrue(mmgr.isDisabled());
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testStaticMemoryPlanInference(Nd4jBackend backend) {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 4);
+        SDVariable w1 = sd.var("w1", Nd4j.rand(DataType.FLOAT, 4, 8));
+        SDVariable w2 = sd.var("w2", Nd4j.rand(DataType.FLOAT, 8, 3));
+        SDVariable h = sd.nn.tanh(in.mmul(w1));
+        SDVariable out = sd.nn.softmax("out", sd.nn.tanh(h.mmul(w2)).add(1.0));
+
+        INDArray input = Nd4j.rand(DataType.FLOAT, 5, 4);
+        INDArray expected = sd.outputSingle(Collections.singletonMap("in", input), "out");
+
+        SameDiff planned = sd.dup();
+        planned.setStaticMemoryPlanning(true);
+        List<INDArray> results = new ArrayList<>();
+        for( int i=0; i<4; i++ ) {
+            results.add(planned.outputSingle(Collections.singletonMap("in", input), "out"));
+        }
+        for(INDArray r : results){
+            assertEquals(expected, r);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testBucketedMemoryMgr(Nd4jBackend backend) {
+        BucketedMemoryMgr mmgr = new BucketedMemoryMgr(new NoOpMemoryMgr(), 2);
+        String[] buckets = {"a", "a", "b", "a", "c", "b"};
+        for(String b : buckets) {
+            mmgr.setBucket(b);
+            mmgr.executionStart();
+            long len = b.charAt(0) - 'a' + 2;
+            INDArray x = mmgr.allocate(false, DataType.FLOAT, len, 4);
+            INDArray y = mmgr.allocate(false, DataType.FLOAT, len, 4);
+            mmgr.release(x);
+            mmgr.release(y);
+            mmgr.executionEnd();
+        }
+
+        //a: miss, hit; b: miss; a: hit; c: miss (evicts b); b: miss (evicts a)
+        assertEquals(2, mmgr.getHits());
+        assertEquals(4, mmgr.getMisses());
+        assertEquals(2, mmgr.getEvictions());
+        assertEquals(2, mmgr.numCachedBuckets());
+        assertEquals(2.0 / 6.0, mmgr.getHitRate(), 1e-9);
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testShapeBucketedInference(Nd4jBackend backend) {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, -1, 3);
+        SDVariable mask = sd.placeHolder("mask", DataType.FLOAT, -1, -1);
+        SDVariable h = sd.nn.tanh("h", in.mul(2.0));
+        SDVariable m = sd.expandDims(mask, 2);
+        SDVariable sum = h.add(1.0).mul(m).sum("sum", 1);
+
+        SameDiff bucketed = sd.dup();
+        bucketed.setShapeBucketConfig(ShapeBucketConfig.builder()
+                .bucket("in", 1, 4, 8)
+                .mask("mask", "in", 1)
+                .crop("h", 1, "in", 1)
+                .build());
+
+        for(long length : new long[]{3, 4, 6, 2, 10}) {
+            INDArray input = Nd4j.rand(DataType.FLOAT, 2, length, 3);
+            Map<String,INDArray> ph = new HashMap<>();
+            ph.put("in", input);
+            ph.put("mask", Nd4j.ones(DataType.FLOAT, 2, length));
+            Map<String,INDArray> expected = sd.output(ph, "h", "sum");
+
+            Map<String,INDArray> actual = bucketed.output(Collections.singletonMap("in", input), "h", "sum");
+            assertArrayEquals(expected.get("h").shape(), actual.get("h").shape());
+            assertEquals(expected.get("h"), actual.get("h"));
+            assertEquals(expected.get("sum"), actual.get("sum"));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testShapeBucketedInferenceMaskDimension(Nd4jBackend backend) {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 3, -1);
+        SDVariable mask = sd.placeHolder("mask", DataType.FLOAT, -1, 1, -1);
+        SDVariable sum = sd.nn.tanh(in).mul(mask).sum("sum", 2);
+
+        SameDiff bucketed = sd.dup();
+        bucketed.setShapeBucketConfig(ShapeBucketConfig.builder()
+                .bucket("in", 2, 4, 8)
+                .mask("mask", "in", 2, 2)
+                .build());
+
+        for(long length : new long[]{3, 5}) {
+            INDArray input = Nd4j.rand(DataType.FLOAT, 2, 3, length);
+            INDArray m = Nd4j.ones(DataType.FLOAT, 2, 1, length);
+            m.putScalar(new long[]{0, 0, length - 1}, 0.0);
+            Map<String,INDArray> ph = new HashMap<>();
+            ph.put("in", input);
+            ph.put("mask", m);
+            boolean inputCloseable = input.closeable();
+            boolean maskCloseable = m.closeable();
+            INDArray expected = sd.output(ph, "sum").get("sum");
+            INDArray actual = bucketed.output(ph, "sum").get("sum");
+            assertEquals(expected, actual);
+
+            //Caller-owned placeholder arrays are not modified
+            assertEquals(inputCloseable, input.closeable());
+            assertEquals(maskCloseable, m.closeable());
+        }
+    }
+
 }
@@ -31,7 +31,9 @@ import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.nd4j.autodiff.listeners.profiler.ProfilingListener;
+import org.nd4j.autodiff.listeners.profiler.comparison.OpRegression;
 import org.nd4j.autodiff.listeners.profiler.comparison.ProfileAnalyzer;
+import org.nd4j.autodiff.listeners.profiler.data.TraceEvent;
 import org.nd4j.autodiff.samediff.SDVariable;
 import org.nd4j.autodiff.samediff.SameDiff;
 import org.nd4j.common.tests.tags.NativeTag;
@@ -48,11 +50,13 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 @Tag(TagNames.SAMEDIFF)
 @NativeTag
 public class ProfilingListenerTest extends BaseNd4jTestWithBackends {
@@ -111,4 +115,47 @@ public class ProfilingListenerTest extends BaseNd4jTestWithBackends {
         //ProfileAnalyzer.summarizeProfile(f, ProfileAnalyzer.ProfileFormat.SAMEDIFF);
 
     }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testProfilingListenerMemoryAndRegressions(Nd4jBackend backend, @TempDir Path testDir) throws Exception {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 3);
+        SDVariable w = sd.var("w", Nd4j.rand(DataType.FLOAT, 3, 2));
+        SDVariable b = sd.var("b", Nd4j.rand(DataType.FLOAT, 1, 2));
+        sd.nn.softmax("predictions", in.mmul("matmul", w).add("addbias", b));
+
+        Map<String,INDArray> ph = new HashMap<>();
+        ph.put("in", Nd4j.rand(DataType.FLOAT, 4, 3));
+
+        File[] files = new File[2];
+        for( int p = 0; p < 2; p++) {
+            files[p] = testDir.resolve("profile" + p + ".json").toFile();
+            ProfilingListener listener = ProfilingListener.builder(files[p])
+                    .recordAll()
+                    .maxQueueSize(2)
+                    .flushChunkSize(2)
+                    .build();
+            sd.setListeners(listener);
+            for( int x = 0; x < 5; x++) {
+                sd.outputSingle(ph, "predictions");
+            }
+        }
+
+        TraceEvent[] events = ProfileAnalyzer.getTraceEvents(files[0], ProfileAnalyzer.ProfileFormat.SAMEDIFF);
+        assertEquals(15, events.length);
+        for(TraceEvent e : events) {
+            assertTrue(e.getArgs().containsKey("inputBytes"));
+            assertTrue(e.getArgs().containsKey("allocBytes"));
+            if("matmul".equals(e.getArgs().get("name"))) {
+                assertEquals(4 * 2 * 4L, ((Number) e.getArgs().get("outputBytes")).longValue());
+            }
+        }
+
+        List<OpRegression> none = ProfileAnalyzer.findRegressions(files[0], files[1], ProfileAnalyzer.ProfileFormat.SAMEDIFF, Double.MAX_VALUE, Double.MAX_VALUE);
+        assertTrue(none.isEmpty());
+        List<OpRegression> all = ProfileAnalyzer.findRegressions(files[0], files[1], ProfileAnalyzer.ProfileFormat.SAMEDIFF, -1.0, Double.MAX_VALUE);
+        assertEquals(3, all.size());
+        assertFalse(ProfileAnalyzer.regressionReport(files[0], files[1], ProfileAnalyzer.ProfileFormat.SAMEDIFF, -1.0, Double.MAX_VALUE).isEmpty());
+    }
 }
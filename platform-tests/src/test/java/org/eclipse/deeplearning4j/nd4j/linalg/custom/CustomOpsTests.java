@@ -2129,4 +2129,37 @@ public class CustomOpsTests extends BaseNd4jTestWithBackends {
 
         assertEquals(out, out2);
     }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testReusedOpContextHasNoStaleArguments(Nd4jBackend backend) {
+        //Op contexts may be reused between executions: arguments of one op must not leak into the next
+        INDArray in = Nd4j.linspace(1, 12, 12, DataType.FLOAT).reshape(3, 4);
+        for (int i = 0; i < 3; i++) {
+            INDArray alongDim = Nd4j.exec(DynamicCustomOp.builder("reduce_sum")
+                    .addInputs(in)
+                    .addIntegerArguments(1)
+                    .build())[0];
+            assertEquals(in.sum(1), alongDim);
+
+            INDArray full = Nd4j.exec(DynamicCustomOp.builder("reduce_sum")
+                    .addInputs(in)
+                    .build())[0];
+            assertEquals(78.0, full.getDouble(0), 1e-5);
+
+            INDArray clipped = Nd4j.exec(DynamicCustomOp.builder("clipbyvalue")
+                    .addInputs(in)
+                    .addFloatingPointArguments(2.0, 5.0)
+                    .build())[0];
+            assertEquals(2.0, clipped.minNumber().doubleValue(), 1e-5);
+            assertEquals(5.0, clipped.maxNumber().doubleValue(), 1e-5);
+
+            INDArray out = in.ulike();
+            Nd4j.exec(DynamicCustomOp.builder("add")
+                    .addInputs(in, in)
+                    .addOutputs(out)
+                    .build());
+            assertEquals(in.mul(2), out);
+        }
+    }
 }
@@ -33,13 +33,17 @@ import org.nd4j.common.tests.tags.TagNames;
 import org.nd4j.linalg.BaseNd4jTestWithBackends;
 import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.memory.AllocationsTracker;
+import org.nd4j.linalg.api.memory.Deallocatable;
+import org.nd4j.linalg.api.memory.Deallocator;
 import org.nd4j.linalg.api.memory.DeviceAllocationsTracker;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.deallocation.DeallocatorService;
 import org.nd4j.linalg.api.memory.enums.AllocationKind;
 import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
 import org.nd4j.linalg.api.memory.enums.LearningPolicy;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.profiler.data.eventlogger.LogEvent;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -171,6 +175,62 @@ public class AccountingTests extends BaseNd4jTestWithBackends {
         }
     }
 
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    public void testDeallocatorTrackedBytes(Nd4jBackend backend) {
+        //Separate service: the global one (and the global tracker counters) are concurrently used by other arrays
+        val service = new DeallocatorService();
+        val deallocatable = new Deallocatable() {
+            private final long id = service.nextValue();
+
+            @Override
+            public long getUniqueId() {
+                return id;
+            }
+
+            @Override
+            public Deallocator deallocator() {
+                return new Deallocator() {
+                    @Override
+                    public void deallocate() {
+                    }
+
+                    @Override
+                    public LogEvent logEvent() {
+                        return null;
+                    }
+
+                    @Override
+                    public boolean isConstant() {
+                        return false;
+                    }
+                };
+            }
+
+            @Override
+            public int targetDevice() {
+                return 0;
+            }
+
+            @Override
+            public long offHeapBytes() {
+                return 1024;
+            }
+        };
+
+        assertEquals(0, service.trackedBytes());
+        val id = service.pickObject(deallocatable);
+        assertEquals(1024, service.trackedBytes());
+
+        service.removeReference(id);
+        service.removeReference(id);
+        assertEquals(0, service.trackedBytes());
+        //Keep the object reachable until here, so that it can't be garbage collected (and released) earlier
+        assertEquals(1024, deallocatable.offHeapBytes());
+        assertTrue(AllocationsTracker.getInstance().deallocatorThreads() > 0);
+        assertTrue(AllocationsTracker.getInstance().memoryInfo().contains("Deallocator queue lag"));
+    }
+
     @Override
     public char ordering() {
         return 'c';
@@ -0,0 +1,150 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.eclipse.deeplearning4j.nd4j.linalg.memory;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.nd4j.common.tests.tags.NativeTag;
+import org.nd4j.common.tests.tags.TagNames;
+import org.nd4j.linalg.BaseNd4jTestWithBackends;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.cache.BoundedCache;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.profiler.CacheMetricsTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedCacheTests extends BaseNd4jTestWithBackends {
+
+    @Test
+    @Tag(TagNames.JAVA_ONLY)
+    public void testEvictsLeastRecentlyUsed() {
+        List<String> evicted = new ArrayList<>();
+        BoundedCache<Integer, String> cache = new BoundedCache<>("testLru", 10, Long.MAX_VALUE, s -> 8, evicted::add);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v" + i, cache.computeIfAbsent(i, k -> "v" + k));
+        }
+        assertEquals(10, cache.size());
+        assertEquals(0, cache.evictions());
+
+        //Touch 0 and 1 so they are the most recently used entries
+        assertEquals("v0", cache.get(0));
+        assertEquals("v1", cache.get(1));
+
+        cache.computeIfAbsent(10, k -> "v" + k);
+        assertTrue(cache.size() <= 10);
+        assertFalse(evicted.isEmpty());
+        assertEquals(evicted.size(), cache.evictions());
+        assertTrue(evicted.contains("v2"));
+        assertFalse(evicted.contains("v0"));
+        assertFalse(evicted.contains("v1"));
+        assertFalse(evicted.contains("v10"));
+        assertEquals(cache.size() * 8L, cache.bytes());
+
+        assertEquals(2, cache.hits());
+        assertEquals(11, cache.misses());
+        assertSame(cache, CacheMetricsTracker.getInstance().getCache("testLru"));
+    }
+
+    @Test
+    @Tag(TagNames.JAVA_ONLY)
+    public void testByteLimit() {
+        List<int[]> evicted = new ArrayList<>();
+        BoundedCache<Integer, int[]> cache = new BoundedCache<>("testBytes", 1000, 1000, a -> a.length * 4L, evicted::add);
+
+        for (int i = 0; i < 100; i++) {
+            cache.computeIfAbsent(i, k -> new int[25]);
+            assertTrue(cache.bytes() <= 1000);
+        }
+        assertTrue(cache.size() <= 10);
+        assertEquals(100 - cache.size(), evicted.size());
+
+        //Values larger than the limit are returned but never cached
+        int[] large = cache.computeIfAbsent(-1, k -> new int[1000]);
+        assertEquals(1000, large.length);
+        assertNull(cache.get(-1));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+        assertEquals(100, evicted.size());
+    }
+
+    @Test
+    @Tag(TagNames.JAVA_ONLY)
+    public void testConcurrentLookupCounters() throws Exception {
+        BoundedCache<Integer, String> cache = new BoundedCache<>("testConcurrent", 100, Long.MAX_VALUE, s -> 8, null);
+        for (int i = 0; i < 10; i++) {
+            cache.putIfAbsent(i, "v" + i);
+        }
+
+        int numThreads = 4;
+        int lookups = 10000;
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < lookups; i++) {
+                    //Keys 0 to 9 are present, 10 to 14 are not
+                    cache.get(i % 15);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        long expHits = numThreads * (long) (lookups / 15 * 10 + Math.min(lookups % 15, 10));
+        assertEquals(expHits, cache.hits());
+        assertEquals(numThreads * (long) lookups - expHits, cache.misses());
+
+        cache.resetCounters();
+        assertEquals(0, cache.hits());
+        assertEquals(0, cache.misses());
+        assertEquals(0.0, cache.hitRate(), 0.0);
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.nd4j.linalg.BaseNd4jTestWithBackends#configs")
+    @NativeTag
+    public void testConstantBufferCacheReuse(Nd4jBackend backend) {
+        float[] values = new float[]{1.0f, 2.0f, 3.0f};
+        DataBuffer first = Nd4j.getConstantHandler().getConstantBuffer(values, DataType.FLOAT);
+        DataBuffer second = Nd4j.getConstantHandler().getConstantBuffer(values.clone(), DataType.FLOAT);
+        assertSame(first, second);
+        assertEquals(2.0f, second.getFloat(1), 0.0f);
+        assertTrue(Nd4j.getConstantHandler().getCachedBytes() > 0);
+        assertTrue(Nd4j.getProfiler().cacheInfo().contains("constantBuffers"));
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.nd4j.python4j;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nd4j.common.tests.tags.NativeTag;
+import org.nd4j.common.tests.tags.TagNames;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.python4j.numpy.NumpyArray;
+import org.nd4j.python4j.numpy.PythonWorkerPool;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@NotThreadSafe
+@Tag(TagNames.FILE_IO)
+@NativeTag
+@Tag(TagNames.PYTHON)
+public class PythonWorkerPoolTest {
+
+    @BeforeAll
+    public static void init() {
+        new NumpyArray().init();
+    }
+
+    @Test
+    public void testWorkerPool() {
+        try (PythonWorkerPool pool = PythonWorkerPool.builder()
+                .numWorkers(2)
+                .setupCode("import numpy as np")
+                .code("y = x * 2 + 1\nz = np.sum(x, axis=1).astype(np.int64)")
+                .bufferBytes(1024 * 1024)
+                .build()) {
+
+            List<INDArray> in = new ArrayList<>();
+            List<CompletableFuture<Map<String, INDArray>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                //Include views, which must be copied in c order
+                INDArray x = i % 2 == 0 ? Nd4j.rand(DataType.FLOAT, 3, 4) : Nd4j.rand(DataType.FLOAT, 4, 3).transpose();
+                in.add(x);
+                futures.add(pool.execAsync(Collections.singletonMap("x", x), "y", "z"));
+            }
+
+            for (int i = 0; i < in.size(); i++) {
+                Map<String, INDArray> out = futures.get(i).join();
+                INDArray x = in.get(i);
+                assertEquals(x.mul(2).add(1), out.get("y"));
+                assertEquals(DataType.LONG, out.get("z").dataType());
+                assertArrayEquals(new long[]{3}, out.get("z").shape());
+            }
+
+            INDArray d = Nd4j.linspace(DataType.DOUBLE, 1, 6, 1).reshape(2, 3);
+            assertEquals(d.mul(2).add(1), pool.exec(Collections.singletonMap("x", d), "y").get("y"));
+        }
+    }
+
+    @Test
+    public void testWorkerPoolErrors() {
+        try (PythonWorkerPool pool = PythonWorkerPool.builder()
+                .numWorkers(1)
+                .code("y = x + undefined_variable")
+                .build()) {
+            Map<String, INDArray> in = Collections.singletonMap("x", Nd4j.ones(DataType.FLOAT, 2));
+            assertThrows(PythonException.class, () -> pool.exec(in, "y"));
+            //Worker should still be usable after an error in the user code
+            assertThrows(PythonException.class, () -> pool.exec(in, "y"));
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.bytedeco.javacpp.Loader;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 public class PythonProcess {
     private static String pythonExecutable = Loader.load(org.bytedeco.cpython.python.class);
@@ -52,6 +53,32 @@ public class PythonProcess {
         ProcessBuilder pb = new ProcessBuilder(allArgs);
         pb.inheritIO().start().waitFor();
     }
+    /**
+     * Start a Python process without waiting for it to complete. Standard error is inherited from the JVM, standard
+     * input and output are available for communication with the process.
+     *
+     * @param environment Additional environment variables for the process (may be null)
+     * @param arguments   Arguments for the Python executable
+     * @return The started process
+     */
+    public static Process start(Map<String, String> environment, String... arguments) throws IOException {
+        String[] allArgs = new String[arguments.length + 1];
+        for (int i = 0; i < arguments.length; i++){
+            allArgs[i + 1] = arguments[i];
+        }
+        allArgs[0] = pythonExecutable;
+        ProcessBuilder pb = new ProcessBuilder(allArgs);
+        if (environment != null){
+            pb.environment().putAll(environment);
+        }
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return pb.start();
+    }
+
+    public static String getPythonExecutable(){
+        return pythonExecutable;
+    }
+
     public static void pipInstall(String packageName) throws PythonException{
         try{
             run("-m", "pip", "install", packageName);
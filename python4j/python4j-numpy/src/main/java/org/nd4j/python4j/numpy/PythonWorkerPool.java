@@ -0,0 +1,399 @@
+/*
+ *  ******************************************************************************
+ *  *
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  *  See the NOTICE file distributed with this work for additional
+ *  *  information regarding copyright ownership.
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package org.nd4j.python4j.numpy;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.numpy.global.numpy;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.python4j.PythonConstants;
+import org.nd4j.python4j.PythonException;
+import org.nd4j.python4j.PythonProcess;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of Python worker processes for executing Python code on arrays in parallel.<br>
+ * {@link org.nd4j.python4j.PythonExecutioner} runs all Python code in the JVM's (single) interpreter, so Python work is
+ * serialized by the GIL. Each worker in this pool is a separate interpreter process (see {@link PythonProcess}), so
+ * workers run fully in parallel.<br>
+ * Arrays are exchanged through a memory mapped file per worker (in /dev/shm when available): input arrays are
+ * copied into the shared buffer once and used from Python as numpy views of it, and outputs are written by Python
+ * to the shared buffer and copied once into new INDArrays. Only array metadata is sent over the processes' standard
+ * input/output; there is no pickling or serialization of array data.<br>
+ * Requests are dispatched to workers round robin. Each worker processes one request at a time.<br>
+ * <br>
+ * Example:
+ * <pre>
+ * {@code
+ * try(PythonWorkerPool pool = PythonWorkerPool.builder()
+ *         .numWorkers(8)
+ *         .setupCode("import numpy as np")
+ *         .code("y = np.log1p(x) * 2")
+ *         .build()) {
+ *     INDArray y = pool.exec(Collections.singletonMap("x", x), "y").get("y");
+ * }
+ * }
+ * </pre>
+ * Variable names must be valid Python identifiers. Supported datatypes: all numeric types except BFLOAT16, and BOOL.
+ */
+@Slf4j
+public class PythonWorkerPool implements Closeable {
+
+    public static final String WORKER_SCRIPT = "python4j_worker.py";
+    public static final long DEFAULT_BUFFER_BYTES = 64L * 1024 * 1024;
+    private static final long ALIGNMENT = 64;
+
+    @Getter
+    private final int numWorkers;
+    @Getter
+    private final long bufferBytes;
+    private final List<Worker> workers = new ArrayList<>();
+    private final AtomicLong next = new AtomicLong();
+    private final List<File> tempFiles = new ArrayList<>();
+    private volatile boolean closed;
+
+    private PythonWorkerPool(Builder b) {
+        this.numWorkers = b.numWorkers;
+        this.bufferBytes = b.bufferBytes;
+        try {
+            File dir = b.sharedMemoryDir != null ? b.sharedMemoryDir : defaultSharedMemoryDir();
+            File script = tempFile(null, "python4j-worker-", ".py");
+            try (InputStream is = PythonWorkerPool.class.getResourceAsStream(WORKER_SCRIPT)) {
+                if (is == null)
+                    throw new IllegalStateException("Could not find worker script resource " + WORKER_SCRIPT);
+                Files.copy(is, script.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            File code = writeCode(b.code);
+            File setup = b.setupCode == null ? null : writeCode(b.setupCode);
+            Map<String, String> env = Collections.singletonMap("PYTHONPATH", pythonPath());
+
+            for (int i = 0; i < numWorkers; i++) {
+                workers.add(new Worker(i, dir, script, code, setup, env));
+            }
+            for (Worker w : workers) {
+                w.awaitReady();
+            }
+        } catch (IOException e) {
+            close();
+            throw new PythonException("Error starting Python worker processes", e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Execute the code on the next worker (round robin), blocking until the outputs are available
+     *
+     * @param inputs  Input arrays, by variable name
+     * @param outputs Names of the output variables to return
+     * @return Output arrays, by variable name
+     */
+    public Map<String, INDArray> exec(@NonNull Map<String, INDArray> inputs, @NonNull String... outputs) {
+        try {
+            return execAsync(inputs, outputs).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PythonException("Interrupted while waiting for Python worker", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PythonException)
+                throw (PythonException) e.getCause();
+            throw new PythonException("Error executing Python code in worker process", e.getCause());
+        }
+    }
+
+    /**
+     * Execute the code asynchronously on the next worker (round robin)
+     *
+     * @param inputs  Input arrays, by variable name
+     * @param outputs Names of the output variables to return
+     * @return Future for the output arrays, by variable name
+     */
+    public CompletableFuture<Map<String, INDArray>> execAsync(@NonNull Map<String, INDArray> inputs, @NonNull String... outputs) {
+        if (closed)
+            throw new IllegalStateException("Python worker pool has been closed");
+        for (String s : inputs.keySet())
+            checkName(s);
+        for (String s : outputs)
+            checkName(s);
+        Worker w = workers.get((int) (next.getAndIncrement() % workers.size()));
+        return CompletableFuture.supplyAsync(() -> w.exec(inputs, outputs), w.executor);
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Worker w : workers) {
+            w.close();
+        }
+        workers.clear();
+        for (File f : tempFiles) {
+            if (!f.delete())
+                f.deleteOnExit();
+        }
+        tempFiles.clear();
+    }
+
+    private static void checkName(String name) {
+        if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0)) || name.chars().anyMatch(Character::isWhitespace))
+            throw new IllegalArgumentException("Invalid Python variable name: \"" + name + "\"");
+    }
+
+    private static File defaultSharedMemoryDir() {
+        File shm = new File("/dev/shm");
+        return shm.isDirectory() && shm.canWrite() ? shm : null;
+    }
+
+    private File tempFile(File dir, String prefix, String suffix) throws IOException {
+        File f = File.createTempFile(prefix, suffix, dir);
+        f.deleteOnExit();
+        tempFiles.add(f);
+        return f;
+    }
+
+    private File writeCode(String code) throws IOException {
+        File f = tempFile(null, "python4j-worker-code-", ".py");
+        Files.write(f.toPath(), code.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private static String pythonPath() throws IOException {
+        List<String> paths = new ArrayList<>();
+        String userPath = PythonConstants.defaultPythonPath();
+        if (userPath != null && !userPath.isEmpty())
+            paths.add(userPath);
+        for (File f : org.bytedeco.cpython.global.python.cachePackages())
+            paths.add(f.getAbsolutePath());
+        for (File f : numpy.cachePackages())
+            paths.add(f.getAbsolutePath());
+        return String.join(File.pathSeparator, paths);
+    }
+
+    private static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static String arrayLine(String name, DataType dt, long offset, long[] shape) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(name).append(' ').append(dt.name()).append(' ').append(offset).append(' ').append(shape.length);
+        for (long l : shape)
+            sb.append(' ').append(l);
+        return sb.toString();
+    }
+
+    /**
+     * A single worker process, with its shared buffer and the (single) thread used to communicate with it
+     */
+    private class Worker {
+        private final int idx;
+        private final Process process;
+        private final BufferedWriter toWorker;
+        private final BufferedReader fromWorker;
+        private final MappedByteBuffer buffer;
+        private final ExecutorService executor;
+
+        private Worker(int idx, File dir, File script, File code, File setup, Map<String, String> env) throws IOException {
+            this.idx = idx;
+            File shared = tempFile(dir, "python4j-worker-" + idx + "-", ".shm");
+            try (RandomAccessFile raf = new RandomAccessFile(shared, "rw")) {
+                raf.setLength(bufferBytes);
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bufferBytes);
+            }
+            List<String> args = new ArrayList<>(Arrays.asList(script.getAbsolutePath(), shared.getAbsolutePath(),
+                    String.valueOf(bufferBytes), code.getAbsolutePath()));
+            if (setup != null)
+                args.add(setup.getAbsolutePath());
+            process = PythonProcess.start(env, args.toArray(new String[0]));
+            toWorker = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            fromWorker = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "python4j-worker-" + idx);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        private void awaitReady() throws IOException {
+            String line = fromWorker.readLine();
+            if (!"READY".equals(line))
+                throw new PythonException("Python worker " + idx + " failed to start (see standard error for details)");
+        }
+
+        private Map<String, INDArray> exec(Map<String, INDArray> inputs, String[] outputs) {
+            try {
+                StringBuilder request = new StringBuilder();
+                request.append("RUN ").append(inputs.size());
+                for (String s : outputs)
+                    request.append(' ').append(s);
+                request.append('\n');
+
+                long offset = 0;
+                for (Map.Entry<String, INDArray> e : inputs.entrySet()) {
+                    INDArray arr = e.getValue();
+                    DataType dt = arr.dataType();
+                    if (dt == DataType.BFLOAT16 || dt == DataType.UTF8 || dt == DataType.COMPRESSED || dt == DataType.UNKNOWN)
+                        throw new PythonException("Unsupported datatype for input \"" + e.getKey() + "\": " + dt);
+                    long bytes = arr.length() * dt.width();
+                    if (offset + bytes > bufferBytes) {
+                        throw new PythonException("Inputs do not fit in the shared buffer of " + bufferBytes + " bytes - " +
+                                "increase the buffer size for the pool");
+                    }
+                    if (bytes > 0) {
+                        //Bulk copy of the (c order, contiguous) array data into the shared buffer
+                        INDArray c = arr.isView() || arr.ordering() != 'c' || arr.data().length() != arr.length() ? arr.dup('c') : arr;
+                        ByteBuffer src = c.data().asNio().duplicate();
+                        src.position(0).limit((int) bytes);
+                        ByteBuffer dst = buffer.duplicate();
+                        dst.position((int) offset);
+                        dst.put(src);
+                    }
+                    request.append(arrayLine(e.getKey(), dt, offset, arr.shape())).append('\n');
+                    offset = align(offset + bytes);
+                }
+                toWorker.write(request.toString());
+                toWorker.flush();
+
+                String response = fromWorker.readLine();
+                if (response == null)
+                    throw new PythonException("Python worker " + idx + " exited unexpectedly");
+                if (response.startsWith("ERR"))
+                    throw new PythonException("Error executing Python code in worker " + idx + ": " + response.substring(3).trim());
+
+                int n = Integer.parseInt(response.split(" ")[1]);
+                Map<String, INDArray> out = new LinkedHashMap<>();
+                for (int i = 0; i < n; i++) {
+                    String[] parts = fromWorker.readLine().split(" ");
+                    DataType dt = DataType.valueOf(parts[1]);
+                    long off = Long.parseLong(parts[2]);
+                    int rank = Integer.parseInt(parts[3]);
+                    long[] shape = new long[rank];
+                    for (int j = 0; j < rank; j++)
+                        shape[j] = Long.parseLong(parts[4 + j]);
+                    INDArray arr = Nd4j.create(dt, shape);
+                    long bytes = arr.length() * dt.width();
+                    if (bytes > 0) {
+                        ByteBuffer src = buffer.duplicate();
+                        src.position((int) off).limit((int) (off + bytes));
+                        ByteBuffer dst = arr.data().asNio().duplicate();
+                        dst.position(0);
+                        dst.put(src);
+                    }
+                    out.put(parts[0], arr);
+                }
+                return out;
+            } catch (IOException e) {
+                throw new PythonException("Error communicating with Python worker " + idx, e);
+            }
+        }
+
+        private void close() {
+            executor.shutdown();
+            try {
+                if (process.isAlive()) {
+                    toWorker.write("EXIT\n");
+                    toWorker.flush();
+                    if (!process.waitFor(5, TimeUnit.SECONDS))
+                        process.destroyForcibly();
+                }
+            } catch (IOException | InterruptedException e) {
+                log.debug("Error shutting down Python worker {}", idx, e);
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    public static class Builder {
+        private int numWorkers = Runtime.getRuntime().availableProcessors();
+        private String code;
+        private String setupCode;
+        private long bufferBytes = DEFAULT_BUFFER_BYTES;
+        private File sharedMemoryDir;
+
+        /**
+         * Number of worker processes. Default: number of available processors
+         */
+        public Builder numWorkers(int numWorkers) {
+            if (numWorkers < 1)
+                throw new IllegalArgumentException("Number of workers must be >= 1, got " + numWorkers);
+            this.numWorkers = numWorkers;
+            return this;
+        }
+
+        /**
+         * Code executed for each request. Inputs are available as global variables, and outputs are read from
+         * global variables after execution.
+         */
+        public Builder code(@NonNull String code) {
+            this.code = code;
+            return this;
+        }
+
+        /**
+         * Code executed once, when each worker process starts (imports, loading models, etc)
+         */
+        public Builder setupCode(String setupCode) {
+            this.setupCode = setupCode;
+            return this;
+        }
+
+        /**
+         * Size of the shared buffer for each worker, in bytes. Must fit all inputs plus all outputs of a single
+         * request. Default: 64MB
+         */
+        public Builder bufferBytes(long bufferBytes) {
+            if (bufferBytes <= 0 || bufferBytes > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Buffer size must be between 1 and " + Integer.MAX_VALUE + " bytes, got " + bufferBytes);
+            this.bufferBytes = bufferBytes;
+            return this;
+        }
+
+        /**
+         * Directory for the shared memory files. Default: /dev/shm if available, otherwise the temporary directory
+         */
+        public Builder sharedMemoryDir(File sharedMemoryDir) {
+            this.sharedMemoryDir = sharedMemoryDir;
+            return this;
+        }
+
+        public PythonWorkerPool build() {
+            if (code == null)
+                throw new IllegalStateException("Code must be set");
+            return new PythonWorkerPool(this);
+        }
+    }
+}
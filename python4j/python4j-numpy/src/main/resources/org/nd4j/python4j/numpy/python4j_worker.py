@@ -0,0 +1,120 @@
+#  /* ******************************************************************************
+#   *
+#   *
+#   * This program and the accompanying materials are made available under the
+#   * terms of the Apache License, Version 2.0 which is available at
+#   * https://www.apache.org/licenses/LICENSE-2.0.
+#   *
+#   *  See the NOTICE file distributed with this work for additional
+#   *  information regarding copyright ownership.
+#   * Unless required by applicable law or agreed to in writing, software
+#   * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+#   * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+#   * License for the specific language governing permissions and limitations
+#   * under the License.
+#   *
+#   * SPDX-License-Identifier: Apache-2.0
+#   ******************************************************************************/
+
+# Worker process for org.nd4j.python4j.numpy.PythonWorkerPool
+#
+# Arrays are exchanged through a memory mapped file shared with the JVM: inputs are numpy views of the shared buffer
+# (no copy), outputs are written to the buffer after the inputs. Only array metadata goes through stdin/stdout:
+#   request:  RUN <numInputs> <outputName>...   followed by one line per input
+#   response: OK <numOutputs>                   followed by one line per output, or ERR <message>
+# where each array line is: <name> <dataType> <offset> <rank> <shape>...
+
+import sys
+import mmap
+import traceback
+
+import numpy as np
+
+_DTYPES = {'DOUBLE': np.float64, 'FLOAT': np.float32, 'HALF': np.float16, 'LONG': np.int64, 'INT': np.int32,
+           'SHORT': np.int16, 'BYTE': np.int8, 'UBYTE': np.uint8, 'UINT16': np.uint16, 'UINT32': np.uint32,
+           'UINT64': np.uint64, 'BOOL': np.bool_}
+_NAMES = dict((np.dtype(v), k) for k, v in _DTYPES.items())
+_ALIGN = 64
+
+
+def _align(offset):
+    return (offset + _ALIGN - 1) // _ALIGN * _ALIGN
+
+
+def _read_array(line):
+    parts = line.split()
+    rank = int(parts[3])
+    shape = tuple(int(d) for d in parts[4:4 + rank])
+    return parts[0], _DTYPES[parts[1]], int(parts[2]), shape
+
+
+def _exec_file(path, scope):
+    with open(path) as f:
+        exec(compile(f.read(), path, 'exec'), scope)
+
+
+def main():
+    shm_path, capacity, code_path = sys.argv[1], int(sys.argv[2]), sys.argv[3]
+    with open(shm_path, 'r+b') as f:
+        buf = mmap.mmap(f.fileno(), capacity)
+
+    protocol_in, protocol_out = sys.stdin, sys.stdout
+    sys.stdout = sys.stderr  # User code output must not interfere with the protocol
+
+    scope = {'__name__': '__python4j_worker__'}
+    if len(sys.argv) > 4:
+        _exec_file(sys.argv[4], scope)
+    with open(code_path) as f:
+        code = compile(f.read(), code_path, 'exec')
+
+    protocol_out.write('READY\n')
+    protocol_out.flush()
+    while True:
+        line = protocol_in.readline()
+        if not line or line.strip() == 'EXIT':
+            break
+        parts = line.split()
+        input_lines = [protocol_in.readline() for _ in range(int(parts[1]))]
+        output_names = parts[2:]
+        try:
+            end = 0
+            for l in input_lines:
+                name, dtype, offset, shape = _read_array(l)
+                arr = np.ndarray(shape, dtype=dtype, buffer=buf, offset=offset)
+                scope[name] = arr
+                end = max(end, offset + arr.nbytes)
+
+            exec(code, scope)
+
+            response = []
+            offset = _align(end)
+            for name in output_names:
+                arr = np.asarray(scope[name])
+                if arr.dtype not in _NAMES:
+                    raise TypeError('Unsupported dtype for output "%s": %s' % (name, arr.dtype))
+                if offset + arr.nbytes > capacity:
+                    raise MemoryError('Output "%s" does not fit in the shared buffer: %d bytes required, capacity %d'
+                                      % (name, offset + arr.nbytes, capacity))
+                np.ndarray(arr.shape, dtype=arr.dtype, buffer=buf, offset=offset)[...] = arr
+                response.append('%s %s %d %d %s' % (name, _NAMES[arr.dtype], offset, arr.ndim,
+                                                    ' '.join(str(d) for d in arr.shape)))
+                offset = _align(offset + arr.nbytes)
+            protocol_out.write('OK %d\n' % len(response))
+            for r in response:
+                protocol_out.write(r + '\n')
+        except Exception as e:
+            traceback.print_exc()
+            protocol_out.write('ERR %s\n' % repr(e).replace('\n', ' '))
+        finally:
+            # Drop references to the shared buffer before the next request overwrites it
+            for l in input_lines:
+                scope.pop(l.split()[0], None)
+        protocol_out.flush()
+    try:
+        buf.close()
+    except BufferError:
+        pass  # User code kept references to the shared buffer; released on exit
+
+
+if __name__ == '__main__':
+    main()